@@ -0,0 +1,54 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+// Search latency benchmark for /api/listings/search/advanced.
+// 1. Seed the database with scripts/load-tests/seed-listings.sql (100k, 500k, 1M listings).
+// 2. Start the backend with SEARCH_BACKEND=like|fulltext|index.
+// 3. BACKEND=fulltext LISTINGS=500k k6 run backend/scripts/load-tests/k6-search-benchmark.js
+// Compare the p(95) of search_latency{sort:...} across runs.
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TEST_EMAIL = __ENV.TEST_EMAIL || 'admin@campusmarket.com';
+const TEST_PASSWORD = __ENV.TEST_PASSWORD || 'demo123';
+const BACKEND = __ENV.BACKEND || 'unknown';
+const LISTINGS = __ENV.LISTINGS || 'unknown';
+
+const TERMS = ['calculator', 'textbook', 'desk', 'CMPE 202', 'graphing calculator', 'wireless headphones', 'lamp', 'ca'];
+const SORTS = ['newest', 'price_asc', 'relevance'];
+
+const searchLatency = new Trend('search_latency', true);
+
+export const options = {
+  scenarios: {
+    search: {
+      executor: 'constant-arrival-rate',
+      rate: Number(__ENV.RATE || 20),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: Number(__ENV.VUS || 20),
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  const login = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({ email: TEST_EMAIL, password: TEST_PASSWORD }), {
+    headers: { 'Content-Type': 'application/json' },
+  });
+  check(login, { 'login ok': (res) => res.status === 200 });
+  return { token: login.json('token') };
+}
+
+export default function (data) {
+  const term = TERMS[Math.floor(Math.random() * TERMS.length)];
+  const sort = SORTS[Math.floor(Math.random() * SORTS.length)];
+  const url = `${BASE_URL}/api/listings/search/advanced?searchTerm=${encodeURIComponent(term)}&sortBy=${sort}&page=0&size=20`;
+
+  const res = http.get(url, { headers: { Authorization: `Bearer ${data.token}` } });
+  check(res, { 'search 200': (r) => r.status === 200 });
+  searchLatency.add(res.timings.duration, { backend: BACKEND, listings: LISTINGS, sort });
+}
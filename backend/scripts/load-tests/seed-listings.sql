@@ -0,0 +1,41 @@
+-- Seed synthetic listings for search benchmarks.
+-- Usage (against a disposable database, never production):
+--   mysql campusMarket -e "SET @listing_count = 100000; SOURCE backend/scripts/load-tests/seed-listings.sql"
+-- Re-run with 500000 / 1000000 to grow the table. Remove with:
+--   DELETE FROM listings WHERE description LIKE '[bench]%';
+-- Requires at least one user and one category (DataInitializer creates both).
+
+SET @listing_count := COALESCE(@listing_count, 100000);
+SET SESSION cte_max_recursion_depth = 10000000;
+
+SET @seller_id := (SELECT id FROM users ORDER BY created_at LIMIT 1);
+
+DROP TEMPORARY TABLE IF EXISTS bench_categories;
+CREATE TEMPORARY TABLE bench_categories AS
+    SELECT id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS idx FROM categories;
+SET @category_count := (SELECT COUNT(*) FROM bench_categories);
+
+INSERT INTO listings (id, seller_id, title, description, price, category_id, `condition`, status, created_at)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < @listing_count
+)
+SELECT
+    UUID(),
+    @seller_id,
+    CONCAT(
+        ELT(1 + n % 12, 'Graphing', 'Used', 'New', 'Vintage', 'Compact', 'Wooden', 'Wireless', 'Portable',
+                        'Ergonomic', 'Scientific', 'Classic', 'Mini'), ' ',
+        ELT(1 + (n DIV 12) % 16, 'calculator', 'textbook', 'desk', 'lamp', 'laptop', 'chair', 'monitor', 'backpack',
+                                 'bike', 'headphones', 'notebook', 'guitar', 'microwave', 'jacket', 'keyboard', 'printer'), ' ',
+        ELT(1 + n % 7, 'CMPE 202', 'CS 146', 'MATH 31', 'PHYS 50', 'EE 98', 'BUS 20', 'ENGL 1A')
+    ),
+    CONCAT('[bench] ', REPEAT('Lightly used item in good shape, pick up on campus. ', 1 + n % 4), 'Listing #', n),
+    ROUND(5 + (n * 7919) % 50000 / 100, 2),
+    bc.id,
+    ELT(1 + n % 5, 'NEW', 'LIKE_NEW', 'GOOD', 'FAIR', 'POOR'),
+    ELT(1 + n % 10, 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'SOLD', 'PENDING', 'DRAFT'),
+    NOW() - INTERVAL (n % 525600) MINUTE
+FROM seq
+JOIN bench_categories bc ON bc.idx = n % @category_count;
+
+DROP TEMPORARY TABLE bench_categories;
@@ -0,0 +1,45 @@
+package com.campus.marketplace.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.service.OpenAiService;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared OpenAI client. One OkHttp client (connection pool, dispatcher threads) serves every
+ * chatbot query, so requests reuse warm TLS connections instead of building a client per call.
+ */
+@Configuration
+public class OpenAiConfig {
+
+    /**
+     * Long-lived OpenAiService; its executor is shut down with the context.
+     * The library default keeps idle connections for one second, which is shorter than the gap
+     * between most chatbot queries, so the pool is rebuilt with a longer keep-alive.
+     * openai.base-url points the client at another endpoint (e.g. a local stub server in tests).
+     */
+    @Bean(destroyMethod = "shutdownExecutor")
+    public OpenAiService openAiService(
+            @Value("${openai.api-key}") String apiKey,
+            @Value("${openai.timeout:10s}") Duration timeout,
+            @Value("${openai.pool.max-idle-connections:5}") int maxIdleConnections,
+            @Value("${openai.pool.keep-alive:5m}") Duration keepAlive,
+            @Value("${openai.base-url:https://api.openai.com/}") String baseUrl) {
+        ObjectMapper mapper = OpenAiService.defaultObjectMapper();
+        OkHttpClient client = OpenAiService.defaultClient(apiKey, timeout).newBuilder()
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+            .build();
+        OpenAiApi api = OpenAiService.defaultRetrofit(client, mapper).newBuilder()
+            .baseUrl(baseUrl)
+            .build()
+            .create(OpenAiApi.class);
+        return new OpenAiService(api, client.dispatcher().executorService());
+    }
+}
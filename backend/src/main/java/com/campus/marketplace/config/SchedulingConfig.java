@@ -0,0 +1,25 @@
+package com.campus.marketplace.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * One scheduler for the application's background work: the startup listing scan that builds the
+ * in-memory indexes, their periodic refreshes, the query log drain and the message stream heartbeats.
+ * Pool size and thread names come from spring.task.scheduling.*.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * Daemon threads, so a long startup scan never holds up shutdown.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        ThreadPoolTaskScheduler scheduler = builder.build();
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
@@ -3,11 +3,13 @@ package com.campus.marketplace.controller;
 import com.campus.marketplace.dto.CategoryDTO;
 import com.campus.marketplace.entity.Category;
 import com.campus.marketplace.service.CategoryService;
+import com.campus.marketplace.util.ETags;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -50,14 +52,18 @@ public class CategoryController {
     }
     
     /**
-     * List all categories.
-     * @return 200 with list of CategoryDTO
+     * List all categories. The response carries a strong ETag over the category ids and names.
+     * @param webRequest current request (for If-None-Match)
+     * @return 200 with list of CategoryDTO, or 304 if unchanged
      */
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest webRequest) {
         List<CategoryDTO> categories = categoryService.getAllCategories().stream()
                 .map(CategoryDTO::new)
                 .collect(Collectors.toList());
+        if (webRequest.checkNotModified(ETags.forContent(categories, category -> category.getId() + ":" + category.getName()))) {
+            return null;
+        }
         return ResponseEntity.ok(categories);
     }
     
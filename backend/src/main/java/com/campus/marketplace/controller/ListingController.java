@@ -1,17 +1,27 @@
 package com.campus.marketplace.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -26,19 +36,37 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.campus.marketplace.dto.AutocompleteSuggestionDTO;
 import com.campus.marketplace.dto.ChatbotSearchRequest;
 import com.campus.marketplace.dto.ChatbotSearchResponse;
+import com.campus.marketplace.dto.CursorPage;
+import com.campus.marketplace.dto.ListingFacetsDTO;
 import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.ListingSearchPage;
+import com.campus.marketplace.dto.ScoredListingDTO;
+import com.campus.marketplace.dto.SearchQueryStatsDTO;
 import com.campus.marketplace.entity.Category;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.repository.ListingVersion;
 import com.campus.marketplace.service.CategoryService;
 import com.campus.marketplace.service.ChatbotSearchService;
+import com.campus.marketplace.service.ListingAutocompleteIndex;
+import com.campus.marketplace.service.ListingFacetIndex;
 import com.campus.marketplace.service.ListingService;
+import com.campus.marketplace.service.ListingSpellingIndex;
+import com.campus.marketplace.service.SearchQueryLog;
 import com.campus.marketplace.service.UserService;
+import com.campus.marketplace.util.ETags;
 import com.campus.marketplace.util.JwtUtil;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import jakarta.validation.Valid;
 
 /**
@@ -46,9 +74,17 @@ import jakarta.validation.Valid;
  */
 @RestController
 @RequestMapping("/api/listings")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ListingController.DID_YOU_MEAN_HEADER)
 public class ListingController {
     
+    /** Spelling-corrected search term (percent-encoded) whose results GET /search returned. */
+    public static final String DID_YOU_MEAN_HEADER = "X-Did-You-Mean";
+    
+    // streamed chatbot searches end well before this (openai.stream-latency-budget)
+    private static final long CHATBOT_STREAM_TIMEOUT_MS = 30_000;
+    
+    private static final int MAX_TOP_QUERIES = 200;
+    
     @Autowired
     private ListingService listingService;
     
@@ -61,9 +97,31 @@ public class ListingController {
     @Autowired
     private ChatbotSearchService chatbotSearchService;
     
+    @Autowired
+    private ListingFacetIndex listingFacetIndex;
+    
+    @Autowired
+    private ListingSpellingIndex listingSpellingIndex;
+    
+    @Autowired
+    private ListingAutocompleteIndex listingAutocompleteIndex;
+    
+    @Autowired
+    private SearchQueryLog searchQueryLog;
+    
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Strong ETag for a page of listings: ids and update times of the rows plus paging metadata
+    private String pageETag(Page<ListingDTO> listings) {
+        return ETags.forContent(listings.getContent(),
+                listing -> listing.getId() + ":" + ETags.toEpochMilli(listing.getUpdatedAt()),
+                listings.getNumber(), listings.getSize(), listings.getTotalElements());
+    }
+    
     // Helper method to get user ID from JWT token
     private String getUserIdFromToken(String authHeader) {
         if (authHeader == null || authHeader.length() < 7 || !authHeader.startsWith("Bearer ")) {
@@ -129,27 +187,81 @@ public class ListingController {
     }
     
     /**
-     * Get listing by id.
+     * Get listing by id. Responses carry a strong ETag (id + updatedAt + seller and category names) and
+     * Last-Modified; conditional requests are answered from a version lookup without loading the listing.
+     * Last-Modified only follows the listing row, so a client revalidating with If-Modified-Since alone
+     * misses seller and category renames; If-None-Match takes precedence and catches them.
      * @param id listing id
-     * @return 200 with ListingDTO or 404 if not found
+     * @param webRequest current request (for If-None-Match / If-Modified-Since)
+     * @return 200 with ListingDTO, 304 if unchanged, or 404 if not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ListingDTO> getListingById(@PathVariable String id) {
-        return listingService.getListingById(id)
-                .map(listing -> ResponseEntity.ok(new ListingDTO(listing)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ListingDTO> getListingById(@PathVariable String id, WebRequest webRequest) {
+        if (ETags.isConditional(webRequest)) {
+            Optional<ListingVersion> version = listingService.getListingVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            LocalDateTime updatedAt = version.get().getUpdatedAt();
+            String eTag = ETags.forVersion(id, updatedAt, version.get().getSellerName(), version.get().getCategoryName());
+            if (webRequest.checkNotModified(eTag, ETags.toEpochMilli(updatedAt))) {
+                return null;
+            }
+            // the body must match the tag just set, not an older cached rendering
+            Optional<ListingDTO> listing = listingService.getListingDTOById(id, version.get());
+            return listing.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        }
+        Optional<ListingDTO> listing = listingService.getListingDTOById(id);
+        if (listing.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDateTime updatedAt = listing.get().getUpdatedAt();
+        webRequest.checkNotModified(ETags.forVersion(id, updatedAt, listing.get().getSellerName(),
+            listing.get().getCategoryName()), ETags.toEpochMilli(updatedAt));
+        return ResponseEntity.ok(listing.get());
     }
     
     /**
-     * List all listings.
-     * @return 200 with list of ListingDTO
+     * List listings (every status), newest first.
+     * Writes a JSON array by default, or one JSON object per line when the client
+     * accepts application/x-ndjson. At most listings.feed.max-rows rows are returned per
+     * request; when more remain, a Link header with rel="next" carries the cursor for the next page.
+     * @param limit maximum rows to return (optional, capped server-side)
+     * @param cursor cursor from the previous response's next link (omit for the first page)
+     * @param accept Accept header (optional)
+     * @return 200 with ListingDTOs, 400 if the cursor is invalid
      */
     @GetMapping
-    public ResponseEntity<List<ListingDTO>> getAllListings() {
-        List<ListingDTO> listings = listingService.getAllListings().stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(listings);
+    public ResponseEntity<StreamingResponseBody> getAllListings(
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = "Accept", required = false) String accept) {
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        // Read the page before writing, so a slow client never holds the database connection
+        CursorPage<ListingDTO> page = listingService.getListingFeed(cursor, limit);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            for (ListingDTO dto : page.getContent()) {
+                generator.writeObject(dto);
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON);
+        if (page.isHasNext()) {
+            String next = "/api/listings?cursor=" + page.getNextCursor() + (limit > 0 ? "&limit=" + limit : "");
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(body);
     }
     
     /**
@@ -159,9 +271,7 @@ public class ListingController {
      */
     @GetMapping("/seller/{sellerId}")
     public ResponseEntity<List<ListingDTO>> getListingsBySeller(@PathVariable String sellerId) {
-        List<ListingDTO> listings = listingService.getListingsBySeller(sellerId).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsBySeller(sellerId);
         return ResponseEntity.ok(listings);
     }
     
@@ -172,9 +282,7 @@ public class ListingController {
      */
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<List<ListingDTO>> getListingsByCategory(@PathVariable String categoryId) {
-        List<ListingDTO> listings = listingService.getListingsByCategory(categoryId).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsByCategory(categoryId);
         return ResponseEntity.ok(listings);
     }
     
@@ -185,9 +293,7 @@ public class ListingController {
      */
     @GetMapping("/status/{status}")
     public ResponseEntity<List<ListingDTO>> getListingsByStatus(@PathVariable Listing.ListingStatus status) {
-        List<ListingDTO> listings = listingService.getListingsByStatus(status).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsByStatus(status);
         return ResponseEntity.ok(listings);
     }
     
@@ -198,9 +304,7 @@ public class ListingController {
      */
     @GetMapping("/condition/{condition}")
     public ResponseEntity<List<ListingDTO>> getListingsByCondition(@PathVariable Listing.ItemCondition condition) {
-        List<ListingDTO> listings = listingService.getListingsByCondition(condition).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsByCondition(condition);
         return ResponseEntity.ok(listings);
     }
     
@@ -214,57 +318,114 @@ public class ListingController {
     public ResponseEntity<List<ListingDTO>> getListingsByPriceRange(
             @RequestParam BigDecimal minPrice, 
             @RequestParam BigDecimal maxPrice) {
-        List<ListingDTO> listings = listingService.getListingsByPriceRange(minPrice, maxPrice).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsByPriceRange(minPrice, maxPrice);
         return ResponseEntity.ok(listings);
     }
     
+    /**
+     * Facet counts for the browse filters: listings per category, condition and status plus a
+     * price histogram. Each facet ignores its own filter so alternatives keep their counts.
+     * Served from the in-memory facet index.
+     * @param categoryId filter by category (optional)
+     * @param condition filter by condition (optional)
+     * @param status filter by status (optional, defaults to ACTIVE)
+     * @param minPrice minimum price filter (optional)
+     * @param maxPrice maximum price filter (optional)
+     * @return 200 with ListingFacetsDTO, 503 while the index is being built
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ListingFacetsDTO> getFacets(
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Listing.ItemCondition condition,
+            @RequestParam(required = false) Listing.ListingStatus status,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        return listingFacetIndex.facets(categoryId, condition, status, minPrice, maxPrice)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
     /**
      * Search listings by term (title/description).
+     * A term that matches nothing is spell-corrected against listing titles ("calculater" becomes
+     * "calculator"); if the corrected term matches, its results are returned with the X-Did-You-Mean header.
      * @param searchTerm query text
      * @return 200 with list of ListingDTO
      */
     @GetMapping("/search")
     public ResponseEntity<List<ListingDTO>> searchListings(@RequestParam String searchTerm) {
-        List<ListingDTO> listings = listingService.searchListings(searchTerm).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.searchListingDTOs(searchTerm);
+        if (listings.isEmpty()) {
+            Optional<String> didYouMean = spellingCorrection(searchTerm);
+            if (didYouMean.isPresent()) {
+                List<ListingDTO> corrected = listingService.searchListingDTOs(didYouMean.get());
+                if (!corrected.isEmpty()) {
+                    return ResponseEntity.ok()
+                            .header(DID_YOU_MEAN_HEADER, URLEncoder.encode(didYouMean.get(), StandardCharsets.UTF_8))
+                            .body(corrected);
+                }
+            }
+        }
         return ResponseEntity.ok(listings);
     }
     
+    // Corrected search term, tried only after the term as given found nothing
+    private Optional<String> spellingCorrection(String searchTerm) {
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return Optional.empty();
+        }
+        return listingSpellingIndex.suggest(searchTerm.trim());
+    }
+    
+    /**
+     * Search-box suggestions for what has been typed so far: title words, category names, course codes
+     * and earlier searches, heaviest first. Served from the in-memory completion trie; no database access.
+     * @param prefix text typed so far
+     * @param limit number of suggestions (default 10, max 10)
+     * @return 200 with AutocompleteSuggestionDTOs, 503 while the trie is being built
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestionDTO>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return listingAutocompleteIndex.complete(prefix, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
+    /**
+     * Semantic search: listings similar in meaning to the query even without a shared word
+     * ("graphing calculator" finds "TI-84 Plus"), served from the in-memory embedding index.
+     * @param query search text
+     * @param categoryId category filter (optional)
+     * @param k number of listings (default 10, max 50)
+     * @return 200 with ScoredListingDTOs, most similar first; 503 while the index is being built
+     */
+    @GetMapping("/semantic-search")
+    public ResponseEntity<List<ScoredListingDTO>> semanticSearch(
+            @RequestParam String query,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(defaultValue = "10") int k) {
+        return listingService.semanticSearch(query, categoryId, k)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
     /**
      * Chatbot search: process conversational queries (e.g., "textbook for CMPE 202?")
      * Uses ChatGPT API to interpret natural language and returns search results.
      * Falls back to keyword extraction if ChatGPT is unavailable.
      * 
-     * @param request chatbot search request with query
+     * Results are ranked by how many keywords match and paged; each one carries its score.
+     * 
+     * @param request chatbot search request with query and optional page/size
      * @return 200 with ChatbotSearchResponse containing interpreted query and results
      */
     @PostMapping("/chatbot-search")
     public ResponseEntity<ChatbotSearchResponse> chatbotSearch(@Valid @RequestBody ChatbotSearchRequest request) {
-        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery(request.getQuery());
-        
-        List<ListingDTO> listingDTOs = result.getListings().stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
-        
-        String message = listingDTOs.isEmpty() 
-            ? "No listings found matching your query."
-            : "Found " + listingDTOs.size() + " listing(s) matching your query.";
-        
-        if (result.isUsedFallback()) {
-            message += " (Using keyword search fallback)";
-        }
-        
-        ChatbotSearchResponse response = new ChatbotSearchResponse(
-            result.getInterpretedQuery(),
-            listingDTOs,
-            message,
-            result.isUsedFallback()
-        );
-        
-        return ResponseEntity.ok(response);
+        int page = request.getPage() != null ? request.getPage() : 0;
+        int size = request.getSize() != null ? request.getSize() : 20;
+        return ResponseEntity.ok(toChatbotResponse(chatbotSearchService.processQuery(request.getQuery(), page, size)));
     }
     
     /**
@@ -272,19 +433,74 @@ public class ListingController {
      * Convenience endpoint for simpler client integration.
      * 
      * @param query natural language query
+     * @param page zero-based page of ranked results (default 0)
+     * @param size page size (default 20, max 50)
      * @return 200 with ChatbotSearchResponse containing interpreted query and results
      */
     @GetMapping("/chatbot-search")
-    public ResponseEntity<ChatbotSearchResponse> chatbotSearchGet(@RequestParam String query) {
-        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery(query);
-        
-        List<ListingDTO> listingDTOs = result.getListings().stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+    public ResponseEntity<ChatbotSearchResponse> chatbotSearchGet(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(toChatbotResponse(chatbotSearchService.processQuery(query, page, size)));
+    }
+    
+    /**
+     * Chatbot search as Server-Sent Events, so results show up before ChatGPT answers.
+     * Events: "keywords" (keyword-fallback results), "refined" (results for the interpreted query),
+     * each carrying a ChatbotSearchResponse, then "done" with the final interpreted query.
+     * Either results event may be skipped (e.g. no "keywords" for a locally understood query,
+     * no "refined" when ChatGPT is unavailable). A failed search ends the stream with an error.
+     * 
+     * @param query natural language query
+     * @param page zero-based page of ranked results (default 0)
+     * @param size page size (default 20, max 50)
+     * @return text/event-stream of the search stages
+     */
+    @GetMapping(value = "/chatbot-search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatbotSearchStream(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        SseEmitter emitter = new SseEmitter(CHATBOT_STREAM_TIMEOUT_MS);
+        chatbotSearchService.streamQuery(query, page, size, new ChatbotSearchService.StreamListener() {
+            @Override
+            public void onResults(ChatbotSearchService.Stage stage, ChatbotSearchService.ChatbotSearchResult result) {
+                sendEvent(emitter, stage.getEventName(), toChatbotResponse(result));
+            }
+            
+            @Override
+            public void onComplete(ChatbotSearchService.ChatbotSearchResult result) {
+                sendEvent(emitter, "done", Map.of(
+                        "interpretedQuery", result.getInterpretedQuery(),
+                        "usedFallback", result.isUsedFallback()));
+                emitter.complete();
+            }
+            
+            @Override
+            public void onError(Exception error) {
+                emitter.completeWithError(error);
+            }
+        });
+        return emitter;
+    }
+    
+    // A send failure (client went away) is rethrown so the search stops
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private ChatbotSearchResponse toChatbotResponse(ChatbotSearchService.ChatbotSearchResult result) {
+        // ScoredListingDTOs: each result carries its match score
+        List<ListingDTO> listingDTOs = new ArrayList<>(result.getListings());
         
         String message = listingDTOs.isEmpty() 
             ? "No listings found matching your query."
-            : "Found " + listingDTOs.size() + " listing(s) matching your query.";
+            : "Found " + result.getTotalResults() + " listing(s) matching your query.";
         
         if (result.isUsedFallback()) {
             message += " (Using keyword search fallback)";
@@ -296,8 +512,10 @@ public class ListingController {
             message,
             result.isUsedFallback()
         );
-        
-        return ResponseEntity.ok(response);
+        response.setPage(result.getPage());
+        response.setSize(result.getSize());
+        response.setTotalResults(result.getTotalResults());
+        return response;
     }
     
     /**
@@ -310,9 +528,7 @@ public class ListingController {
     public ResponseEntity<List<ListingDTO>> getListingsBySellerAndStatus(
             @PathVariable String sellerId, 
             @PathVariable Listing.ListingStatus status) {
-        List<ListingDTO> listings = listingService.getListingsBySellerAndStatus(sellerId, status).stream()
-                .map(ListingDTO::new)
-                .collect(Collectors.toList());
+        List<ListingDTO> listings = listingService.getListingDTOsBySellerAndStatus(sellerId, status);
         return ResponseEntity.ok(listings);
     }
     
@@ -322,17 +538,21 @@ public class ListingController {
      * @param status listing status
      * @param page page number
      * @param size page size
-     * @return 200 with Page of ListingDTO
+     * @param webRequest current request (for If-None-Match)
+     * @return 200 with Page of ListingDTO, or 304 if the page is unchanged
      */
     @GetMapping("/category/{categoryId}/status/{status}")
     public ResponseEntity<Page<ListingDTO>> getListingsByCategoryAndStatus(
             @PathVariable String categoryId, 
             @PathVariable Listing.ListingStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listings = listingService.getListingsByCategoryAndStatus(categoryId, status, pageable);
-        Page<ListingDTO> listingDTOs = listings.map(ListingDTO::new);
+        Page<ListingDTO> listingDTOs = listingService.getListingDTOsByCategoryAndStatus(categoryId, status, pageable);
+        if (webRequest.checkNotModified(pageETag(listingDTOs))) {
+            return null;
+        }
         return ResponseEntity.ok(listingDTOs);
     }
     
@@ -341,16 +561,20 @@ public class ListingController {
      * @param status listing status
      * @param page page number
      * @param size page size
-     * @return 200 with Page of ListingDTO
+     * @param webRequest current request (for If-None-Match)
+     * @return 200 with Page of ListingDTO, or 304 if the page is unchanged
      */
     @GetMapping("/status/{status}/page")
     public ResponseEntity<Page<ListingDTO>> getListingsByStatusOrderByCreatedAtDesc(
             @PathVariable Listing.ListingStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listings = listingService.getListingsByStatusOrderByCreatedAtDesc(status, pageable);
-        Page<ListingDTO> listingDTOs = listings.map(ListingDTO::new);
+        Page<ListingDTO> listingDTOs = listingService.getListingDTOsByStatusOrderByCreatedAtDesc(status, pageable);
+        if (webRequest.checkNotModified(pageETag(listingDTOs))) {
+            return null;
+        }
         return ResponseEntity.ok(listingDTOs);
     }
     
@@ -359,19 +583,73 @@ public class ListingController {
      * @param sellerId seller id
      * @param page page number
      * @param size page size
-     * @return 200 with Page of ListingDTO
+     * @param webRequest current request (for If-None-Match)
+     * @return 200 with Page of ListingDTO, or 304 if the page is unchanged
      */
     @GetMapping("/seller/{sellerId}/page")
     public ResponseEntity<Page<ListingDTO>> getListingsBySellerOrderByCreatedAtDesc(
             @PathVariable String sellerId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listings = listingService.getListingsBySellerOrderByCreatedAtDesc(sellerId, pageable);
-        Page<ListingDTO> listingDTOs = listings.map(ListingDTO::new);
+        Page<ListingDTO> listingDTOs = listingService.getListingDTOsBySellerOrderByCreatedAtDesc(sellerId, pageable);
+        if (webRequest.checkNotModified(pageETag(listingDTOs))) {
+            return null;
+        }
         return ResponseEntity.ok(listingDTOs);
     }
     
+    /**
+     * Keyset page of listings by category and status, newest first (no total count).
+     * @param categoryId category id
+     * @param status listing status
+     * @param cursor nextCursor from the previous response (omit for the first page)
+     * @param size page size (defaults to 10, max 100)
+     * @return 200 with CursorPage of ListingDTO, 400 if the cursor is invalid
+     */
+    @GetMapping("/category/{categoryId}/status/{status}/cursor")
+    public ResponseEntity<CursorPage<ListingDTO>> getListingsByCategoryAndStatusCursor(
+            @PathVariable String categoryId,
+            @PathVariable Listing.ListingStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<ListingDTO> listings = listingService.getListingsByCategoryAndStatusAfter(categoryId, status, cursor, size);
+        return ResponseEntity.ok(listings);
+    }
+    
+    /**
+     * Keyset page of listings by status, newest first (no total count).
+     * @param status listing status
+     * @param cursor nextCursor from the previous response (omit for the first page)
+     * @param size page size (defaults to 10, max 100)
+     * @return 200 with CursorPage of ListingDTO, 400 if the cursor is invalid
+     */
+    @GetMapping("/status/{status}/cursor")
+    public ResponseEntity<CursorPage<ListingDTO>> getListingsByStatusCursor(
+            @PathVariable Listing.ListingStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<ListingDTO> listings = listingService.getListingsByStatusAfter(status, cursor, size);
+        return ResponseEntity.ok(listings);
+    }
+    
+    /**
+     * Keyset page of listings by seller, newest first (no total count).
+     * @param sellerId seller id
+     * @param cursor nextCursor from the previous response (omit for the first page)
+     * @param size page size (defaults to 10, max 100)
+     * @return 200 with CursorPage of ListingDTO, 400 if the cursor is invalid
+     */
+    @GetMapping("/seller/{sellerId}/cursor")
+    public ResponseEntity<CursorPage<ListingDTO>> getListingsBySellerCursor(
+            @PathVariable String sellerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<ListingDTO> listings = listingService.getListingsBySellerAfter(sellerId, cursor, size);
+        return ResponseEntity.ok(listings);
+    }
+    
     /**
      * Update listing fields.
      * @param id listing id
@@ -529,6 +807,8 @@ public class ListingController {
     /**
      * Combined search with filters and sorting.
      * Supports keyword search, category filter, price range, condition filter, and sorting.
+     * A search term that matches nothing is spell-corrected against listing titles; if the corrected
+     * term matches, its results are returned with the corrected term in didYouMean.
      * 
      * @param searchTerm keyword search (optional)
      * @param categoryId filter by category (optional)
@@ -536,7 +816,7 @@ public class ListingController {
      * @param maxPrice maximum price filter (optional)
      * @param condition filter by condition (optional)
      * @param status filter by status (optional, defaults to ACTIVE)
-     * @param sortBy sort field: "newest", "price_asc", "price_desc" (defaults to "newest")
+     * @param sortBy sort field: "newest", "price_asc", "price_desc", "relevance" (defaults to "newest")
      * @param page page number (defaults to 0)
      * @param size page size (defaults to 10)
      * @return 200 with Page of ListingDTO
@@ -553,10 +833,71 @@ public class ListingController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listings = listingService.searchWithFilters(
+        Page<ListingDTO> listingDTOs = listingService.searchListingDTOsWithFilters(
             searchTerm, categoryId, minPrice, maxPrice, condition, status, sortBy, pageable
         );
-        Page<ListingDTO> listingDTOs = listings.map(ListingDTO::new);
+        if (listingDTOs.getTotalElements() == 0) {
+            Optional<String> didYouMean = spellingCorrection(searchTerm);
+            if (didYouMean.isPresent()) {
+                Page<ListingDTO> corrected = listingService.searchListingDTOsWithFilters(
+                    didYouMean.get(), categoryId, minPrice, maxPrice, condition, status, sortBy, pageable
+                );
+                if (corrected.getTotalElements() > 0) {
+                    return ResponseEntity.ok(new ListingSearchPage(corrected, didYouMean.get()));
+                }
+            }
+        }
         return ResponseEntity.ok(listingDTOs);
     }
+    
+    /**
+     * Most frequent searches (keyword, advanced and chatbot) with their estimated count, mean and
+     * max latency and share of searches that found nothing, from the in-memory query log.
+     * Admin only.
+     * @param limit number of queries (default 50, max 200)
+     * @return 200 with SearchQueryStatsDTOs, most frequent first
+     */
+    @GetMapping("/search/top-queries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SearchQueryStatsDTO>> getTopQueries(@RequestParam(defaultValue = "50") int limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!isAdmin) {
+            throw new AccessDeniedException("Admin access required");
+        }
+        return ResponseEntity.ok(searchQueryLog.topQueries(Math.min(Math.max(limit, 1), MAX_TOP_QUERIES)));
+    }
+    
+    /**
+     * Keyset variant of the advanced search (no total count, constant cost per page).
+     * Keywords are matched with LIKE; "relevance" is served in newest order.
+     * 
+     * @param searchTerm keyword search (optional)
+     * @param categoryId filter by category (optional)
+     * @param minPrice minimum price filter (optional)
+     * @param maxPrice maximum price filter (optional)
+     * @param condition filter by condition (optional)
+     * @param status filter by status (optional, defaults to ACTIVE)
+     * @param sortBy sort field: "newest", "price_asc", "price_desc" (defaults to "newest")
+     * @param cursor nextCursor from the previous response (omit for the first page)
+     * @param size page size (defaults to 10, max 100)
+     * @return 200 with CursorPage of ListingDTO, 400 if the cursor is invalid
+     */
+    @GetMapping("/search/cursor")
+    public ResponseEntity<CursorPage<ListingDTO>> searchWithFiltersCursor(
+            @RequestParam(required = false) String searchTerm,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Listing.ItemCondition condition,
+            @RequestParam(required = false) Listing.ListingStatus status,
+            @RequestParam(required = false, defaultValue = "newest") String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<ListingDTO> listings = listingService.searchWithFiltersAfter(
+            searchTerm, categoryId, minPrice, maxPrice, condition, status, sortBy, cursor, size
+        );
+        return ResponseEntity.ok(listings);
+    }
 }
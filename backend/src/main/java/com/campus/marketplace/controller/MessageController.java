@@ -1,7 +1,10 @@
 package com.campus.marketplace.controller;
 
+import com.campus.marketplace.dto.ConversationDTO;
 import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.CursorPage;
 import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.service.MessagePushService;
 import com.campus.marketplace.service.MessageService;
 import com.campus.marketplace.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,8 +15,10 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -26,6 +31,9 @@ public class MessageController {
     @Autowired
     private MessageService messageService;
     
+    @Autowired
+    private MessagePushService messagePushService;
+    
     @Autowired
     private JwtUtil jwtUtil;
     
@@ -77,14 +85,20 @@ public class MessageController {
     
     // Get messages for a listing
     @GetMapping("/listing/{listingId}")
-    @Operation(summary = "Get messages for a listing", description = "Get all messages related to a specific listing")
+    @Operation(summary = "Get messages for a listing", description = "Get the messages about a listing that the current user sent or received; paginated when page is given")
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<?> getMessagesForListing(
             @PathVariable String listingId,
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "Page number (0-based, optional)") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
         try {
             String userId = getUserIdFromToken(authHeader);
             
+            if (page != null && page >= 0 && size > 0) {
+                Page<MessageDTO> messages = messageService.getMessagesForListing(listingId, userId, page, size);
+                return ResponseEntity.ok(messages);
+            }
             List<MessageDTO> messages = messageService.getMessagesForListing(listingId, userId);
             return ResponseEntity.ok(messages);
         } catch (Exception e) {
@@ -150,6 +164,87 @@ public class MessageController {
         }
     }
     
+    // Get the conversation for a listing newest first, with before/after cursors
+    @GetMapping("/conversation/listing/{listingId}/{userId1}/{userId2}/history")
+    @Operation(summary = "Get conversation history for listing", description = "Get a keyset page of the conversation between two users about a listing, newest first. Pass nextCursor as before to load older messages, or prevCursor as after to fetch new ones")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<?> getConversationHistoryForListing(
+            @PathVariable String listingId,
+            @PathVariable String userId1,
+            @PathVariable String userId2,
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "Cursor to load older messages from") @RequestParam(required = false) String before,
+            @Parameter(description = "Cursor to load newer messages from") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            String currentUserId = getUserIdFromToken(authHeader);
+            
+            CursorPage<MessageDTO> messages = messageService.getConversationHistoryForListing(
+                    listingId, userId1, userId2, currentUserId, before, after, size);
+            return ResponseEntity.ok(messages);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
+    // Get the current user's inbox
+    @GetMapping("/inbox")
+    @Operation(summary = "Get inbox", description = "Get the current user's conversations, most recent first, with last message and unread count")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<?> getInbox(
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        try {
+            String userId = getUserIdFromToken(authHeader);
+            
+            Page<ConversationDTO> conversations = messageService.getInbox(userId, page, size);
+            return ResponseEntity.ok(conversations);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
+    // Get the messages of a conversation with pagination
+    @GetMapping("/conversations/{conversationId}")
+    @Operation(summary = "Get conversation messages", description = "Get paginated messages of a conversation from the inbox")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<?> getConversationMessages(
+            @PathVariable String conversationId,
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        try {
+            String currentUserId = getUserIdFromToken(authHeader);
+            
+            Page<MessageDTO> messages = messageService.getConversationMessages(conversationId, currentUserId, page, size);
+            return ResponseEntity.ok(messages);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
+    // Get the messages of a conversation newest first, with before/after cursors
+    @GetMapping("/conversations/{conversationId}/history")
+    @Operation(summary = "Get conversation history", description = "Get a keyset page of a conversation from the inbox, newest first. Pass nextCursor as before to load older messages, or prevCursor as after to fetch new ones")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<?> getConversationHistory(
+            @PathVariable String conversationId,
+            @RequestHeader("Authorization") String authHeader,
+            @Parameter(description = "Cursor to load older messages from") @RequestParam(required = false) String before,
+            @Parameter(description = "Cursor to load newer messages from") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            String currentUserId = getUserIdFromToken(authHeader);
+            
+            CursorPage<MessageDTO> messages = messageService.getConversationHistory(
+                    conversationId, currentUserId, before, after, size);
+            return ResponseEntity.ok(messages);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
     // Get messages sent by user
     @GetMapping("/sent/{userId}")
     @Operation(summary = "Get messages sent by user", description = "Get all messages sent by a specific user")
@@ -298,6 +393,23 @@ public class MessageController {
         }
     }
     
+    // Stream new messages and unread counts
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream messages", description = "Server-Sent Events for the current user: \"message\" with each "
+            + "message sent to or by them, \"unread\" with their unread count (on connect and whenever it changes)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<SseEmitter> streamMessages(@RequestHeader("Authorization") String authHeader) {
+        String userId;
+        try {
+            userId = getUserIdFromToken(authHeader);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return messagePushService.subscribe(userId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
     // Get unread messages
     @GetMapping("/unread/{userId}")
     @Operation(summary = "Get unread messages", description = "Get all unread messages for a user")
@@ -343,6 +455,26 @@ public class MessageController {
         }
     }
     
+    // Mark a conversation as read
+    @PatchMapping("/conversations/{conversationId}/mark-read")
+    @Operation(summary = "Mark conversation as read", description = "Mark every message of a conversation as read for the current user")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<?> markConversationAsRead(
+            @PathVariable String conversationId,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            String userId = getUserIdFromToken(authHeader);
+            
+            messageService.markConversationAsRead(conversationId, userId);
+            return ResponseEntity.ok("Conversation marked as read");
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("Access denied")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Error: " + e.getMessage());
+            }
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
     // Mark all messages as read
     @PatchMapping("/mark-all-read/{userId}")
     @Operation(summary = "Mark all messages as read", description = "Mark all unread messages as read for a user")
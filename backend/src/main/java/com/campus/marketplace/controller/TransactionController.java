@@ -10,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Transaction REST endpoints for create/read/update/delete and queries.
@@ -72,9 +71,7 @@ public class TransactionController {
      */
     @GetMapping
     public ResponseEntity<List<TransactionDTO>> getAllTransactions() {
-        List<TransactionDTO> transactions = transactionService.getAllTransactions().stream()
-                .map(TransactionDTO::new)
-                .collect(Collectors.toList());
+        List<TransactionDTO> transactions = transactionService.getAllTransactionDTOs();
         return ResponseEntity.ok(transactions);
     }
     
@@ -85,9 +82,7 @@ public class TransactionController {
      */
     @GetMapping("/buyer/{buyerId}")
     public ResponseEntity<List<TransactionDTO>> getTransactionsByBuyer(@PathVariable String buyerId) {
-        List<TransactionDTO> transactions = transactionService.getTransactionsByBuyer(buyerId).stream()
-                .map(TransactionDTO::new)
-                .collect(Collectors.toList());
+        List<TransactionDTO> transactions = transactionService.getTransactionDTOsByBuyer(buyerId);
         return ResponseEntity.ok(transactions);
     }
     
@@ -98,9 +93,7 @@ public class TransactionController {
      */
     @GetMapping("/status/{status}")
     public ResponseEntity<List<TransactionDTO>> getTransactionsByStatus(@PathVariable Transaction.TransactionStatus status) {
-        List<TransactionDTO> transactions = transactionService.getTransactionsByStatus(status).stream()
-                .map(TransactionDTO::new)
-                .collect(Collectors.toList());
+        List<TransactionDTO> transactions = transactionService.getTransactionDTOsByStatus(status);
         return ResponseEntity.ok(transactions);
     }
     
@@ -111,9 +104,7 @@ public class TransactionController {
      */
     @GetMapping("/seller/{sellerId}")
     public ResponseEntity<List<TransactionDTO>> getTransactionsBySeller(@PathVariable String sellerId) {
-        List<TransactionDTO> transactions = transactionService.getTransactionsBySeller(sellerId).stream()
-                .map(TransactionDTO::new)
-                .collect(Collectors.toList());
+        List<TransactionDTO> transactions = transactionService.getTransactionDTOsBySeller(sellerId);
         return ResponseEntity.ok(transactions);
     }
     
@@ -127,9 +118,7 @@ public class TransactionController {
     public ResponseEntity<List<TransactionDTO>> getTransactionsBySellerAndStatus(
             @PathVariable String sellerId, 
             @PathVariable Transaction.TransactionStatus status) {
-        List<TransactionDTO> transactions = transactionService.getTransactionsBySellerAndStatus(sellerId, status).stream()
-                .map(TransactionDTO::new)
-                .collect(Collectors.toList());
+        List<TransactionDTO> transactions = transactionService.getTransactionDTOsBySellerAndStatus(sellerId, status);
         return ResponseEntity.ok(transactions);
     }
     
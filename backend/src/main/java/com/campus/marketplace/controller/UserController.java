@@ -3,6 +3,7 @@ package com.campus.marketplace.controller;
 import com.campus.marketplace.dto.UserDTO;
 import com.campus.marketplace.entity.User;
 import com.campus.marketplace.service.UserService;
+import com.campus.marketplace.util.ETags;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,8 +13,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -45,15 +49,32 @@ public class UserController {
     }
     
     /**
-     * Get user by id.
+     * Get user by id. Responses carry a strong ETag (id + updatedAt) and Last-Modified;
+     * conditional requests are answered from a version lookup without loading the user.
      * @param id user id
-     * @return 200 with UserDTO or 404 if not found
+     * @param webRequest current request (for If-None-Match / If-Modified-Since)
+     * @return 200 with UserDTO, 304 if unchanged, or 404 if not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable String id) {
-        return userService.getUserById(id)
-                .map(user -> ResponseEntity.ok(new UserDTO(user)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<UserDTO> getUserById(@PathVariable String id, WebRequest webRequest) {
+        if (ETags.isConditional(webRequest)) {
+            Optional<LocalDateTime> version = userService.getUserVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (webRequest.checkNotModified(ETags.forVersion(id, version.get()), ETags.toEpochMilli(version.get()))) {
+                return null;
+            }
+        }
+        Optional<User> user = userService.getUserById(id);
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ETags.isConditional(webRequest)) {
+            LocalDateTime updatedAt = user.get().getUpdatedAt();
+            webRequest.checkNotModified(ETags.forVersion(id, updatedAt), ETags.toEpochMilli(updatedAt));
+        }
+        return ResponseEntity.ok(new UserDTO(user.get()));
     }
     
     /**
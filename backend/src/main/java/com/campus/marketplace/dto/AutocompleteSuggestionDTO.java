@@ -0,0 +1,56 @@
+package com.campus.marketplace.dto;
+
+/**
+ * One search-box completion.
+ */
+public class AutocompleteSuggestionDTO {
+    
+    /** Kinds of completions. */
+    public static final String TYPE_QUERY = "query";
+    public static final String TYPE_CATEGORY = "category";
+    public static final String TYPE_COURSE = "course";
+    public static final String TYPE_TERM = "term";
+    
+    private String text;
+    private String type;
+    private long weight;
+    
+    // Constructors
+    public AutocompleteSuggestionDTO() {}
+    
+    /**
+     * @param text completion to put in the search box
+     * @param type query, category, course or term (a word from listing titles)
+     * @param weight listings using it plus searches for it; suggestions are ordered by weight
+     */
+    public AutocompleteSuggestionDTO(String text, String type, long weight) {
+        this.text = text;
+        this.type = type;
+        this.weight = weight;
+    }
+    
+    // Getters and Setters
+    public String getText() {
+        return text;
+    }
+    
+    public void setText(String text) {
+        this.text = text;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public long getWeight() {
+        return weight;
+    }
+    
+    public void setWeight(long weight) {
+        this.weight = weight;
+    }
+}
@@ -1,5 +1,6 @@
 package com.campus.marketplace.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
 /**
@@ -10,6 +11,14 @@ public class ChatbotSearchRequest {
     @NotBlank(message = "Query is required")
     private String query;
     
+    /** Zero-based result page; defaults to 0. */
+    @Min(value = 0, message = "Page must not be negative")
+    private Integer page;
+    
+    /** Results per page; defaults to 20, capped at 50. */
+    @Min(value = 1, message = "Size must be at least 1")
+    private Integer size;
+    
     // Constructors
     public ChatbotSearchRequest() {}
     
@@ -25,4 +34,20 @@ public class ChatbotSearchRequest {
     public void setQuery(String query) {
         this.query = query;
     }
+    
+    public Integer getPage() {
+        return page;
+    }
+    
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+    
+    public Integer getSize() {
+        return size;
+    }
+    
+    public void setSize(Integer size) {
+        this.size = size;
+    }
 }
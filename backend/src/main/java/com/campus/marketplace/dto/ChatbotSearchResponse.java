@@ -11,6 +11,9 @@ public class ChatbotSearchResponse {
     private List<ListingDTO> results;
     private String message;
     private boolean usedFallback;
+    private int page;
+    private int size;
+    private long totalResults;
     
     // Constructors
     public ChatbotSearchResponse() {}
@@ -54,4 +57,28 @@ public class ChatbotSearchResponse {
     public void setUsedFallback(boolean usedFallback) {
         this.usedFallback = usedFallback;
     }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public void setPage(int page) {
+        this.page = page;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    public long getTotalResults() {
+        return totalResults;
+    }
+    
+    public void setTotalResults(long totalResults) {
+        this.totalResults = totalResults;
+    }
 }
@@ -0,0 +1,128 @@
+package com.campus.marketplace.dto;
+
+import com.campus.marketplace.entity.Conversation;
+import com.campus.marketplace.entity.User;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inbox entry: a conversation as one of its participants sees it.
+ */
+public class ConversationDTO {
+
+    private String id;
+    private String listingId;
+    private String listingTitle;
+    private String otherUserId;
+    private String otherUserName;
+    private String lastMessageId;
+    private String lastMessagePreview;
+    private String lastSenderId;
+    private int unreadCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastMessageAt;
+
+    // Constructors
+    public ConversationDTO() {}
+
+    /**
+     * @param conversation conversation with listing and users loaded
+     * @param userId participant viewing it
+     */
+    public ConversationDTO(Conversation conversation, String userId) {
+        User otherUser = conversation.getOtherUser(userId);
+        this.id = conversation.getId();
+        this.listingId = conversation.getListing().getId();
+        this.listingTitle = conversation.getListing().getTitle();
+        this.otherUserId = otherUser.getId();
+        this.otherUserName = otherUser.getName();
+        this.lastMessageId = conversation.getLastMessageId();
+        this.lastMessagePreview = conversation.getLastMessagePreview();
+        this.lastSenderId = conversation.getLastSenderId();
+        this.unreadCount = conversation.getUnreadCount(userId);
+        this.lastMessageAt = conversation.getLastMessageAt();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+
+    public String getListingTitle() {
+        return listingTitle;
+    }
+
+    public void setListingTitle(String listingTitle) {
+        this.listingTitle = listingTitle;
+    }
+
+    public String getOtherUserId() {
+        return otherUserId;
+    }
+
+    public void setOtherUserId(String otherUserId) {
+        this.otherUserId = otherUserId;
+    }
+
+    public String getOtherUserName() {
+        return otherUserName;
+    }
+
+    public void setOtherUserName(String otherUserName) {
+        this.otherUserName = otherUserName;
+    }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+
+    public void setLastMessagePreview(String lastMessagePreview) {
+        this.lastMessagePreview = lastMessagePreview;
+    }
+
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public void setLastSenderId(String lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+}
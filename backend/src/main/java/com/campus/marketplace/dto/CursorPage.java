@@ -0,0 +1,85 @@
+package com.campus.marketplace.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated feed. No total count is computed; pass nextCursor back
+ * as the cursor parameter to fetch the following page while hasNext is true. Feeds that can
+ * also be read the other way (message history) set prevCursor to the first row's position.
+ */
+public class CursorPage<T> {
+    
+    private List<T> content;
+    private String nextCursor;
+    private String prevCursor;
+    private boolean hasNext;
+    private int size;
+    
+    // Constructors
+    public CursorPage() {}
+    
+    public CursorPage(List<T> content, String nextCursor, boolean hasNext, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.size = size;
+    }
+    
+    public CursorPage(List<T> content, String nextCursor, String prevCursor, boolean hasNext, int size) {
+        this(content, nextCursor, hasNext, size);
+        this.prevCursor = prevCursor;
+    }
+    
+    /**
+     * Convert the content while keeping the cursor state.
+     * @param converter element mapper (e.g. ListingDTO::new)
+     * @return page with converted content
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, nextCursor, prevCursor, hasNext, size);
+    }
+    
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+    
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public String getPrevCursor() {
+        return prevCursor;
+    }
+    
+    public void setPrevCursor(String prevCursor) {
+        this.prevCursor = prevCursor;
+    }
+    
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -64,6 +64,27 @@ public class ListingDTO {
         this.updatedAt = listing.getUpdatedAt();
     }
     
+    /**
+     * Flat constructor used by JPQL constructor expressions (no entity or lazy loads).
+     */
+    public ListingDTO(String id, String sellerId, String sellerName, String title, String description,
+                      BigDecimal price, String categoryId, String categoryName, Listing.ItemCondition condition,
+                      String images, Listing.ListingStatus status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.sellerId = sellerId;
+        this.sellerName = sellerName;
+        this.title = title;
+        this.description = description;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.condition = condition;
+        this.images = images;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -0,0 +1,116 @@
+package com.campus.marketplace.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts for the browse page. Each facet is counted with every other active filter
+ * applied but not its own, so the UI can show how many results picking another value would give.
+ * total is the number of listings matching all filters.
+ */
+public class ListingFacetsDTO {
+
+    private long total;
+    private Map<String, Long> categories;
+    private Map<String, Long> conditions;
+    private Map<String, Long> statuses;
+    private List<PriceBucket> priceHistogram;
+
+    // Constructors
+    public ListingFacetsDTO() {}
+
+    public ListingFacetsDTO(long total, Map<String, Long> categories, Map<String, Long> conditions,
+                            Map<String, Long> statuses, List<PriceBucket> priceHistogram) {
+        this.total = total;
+        this.categories = categories;
+        this.conditions = conditions;
+        this.statuses = statuses;
+        this.priceHistogram = priceHistogram;
+    }
+
+    // Getters and Setters
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /** Category id to count. */
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<String, Long> categories) {
+        this.categories = categories;
+    }
+
+    /** ItemCondition name to count. */
+    public Map<String, Long> getConditions() {
+        return conditions;
+    }
+
+    public void setConditions(Map<String, Long> conditions) {
+        this.conditions = conditions;
+    }
+
+    /** ListingStatus name to count. */
+    public Map<String, Long> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(Map<String, Long> statuses) {
+        this.statuses = statuses;
+    }
+
+    public List<PriceBucket> getPriceHistogram() {
+        return priceHistogram;
+    }
+
+    public void setPriceHistogram(List<PriceBucket> priceHistogram) {
+        this.priceHistogram = priceHistogram;
+    }
+
+    /**
+     * Price range [min, max) with its listing count; max is null for the open-ended last bucket.
+     */
+    public static class PriceBucket {
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+
+        public PriceBucket() {}
+
+        public PriceBucket(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public void setMin(BigDecimal min) {
+            this.min = min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public void setMax(BigDecimal max) {
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
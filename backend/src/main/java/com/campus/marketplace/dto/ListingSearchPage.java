@@ -0,0 +1,23 @@
+package com.campus.marketplace.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * A page of search results for a spelling-corrected search term: the term as given matched
+ * nothing, so the page holds the results for didYouMean instead. Serialized like any other
+ * page of listings, plus the didYouMean field.
+ */
+public class ListingSearchPage extends PageImpl<ListingDTO> {
+    
+    private final String didYouMean;
+    
+    public ListingSearchPage(Page<ListingDTO> page, String didYouMean) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.didYouMean = didYouMean;
+    }
+    
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+}
@@ -36,6 +36,21 @@ public class MessageDTO {
         this.createdAt = message.getCreatedAt();
     }
     
+    // Flat constructor for JPQL constructor expressions (no entity or lazy loads)
+    public MessageDTO(String id, String listingId, String listingTitle, String fromUserId, String fromUserName,
+                      String toUserId, String toUserName, String content, Boolean isRead, LocalDateTime createdAt) {
+        this.id = id;
+        this.listingId = listingId;
+        this.listingTitle = listingTitle;
+        this.fromUserId = fromUserId;
+        this.fromUserName = fromUserName;
+        this.toUserId = toUserId;
+        this.toUserName = toUserName;
+        this.content = content;
+        this.isRead = isRead;
+        this.createdAt = createdAt;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -0,0 +1,34 @@
+package com.campus.marketplace.dto;
+
+/**
+ * Listing search hit: the listing plus how well it matched the query.
+ */
+public class ScoredListingDTO extends ListingDTO {
+
+    private double score;
+
+    // Constructors
+    public ScoredListingDTO() {}
+
+    /**
+     * Copy a listing DTO and attach its score.
+     * @param listing rendered listing
+     * @param score match score between 0 (no keyword matched) and 1 (every keyword in title and description)
+     */
+    public ScoredListingDTO(ListingDTO listing, double score) {
+        super(listing.getId(), listing.getSellerId(), listing.getSellerName(), listing.getTitle(),
+              listing.getDescription(), listing.getPrice(), listing.getCategoryId(), listing.getCategoryName(),
+              listing.getCondition(), listing.getImages(), listing.getStatus(), listing.getCreatedAt(),
+              listing.getUpdatedAt());
+        this.score = score;
+    }
+
+    // Getters and Setters
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
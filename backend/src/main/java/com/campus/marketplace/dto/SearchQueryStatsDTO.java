@@ -0,0 +1,95 @@
+package com.campus.marketplace.dto;
+
+/**
+ * How often a normalized query was searched and how those searches went.
+ */
+public class SearchQueryStatsDTO {
+    
+    private String query;
+    private String source;
+    private long count;
+    private long samples;
+    private double meanLatencyMs;
+    private double maxLatencyMs;
+    private double zeroResultRate;
+    
+    // Constructors
+    public SearchQueryStatsDTO() {}
+    
+    /**
+     * @param query normalized query text
+     * @param source search, advanced or chatbot
+     * @param count estimated number of searches (recent ones weigh more)
+     * @param samples searches the latency and zero-result figures are based on
+     * @param meanLatencyMs mean search latency
+     * @param maxLatencyMs slowest search
+     * @param zeroResultRate share of searches that found nothing, 0 to 1
+     */
+    public SearchQueryStatsDTO(String query, String source, long count, long samples,
+                               double meanLatencyMs, double maxLatencyMs, double zeroResultRate) {
+        this.query = query;
+        this.source = source;
+        this.count = count;
+        this.samples = samples;
+        this.meanLatencyMs = meanLatencyMs;
+        this.maxLatencyMs = maxLatencyMs;
+        this.zeroResultRate = zeroResultRate;
+    }
+    
+    // Getters and Setters
+    public String getQuery() {
+        return query;
+    }
+    
+    public void setQuery(String query) {
+        this.query = query;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public long getSamples() {
+        return samples;
+    }
+    
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+    
+    public double getMeanLatencyMs() {
+        return meanLatencyMs;
+    }
+    
+    public void setMeanLatencyMs(double meanLatencyMs) {
+        this.meanLatencyMs = meanLatencyMs;
+    }
+    
+    public double getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+    
+    public void setMaxLatencyMs(double maxLatencyMs) {
+        this.maxLatencyMs = maxLatencyMs;
+    }
+    
+    public double getZeroResultRate() {
+        return zeroResultRate;
+    }
+    
+    public void setZeroResultRate(double zeroResultRate) {
+        this.zeroResultRate = zeroResultRate;
+    }
+}
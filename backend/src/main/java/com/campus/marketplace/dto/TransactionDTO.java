@@ -49,6 +49,25 @@ public class TransactionDTO {
         this.createdAt = transaction.getCreatedAt();
         this.updatedAt = transaction.getUpdatedAt();
     }
+
+    /**
+     * Flat constructor used by JPQL constructor-expression projections.
+     */
+    public TransactionDTO(String id, String listingId, String listingTitle, String buyerId, String buyerName,
+                          String sellerId, String sellerName, BigDecimal finalPrice,
+                          Transaction.TransactionStatus status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.listingId = listingId;
+        this.listingTitle = listingTitle;
+        this.buyerId = buyerId;
+        this.buyerName = buyerName;
+        this.sellerId = sellerId;
+        this.sellerName = sellerName;
+        this.finalPrice = finalPrice;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
     
     // Getters and Setters
     public String getId() {
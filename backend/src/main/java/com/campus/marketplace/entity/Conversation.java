@@ -0,0 +1,271 @@
+package com.campus.marketplace.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Messages about one listing between two users, with the summary the inbox shows (last message and each
+ * participant's unread count). Participants are stored in canonical order, userLow's id sorting before
+ * userHigh's, so a thread has one row whichever of them writes. Maintained by MessageService in the
+ * transaction that sends, reads or deletes the messages.
+ *
+ * Each participant has a read cursor: they have read every message up to (lastReadAt, lastReadMessageId)
+ * in conversation order, (createdAt, id). Messages after it that they received are unread.
+ */
+@Entity
+@Table(name = "conversations")
+public class Conversation {
+
+    /** Characters of the last message kept for the inbox. */
+    public static final int PREVIEW_LENGTH = 200;
+
+    @Id
+    @UuidGenerator
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "listing_id", nullable = false)
+    private Listing listing;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_low_id", nullable = false)
+    private User userLow;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_high_id", nullable = false)
+    private User userHigh;
+
+    @Column(name = "last_message_id", length = 36)
+    private String lastMessageId;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "last_sender_id", length = 36)
+    private String lastSenderId;
+
+    @Column(name = "user_low_unread", nullable = false)
+    private int userLowUnread;
+
+    @Column(name = "user_high_unread", nullable = false)
+    private int userHighUnread;
+
+    @Column(name = "user_low_last_read_at")
+    private LocalDateTime userLowLastReadAt;
+
+    @Column(name = "user_low_last_read_message_id", length = 36)
+    private String userLowLastReadMessageId;
+
+    @Column(name = "user_high_last_read_at")
+    private LocalDateTime userHighLastReadAt;
+
+    @Column(name = "user_high_last_read_message_id", length = 36)
+    private String userHighLastReadMessageId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public Conversation() {}
+
+    public Conversation(Listing listing, User userLow, User userHigh) {
+        this.listing = listing;
+        this.userLow = userLow;
+        this.userHigh = userHigh;
+    }
+
+    /** The id of two users that sorts first, stored as user_low_id. */
+    public static String lowId(String userId1, String userId2) {
+        return userId1.compareTo(userId2) <= 0 ? userId1 : userId2;
+    }
+
+    /** The id of two users that sorts last, stored as user_high_id. */
+    public static String highId(String userId1, String userId2) {
+        return userId1.compareTo(userId2) <= 0 ? userId2 : userId1;
+    }
+
+    public boolean hasParticipant(String userId) {
+        return userLow.getId().equals(userId) || userHigh.getId().equals(userId);
+    }
+
+    /** The participant other than userId. */
+    public User getOtherUser(String userId) {
+        return userLow.getId().equals(userId) ? userHigh : userLow;
+    }
+
+    public int getUnreadCount(String userId) {
+        return userLow.getId().equals(userId) ? userLowUnread : userHighUnread;
+    }
+
+    /**
+     * Change a participant's unread count, never below zero.
+     * @param userId participant
+     * @param delta messages that became unread (positive) or read (negative)
+     */
+    public void addUnread(String userId, int delta) {
+        if (userLow.getId().equals(userId)) {
+            userLowUnread = Math.max(0, userLowUnread + delta);
+        } else {
+            userHighUnread = Math.max(0, userHighUnread + delta);
+        }
+    }
+
+    /**
+     * Whether a participant has read a message of this conversation.
+     * @param userId participant
+     * @param message message of this conversation
+     * @return true if the message is at or before the participant's read cursor
+     */
+    public boolean isReadBy(String userId, Message message) {
+        LocalDateTime readAt = getLastReadAt(userId);
+        if (readAt == null) {
+            return false;
+        }
+        int order = message.getCreatedAt().compareTo(readAt);
+        return order < 0 || (order == 0 && message.getId().compareTo(getLastReadMessageId(userId)) <= 0);
+    }
+
+    /**
+     * Move a participant's read cursor forward to a message; it never moves back.
+     * @param userId participant
+     * @param message message of this conversation
+     * @return true if the cursor moved
+     */
+    public boolean markReadUpTo(String userId, Message message) {
+        if (isReadBy(userId, message)) {
+            return false;
+        }
+        setReadCursor(userId, message.getCreatedAt(), message.getId());
+        return true;
+    }
+
+    /**
+     * Mark the whole conversation read for a participant.
+     * @param userId participant
+     */
+    public void markAllRead(String userId) {
+        if (lastMessageId != null) {
+            setReadCursor(userId, lastMessageAt, lastMessageId);
+        }
+        if (userLow.getId().equals(userId)) {
+            userLowUnread = 0;
+        } else {
+            userHighUnread = 0;
+        }
+    }
+
+    public LocalDateTime getLastReadAt(String userId) {
+        return userLow.getId().equals(userId) ? userLowLastReadAt : userHighLastReadAt;
+    }
+
+    public String getLastReadMessageId(String userId) {
+        return userLow.getId().equals(userId) ? userLowLastReadMessageId : userHighLastReadMessageId;
+    }
+
+    public void setUnreadCount(String userId, int unreadCount) {
+        if (userLow.getId().equals(userId)) {
+            userLowUnread = unreadCount;
+        } else {
+            userHighUnread = unreadCount;
+        }
+    }
+
+    private void setReadCursor(String userId, LocalDateTime readAt, String readMessageId) {
+        if (userLow.getId().equals(userId)) {
+            userLowLastReadAt = readAt;
+            userLowLastReadMessageId = readMessageId;
+        } else {
+            userHighLastReadAt = readAt;
+            userHighLastReadMessageId = readMessageId;
+        }
+    }
+
+    /**
+     * Show a message as the latest of the conversation.
+     * @param message saved message of this conversation
+     */
+    public void setLastMessage(Message message) {
+        String content = message.getContent();
+        this.lastMessageId = message.getId();
+        this.lastMessagePreview = content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content;
+        this.lastMessageAt = message.getCreatedAt();
+        this.lastSenderId = message.getFromUser().getId();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Listing getListing() {
+        return listing;
+    }
+
+    public void setListing(Listing listing) {
+        this.listing = listing;
+    }
+
+    public User getUserLow() {
+        return userLow;
+    }
+
+    public void setUserLow(User userLow) {
+        this.userLow = userLow;
+    }
+
+    public User getUserHigh() {
+        return userHigh;
+    }
+
+    public void setUserHigh(User userHigh) {
+        this.userHigh = userHigh;
+    }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public String getLastMessagePreview() {
+        return lastMessagePreview;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public int getUserLowUnread() {
+        return userLowUnread;
+    }
+
+    public void setUserLowUnread(int userLowUnread) {
+        this.userLowUnread = userLowUnread;
+    }
+
+    public int getUserHighUnread() {
+        return userHighUnread;
+    }
+
+    public void setUserHighUnread(int userHighUnread) {
+        this.userHighUnread = userHighUnread;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -72,6 +72,10 @@ public class Listing {
     @OneToOne(mappedBy = "listing", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Transaction transaction;
     
+    // Category id as stored when the row was loaded; null for new listings
+    @Transient
+    private String loadedCategoryId;
+    
     // Constructors
     public Listing() {}
     
@@ -83,6 +87,11 @@ public class Listing {
         this.condition = condition;
     }
     
+    @PostLoad
+    void rememberLoadedCategory() {
+        loadedCategoryId = category != null ? category.getId() : null;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -132,6 +141,11 @@ public class Listing {
         this.category = category;
     }
     
+    /** Category id the listing had when it was read from the database (null if never loaded). */
+    public String getLoadedCategoryId() {
+        return loadedCategoryId;
+    }
+    
     public ItemCondition getCondition() {
         return condition;
     }
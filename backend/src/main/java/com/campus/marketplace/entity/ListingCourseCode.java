@@ -0,0 +1,59 @@
+package com.campus.marketplace.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Course code found in a listing's title or description, normalized at write time
+ * (see {@link com.campus.marketplace.util.CourseCodes}). Rows go away with their listing (ON DELETE CASCADE).
+ */
+@Entity
+@Table(name = "listing_course_codes")
+@IdClass(ListingCourseCodeId.class)
+public class ListingCourseCode {
+    
+    @Id
+    @Column(name = "listing_id", columnDefinition = "CHAR(36)", nullable = false)
+    private String listingId;
+    
+    @Id
+    @Column(name = "dept", length = 5, nullable = false)
+    private String dept;
+    
+    @Id
+    @Column(name = "course_number", length = 4, nullable = false)
+    private String number;
+    
+    // Constructors
+    public ListingCourseCode() {}
+    
+    public ListingCourseCode(String listingId, String dept, String number) {
+        this.listingId = listingId;
+        this.dept = dept;
+        this.number = number;
+    }
+    
+    // Getters and Setters
+    public String getListingId() {
+        return listingId;
+    }
+    
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+    
+    public String getDept() {
+        return dept;
+    }
+    
+    public void setDept(String dept) {
+        this.dept = dept;
+    }
+    
+    public String getNumber() {
+        return number;
+    }
+    
+    public void setNumber(String number) {
+        this.number = number;
+    }
+}
@@ -0,0 +1,61 @@
+package com.campus.marketplace.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+//Composite key for ListingCourseCode entity.
+public class ListingCourseCodeId implements Serializable {
+    
+    private String listingId;
+    private String dept;
+    private String number;
+    
+    // Constructors
+    public ListingCourseCodeId() {}
+    
+    public ListingCourseCodeId(String listingId, String dept, String number) {
+        this.listingId = listingId;
+        this.dept = dept;
+        this.number = number;
+    }
+    
+    // Getters and Setters
+    public String getListingId() {
+        return listingId;
+    }
+    
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+    
+    public String getDept() {
+        return dept;
+    }
+    
+    public void setDept(String dept) {
+        this.dept = dept;
+    }
+    
+    public String getNumber() {
+        return number;
+    }
+    
+    public void setNumber(String number) {
+        this.number = number;
+    }
+    
+    // Equals and HashCode
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ListingCourseCodeId that = (ListingCourseCodeId) o;
+        return Objects.equals(listingId, that.listingId) && Objects.equals(dept, that.dept)
+                && Objects.equals(number, that.number);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(listingId, dept, number);
+    }
+}
@@ -32,13 +32,15 @@ public class Message {
     @JoinColumn(name = "to_user_id", nullable = false)
     private User toUser;
     
+    // Set by MessageService when the message is saved
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", nullable = false)
+    private Conversation conversation;
+    
     @NotBlank(message = "Content is required")
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
     
-    @Column(name = "is_read", nullable = false)
-    private Boolean isRead = false;
-    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -86,6 +88,14 @@ public class Message {
         this.toUser = toUser;
     }
     
+    public Conversation getConversation() {
+        return conversation;
+    }
+    
+    public void setConversation(Conversation conversation) {
+        this.conversation = conversation;
+    }
+    
     public String getContent() {
         return content;
     }
@@ -102,11 +112,8 @@ public class Message {
         this.createdAt = createdAt;
     }
     
+    // Read state comes from the recipient's read cursor in the conversation
     public Boolean getIsRead() {
-        return isRead;
-    }
-    
-    public void setIsRead(Boolean isRead) {
-        this.isRead = isRead;
+        return conversation != null && conversation.isReadBy(toUser.getId(), this);
     }
 }
@@ -0,0 +1,79 @@
+package com.campus.marketplace.event;
+
+import com.campus.marketplace.entity.Listing;
+
+/**
+ * Published whenever a listing is created, updated, has its status changed, or is deleted.
+ * In-memory read structures (search index, caches) listen for it after the transaction commits.
+ */
+public class ListingChangedEvent {
+
+    public enum ChangeType {
+        SAVED, DELETED
+    }
+
+    private final String listingId;
+    private final Listing listing;
+    private final ChangeType changeType;
+    private final String previousCategoryId;
+
+    private ListingChangedEvent(String listingId, Listing listing, ChangeType changeType, String previousCategoryId) {
+        this.listingId = listingId;
+        this.listing = listing;
+        this.changeType = changeType;
+        this.previousCategoryId = previousCategoryId;
+    }
+
+    /**
+     * Event for a created or updated listing.
+     * @param listing saved entity
+     * @return event carrying the saved listing
+     */
+    public static ListingChangedEvent saved(Listing listing) {
+        return new ListingChangedEvent(listing.getId(), listing, ChangeType.SAVED, listing.getLoadedCategoryId());
+    }
+
+    /**
+     * Event for a deleted listing whose category is unknown.
+     * @param listingId id of the removed listing
+     * @return event without a listing payload
+     */
+    public static ListingChangedEvent deleted(String listingId) {
+        return deleted(listingId, null);
+    }
+
+    /**
+     * Event for a deleted listing.
+     * @param listingId id of the removed listing
+     * @param categoryId category the listing was in (nullable)
+     * @return event without a listing payload
+     */
+    public static ListingChangedEvent deleted(String listingId, String categoryId) {
+        return new ListingChangedEvent(listingId, null, ChangeType.DELETED, categoryId);
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    /** Saved listing, or null for deletions. */
+    public Listing getListing() {
+        return listing;
+    }
+
+    /**
+     * Category the listing was in before this change: the category it was loaded with for saves
+     * (null for new listings), its last category for deletions. Null when unknown.
+     */
+    public String getPreviousCategoryId() {
+        return previousCategoryId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public boolean isDeleted() {
+        return changeType == ChangeType.DELETED;
+    }
+}
@@ -0,0 +1,61 @@
+package com.campus.marketplace.event;
+
+import com.campus.marketplace.dto.MessageDTO;
+
+/**
+ * Published whenever a message is sent (by a user or as a system message) or messages are marked read.
+ * {@link com.campus.marketplace.service.MessagePushService} listens for it after the transaction commits
+ * and pushes the change to the connected users.
+ */
+public class MessageChangedEvent {
+
+    public enum ChangeType {
+        SENT, READ
+    }
+
+    private final MessageDTO message;
+    private final String userId;
+    private final ChangeType changeType;
+
+    private MessageChangedEvent(MessageDTO message, String userId, ChangeType changeType) {
+        this.message = message;
+        this.userId = userId;
+        this.changeType = changeType;
+    }
+
+    /**
+     * Event for a new message.
+     * @param message saved message
+     * @return event carrying the message; its recipient's unread count went up
+     */
+    public static MessageChangedEvent sent(MessageDTO message) {
+        return new MessageChangedEvent(message, message.getToUserId(), ChangeType.SENT);
+    }
+
+    /**
+     * Event for messages marked read.
+     * @param userId recipient whose unread count went down
+     * @return event without a message payload
+     */
+    public static MessageChangedEvent read(String userId) {
+        return new MessageChangedEvent(null, userId, ChangeType.READ);
+    }
+
+    /** Sent message, or null for reads. */
+    public MessageDTO getMessage() {
+        return message;
+    }
+
+    /** User whose unread count changed: the recipient of a sent message, the reader of read ones. */
+    public String getUserId() {
+        return userId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public boolean isSent() {
+        return changeType == ChangeType.SENT;
+    }
+}
@@ -0,0 +1,76 @@
+package com.campus.marketplace.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.campus.marketplace.entity.Conversation;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, String> {
+
+    // Create a conversation unless it exists, leaving its row locked either way (user ids in canonical
+    // order, see Conversation.lowId/highId). Taking the row lock directly, rather than a locking read of a
+    // missing key, avoids the gap locks that deadlock concurrent first messages of a thread.
+    @Modifying
+    @Query(value = "INSERT INTO conversations (id, listing_id, user_low_id, user_high_id, created_at) " +
+           "VALUES (UUID(), :listingId, :userLowId, :userHighId, NOW()) ON DUPLICATE KEY UPDATE id = id",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("listingId") String listingId,
+                       @Param("userLowId") String userLowId,
+                       @Param("userHighId") String userHighId);
+
+    // Lock a conversation to update its summary; sends and reads of one conversation take turns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.listing.id = :listingId AND " +
+           "c.userLow.id = :userLowId AND c.userHigh.id = :userHighId")
+    Optional<Conversation> findForUpdate(@Param("listingId") String listingId,
+                                         @Param("userLowId") String userLowId,
+                                         @Param("userHighId") String userHighId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.id = :id")
+    Optional<Conversation> findByIdForUpdate(@Param("id") String id);
+
+    // Id of a conversation, by its unique key
+    @Query("SELECT c.id FROM Conversation c WHERE c.listing.id = :listingId AND " +
+           "c.userLow.id = :userLowId AND c.userHigh.id = :userHighId")
+    Optional<String> findIdByParticipants(@Param("listingId") String listingId,
+                                          @Param("userLowId") String userLowId,
+                                          @Param("userHighId") String userHighId);
+
+    // Inbox of a user, most recent conversation first, with listing and users for the summaries
+    @Query(value = "SELECT c FROM Conversation c JOIN FETCH c.listing JOIN FETCH c.userLow JOIN FETCH c.userHigh " +
+           "WHERE c.userLow.id = :userId OR c.userHigh.id = :userId " +
+           "ORDER BY c.lastMessageAt DESC, c.id DESC",
+           countQuery = "SELECT COUNT(c) FROM Conversation c WHERE c.userLow.id = :userId OR c.userHigh.id = :userId")
+    Page<Conversation> findInbox(@Param("userId") String userId, Pageable pageable);
+
+    // Users a user has conversations with
+    @Query("SELECT DISTINCT CASE WHEN c.userLow.id = :userId THEN c.userHigh.id ELSE c.userLow.id END " +
+           "FROM Conversation c WHERE c.userLow.id = :userId OR c.userHigh.id = :userId")
+    List<String> findPartners(@Param("userId") String userId);
+
+    // Mark a user's whole inbox read: move their cursor to the last message of every conversation with
+    // unread messages and zero its counter, in one statement
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+           "c.userLowLastReadAt = CASE WHEN c.userLow.id = :userId THEN c.lastMessageAt ELSE c.userLowLastReadAt END, " +
+           "c.userLowLastReadMessageId = CASE WHEN c.userLow.id = :userId THEN c.lastMessageId ELSE c.userLowLastReadMessageId END, " +
+           "c.userLowUnread = CASE WHEN c.userLow.id = :userId THEN 0 ELSE c.userLowUnread END, " +
+           "c.userHighLastReadAt = CASE WHEN c.userHigh.id = :userId THEN c.lastMessageAt ELSE c.userHighLastReadAt END, " +
+           "c.userHighLastReadMessageId = CASE WHEN c.userHigh.id = :userId THEN c.lastMessageId ELSE c.userHighLastReadMessageId END, " +
+           "c.userHighUnread = CASE WHEN c.userHigh.id = :userId THEN 0 ELSE c.userHighUnread END " +
+           "WHERE (c.userLow.id = :userId AND c.userLowUnread > 0) OR (c.userHigh.id = :userId AND c.userHighUnread > 0)")
+    int markAllRead(@Param("userId") String userId);
+}
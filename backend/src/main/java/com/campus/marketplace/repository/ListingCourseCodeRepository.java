@@ -0,0 +1,17 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.ListingCourseCode;
+import com.campus.marketplace.entity.ListingCourseCodeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Repository for the course codes extracted from listings
+
+@Repository
+public interface ListingCourseCodeRepository extends JpaRepository<ListingCourseCode, ListingCourseCodeId> {
+    
+    // Codes currently stored for a listing
+    List<ListingCourseCode> findByListingId(String listingId);
+}
@@ -0,0 +1,31 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.Listing;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of the listing columns needed to (re)build in-memory search structures.
+ * Avoids materializing entities and their lazy associations during a full scan.
+ */
+public interface ListingIndexRow {
+
+    String getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getCategoryId();
+
+    BigDecimal getPrice();
+
+    Listing.ItemCondition getItemCondition();
+
+    Listing.ListingStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
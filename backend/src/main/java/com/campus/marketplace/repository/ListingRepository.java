@@ -1,78 +1,247 @@
 package com.campus.marketplace.repository;
 
+import com.campus.marketplace.dto.ListingDTO;
 import com.campus.marketplace.entity.Listing;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Listing entity with filters and paging queries.
  */
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, String> {
+public interface ListingRepository extends JpaRepository<Listing, String>, JpaSpecificationExecutor<Listing>,
+        ListingRepositoryCustom {
     
-    /** List listings by seller. */
-    List<Listing> findBySellerId(String sellerId);
-    
-    /** List listings by category. */
-    List<Listing> findByCategoryId(String categoryId);
-    
-    /** List listings by status. */
-    List<Listing> findByStatus(Listing.ListingStatus status);
+    /** Shared WHERE clause for the native FULLTEXT searches (requires ft_listings_search, see V6). */
+    String FULLTEXT_WHERE = "WHERE MATCH(l.title, l.description) AGAINST (:booleanQuery IN BOOLEAN MODE) AND " +
+           "l.status = :status AND " +
+           "(:categoryId IS NULL OR l.category_id = :categoryId) AND " +
+           "(:minPrice IS NULL OR l.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR l.price <= :maxPrice) AND " +
+           "(:condition IS NULL OR l.`condition` = :condition)";
     
-    /** List listings by condition. */
-    List<Listing> findByCondition(Listing.ItemCondition condition);
+    /** Constructor expression selecting exactly the ListingDTO columns (alias l; seller s; category c). */
+    String DTO_SELECT = "SELECT new com.campus.marketplace.dto.ListingDTO(l.id, s.id, s.name, l.title, l.description, " +
+           "l.price, c.id, c.name, l.condition, l.images, l.status, l.createdAt, l.updatedAt) " +
+           "FROM Listing l JOIN l.seller s JOIN l.category c ";
     
-    /** List listings in a price range. */
-    @Query("SELECT l FROM Listing l WHERE l.price BETWEEN :minPrice AND :maxPrice")
-    List<Listing> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    /** Shared JPQL filters for the keyset searches (same semantics as searchListingDTOsWithFilters). */
+    String SEARCH_FILTERS = "(:searchTerm IS NULL OR l.title LIKE %:searchTerm% OR l.description LIKE %:searchTerm%) AND " +
+           "(:categoryId IS NULL OR l.category.id = :categoryId) AND " +
+           "(:minPrice IS NULL OR l.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR l.price <= :maxPrice) AND " +
+           "(:condition IS NULL OR l.condition = :condition) AND " +
+           "l.status = :status";
     
-    /** Search listings by title or description (partial). */
-    @Query("SELECT l FROM Listing l WHERE l.title LIKE %:title% OR l.description LIKE %:description%")
-    List<Listing> findByTitleOrDescriptionContaining(@Param("title") String title, @Param("description") String description);
+    /** Keyset page of listing DTOs by status, newest first, strictly after (createdAt, id). */
+    @Query(DTO_SELECT + "WHERE l.status = :status AND " +
+           "(l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<ListingDTO> findByStatusCreatedBefore(
+        @Param("status") Listing.ListingStatus status,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") String id,
+        Pageable pageable
+    );
     
-    /** List listings by seller and status. */
-    @Query("SELECT l FROM Listing l WHERE l.seller.id = :sellerId AND l.status = :status")
-    List<Listing> findBySellerIdAndStatus(@Param("sellerId") String sellerId, @Param("status") Listing.ListingStatus status);
+    /** Keyset page of listing DTOs by seller, newest first, strictly after (createdAt, id). */
+    @Query(DTO_SELECT + "WHERE s.id = :sellerId AND " +
+           "(l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<ListingDTO> findBySellerIdCreatedBefore(
+        @Param("sellerId") String sellerId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") String id,
+        Pageable pageable
+    );
     
-    /** Page listings by category and status. */
-    @Query("SELECT l FROM Listing l WHERE l.category.id = :categoryId AND l.status = :status")
-    Page<Listing> findByCategoryIdAndStatus(@Param("categoryId") String categoryId, @Param("status") Listing.ListingStatus status, Pageable pageable);
+    /** Keyset page of listing DTOs by category and status, newest first, strictly after (createdAt, id). */
+    @Query(DTO_SELECT + "WHERE c.id = :categoryId AND l.status = :status AND " +
+           "(l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<ListingDTO> findByCategoryIdAndStatusCreatedBefore(
+        @Param("categoryId") String categoryId,
+        @Param("status") Listing.ListingStatus status,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") String id,
+        Pageable pageable
+    );
     
-    /** Page listings by status ordered by creation time desc. */
-    @Query("SELECT l FROM Listing l WHERE l.status = :status ORDER BY l.createdAt DESC")
-    Page<Listing> findByStatusOrderByCreatedAtDesc(@Param("status") Listing.ListingStatus status, Pageable pageable);
+    /** Keyset search, newest first, strictly after (createdAt, id). */
+    @Query(DTO_SELECT + "WHERE " + SEARCH_FILTERS + " AND " +
+           "(l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<ListingDTO> searchWithFiltersCreatedBefore(
+        @Param("searchTerm") String searchTerm,
+        @Param("categoryId") String categoryId,
+        @Param("minPrice") BigDecimal minPrice,
+        @Param("maxPrice") BigDecimal maxPrice,
+        @Param("condition") Listing.ItemCondition condition,
+        @Param("status") Listing.ListingStatus status,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") String id,
+        Pageable pageable
+    );
     
-    /** Page listings by seller ordered by creation time desc. */
-    @Query("SELECT l FROM Listing l WHERE l.seller.id = :sellerId ORDER BY l.createdAt DESC")
-    Page<Listing> findBySellerIdOrderByCreatedAtDesc(@Param("sellerId") String sellerId, Pageable pageable);
+    /** Keyset search, cheapest first, strictly after (price, id). */
+    @Query(DTO_SELECT + "WHERE " + SEARCH_FILTERS + " AND " +
+           "(l.price > :price OR (l.price = :price AND l.id > :id)) " +
+           "ORDER BY l.price ASC, l.id ASC")
+    List<ListingDTO> searchWithFiltersPriceAfter(
+        @Param("searchTerm") String searchTerm,
+        @Param("categoryId") String categoryId,
+        @Param("minPrice") BigDecimal minPrice,
+        @Param("maxPrice") BigDecimal maxPrice,
+        @Param("condition") Listing.ItemCondition condition,
+        @Param("status") Listing.ListingStatus status,
+        @Param("price") BigDecimal price,
+        @Param("id") String id,
+        Pageable pageable
+    );
     
-    /** Combined search with filters and sorting. */
-    @Query("SELECT l FROM Listing l WHERE " +
-           "(:searchTerm IS NULL OR :searchTerm = '' OR l.title LIKE %:searchTerm% OR l.description LIKE %:searchTerm%) AND " +
-           "(:categoryId IS NULL OR l.category.id = :categoryId) AND " +
-           "(:minPrice IS NULL OR l.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR l.price <= :maxPrice) AND " +
-           "(:condition IS NULL OR l.condition = :condition) AND " +
-           "(:status IS NULL OR l.status = :status)")
-    Page<Listing> searchWithFilters(
+    /** Keyset search, most expensive first, strictly after (price, id). */
+    @Query(DTO_SELECT + "WHERE " + SEARCH_FILTERS + " AND " +
+           "(l.price < :price OR (l.price = :price AND l.id < :id)) " +
+           "ORDER BY l.price DESC, l.id DESC")
+    List<ListingDTO> searchWithFiltersPriceBefore(
         @Param("searchTerm") String searchTerm,
         @Param("categoryId") String categoryId,
         @Param("minPrice") BigDecimal minPrice,
         @Param("maxPrice") BigDecimal maxPrice,
         @Param("condition") Listing.ItemCondition condition,
         @Param("status") Listing.ListingStatus status,
+        @Param("price") BigDecimal price,
+        @Param("id") String id,
+        Pageable pageable
+    );
+    
+    /** Update time plus seller and category names, for conditional GETs (no entity is loaded). */
+    @Query("SELECT l.updatedAt AS updatedAt, s.name AS sellerName, c.name AS categoryName " +
+           "FROM Listing l JOIN l.seller s JOIN l.category c WHERE l.id = :id")
+    Optional<ListingVersion> findVersionById(@Param("id") String id);
+    
+    /** Category id only, e.g. to know which cached searches a deletion affects. */
+    @Query("SELECT l.category.id FROM Listing l WHERE l.id = :id")
+    Optional<String> findCategoryIdById(@Param("id") String id);
+    
+    /** Single listing DTO with seller and category names, in one statement. */
+    @Query(DTO_SELECT + "WHERE l.id = :id")
+    Optional<ListingDTO> findDTOById(@Param("id") String id);
+    
+    /** Listing DTOs by id (unordered); used to render search hits without loading entities. */
+    @Query(DTO_SELECT + "WHERE l.id IN :ids")
+    List<ListingDTO> findDTOsByIdIn(@Param("ids") Collection<String> ids);
+    
+    /** Listing DTOs by seller. */
+    @Query(DTO_SELECT + "WHERE s.id = :sellerId")
+    List<ListingDTO> findDTOsBySellerId(@Param("sellerId") String sellerId);
+    
+    /** Listing DTOs by category. */
+    @Query(DTO_SELECT + "WHERE c.id = :categoryId")
+    List<ListingDTO> findDTOsByCategoryId(@Param("categoryId") String categoryId);
+    
+    /** Listing DTOs by status. */
+    @Query(DTO_SELECT + "WHERE l.status = :status")
+    List<ListingDTO> findDTOsByStatus(@Param("status") Listing.ListingStatus status);
+    
+    /** Listing DTOs by condition. */
+    @Query(DTO_SELECT + "WHERE l.condition = :condition")
+    List<ListingDTO> findDTOsByCondition(@Param("condition") Listing.ItemCondition condition);
+    
+    /** Listing DTOs in a price range. */
+    @Query(DTO_SELECT + "WHERE l.price BETWEEN :minPrice AND :maxPrice")
+    List<ListingDTO> findDTOsByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    
+    /** Listing DTOs whose title or description contains the term. */
+    @Query(DTO_SELECT + "WHERE l.title LIKE %:term% OR l.description LIKE %:term%")
+    List<ListingDTO> findDTOsByTitleOrDescriptionContaining(@Param("term") String term);
+    
+    /** Listing DTOs by seller and status. */
+    @Query(DTO_SELECT + "WHERE s.id = :sellerId AND l.status = :status")
+    List<ListingDTO> findDTOsBySellerIdAndStatus(@Param("sellerId") String sellerId, @Param("status") Listing.ListingStatus status);
+    
+    /** Page listing DTOs by category and status. */
+    @Query(value = DTO_SELECT + "WHERE c.id = :categoryId AND l.status = :status",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.category.id = :categoryId AND l.status = :status")
+    Page<ListingDTO> findDTOsByCategoryIdAndStatus(@Param("categoryId") String categoryId, @Param("status") Listing.ListingStatus status, Pageable pageable);
+    
+    /** Page listing DTOs by status ordered by creation time desc. */
+    @Query(value = DTO_SELECT + "WHERE l.status = :status ORDER BY l.createdAt DESC",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.status = :status")
+    Page<ListingDTO> findDTOsByStatusOrderByCreatedAtDesc(@Param("status") Listing.ListingStatus status, Pageable pageable);
+    
+    /** Page listing DTOs by seller ordered by creation time desc. */
+    @Query(value = DTO_SELECT + "WHERE s.id = :sellerId ORDER BY l.createdAt DESC",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.seller.id = :sellerId")
+    Page<ListingDTO> findDTOsBySellerIdOrderByCreatedAtDesc(@Param("sellerId") String sellerId, Pageable pageable);
+    
+    /** Full-text search (boolean mode, every term required) returning ids; order comes from the pageable sort (column names). */
+    @Query(value = "SELECT l.id FROM listings l " + FULLTEXT_WHERE,
+           countQuery = "SELECT COUNT(*) FROM listings l " + FULLTEXT_WHERE,
+           nativeQuery = true)
+    Page<String> fullTextSearchIds(
+        @Param("booleanQuery") String booleanQuery,
+        @Param("categoryId") String categoryId,
+        @Param("minPrice") BigDecimal minPrice,
+        @Param("maxPrice") BigDecimal maxPrice,
+        @Param("condition") String condition,
+        @Param("status") String status,
+        Pageable pageable
+    );
+    
+    /** Full-text search returning ids, ordered by natural-language relevance, newest first on ties. */
+    @Query(value = "SELECT l.id FROM listings l " + FULLTEXT_WHERE + " " +
+                   "ORDER BY MATCH(l.title, l.description) AGAINST (:naturalQuery IN NATURAL LANGUAGE MODE) DESC, l.created_at DESC",
+           countQuery = "SELECT COUNT(*) FROM listings l " + FULLTEXT_WHERE,
+           nativeQuery = true)
+    Page<String> fullTextSearchIdsByRelevance(
+        @Param("booleanQuery") String booleanQuery,
+        @Param("naturalQuery") String naturalQuery,
+        @Param("categoryId") String categoryId,
+        @Param("minPrice") BigDecimal minPrice,
+        @Param("maxPrice") BigDecimal maxPrice,
+        @Param("condition") String condition,
+        @Param("status") String status,
+        Pageable pageable
+    );
+    
+    /**
+     * Stream the listing feed (every status) as DTOs, newest first, strictly after (createdAt, id),
+     * in a single joined query. A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows
+     * instead of buffering the whole result; the stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(DTO_SELECT + "WHERE l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    Stream<ListingDTO> streamFeedCreatedBefore(
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") String id,
         Pageable pageable
     );
     
     /** Get listing by id with seller eagerly loaded. */
     @Query("SELECT l FROM Listing l LEFT JOIN FETCH l.seller WHERE l.id = :id")
     Optional<Listing> findByIdWithSeller(@Param("id") String id);
+
+    /** Scan listing columns in primary-key order, one batch after the given id (use "" to start). */
+    @Query("SELECT l.id AS id, l.title AS title, l.description AS description, l.category.id AS categoryId, " +
+           "l.price AS price, l.condition AS itemCondition, l.status AS status, " +
+           "l.createdAt AS createdAt, l.updatedAt AS updatedAt " +
+           "FROM Listing l WHERE l.id > :afterId ORDER BY l.id ASC")
+    List<ListingIndexRow> findIndexRowsAfter(@Param("afterId") String afterId, Pageable pageable);
 }
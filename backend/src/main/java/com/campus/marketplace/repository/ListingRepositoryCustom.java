@@ -0,0 +1,55 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.Listing;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Hand-written listing queries that Spring Data cannot derive.
+ */
+public interface ListingRepositoryCustom {
+
+    /**
+     * One page of listing ids matching a specification, without loading entities.
+     * With a sort that follows a composite index the id select is answered from the index alone.
+     * @param spec filters
+     * @param pageable page and sort (entity property names)
+     * @return page of ids in sort order with total count
+     */
+    Page<String> findIds(Specification<Listing> spec, Pageable pageable);
+
+    /**
+     * One page of ACTIVE listing ids matching any of the keywords, best match first
+     * (see {@link ListingSpecifications#keywordScore}), newest first among equal scores.
+     * Ranking, filtering and the page limit all happen in the database.
+     * @param keywords non-empty list of keywords
+     * @param categoryId category whose listings rank higher (nullable; not a filter)
+     * @param pageable page and size (sort is ignored)
+     * @return page of ids with their scores, and the total number of matches
+     */
+    Page<ScoredId> findActiveIdsByKeywords(List<String> keywords, String categoryId, Pageable pageable);
+
+    /**
+     * Listing id with its keyword score.
+     */
+    class ScoredId {
+        private final String id;
+        private final int score;
+
+        public ScoredId(String id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+}
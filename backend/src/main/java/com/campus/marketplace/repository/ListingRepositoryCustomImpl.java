@@ -0,0 +1,88 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.Listing;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria-based implementation of {@link ListingRepositoryCustom}, picked up by Spring Data
+ * as a fragment of {@link ListingRepository}.
+ */
+public class ListingRepositoryCustomImpl implements ListingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<String> findIds(Specification<Listing> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
+        Root<Listing> root = query.from(Listing.class);
+        query.select(root.get("id"));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<String> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<String> ids = typed.getResultList();
+        return PageableExecutionUtils.getPage(ids, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Page<ScoredId> findActiveIdsByKeywords(List<String> keywords, String categoryId, Pageable pageable) {
+        Specification<Listing> spec = ListingSpecifications.activeWithAnyKeyword(keywords);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Listing> root = query.from(Listing.class);
+        Expression<Integer> score = ListingSpecifications.keywordScore(root, query, cb, keywords, categoryId);
+        query.multiselect(root.get("id"), score);
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(cb.desc(score), cb.desc(root.get("createdAt")), cb.asc(root.get("id")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<ScoredId> rows = new ArrayList<>();
+        for (Tuple tuple : typed.getResultList()) {
+            rows.add(new ScoredId(tuple.get(0, String.class), tuple.get(1, Number.class).intValue()));
+        }
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<Listing> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Listing> root = query.from(Listing.class);
+        query.select(cb.count(root));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
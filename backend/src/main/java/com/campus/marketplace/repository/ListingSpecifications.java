@@ -0,0 +1,185 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.ListingCourseCode;
+import com.campus.marketplace.util.CourseCodes;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Criteria builders for listing searches.
+ * Only the filters that are actually supplied become predicates, so MySQL sees a plain
+ * conjunction of equalities and ranges and can pick the matching composite index (see V8)
+ * instead of the "(:param IS NULL OR column = :param)" shape that defeats index selection.
+ */
+public final class ListingSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    /** Keyword score weights: a title hit counts more than a description hit. */
+    static final int TITLE_MATCH_POINTS = 2;
+    static final int DESCRIPTION_MATCH_POINTS = 1;
+    static final int CATEGORY_MATCH_POINTS = 1;
+
+    private ListingSpecifications() {}
+
+    /**
+     * Filters of the advanced listing search. Null (or blank search term) means "not filtered".
+     * Equality predicates come first so the generated WHERE reads in index-column order.
+     * @param searchTerm substring matched against title or description; a term that is exactly one
+     *                   course code ("CMPE 202", "cmpe202") is looked up in listing_course_codes instead
+     * @param categoryId category filter
+     * @param minPrice inclusive lower price bound
+     * @param maxPrice inclusive upper price bound
+     * @param condition item condition filter
+     * @param status listing status filter
+     * @return specification combining the supplied filters
+     */
+    public static Specification<Listing> searchFilters(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(6);
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (categoryId != null) {
+                predicates.add(cb.equal(root.get("category").get("id"), categoryId));
+            }
+            if (condition != null) {
+                predicates.add(cb.equal(root.get("condition"), condition));
+            }
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get("price"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<BigDecimal>get("price"), maxPrice));
+            }
+            if (searchTerm != null && !searchTerm.isEmpty()) {
+                Optional<CourseCodes.CourseCode> courseCode = CourseCodes.parse(searchTerm);
+                if (courseCode.isPresent()) {
+                    predicates.add(hasCourseCode(root, query, cb, courseCode.get()));
+                } else {
+                    String pattern = "%" + escapeLike(searchTerm) + "%";
+                    predicates.add(cb.or(
+                        cb.like(root.get("title"), pattern, LIKE_ESCAPE),
+                        cb.like(root.get("description"), pattern, LIKE_ESCAPE)));
+                }
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * ACTIVE listings whose title or description contains at least one of the keywords.
+     * Course-code keywords match through listing_course_codes instead of LIKE.
+     * @param keywords non-empty list of keywords (matched as substrings)
+     * @return specification for the keyword search
+     */
+    public static Specification<Listing> activeWithAnyKeyword(List<String> keywords) {
+        return (root, query, cb) -> {
+            List<Predicate> matches = new ArrayList<>(keywords.size() * 2);
+            for (String keyword : keywords) {
+                Optional<CourseCodes.CourseCode> courseCode = CourseCodes.parse(keyword);
+                if (courseCode.isPresent()) {
+                    matches.add(hasCourseCode(root, query, cb, courseCode.get()));
+                    continue;
+                }
+                String pattern = "%" + escapeLike(keyword) + "%";
+                matches.add(cb.like(root.get("title"), pattern, LIKE_ESCAPE));
+                matches.add(cb.like(root.get("description"), pattern, LIKE_ESCAPE));
+            }
+            return cb.and(
+                cb.equal(root.get("status"), Listing.ListingStatus.ACTIVE),
+                cb.or(matches.toArray(new Predicate[0])));
+        };
+    }
+
+    /**
+     * Relevance of a listing for a keyword list: for every keyword, TITLE_MATCH_POINTS if the title
+     * contains it plus DESCRIPTION_MATCH_POINTS if the description does. A course-code keyword scores
+     * both when the listing has the code. With a categoryId, listings in that category get
+     * CATEGORY_MATCH_POINTS on top.
+     * @param root listing root
+     * @param query query the score is used in (for the course-code subquery)
+     * @param cb criteria builder
+     * @param keywords non-empty list of keywords
+     * @param categoryId preferred category (nullable)
+     * @return integer score expression
+     */
+    public static Expression<Integer> keywordScore(Root<Listing> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                                   List<String> keywords, String categoryId) {
+        Expression<Integer> score = null;
+        for (String keyword : keywords) {
+            Optional<CourseCodes.CourseCode> courseCode = CourseCodes.parse(keyword);
+            if (courseCode.isPresent()) {
+                Expression<Integer> codeScore = cb.<Integer>selectCase()
+                    .when(hasCourseCode(root, query, cb, courseCode.get()), TITLE_MATCH_POINTS + DESCRIPTION_MATCH_POINTS)
+                    .otherwise(0);
+                score = score == null ? codeScore : cb.sum(score, codeScore);
+                continue;
+            }
+            String pattern = "%" + escapeLike(keyword) + "%";
+            Expression<Integer> title = cb.<Integer>selectCase()
+                .when(cb.like(root.get("title"), pattern, LIKE_ESCAPE), TITLE_MATCH_POINTS)
+                .otherwise(0);
+            Expression<Integer> description = cb.<Integer>selectCase()
+                .when(cb.like(root.get("description"), pattern, LIKE_ESCAPE), DESCRIPTION_MATCH_POINTS)
+                .otherwise(0);
+            Expression<Integer> keywordScore = cb.sum(title, description);
+            score = score == null ? keywordScore : cb.sum(score, keywordScore);
+        }
+        if (categoryId != null) {
+            score = cb.sum(score, cb.<Integer>selectCase()
+                .when(cb.equal(root.get("category").get("id"), categoryId), CATEGORY_MATCH_POINTS)
+                .otherwise(0));
+        }
+        return score;
+    }
+
+    /** Highest score {@link #keywordScore} can give for the number of keywords, with or without a category. */
+    public static int maxKeywordScore(int keywordCount, boolean withCategory) {
+        return keywordCount * (TITLE_MATCH_POINTS + DESCRIPTION_MATCH_POINTS) + (withCategory ? CATEGORY_MATCH_POINTS : 0);
+    }
+
+    /**
+     * Listing has the course code: id IN (SELECT listing_id FROM listing_course_codes WHERE dept = ? AND
+     * course_number = ?), answered from idx_listing_course_codes_code (V9).
+     */
+    static Predicate hasCourseCode(Root<Listing> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                   CourseCodes.CourseCode courseCode) {
+        Subquery<String> listingIds = query.subquery(String.class);
+        Root<ListingCourseCode> code = listingIds.from(ListingCourseCode.class);
+        listingIds.select(code.get("listingId"))
+            .where(cb.equal(code.get("dept"), courseCode.getDept()),
+                   cb.equal(code.get("number"), courseCode.getNumber()));
+        return root.get("id").in(listingIds);
+    }
+
+    /** Escape LIKE wildcards so user input matches literally (as the former %:searchTerm% binding did). */
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
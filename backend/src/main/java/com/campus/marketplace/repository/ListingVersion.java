@@ -0,0 +1,16 @@
+package com.campus.marketplace.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a listing's detail response depends on besides the listing row itself: the seller and
+ * category names it shows. Used to answer conditional GETs without loading the listing.
+ */
+public interface ListingVersion {
+
+    LocalDateTime getUpdatedAt();
+
+    String getSellerName();
+
+    String getCategoryName();
+}
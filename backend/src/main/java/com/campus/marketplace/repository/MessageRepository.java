@@ -1,6 +1,8 @@
 package com.campus.marketplace.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,40 +11,26 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.campus.marketplace.dto.MessageDTO;
 import com.campus.marketplace.entity.Message;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, String> {
     
+    // Message m (recipient t, conversation c) is at or before its recipient's read cursor, i.e. read
+    String READ_BY_RECIPIENT = "((t.id = c.userLow.id AND c.userLowLastReadAt IS NOT NULL AND " +
+           "(m.createdAt < c.userLowLastReadAt OR (m.createdAt = c.userLowLastReadAt AND m.id <= c.userLowLastReadMessageId))) OR " +
+           "(t.id = c.userHigh.id AND c.userHighLastReadAt IS NOT NULL AND " +
+           "(m.createdAt < c.userHighLastReadAt OR (m.createdAt = c.userHighLastReadAt AND m.id <= c.userHighLastReadMessageId))))";
+    
+    // Constructor expression selecting exactly the MessageDTO columns (alias m; listing l; users f and t; conversation c)
+    String DTO_SELECT = "SELECT new com.campus.marketplace.dto.MessageDTO(m.id, l.id, l.title, f.id, f.name, " +
+           "t.id, t.name, m.content, CASE WHEN " + READ_BY_RECIPIENT + " THEN true ELSE false END, m.createdAt) " +
+           "FROM Message m JOIN m.listing l JOIN m.fromUser f JOIN m.toUser t JOIN m.conversation c ";
+    
     // Get messages for a specific listing
     List<Message> findByListingIdOrderByCreatedAtAsc(String listingId);
     
-    // Get conversation between two users
-    @Query("SELECT m FROM Message m WHERE " +
-           "((m.fromUser.id = :userId1 AND m.toUser.id = :userId2) OR " +
-           "(m.fromUser.id = :userId2 AND m.toUser.id = :userId1)) " +
-           "ORDER BY m.createdAt ASC")
-    List<Message> findConversationBetweenUsers(@Param("userId1") String userId1, @Param("userId2") String userId2);
-    
-    // Get conversation for a specific listing between two users
-    @Query("SELECT m FROM Message m WHERE m.listing.id = :listingId AND " +
-           "((m.fromUser.id = :userId1 AND m.toUser.id = :userId2) OR " +
-           "(m.fromUser.id = :userId2 AND m.toUser.id = :userId1)) " +
-           "ORDER BY m.createdAt ASC")
-    List<Message> findConversationForListing(@Param("listingId") String listingId, 
-                                           @Param("userId1") String userId1, 
-                                           @Param("userId2") String userId2);
-    
-    // Get conversation for a specific listing between two users with pagination
-    @Query("SELECT m FROM Message m WHERE m.listing.id = :listingId AND " +
-           "((m.fromUser.id = :userId1 AND m.toUser.id = :userId2) OR " +
-           "(m.fromUser.id = :userId2 AND m.toUser.id = :userId1)) " +
-           "ORDER BY m.createdAt ASC")
-    Page<Message> findConversationForListing(@Param("listingId") String listingId, 
-                                           @Param("userId1") String userId1, 
-                                           @Param("userId2") String userId2,
-                                           Pageable pageable);
-    
     // Get messages sent by a user
     List<Message> findByFromUserIdOrderByCreatedAtDesc(String fromUserId);
     
@@ -67,18 +55,103 @@ public interface MessageRepository extends JpaRepository<Message, String> {
     @Query("SELECT COUNT(m) > 0 FROM Message m WHERE m.id = :messageId AND (m.fromUser.id = :userId OR m.toUser.id = :userId)")
     boolean existsByIdAndUserInvolved(@Param("messageId") String messageId, @Param("userId") String userId);
     
-    // Get conversation partners for a user
-    @Query("SELECT DISTINCT CASE " +
-           "WHEN m.fromUser.id = :userId THEN m.toUser.id " +
-           "ELSE m.fromUser.id " +
-           "END FROM Message m WHERE m.fromUser.id = :userId OR m.toUser.id = :userId")
-    List<String> findConversationPartners(@Param("userId") String userId);
-    
-    // Get unread messages count for a user
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.toUser.id = :userId AND m.isRead = false")
+    // Get unread messages count for a user: the sum of their conversations' unread counters
+    @Query("SELECT COALESCE(SUM(CASE WHEN c.userLow.id = :userId THEN c.userLowUnread ELSE c.userHighUnread END), 0L) " +
+           "FROM Conversation c WHERE c.userLow.id = :userId OR c.userHigh.id = :userId")
     Long countUnreadMessagesByUserId(@Param("userId") String userId);
     
-    // Get unread messages for a user
-    @Query("SELECT m FROM Message m WHERE m.toUser.id = :userId AND m.isRead = false ORDER BY m.createdAt DESC")
-    List<Message> findUnreadMessagesByUserId(@Param("userId") String userId);
-}
\ No newline at end of file
+    // Count messages a user received in a conversation after a read cursor: a range on
+    // (conversation_id, to_user_id, created_at, id)
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId AND m.toUser.id = :userId AND " +
+           "(m.createdAt > :readAt OR (m.createdAt = :readAt AND m.id > :readMessageId))")
+    long countReceivedAfter(@Param("conversationId") String conversationId,
+                            @Param("userId") String userId,
+                            @Param("readAt") LocalDateTime readAt,
+                            @Param("readMessageId") String readMessageId);
+    
+    // DTO projections: one round trip per list, no lazy loads of listing or users
+    
+    // Get message DTOs of a listing that a user sent or received: ranges on (listing_id, from_user_id)
+    // and (listing_id, to_user_id), so other buyers' threads about the listing are not read
+    String LISTING_PARTICIPANT = "WHERE l.id = :listingId AND (f.id = :userId OR t.id = :userId) ";
+    
+    @Query(DTO_SELECT + LISTING_PARTICIPANT + "ORDER BY m.createdAt ASC, m.id ASC")
+    List<MessageDTO> findDTOsByListingIdAndParticipant(@Param("listingId") String listingId,
+                                                       @Param("userId") String userId);
+    
+    // Get message DTOs of a listing that a user sent or received, with pagination
+    @Query(value = DTO_SELECT + LISTING_PARTICIPANT + "ORDER BY m.createdAt ASC, m.id ASC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.listing.id = :listingId AND " +
+                        "(m.fromUser.id = :userId OR m.toUser.id = :userId)")
+    Page<MessageDTO> findDTOsByListingIdAndParticipant(@Param("listingId") String listingId,
+                                                       @Param("userId") String userId,
+                                                       Pageable pageable);
+    
+    // Get conversation DTOs between two users, across listings (users in canonical order)
+    @Query(DTO_SELECT + "WHERE c.userLow.id = :userLowId AND c.userHigh.id = :userHighId " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<MessageDTO> findConversationDTOsBetweenUsers(@Param("userLowId") String userLowId,
+                                                      @Param("userHighId") String userHighId);
+    
+    // Get message DTOs of a conversation: a range scan on (conversation_id, created_at)
+    @Query(DTO_SELECT + "WHERE m.conversation.id = :conversationId ORDER BY m.createdAt ASC, m.id ASC")
+    List<MessageDTO> findDTOsByConversationId(@Param("conversationId") String conversationId);
+    
+    // Get message DTOs of a conversation with pagination
+    @Query(value = DTO_SELECT + "WHERE m.conversation.id = :conversationId ORDER BY m.createdAt ASC, m.id ASC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId")
+    Page<MessageDTO> findDTOsByConversationId(@Param("conversationId") String conversationId, Pageable pageable);
+    
+    // Keyset page of a conversation's message DTOs, newest first, strictly before (createdAt, id):
+    // a backward range scan on (conversation_id, created_at, id)
+    @Query(DTO_SELECT + "WHERE m.conversation.id = :conversationId AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MessageDTO> findDTOsByConversationIdBefore(@Param("conversationId") String conversationId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") String id,
+                                                    Pageable pageable);
+    
+    // Keyset page of a conversation's message DTOs, oldest first, strictly after (createdAt, id)
+    @Query(DTO_SELECT + "WHERE m.conversation.id = :conversationId AND " +
+           "(m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+           "ORDER BY m.createdAt ASC, m.id ASC")
+    List<MessageDTO> findDTOsByConversationIdAfter(@Param("conversationId") String conversationId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") String id,
+                                                   Pageable pageable);
+    
+    // Latest message of a conversation other than the given one (new summary after a delete)
+    Optional<Message> findFirstByConversationIdAndIdNotOrderByCreatedAtDescIdDesc(String conversationId, String messageId);
+    
+    // Get message DTOs sent by a user
+    @Query(DTO_SELECT + "WHERE f.id = :userId ORDER BY m.createdAt DESC")
+    List<MessageDTO> findSentDTOs(@Param("userId") String userId);
+    
+    // Get message DTOs sent by a user with pagination
+    @Query(value = DTO_SELECT + "WHERE f.id = :userId ORDER BY m.createdAt DESC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.fromUser.id = :userId")
+    Page<MessageDTO> findSentDTOs(@Param("userId") String userId, Pageable pageable);
+    
+    // Get message DTOs received by a user
+    @Query(DTO_SELECT + "WHERE t.id = :userId ORDER BY m.createdAt DESC")
+    List<MessageDTO> findReceivedDTOs(@Param("userId") String userId);
+    
+    // Get message DTOs received by a user with pagination
+    @Query(value = DTO_SELECT + "WHERE t.id = :userId ORDER BY m.createdAt DESC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.toUser.id = :userId")
+    Page<MessageDTO> findReceivedDTOs(@Param("userId") String userId, Pageable pageable);
+    
+    // Get all message DTOs for a user (sent or received)
+    @Query(DTO_SELECT + "WHERE f.id = :userId OR t.id = :userId ORDER BY m.createdAt DESC")
+    List<MessageDTO> findAllDTOsForUser(@Param("userId") String userId);
+    
+    // Get all message DTOs for a user with pagination
+    @Query(value = DTO_SELECT + "WHERE f.id = :userId OR t.id = :userId ORDER BY m.createdAt DESC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.fromUser.id = :userId OR m.toUser.id = :userId")
+    Page<MessageDTO> findAllDTOsForUser(@Param("userId") String userId, Pageable pageable);
+    
+    // Get unread message DTOs for a user
+    @Query(DTO_SELECT + "WHERE t.id = :userId AND NOT " + READ_BY_RECIPIENT + " ORDER BY m.createdAt DESC")
+    List<MessageDTO> findUnreadDTOsByUserId(@Param("userId") String userId);
+}
@@ -1,5 +1,6 @@
 package com.campus.marketplace.repository;
 
+import com.campus.marketplace.dto.TransactionDTO;
 import com.campus.marketplace.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -11,6 +12,14 @@ import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, String> {
+
+    /**
+     * Constructor-expression select shared by the DTO read paths. Joins listing, buyer and seller
+     * in one statement so response mapping never touches lazy associations.
+     */
+    String DTO_SELECT = "SELECT new com.campus.marketplace.dto.TransactionDTO(t.id, l.id, l.title, b.id, b.name, "
+        + "s.id, s.name, t.finalPrice, t.status, t.createdAt, t.updatedAt) "
+        + "FROM Transaction t JOIN t.listing l JOIN t.buyer b JOIN l.seller s ";
     
     List<Transaction> findByBuyerId(String buyerId);
     
@@ -32,4 +41,19 @@ public interface TransactionRepository extends JpaRepository<Transaction, String
     
     @Query("SELECT l.seller.id FROM Transaction t JOIN t.listing l WHERE t.id = :transactionId")
     String findSellerIdByTransactionId(@Param("transactionId") String transactionId);
+
+    @Query(DTO_SELECT + "ORDER BY t.createdAt DESC")
+    List<TransactionDTO> findAllDTOs();
+
+    @Query(DTO_SELECT + "WHERE b.id = :buyerId ORDER BY t.createdAt DESC")
+    List<TransactionDTO> findDTOsByBuyerIdOrderByCreatedAtDesc(@Param("buyerId") String buyerId);
+
+    @Query(DTO_SELECT + "WHERE t.status = :status ORDER BY t.createdAt DESC")
+    List<TransactionDTO> findDTOsByStatusOrderByCreatedAtDesc(@Param("status") Transaction.TransactionStatus status);
+
+    @Query(DTO_SELECT + "WHERE s.id = :sellerId ORDER BY t.createdAt DESC")
+    List<TransactionDTO> findDTOsBySellerIdOrderByCreatedAtDesc(@Param("sellerId") String sellerId);
+
+    @Query(DTO_SELECT + "WHERE s.id = :sellerId AND t.status = :status ORDER BY t.createdAt DESC")
+    List<TransactionDTO> findDTOsBySellerIdAndStatusOrderByCreatedAtDesc(@Param("sellerId") String sellerId, @Param("status") Transaction.TransactionStatus status);
 }
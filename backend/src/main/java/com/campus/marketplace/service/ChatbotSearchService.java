@@ -1,28 +1,72 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.ScoredListingDTO;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingRepositoryCustom;
+import com.campus.marketplace.repository.ListingSpecifications;
+import com.campus.marketplace.util.CourseCodes;
+import com.campus.marketplace.util.CircuitBreaker;
+import com.campus.marketplace.util.HnswIndex;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
 import com.theokanning.openai.service.OpenAiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Service for processing conversational search queries using ChatGPT
+ * Service for processing conversational search queries using ChatGPT.
+ * Interpretations are cached per normalized query (bounded, with TTL), and concurrent identical
+ * queries share one upstream call. The category list in the system prompt is cached as well.
+ * Calls run on a small pool under a per-request latency budget and behind a circuit breaker;
+ * outcomes and breaker state are published as chatbot.llm.* metrics.
+ * {@link #streamQuery} reports keyword results first and refined results when ChatGPT answers.
+ * Queries run outside any transaction, so no connection is held while ChatGPT is awaited; each
+ * database search runs in its own read-only transaction.
  */
 @Service
-@Transactional
 public class ChatbotSearchService {
     
     @Autowired
@@ -31,6 +75,24 @@ public class ChatbotSearchService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private OpenAiService openAiService;
+    
+    @Autowired
+    private QueryIntentClassifier intentClassifier;
+    
+    @Autowired
+    private ListingSemanticIndex semanticIndex;
+    
+    @Autowired
+    private SearchQueryLog searchQueryLog;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+    
     @Value("${openai.api-key}")
     private String apiKey;
     
@@ -40,80 +102,509 @@ public class ChatbotSearchService {
     @Value("${openai.temperature:0.3}")
     private Double temperature;
     
+    @Value("${openai.cache.enabled:true}")
+    private boolean interpretationCacheEnabled = true;
+    
+    @Value("${openai.cache.max-entries:5000}")
+    private long interpretationCacheMaxEntries = 5000;
+    
+    @Value("${openai.cache.ttl:1h}")
+    private Duration interpretationCacheTtl = Duration.ofHours(1);
+    
+    @Value("${openai.category-prompt-ttl:10m}")
+    private Duration categoryPromptTtl = Duration.ofMinutes(10);
+    
+    @Value("${openai.latency-budget:2500ms}")
+    private Duration latencyBudget = Duration.ofMillis(2500);
+    
+    @Value("${openai.stream-latency-budget:10s}")
+    private Duration streamLatencyBudget = Duration.ofSeconds(10);
+    
+    @Value("${openai.max-concurrent-streams:32}")
+    private int maxConcurrentStreams = 32;
+    
+    @Value("${openai.max-concurrent-calls:8}")
+    private int llmMaxConcurrentCalls = 8;
+    
+    @Value("${openai.circuit-breaker.failure-threshold:5}")
+    private int circuitFailureThreshold = 5;
+    
+    @Value("${openai.circuit-breaker.open-duration:30s}")
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    
+    /** Default and maximum number of results per chatbot page. */
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 50;
+    /** Keywords searched per query; extra ones from ChatGPT are dropped. */
+    static final int MAX_KEYWORDS = 6;
+    
+    static final String INTERPRETATION_CACHE_NAME = "chatbot.interpretation";
+    /** Counter of ChatGPT calls, tagged outcome=success|failure|timeout|short_circuited. */
+    static final String CALLS_METRIC = "chatbot.llm.calls";
+    /** Gauge of the breaker state: 0 closed, 1 open, 2 half-open. */
+    static final String CIRCUIT_STATE_METRIC = "chatbot.llm.circuit.state";
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_FAILURE = "failure";
+    static final String OUTCOME_TIMEOUT = "timeout";
+    static final String OUTCOME_SHORT_CIRCUITED = "short_circuited";
+    /** Counter of answered queries by where the keywords came from: local|cache|llm|keywords. */
+    static final String INTERPRETATIONS_METRIC = "chatbot.interpretations";
+    static final String SOURCE_LOCAL = "local";
+    static final String SOURCE_CACHE = "cache";
+    static final String SOURCE_LLM = "llm";
+    static final String SOURCE_KEYWORDS = "keywords";
+    /** Timer of the time to the first streamed results, tagged mode=stream. */
+    static final String FIRST_RESULT_METRIC = "chatbot.search.first-result";
+    /** Timer of the total search latency, tagged mode=blocking|stream. */
+    static final String LATENCY_METRIC = "chatbot.search.latency";
+    static final String MODE_BLOCKING = "blocking";
+    static final String MODE_STREAM = "stream";
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotSearchService.class);
+    
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofSeconds(30));
+    
+    // bounded pool for ChatGPT calls; a full queue is treated as a failed call
+    private ThreadPoolExecutor llmExecutor;
+    
+    // runs streamed searches off the request thread; a full queue fails the stream
+    private ThreadPoolExecutor streamExecutor;
+    
+    // normalized query -> interpreted search term
+    private Cache<String, String> interpretations;
+    
+    private volatile SystemPrompt systemPrompt;
+    
+    // the search paths are called from inside this class, where @Transactional would not apply
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    void init() {
+        if (transactionManager != null) {
+            readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+        }
+        circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenDuration);
+        AtomicInteger threadCount = new AtomicInteger();
+        llmExecutor = new ThreadPoolExecutor(llmMaxConcurrentCalls, llmMaxConcurrentCalls,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(llmMaxConcurrentCalls * 2), runnable -> {
+                Thread thread = new Thread(runnable, "chatbot-llm-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        llmExecutor.allowCoreThreadTimeOut(true);
+        AtomicInteger streamThreadCount = new AtomicInteger();
+        streamExecutor = new ThreadPoolExecutor(maxConcurrentStreams, maxConcurrentStreams,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxConcurrentStreams), runnable -> {
+                Thread thread = new Thread(runnable, "chatbot-stream-" + streamThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        streamExecutor.allowCoreThreadTimeOut(true);
+        if (meterRegistry != null) {
+            meterRegistry.gauge(CIRCUIT_STATE_METRIC, circuitBreaker, breaker -> breaker.getState().ordinal());
+        }
+        if (!interpretationCacheEnabled) {
+            return;
+        }
+        interpretations = Caffeine.newBuilder()
+            .maximumSize(interpretationCacheMaxEntries)
+            .expireAfterWrite(interpretationCacheTtl)
+            .recordStats()
+            .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, interpretations, INTERPRETATION_CACHE_NAME);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (llmExecutor != null) {
+            llmExecutor.shutdownNow();
+        }
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+        }
+    }
+    
     /**
      * Process a conversational query and extract search terms using ChatGPT.
-     * Falls back to keyword search if ChatGPT processing fails.
+     * Queries the local {@link QueryIntentClassifier} is confident about skip ChatGPT entirely; their
+     * predicted category ranks its listings higher.
+     * Falls back to keyword search if ChatGPT is not configured, fails, misses the latency budget
+     * (openai.latency-budget) or is short-circuited after repeated failures. While ChatGPT is
+     * working, the keyword search runs on the request thread, so a missed budget costs nothing extra.
+     * A call that misses the budget keeps running and fills the interpretation cache for next time.
+     * All extracted keywords are searched at once and results are ranked by how many of them match
+     * (see {@link #search}).
      * 
      * @param query natural language query (e.g., "textbook for CMPE 202?")
-     * @return list of relevant listings
+     * @param page zero-based page of ranked results
+     * @param size page size (capped at MAX_PAGE_SIZE)
+     * @return interpreted keywords and one page of scored listings
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatbotSearchResult processQuery(String query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            ChatbotSearchResult result = answer(query, page, size, latencyBudget, null);
+            recordQuery(query, start, result);
+            return result;
+        } finally {
+            recordLatency(LATENCY_METRIC, MODE_BLOCKING, start);
+        }
+    }
+    
+    /**
+     * First page of {@link #processQuery(String, int, int)}.
+     * @param query natural language query
+     * @return interpreted keywords and the best-matching listings
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ChatbotSearchResult processQuery(String query) {
+        return processQuery(query, 0, DEFAULT_PAGE_SIZE);
+    }
+    
+    /**
+     * Streaming variant of {@link #processQuery(String, int, int)}, run on the stream pool.
+     * The keyword-fallback results are reported as soon as they are ready ({@link Stage#KEYWORDS}),
+     * then the results for ChatGPT's interpretation ({@link Stage#REFINED}), which is awaited for up
+     * to openai.stream-latency-budget since the client already has something to show. Local intents
+     * and cached interpretations are reported as REFINED right away, without a keyword stage.
+     * Time to the first reported results is published as chatbot.search.first-result, separately from
+     * the total chatbot.search.latency.
+     * 
+     * @param listener receives the stages, then exactly one of onComplete or onError
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamQuery(String query, int page, int size, StreamListener listener) {
+        long start = System.nanoTime();
+        Runnable task = () -> {
+            AtomicBoolean firstResult = new AtomicBoolean(true);
+            try {
+                ChatbotSearchResult result = answer(query, page, size, streamLatencyBudget, (stage, partial) -> {
+                    if (firstResult.compareAndSet(true, false)) {
+                        recordLatency(FIRST_RESULT_METRIC, MODE_STREAM, start);
+                    }
+                    listener.onResults(stage, partial);
+                });
+                recordLatency(LATENCY_METRIC, MODE_STREAM, start);
+                recordQuery(query, start, result);
+                listener.onComplete(result);
+            } catch (RuntimeException e) {
+                listener.onError(e);
+            }
+        };
+        if (streamExecutor == null) {
+            // not initialized (plain unit tests): run inline
+            task.run();
+            return;
+        }
+        try {
+            streamExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            listener.onError(e);
+        }
+    }
+    
+    /**
+     * Make sure ChatGPT's interpretation of a query is in the interpretation cache, asking it if
+     * needed (waiting up to openai.stream-latency-budget). Queries answered locally, and calls while
+     * ChatGPT is unconfigured or short-circuited, are skipped. Used by {@link SearchCacheWarmer};
+     * not recorded in the query log.
+     * @param query natural language query
+     * @return true if ChatGPT was asked and answered
+     */
+    public boolean warmInterpretation(String query) {
+        if (query == null || query.isBlank() || interpretations == null || !isChatGptConfigured()
+                || interpretations.getIfPresent(normalizeQuery(query)) != null) {
+            return false;
+        }
+        QueryIntentClassifier.Intent intent = intentClassifier != null ? intentClassifier.classify(query) : null;
+        if ((intent != null && intent.isConfident()) || !circuitBreaker.tryAcquire()) {
+            return false;
+        }
+        AtomicBoolean settled = new AtomicBoolean();
+        CompletableFuture<String> interpretation = startInterpretation(query, settled);
+        long deadline = System.nanoTime() + streamLatencyBudget.toNanos();
+        return awaitInterpretation(interpretation, deadline, streamLatencyBudget, settled) != null;
+    }
+    
+    /**
+     * Shared pipeline of the blocking and streaming searches.
+     * @param budget how long to wait for ChatGPT
+     * @param stages receives intermediate results when streaming (nullable)
+     */
+    private ChatbotSearchResult answer(String query, int page, int size, Duration budget,
+                                       BiConsumer<Stage, ChatbotSearchResult> stages) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
         if (query == null || query.trim().isEmpty()) {
             // Treat empty queries as a fallback scenario to keep behavior consistent
-            return new ChatbotSearchResult("", true);
+            return report(stages, Stage.KEYWORDS, new ChatbotSearchResult("", Page.empty(pageable), true));
         }
         
-        String interpretedQuery = null;
-        boolean usedFallback = false;
+        long deadline = System.nanoTime() + budget.toNanos();
         
-        // Try to use ChatGPT to interpret the query
-        try {
-            if (apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here")) {
-                System.out.println("DEBUG: Attempting to use ChatGPT with API key: " + (apiKey != null ? apiKey.substring(0, Math.min(10, apiKey.length())) + "..." : "null"));
-                interpretedQuery = interpretQueryWithChatGPT(query);
-                System.out.println("DEBUG: ChatGPT returned: " + interpretedQuery);
-            } else {
-                System.out.println("DEBUG: ChatGPT skipped - apiKey is: " + (apiKey == null ? "null" : apiKey.isEmpty() ? "empty" : apiKey));
-            }
-        } catch (Exception e) {
-            // Log error and fall back to keyword search
-            System.err.println("ChatGPT processing failed: " + e.getMessage());
-            e.printStackTrace();
-            usedFallback = true;
+        // Common queries: interpreted locally in microseconds
+        QueryIntentClassifier.Intent intent = intentClassifier != null ? intentClassifier.classify(query) : null;
+        if (intent != null && intent.isConfident()) {
+            recordInterpretation(SOURCE_LOCAL);
+            return report(stages, Stage.REFINED, new ChatbotSearchResult(intent.getKeywords(),
+                search(intent.getKeywords(), intent.getCategoryId(), pageable), false));
         }
         
-        // If ChatGPT failed or wasn't configured, use fallback keyword extraction
-        if (interpretedQuery == null || interpretedQuery.trim().isEmpty()) {
-            interpretedQuery = extractKeywords(query);
-            usedFallback = true;
+        String fallbackQuery = extractKeywords(query);
+        
+        if (!isChatGptConfigured()) {
+            recordInterpretation(SOURCE_KEYWORDS);
+            return report(stages, Stage.KEYWORDS,
+                new ChatbotSearchResult(fallbackQuery, search(fallbackQuery, null, pageable), true));
         }
         
-        // Search listings using the interpreted query
-        List<Listing> listings = listingRepository.findByTitleOrDescriptionContaining(
-            interpretedQuery, interpretedQuery);
+        // Repeat queries: answered from the cache without touching the breaker
+        String cached = interpretations != null ? interpretations.getIfPresent(normalizeQuery(query)) : null;
+        if (cached != null) {
+            recordInterpretation(SOURCE_CACHE);
+            return report(stages, Stage.REFINED, new ChatbotSearchResult(cached, search(cached, null, pageable), false));
+        }
         
-        // Filter to only active listings
-        listings = listings.stream()
-            .filter(l -> l.getStatus() == Listing.ListingStatus.ACTIVE)
-            .collect(Collectors.toList());
+        if (!circuitBreaker.tryAcquire()) {
+            recordOutcome(OUTCOME_SHORT_CIRCUITED);
+            recordInterpretation(SOURCE_KEYWORDS);
+            return report(stages, Stage.KEYWORDS,
+                new ChatbotSearchResult(fallbackQuery, search(fallbackQuery, null, pageable), true));
+        }
         
-        return new ChatbotSearchResult(interpretedQuery, listings, usedFallback);
+        AtomicBoolean settled = new AtomicBoolean();
+        CompletableFuture<String> interpretation = startInterpretation(query, settled);
+        
+        // Hedge: run the keyword search while ChatGPT is working (streamed right away)
+        ChatbotSearchResult fallback = report(stages, Stage.KEYWORDS,
+            new ChatbotSearchResult(fallbackQuery, search(fallbackQuery, null, pageable), true));
+        
+        String interpretedQuery = awaitInterpretation(interpretation, deadline, budget, settled);
+        if (interpretedQuery == null || toKeywords(interpretedQuery).isEmpty()) {
+            recordInterpretation(SOURCE_KEYWORDS);
+            return fallback;
+        }
+        recordInterpretation(SOURCE_LLM);
+        Page<ScoredListingDTO> listings = sameKeywords(interpretedQuery, fallbackQuery)
+            ? fallback.listings
+            : search(interpretedQuery, null, pageable);
+        return report(stages, Stage.REFINED, new ChatbotSearchResult(interpretedQuery, listings, false));
+    }
+    
+    private static ChatbotSearchResult report(BiConsumer<Stage, ChatbotSearchResult> stages, Stage stage,
+                                              ChatbotSearchResult result) {
+        if (stages != null) {
+            stages.accept(stage, result);
+        }
+        return result;
+    }
+    
+    /** @return state of the circuit breaker guarding ChatGPT calls */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+    
+    private boolean isChatGptConfigured() {
+        return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
     }
     
     /**
-     * Use ChatGPT to interpret natural language query and extract search terms.
+     * Start the ChatGPT call on the LLM pool. Its outcome is reported to the breaker when it
+     * completes, unless the request already gave up on it (settled).
      */
-    private String interpretQueryWithChatGPT(String query) {
-        OpenAiService service = new OpenAiService(apiKey, Duration.ofSeconds(30));
+    private CompletableFuture<String> startInterpretation(String query, AtomicBoolean settled) {
+        CompletableFuture<String> interpretation;
+        if (llmExecutor == null) {
+            // not initialized (plain unit tests): call inline
+            try {
+                interpretation = CompletableFuture.completedFuture(interpretQuery(query));
+            } catch (RuntimeException e) {
+                interpretation = CompletableFuture.failedFuture(e);
+            }
+        } else {
+            try {
+                interpretation = CompletableFuture.supplyAsync(() -> interpretQuery(query), llmExecutor);
+            } catch (RejectedExecutionException e) {
+                interpretation = CompletableFuture.failedFuture(e);
+            }
+        }
+        return interpretation.whenComplete((result, error) -> {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                recordOutcome(OUTCOME_SUCCESS);
+            } else {
+                circuitBreaker.onFailure();
+                recordOutcome(OUTCOME_FAILURE);
+                logger.warn("ChatGPT processing failed, using keyword fallback: {}", error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Wait for the interpretation until the deadline.
+     * @return interpreted query, or null if the call failed or missed the budget
+     */
+    private String awaitInterpretation(CompletableFuture<String> interpretation, long deadline, Duration budget,
+                                       AtomicBoolean settled) {
+        try {
+            return interpretation.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (settled.compareAndSet(false, true)) {
+                circuitBreaker.onFailure();
+                recordOutcome(OUTCOME_TIMEOUT);
+                logger.warn("ChatGPT missed the {} ms latency budget, using keyword fallback", budget.toMillis());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+    
+    private void recordQuery(String query, long start, ChatbotSearchResult result) {
+        if (searchQueryLog != null) {
+            searchQueryLog.record(SearchQueryLog.SOURCE_CHATBOT, query, System.nanoTime() - start, result.getTotalResults());
+        }
+    }
+    
+    private void recordOutcome(String outcome) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(CALLS_METRIC, "outcome", outcome).increment();
+        }
+    }
+    
+    private void recordInterpretation(String source) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(INTERPRETATIONS_METRIC, "source", source).increment();
+        }
+    }
+    
+    private void recordLatency(String metric, String mode, long start) {
+        if (meterRegistry != null) {
+            meterRegistry.timer(metric, "mode", mode).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * One ranked query over every keyword: ACTIVE listings matching any keyword, best first,
+     * limited to the requested page in the database. Scores are normalized to 0..1.
+     * When no listing shares a keyword, the first page comes from {@link ListingSemanticIndex} instead.
+     * @param keywordList comma-separated keywords
+     * @param categoryId category to rank higher (nullable)
+     */
+    private Page<ScoredListingDTO> search(String keywordList, String categoryId, Pageable pageable) {
+        List<String> keywords = toKeywords(keywordList);
+        if (keywords.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (readOnlyTransaction == null) {
+            return rankedSearch(keywords, categoryId, pageable);
+        }
+        return readOnlyTransaction.execute(status -> rankedSearch(keywords, categoryId, pageable));
+    }
+    
+    private Page<ScoredListingDTO> rankedSearch(List<String> keywords, String categoryId, Pageable pageable) {
+        Page<ListingRepositoryCustom.ScoredId> ids = listingRepository.findActiveIdsByKeywords(keywords, categoryId, pageable);
+        if (ids.getTotalElements() == 0 && pageable.getPageNumber() == 0) {
+            return similarListings(keywords, pageable);
+        }
+        if (ids.getContent().isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, ids.getTotalElements());
+        }
         
-        // Get available categories for context
-        List<String> categoryNames = categoryRepository.findAll().stream()
-            .map(c -> c.getName())
+        List<String> idList = ids.getContent().stream()
+            .map(ListingRepositoryCustom.ScoredId::getId)
             .collect(Collectors.toList());
-        
-        String systemPrompt = String.format(
-            "You are a search assistant for a campus marketplace. " +
-            "Extract the most important search keywords from the user's query. " +
-            "Focus on: product/item names, course codes (e.g., CMPE 202), book titles, categories, and specific terms. " +
-            "Available categories: %s. " +
-            "Return ONLY a comma-separated list of search keywords, nothing else. " +
-            "If the query mentions a course code, include variations (e.g., CMPE202, CMPE 202). " +
-            "Keep keywords concise (2-3 words max per keyword). " +
-            "Example: 'textbook for CMPE 202?' -> 'CMPE 202, textbook, CMPE202'",
-            String.join(", ", categoryNames)
-        );
-        
-        ChatMessage systemMessage = new ChatMessage(ChatMessageRole.SYSTEM.value(), systemPrompt);
+        Map<String, ListingDTO> byId = listingRepository.findDTOsByIdIn(idList).stream()
+            .collect(Collectors.toMap(ListingDTO::getId, Function.identity()));
+        double maxScore = ListingSpecifications.maxKeywordScore(keywords.size(), categoryId != null);
+        List<ScoredListingDTO> hits = new ArrayList<>(idList.size());
+        for (ListingRepositoryCustom.ScoredId scored : ids.getContent()) {
+            ListingDTO listing = byId.get(scored.getId());
+            if (listing != null) {
+                hits.add(new ScoredListingDTO(listing, scored.getScore() / maxScore));
+            }
+        }
+        return new PageImpl<>(hits, pageable, ids.getTotalElements());
+    }
+    
+    /**
+     * Listings close in meaning to the keywords ("graphing calculator" -> "TI-84"), scored by cosine similarity.
+     * @return one page of at most pageable.getPageSize() listings, empty if the semantic index is not ready
+     */
+    private Page<ScoredListingDTO> similarListings(List<String> keywords, Pageable pageable) {
+        Optional<List<HnswIndex.Neighbor>> neighbors = semanticIndex != null
+            ? semanticIndex.search(String.join(" ", keywords), null, pageable.getPageSize())
+            : Optional.empty();
+        if (neighbors.isEmpty() || neighbors.get().isEmpty()) {
+            return Page.empty(pageable);
+        }
+        List<String> idList = neighbors.get().stream()
+            .map(HnswIndex.Neighbor::getId)
+            .collect(Collectors.toList());
+        Map<String, ListingDTO> byId = listingRepository.findDTOsByIdIn(idList).stream()
+            .collect(Collectors.toMap(ListingDTO::getId, Function.identity()));
+        List<ScoredListingDTO> hits = new ArrayList<>(idList.size());
+        for (HnswIndex.Neighbor neighbor : neighbors.get()) {
+            ListingDTO listing = byId.get(neighbor.getId());
+            if (listing != null && listing.getStatus() == Listing.ListingStatus.ACTIVE) {
+                hits.add(new ScoredListingDTO(listing, neighbor.getSimilarity()));
+            }
+        }
+        return new PageImpl<>(hits, pageable, hits.size());
+    }
+    
+    /**
+     * Split a comma-separated keyword list, dropping blanks and case-insensitive duplicates.
+     * Course codes are normalized ("CMPE202" -> "CMPE 202"), so spellings of one code count once.
+     * At most MAX_KEYWORDS are kept.
+     */
+    static List<String> toKeywords(String keywordList) {
+        List<String> keywords = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String keyword : keywordList.split(",")) {
+            String trimmed = CourseCodes.parse(keyword).map(CourseCodes.CourseCode::toString).orElse(keyword.trim());
+            if (!trimmed.isEmpty() && seen.add(trimmed.toLowerCase(Locale.ROOT)) && keywords.size() < MAX_KEYWORDS) {
+                keywords.add(trimmed);
+            }
+        }
+        return keywords;
+    }
+    
+    private static boolean sameKeywords(String a, String b) {
+        List<String> left = toKeywords(a.toLowerCase(Locale.ROOT));
+        List<String> right = toKeywords(b.toLowerCase(Locale.ROOT));
+        return new HashSet<>(left).equals(new HashSet<>(right));
+    }
+    
+    /**
+     * Cached interpretation of a query, asking ChatGPT on a miss. Queries that differ only in
+     * case or spacing share an entry; failed interpretations are not cached.
+     */
+    private String interpretQuery(String query) {
+        if (interpretations == null) {
+            return interpretQueryWithChatGPT(query);
+        }
+        return interpretations.get(normalizeQuery(query), key -> interpretQueryWithChatGPT(query));
+    }
+    
+    static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Use ChatGPT to interpret natural language query and extract search terms.
+     */
+    private String interpretQueryWithChatGPT(String query) {
+        ChatMessage systemMessage = new ChatMessage(ChatMessageRole.SYSTEM.value(), systemPrompt());
         ChatMessage userMessage = new ChatMessage(ChatMessageRole.USER.value(), query);
         
         ChatCompletionRequest chatCompletionRequest = ChatCompletionRequest.builder()
@@ -123,31 +614,54 @@ public class ChatbotSearchService {
             .maxTokens(100)
             .build();
         
-        String response = service.createChatCompletion(chatCompletionRequest)
+        String response = openAiService.createChatCompletion(chatCompletionRequest)
             .getChoices().get(0).getMessage().getContent();
         
-        service.shutdownExecutor();
-        
         // Clean up the response - take the first line and remove any extra formatting
         String cleaned = response.trim().split("\n")[0].trim();
         
-        // If response looks good, use it; otherwise fall back
-        if (cleaned.length() > 0 && cleaned.length() < 200) {
-            // Combine keywords into a single search term (OR logic)
-            // Take the first significant keyword for primary search
-            String[] keywords = cleaned.split(",");
-            if (keywords.length > 0) {
-                return keywords[0].trim();
-            }
-            return cleaned;
+        // If response looks good, use all of its keywords; otherwise fall back
+        if (cleaned.length() > 0 && cleaned.length() < 200 && !toKeywords(cleaned).isEmpty()) {
+            return String.join(", ", toKeywords(cleaned));
         }
         
         throw new RuntimeException("Invalid ChatGPT response");
     }
     
+    /**
+     * System prompt listing the available categories, rebuilt at most once per openai.category-prompt-ttl.
+     */
+    private String systemPrompt() {
+        SystemPrompt cached = systemPrompt;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.builtAt < categoryPromptTtl.toNanos()) {
+            return cached.text;
+        }
+        
+        // Get available categories for context
+        List<String> categoryNames = categoryRepository.findAll().stream()
+            .map(c -> c.getName())
+            .collect(Collectors.toList());
+        
+        String prompt = String.format(
+            "You are a search assistant for a campus marketplace. " +
+            "Extract the most important search keywords from the user's query. " +
+            "Focus on: product/item names, course codes (e.g., CMPE 202), book titles, categories, and specific terms. " +
+            "Available categories: %s. " +
+            "Return ONLY a comma-separated list of search keywords, nothing else. " +
+            "If the query mentions a course code, include variations (e.g., CMPE202, CMPE 202). " +
+            "Keep keywords concise (2-3 words max per keyword). " +
+            "Example: 'textbook for CMPE 202?' -> 'CMPE 202, textbook, CMPE202'",
+            String.join(", ", categoryNames)
+        );
+        systemPrompt = new SystemPrompt(prompt, now);
+        return prompt;
+    }
+    
     /**
      * Fallback keyword extraction from natural language query.
-     * Removes common stop words and question words.
+     * Removes common stop words and question words; returns a comma-separated list like ChatGPT does,
+     * with any course code kept together as one keyword.
      */
     private String extractKeywords(String query) {
         if (query == null || query.isEmpty()) {
@@ -167,45 +681,76 @@ public class ChatbotSearchService {
             .trim();
         
         // Extract course codes (e.g., CMPE 202, CS 146, etc.)
+        List<String> keywords = new ArrayList<>();
+        List<String> courseCodeParts = new ArrayList<>();
         String courseCode = extractCourseCode(query);
         if (courseCode != null && !courseCode.isEmpty()) {
-            cleaned = courseCode + " " + cleaned;
+            keywords.add(courseCode);
+            courseCodeParts.addAll(Arrays.asList(courseCode.toLowerCase().split(" ")));
+            courseCodeParts.add(courseCode.toLowerCase().replace(" ", ""));
         }
         
         // Split into words and take the most meaningful ones (non-stop words)
         String[] words = cleaned.split("\\s+");
-        List<String> keywords = new ArrayList<>();
         List<String> stopWords = Arrays.asList("is", "are", "what", "where", "when", "who", "how", "can", "could", "would", "should", "will");
         
         for (String word : words) {
-            if (!stopWords.contains(word) && word.length() > 2) {
+            if (!stopWords.contains(word) && word.length() > 2 && !courseCodeParts.contains(word)) {
                 keywords.add(word);
             }
         }
         
-        // Return up to 3 most important keywords combined
+        // Return up to 3 most important keywords
         int maxKeywords = Math.min(3, keywords.size());
-        return String.join(" ", keywords.subList(0, maxKeywords));
+        return String.join(", ", keywords.subList(0, maxKeywords));
     }
     
     /**
      * Extract course code patterns (e.g., "CMPE 202", "CS146", "MATH 151")
      */
     private String extractCourseCode(String query) {
-        // Pattern: letters followed by numbers (with optional space)
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(
-            "([A-Z]{2,5})\\s*(\\d{3})", 
-            java.util.regex.Pattern.CASE_INSENSITIVE
-        );
-        java.util.regex.Matcher matcher = pattern.matcher(query);
+        return CourseCodes.find(query).map(CourseCodes.CourseCode::toString).orElse(null);
+    }
+    
+    private static class SystemPrompt {
+        private final String text;
+        private final long builtAt;
+        
+        private SystemPrompt(String text, long builtAt) {
+            this.text = text;
+            this.builtAt = builtAt;
+        }
+    }
+    
+    /** Stages of a streamed search; the name is the SSE event name. */
+    public enum Stage {
+        /** Results for the locally extracted keywords. */
+        KEYWORDS("keywords"),
+        /** Results for the interpreted query (local intent, cache or ChatGPT). */
+        REFINED("refined");
+        
+        private final String eventName;
+        
+        Stage(String eventName) {
+            this.eventName = eventName;
+        }
         
-        if (matcher.find()) {
-            String dept = matcher.group(1).toUpperCase();
-            String num = matcher.group(2);
-            return dept + " " + num;
+        public String getEventName() {
+            return eventName;
         }
+    }
+    
+    /**
+     * Receives a streamed search: zero or more stages, then onComplete or onError.
+     * Called on a stream pool thread; an exception from onResults ends the stream with onError.
+     */
+    public interface StreamListener {
+        void onResults(Stage stage, ChatbotSearchResult result);
         
-        return null;
+        /** @param result final results (the last stage reported) */
+        void onComplete(ChatbotSearchResult result);
+        
+        void onError(Exception error);
     }
     
     /**
@@ -213,29 +758,39 @@ public class ChatbotSearchService {
      */
     public static class ChatbotSearchResult {
         private String interpretedQuery;
-        private List<Listing> listings;
+        private Page<ScoredListingDTO> listings;
         private boolean usedFallback;
         
-        public ChatbotSearchResult(String interpretedQuery, List<Listing> listings, boolean usedFallback) {
+        public ChatbotSearchResult(String interpretedQuery, Page<ScoredListingDTO> listings, boolean usedFallback) {
             this.interpretedQuery = interpretedQuery;
             this.listings = listings;
             this.usedFallback = usedFallback;
         }
         
-        public ChatbotSearchResult(String interpretedQuery, boolean usedFallback) {
-            this(interpretedQuery, new ArrayList<>(), usedFallback);
-        }
-        
         public String getInterpretedQuery() {
             return interpretedQuery;
         }
         
-        public List<Listing> getListings() {
-            return listings;
+        /** Listings of the requested page, best match first. */
+        public List<ScoredListingDTO> getListings() {
+            return listings.getContent();
+        }
+        
+        /** Number of matching listings across all pages. */
+        public long getTotalResults() {
+            return listings.getTotalElements();
+        }
+        
+        public int getPage() {
+            return listings.getNumber();
+        }
+        
+        public int getSize() {
+            return listings.getSize();
         }
         
         public boolean isUsedFallback() {
             return usedFallback;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,502 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.AutocompleteSuggestionDTO;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.CompletionTrie;
+import com.campus.marketplace.util.CourseCodes;
+import com.campus.marketplace.util.SearchTokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Search-box completions served from memory: a {@link CompletionTrie} over the words in ACTIVE listing
+ * titles, category names, course codes and popular searches, weighted by how many listings use them plus
+ * how often they were searched. Popular searches are the {@link SearchQueryLog} heavy hitters of the keyword
+ * and advanced searches that found listings for at least search.autocomplete.min-query-count different users
+ * or clients, at most search.autocomplete.max-query-suggestions of them. A keystroke costs a walk down the trie and never touches the database.
+ *
+ * The per-listing words, course codes and category counts are loaded by the startup {@link ListingScanner}
+ * pass and then kept current from {@link ListingChangedEvent}s. The trie itself is immutable: every
+ * search.autocomplete.refresh-interval it is rebuilt from those counts, without touching MySQL, and swapped
+ * in whole when anything changed, so new listings and searches show up after the next refresh. A full
+ * rescan runs only every search.autocomplete.rescan-interval, to repair any drift. Until the first scan
+ * finishes, {@link #complete} returns empty. Lookup latency is published as search.autocomplete.lookup.
+ */
+@Service
+public class ListingAutocompleteIndex implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingAutocompleteIndex.class);
+
+    /** Timer of {@link #complete} calls (with p99). */
+    static final String LOOKUP_METRIC = "search.autocomplete.lookup";
+    static final int MAX_SUGGESTIONS = 10;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_QUERY_LENGTH = 64;
+    // "cmpe202" and "CMPE-202" are keyed like "cmpe 202"
+    private static final Pattern LETTERS_THEN_DIGITS = Pattern.compile("(\\p{L})(\\d)");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-_]+");
+    private static final List<String> QUERY_SOURCES = List.of(SearchQueryLog.SOURCE_SEARCH, SearchQueryLog.SOURCE_ADVANCED);
+
+    // when two sources produce the same key, the first of these names the suggestion
+    private static final List<String> TYPE_PRIORITY = List.of(AutocompleteSuggestionDTO.TYPE_CATEGORY,
+        AutocompleteSuggestionDTO.TYPE_COURSE, AutocompleteSuggestionDTO.TYPE_QUERY, AutocompleteSuggestionDTO.TYPE_TERM);
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private TaskScheduler taskScheduler;
+
+    @Autowired(required = false)
+    private SearchQueryLog searchQueryLog;
+
+    @Value("${search.autocomplete.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.autocomplete.refresh-interval:5m}")
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    @Value("${search.autocomplete.rescan-interval:24h}")
+    private Duration rescanInterval = Duration.ofHours(24);
+
+    // a search typed by one user is not shown to everyone
+    @Value("${search.autocomplete.min-query-count:3}")
+    private int minQueryCount = 3;
+
+    @Value("${search.autocomplete.max-query-suggestions:1000}")
+    private int maxQuerySuggestions = 1000;
+
+    private volatile Snapshot snapshot;
+
+    private Timer lookupTimer;
+
+    // guards counts, touched and dirty
+    private final Object lock = new Object();
+
+    // what ACTIVE listings contribute, current as of the last applied event
+    private Counts counts = new Counts();
+
+    // ids written while a rescan is running, so stale batches cannot overwrite them
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private volatile boolean rescanning;
+
+    // set by listing writes, cleared once a trie including them has been taken
+    private boolean dirty;
+
+    // true once a full scan has finished
+    private volatile boolean loaded;
+
+    // the query suggestions in the current trie
+    private volatile List<Map.Entry<String, Long>> publishedQueries = Collections.emptyList();
+
+    private Build build;
+
+    private volatile ScheduledFuture<?> refresh;
+
+    private volatile ScheduledFuture<?> rescan;
+
+    /**
+     * What one build produced: the trie plus display text and type per key.
+     */
+    private static class Snapshot {
+        private final CompletionTrie trie;
+        private final Map<String, Entry> entries;
+
+        private Snapshot(CompletionTrie trie, Map<String, Entry> entries) {
+            this.trie = trie;
+            this.entries = entries;
+        }
+    }
+
+    // what the current rescan has gathered so far
+    private static class Build {
+        private final long start = System.nanoTime();
+        private final Counts counts = new Counts();
+        private int scanned;
+    }
+
+    // what one ACTIVE listing adds to the completions
+    private static class Contribution {
+        private final Set<String> terms;
+        private final Set<String> courses;
+        private final String categoryId;
+
+        private Contribution(Set<String> terms, Set<String> courses, String categoryId) {
+            this.terms = terms;
+            this.courses = courses;
+            this.categoryId = categoryId;
+        }
+    }
+
+    // listing id -> contribution, plus how many listings use each term, course code and category
+    private static class Counts {
+        private final Map<String, Contribution> listings = new HashMap<>();
+        private final Map<String, Long> terms = new HashMap<>();
+        private final Map<String, Long> courses = new HashMap<>();
+        private final Map<String, Long> categories = new HashMap<>();
+
+        // Replace what a listing contributes; null removes it
+        private void put(String listingId, Contribution contribution) {
+            Contribution previous = contribution == null ? listings.remove(listingId) : listings.put(listingId, contribution);
+            if (previous != null) {
+                count(previous, -1);
+            }
+            if (contribution != null) {
+                count(contribution, 1);
+            }
+        }
+
+        private void count(Contribution contribution, long delta) {
+            count(terms, contribution.terms, delta);
+            count(courses, contribution.courses, delta);
+            if (contribution.categoryId != null) {
+                count(categories, List.of(contribution.categoryId), delta);
+            }
+        }
+
+        private static void count(Map<String, Long> counts, Collection<String> keys, long delta) {
+            for (String key : keys) {
+                counts.compute(key, (k, count) -> {
+                    long updated = (count == null ? 0 : count) + delta;
+                    return updated > 0 ? updated : null;
+                });
+            }
+        }
+    }
+
+    private static class Entry {
+        private String text;
+        private String type;
+        private long weight;
+
+        private Entry(String text, String type, long weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            lookupTimer = Timer.builder(LOOKUP_METRIC).publishPercentiles(0.5, 0.99).register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+        if (rescan != null) {
+            rescan.cancel(false);
+        }
+    }
+
+    /**
+     * Keep the listing counts in sync with committed listing writes; the trie picks them up on the next refresh.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (!enabled || event.getListingId() == null) {
+            return;
+        }
+        Contribution contribution = event.isDeleted() ? null : contribution(event.getListing());
+        synchronized (lock) {
+            if (rescanning) {
+                touched.add(event.getListingId());
+            }
+            counts.put(event.getListingId(), contribution);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rescan ACTIVE listings from the database, then rebuild the trie. The first scan runs in the
+     * {@link ListingScanner} pass at startup; later ones only every rescan-interval.
+     */
+    public void rebuild() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    /**
+     * Rebuild the trie from the in-memory counts, categories and popular searches and swap it in,
+     * unless none of them changed. Until a full scan has succeeded, retry the scan instead.
+     */
+    public synchronized void refresh() {
+        if (!loaded) {
+            rebuild();
+            return;
+        }
+        List<Map.Entry<String, Long>> queries = popularQueries();
+        Map<String, Long> terms;
+        Map<String, Long> courses;
+        Map<String, Long> categories;
+        synchronized (lock) {
+            if (!dirty && snapshot != null && queries.equals(publishedQueries)) {
+                return;
+            }
+            terms = new HashMap<>(counts.terms);
+            courses = new HashMap<>(counts.courses);
+            categories = new HashMap<>(counts.categories);
+            dirty = false;
+        }
+        try {
+            publish(terms, courses, categories, queries);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                dirty = true;
+            }
+            logger.error("Listing autocomplete refresh failed; keeping the previous one", e);
+        }
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Listing autocomplete disabled");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        touched.clear();
+        rescanning = true;
+        build = new Build();
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        for (ListingIndexRow row : rows) {
+            if (row.getStatus() == Listing.ListingStatus.ACTIVE && !touched.contains(row.getId())) {
+                build.counts.put(row.getId(), contribution(row.getTitle(), row.getDescription(), row.getCategoryId()));
+            }
+        }
+        build.scanned += rows.size();
+        return true;
+    }
+
+    @Override
+    public void endScan() {
+        Build finished = build;
+        build = null;
+        synchronized (lock) {
+            // writes applied during the scan are newer than anything it read
+            for (String listingId : touched) {
+                finished.counts.put(listingId, counts.listings.get(listingId));
+            }
+            touched.clear();
+            rescanning = false;
+            counts = finished.counts;
+            dirty = true;
+            loaded = true;
+        }
+        logger.info("Listing autocomplete loaded {} active of {} listings in {} ms",
+            finished.counts.listings.size(), finished.scanned, (System.nanoTime() - finished.start) / 1_000_000);
+        try {
+            refresh();
+        } finally {
+            scheduleRefresh();
+        }
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        build = null;
+        synchronized (lock) {
+            touched.clear();
+            rescanning = false;
+        }
+        logger.error("Listing autocomplete rescan failed; keeping the previous counts", e);
+        scheduleRefresh();
+    }
+
+    // after the first scan, so neither task overlaps the startup pass
+    private void scheduleRefresh() {
+        if (refresh == null && taskScheduler != null) {
+            refresh = taskScheduler.scheduleWithFixedDelay(this::refresh, Instant.now().plus(refreshInterval), refreshInterval);
+            rescan = taskScheduler.scheduleWithFixedDelay(this::rebuild, Instant.now().plus(rescanInterval), rescanInterval);
+        }
+    }
+
+    private void publish(Map<String, Long> terms, Map<String, Long> courses, Map<String, Long> categories,
+                         List<Map.Entry<String, Long>> queries) {
+        long start = System.nanoTime();
+        Map<String, Entry> entries = new HashMap<>(terms.size() * 2);
+        terms.forEach((term, listings) -> add(entries, term, AutocompleteSuggestionDTO.TYPE_TERM, listings));
+        courses.forEach((code, listings) -> add(entries, code, AutocompleteSuggestionDTO.TYPE_COURSE, listings));
+        for (Category category : categoryRepository.findAll()) {
+            add(entries, category.getName(), AutocompleteSuggestionDTO.TYPE_CATEGORY,
+                categories.getOrDefault(category.getId(), 0L));
+        }
+        for (Map.Entry<String, Long> query : queries) {
+            if (query.getKey().length() >= MIN_TERM_LENGTH) {
+                add(entries, query.getKey(), AutocompleteSuggestionDTO.TYPE_QUERY, query.getValue());
+            }
+        }
+
+        Map<String, Long> weights = new HashMap<>(entries.size() * 2);
+        entries.forEach((key, entry) -> weights.put(key, entry.weight));
+        CompletionTrie trie = CompletionTrie.build(weights, MAX_SUGGESTIONS);
+        snapshot = new Snapshot(trie, entries);
+        publishedQueries = queries;
+        logger.info("Listing autocomplete built with {} completions ({} trie nodes) in {} ms",
+            trie.size(), trie.nodeCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Logged keyword and advanced searches that found listings for at least minQueryCount people,
+     * most frequent first, at most maxQuerySuggestions.
+     */
+    private List<Map.Entry<String, Long>> popularQueries() {
+        if (searchQueryLog == null) {
+            return Collections.emptyList();
+        }
+        return searchQueryLog.popularQueries(QUERY_SOURCES, minQueryCount, maxQuerySuggestions);
+    }
+
+    /** @return true once the first trie has been built */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Completions for what has been typed so far, heaviest first. When the whole text is not a known
+     * prefix of enough completions, its last word is completed from title words ("graphing calc" offers
+     * "graphing calculator").
+     * @param prefix search-box text
+     * @param limit maximum number of suggestions (capped at 10)
+     * @return suggestions, or empty if the trie has not been built yet
+     */
+    public Optional<List<AutocompleteSuggestionDTO>> complete(String prefix, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        String key = normalize(prefix);
+        int max = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        if (key.isEmpty() || key.length() > MAX_QUERY_LENGTH) {
+            return Optional.of(Collections.emptyList());
+        }
+        List<AutocompleteSuggestionDTO> suggestions = new ArrayList<>(max);
+        Set<String> seen = new HashSet<>();
+        for (String completion : current.trie.complete(key, max)) {
+            Entry entry = current.entries.get(completion);
+            suggestions.add(new AutocompleteSuggestionDTO(entry.text, entry.type, entry.weight));
+            seen.add(completion);
+        }
+        int lastSpace = key.lastIndexOf(' ');
+        if (suggestions.size() < max && lastSpace > 0 && lastSpace < key.length() - 1) {
+            String head = key.substring(0, lastSpace + 1);
+            for (String completion : current.trie.complete(key.substring(lastSpace + 1), max)) {
+                Entry entry = current.entries.get(completion);
+                String text = head + completion;
+                if (suggestions.size() >= max) {
+                    break;
+                }
+                if (AutocompleteSuggestionDTO.TYPE_TERM.equals(entry.type) && seen.add(text)) {
+                    suggestions.add(new AutocompleteSuggestionDTO(text, AutocompleteSuggestionDTO.TYPE_QUERY, entry.weight));
+                }
+            }
+        }
+        if (lookupTimer != null) {
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return Optional.of(suggestions);
+    }
+
+    /**
+     * Key for the trie: lowercase, separators collapsed to one space, a space between letters and
+     * the digits that follow them.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).trim();
+        return SEPARATORS.matcher(LETTERS_THEN_DIGITS.matcher(lower).replaceAll("$1 $2")).replaceAll(" ");
+    }
+
+    private static Contribution contribution(Listing listing) {
+        if (listing == null || listing.getStatus() != Listing.ListingStatus.ACTIVE) {
+            return null;
+        }
+        return contribution(listing.getTitle(), listing.getDescription(),
+            listing.getCategory() != null ? listing.getCategory().getId() : null);
+    }
+
+    private static Contribution contribution(String title, String description, String categoryId) {
+        Set<String> courses = new HashSet<>();
+        for (CourseCodes.CourseCode code : CourseCodes.extract(title, description)) {
+            courses.add(code.toString());
+        }
+        return new Contribution(titleTerms(title), courses, categoryId);
+    }
+
+    private static Set<String> titleTerms(String title) {
+        Set<String> terms = new HashSet<>();
+        for (String token : SearchTokenizer.tokenizeDocument(title)) {
+            if (token.length() >= MIN_TERM_LENGTH && token.chars().anyMatch(Character::isLetter)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static void add(Map<String, Entry> entries, String text, String type, long weight) {
+        String key = normalize(text);
+        if (key.isEmpty() || key.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entries.put(key, new Entry(text, type, weight));
+            return;
+        }
+        entry.weight += weight;
+        if (TYPE_PRIORITY.indexOf(type) < TYPE_PRIORITY.indexOf(entry.type)) {
+            entry.text = text;
+            entry.type = type;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of rendered listing details (GET /api/listings/{id}).
+ *
+ * Caffeine bounds the cache by estimated bytes and evicts with W-TinyLFU. Entries are dropped after
+ * every committed listing write ({@link ListingChangedEvent}, published by ListingService and
+ * TransactionService). Loads run inside the cache's per-key compute, so an invalidation that races
+ * with a load of the previous version waits for that load and then removes its result. The TTL
+ * bounds staleness for data the events do not cover (e.g. a seller renaming their account); conditional
+ * GETs compare the entry with a version lookup and reload it (ListingService#getListingDTOById(String, ListingVersion)).
+ * Hit/miss/eviction statistics are published to Micrometer as cache.* metrics with cache=listing.detail.
+ */
+@Service
+public class ListingDetailCache {
+
+    static final String CACHE_NAME = "listing.detail";
+
+    // rough per-entry overhead (object headers, fixed-width fields, map node) in bytes
+    private static final int ENTRY_OVERHEAD_BYTES = 400;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${listings.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${listings.cache.max-weight-bytes:33554432}")
+    private long maxWeightBytes = 32L * 1024 * 1024;
+
+    @Value("${listings.cache.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    private Cache<String, ListingDTO> cache;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maxWeightBytes)
+            .weigher((String id, ListingDTO dto) -> estimateBytes(dto))
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    /**
+     * Cached listing detail, loading it on a miss. Missing listings are not cached.
+     * @param id listing id
+     * @param loader database lookup used on a miss
+     * @return listing DTO, or empty if the loader finds nothing
+     */
+    public Optional<ListingDTO> get(String id, Function<String, Optional<ListingDTO>> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Drop a listing's entry.
+     * @param id listing id
+     */
+    public void invalidate(String id) {
+        if (cache != null && id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Invalidate after every committed listing write.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        invalidate(event.getListingId());
+    }
+
+    /** @return true when caching is switched on (listings.cache.enabled) */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /** @return approximate number of cached listings */
+    public long size() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private static int estimateBytes(ListingDTO dto) {
+        long chars = length(dto.getId()) + length(dto.getSellerId()) + length(dto.getSellerName())
+            + length(dto.getTitle()) + length(dto.getDescription()) + length(dto.getCategoryId())
+            + length(dto.getCategoryName()) + length(dto.getImages());
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * chars);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,425 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.ListingFacetsDTO;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet index for the browse page.
+ *
+ * Every listing gets a dense integer slot. Category, condition and status values each own a bitmap
+ * of slots, and prices live in a slot-aligned primitive column (cents). A facet request ANDs the
+ * bitmaps of the active filters and counts the intersections, so it never touches the database.
+ * Built at startup by {@link ListingScanner} and kept current from {@link ListingChangedEvent}s, like {@link ListingSearchIndex}.
+ */
+@Service
+public class ListingFacetIndex implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingFacetIndex.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Value("${listings.facets.enabled:true}")
+    private boolean enabled = true;
+
+    // lower bounds of the histogram buckets; the last bucket is open-ended
+    @Value("${listings.facets.price-buckets:0,10,25,50,100,250,500,1000}")
+    private BigDecimal[] priceBucketEdges = {
+        new BigDecimal("0"), new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"),
+        new BigDecimal("100"), new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")
+    };
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+    private int slotCount;
+
+    // slot-aligned columns
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private String[] categoryOf = new String[INITIAL_CAPACITY];
+    private Listing.ItemCondition[] conditionOf = new Listing.ItemCondition[INITIAL_CAPACITY];
+    private Listing.ListingStatus[] statusOf = new Listing.ListingStatus[INITIAL_CAPACITY];
+    private LocalDateTime[] updatedAtOf = new LocalDateTime[INITIAL_CAPACITY];
+
+    private final Map<String, BitSet> categoryBitmaps = new HashMap<>();
+    private final Map<Listing.ItemCondition, BitSet> conditionBitmaps = new EnumMap<>(Listing.ItemCondition.class);
+    private final Map<Listing.ListingStatus, BitSet> statusBitmaps = new EnumMap<>(Listing.ListingStatus.class);
+
+    // ids deleted while a rebuild is scanning, so stale batches cannot resurrect them
+    private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+    // listings read by the current rebuild
+    private int scanned;
+
+    /**
+     * Keep the index in sync with committed listing writes.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getListingId());
+        } else {
+            index(event.getListing());
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the database, scanning listings in primary-key order.
+     * At startup the index is built by {@link ListingScanner}.
+     */
+    public void rebuild() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Listing facet index disabled; GET /api/listings/facets will be unavailable");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        ready = false;
+        rebuilding = true;
+        tombstones.clear();
+        scanned = 0;
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        lock.writeLock().lock();
+        try {
+            for (ListingIndexRow row : rows) {
+                if (!tombstones.contains(row.getId())) {
+                    upsert(row.getId(), row.getCategoryId(), row.getPrice(), row.getItemCondition(),
+                        row.getStatus(), row.getUpdatedAt());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scanned += rows.size();
+        return true;
+    }
+
+    @Override
+    public void endScan() {
+        ready = true;
+        rebuilding = false;
+        tombstones.clear();
+        logger.info("Listing facet index built with {} listings", scanned);
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        rebuilding = false;
+        tombstones.clear();
+        logger.error("Listing facet index rebuild failed; facets unavailable", e);
+    }
+
+    /**
+     * Add or replace a listing. Older versions (by updatedAt) never overwrite newer ones.
+     * @param listing listing entity
+     */
+    public void index(Listing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        String categoryId = listing.getCategory() != null ? listing.getCategory().getId() : null;
+        lock.writeLock().lock();
+        try {
+            upsert(listing.getId(), categoryId, listing.getPrice(), listing.getCondition(), listing.getStatus(),
+                listing.getUpdatedAt());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a listing from the index.
+     * @param listingId listing id
+     */
+    public void remove(String listingId) {
+        if (listingId == null) {
+            return;
+        }
+        if (rebuilding) {
+            tombstones.add(listingId);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(listingId);
+            if (slot != null) {
+                unlink(slot);
+                freeSlots.set(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return true once the index has been fully built and can answer facet requests */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** @return number of indexed listings */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts for a filter combination. Null filters are not applied; status defaults to ACTIVE
+     * to match the advanced search.
+     *
+     * @param categoryId category filter (optional)
+     * @param condition condition filter (optional)
+     * @param status status filter (optional, defaults to ACTIVE)
+     * @param minPrice minimum price, inclusive (optional)
+     * @param maxPrice maximum price, inclusive (optional)
+     * @return facet counts, or empty until the index has been built
+     */
+    public Optional<ListingFacetsDTO> facets(String categoryId, Listing.ItemCondition condition,
+                                             Listing.ListingStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Listing.ListingStatus effectiveStatus = status != null ? status : Listing.ListingStatus.ACTIVE;
+
+        lock.readLock().lock();
+        try {
+            BitSet statusFilter = bitmapOrEmpty(statusBitmaps.get(effectiveStatus));
+            BitSet categoryFilter = categoryId != null ? bitmapOrEmpty(categoryBitmaps.get(categoryId)) : null;
+            BitSet conditionFilter = condition != null ? bitmapOrEmpty(conditionBitmaps.get(condition)) : null;
+            BitSet priceFilter = (minPrice != null || maxPrice != null) ? priceRange(minPrice, maxPrice) : null;
+
+            long total = combine(statusFilter, categoryFilter, conditionFilter, priceFilter).cardinality();
+
+            BitSet withoutCategory = combine(statusFilter, conditionFilter, priceFilter);
+            Map<String, Long> categories = new LinkedHashMap<>();
+            for (Map.Entry<String, BitSet> entry : categoryBitmaps.entrySet()) {
+                long count = intersectionCount(withoutCategory, entry.getValue());
+                if (count > 0) {
+                    categories.put(entry.getKey(), count);
+                }
+            }
+
+            BitSet withoutCondition = combine(statusFilter, categoryFilter, priceFilter);
+            Map<String, Long> conditions = new LinkedHashMap<>();
+            for (Listing.ItemCondition value : Listing.ItemCondition.values()) {
+                conditions.put(value.name(), intersectionCount(withoutCondition, conditionBitmaps.get(value)));
+            }
+
+            BitSet withoutStatus = combine(categoryFilter, conditionFilter, priceFilter);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            for (Listing.ListingStatus value : Listing.ListingStatus.values()) {
+                statuses.put(value.name(), intersectionCount(withoutStatus, statusBitmaps.get(value)));
+            }
+
+            List<ListingFacetsDTO.PriceBucket> histogram = histogram(combine(statusFilter, categoryFilter, conditionFilter));
+
+            return Optional.of(new ListingFacetsDTO(total, categories, conditions, statuses, histogram));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- internals (callers hold the appropriate lock) ---
+
+    private void clear() {
+        slots.clear();
+        live.clear();
+        freeSlots.clear();
+        slotCount = 0;
+        categoryBitmaps.clear();
+        conditionBitmaps.clear();
+        statusBitmaps.clear();
+        Arrays.fill(categoryOf, null);
+        Arrays.fill(conditionOf, null);
+        Arrays.fill(statusOf, null);
+        Arrays.fill(updatedAtOf, null);
+    }
+
+    private void upsert(String id, String categoryId, BigDecimal price, Listing.ItemCondition condition,
+                        Listing.ListingStatus status, LocalDateTime updatedAt) {
+        Integer existing = slots.get(id);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            LocalDateTime current = updatedAtOf[slot];
+            if (current != null && updatedAt != null && current.isAfter(updatedAt)) {
+                return;
+            }
+            unlink(slot);
+        } else {
+            slot = allocateSlot();
+            slots.put(id, slot);
+        }
+
+        priceCents[slot] = price != null ? price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : NO_PRICE;
+        categoryOf[slot] = categoryId;
+        conditionOf[slot] = condition;
+        statusOf[slot] = status;
+        updatedAtOf[slot] = updatedAt;
+        live.set(slot);
+        if (categoryId != null) {
+            categoryBitmaps.computeIfAbsent(categoryId, key -> new BitSet()).set(slot);
+        }
+        if (condition != null) {
+            conditionBitmaps.computeIfAbsent(condition, key -> new BitSet()).set(slot);
+        }
+        if (status != null) {
+            statusBitmaps.computeIfAbsent(status, key -> new BitSet()).set(slot);
+        }
+    }
+
+    private void unlink(int slot) {
+        live.clear(slot);
+        String categoryId = categoryOf[slot];
+        if (categoryId != null) {
+            BitSet bitmap = categoryBitmaps.get(categoryId);
+            if (bitmap != null) {
+                bitmap.clear(slot);
+                if (bitmap.isEmpty()) {
+                    categoryBitmaps.remove(categoryId);
+                }
+            }
+        }
+        if (conditionOf[slot] != null) {
+            conditionBitmaps.get(conditionOf[slot]).clear(slot);
+        }
+        if (statusOf[slot] != null) {
+            statusBitmaps.get(statusOf[slot]).clear(slot);
+        }
+        categoryOf[slot] = null;
+        conditionOf[slot] = null;
+        statusOf[slot] = null;
+        updatedAtOf[slot] = null;
+    }
+
+    private int allocateSlot() {
+        int free = freeSlots.nextSetBit(0);
+        if (free >= 0) {
+            freeSlots.clear(free);
+            return free;
+        }
+        if (slotCount == priceCents.length) {
+            int capacity = priceCents.length * 2;
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categoryOf = Arrays.copyOf(categoryOf, capacity);
+            conditionOf = Arrays.copyOf(conditionOf, capacity);
+            statusOf = Arrays.copyOf(statusOf, capacity);
+            updatedAtOf = Arrays.copyOf(updatedAtOf, capacity);
+        }
+        return slotCount++;
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        long min = minPrice != null ? minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue() : Long.MIN_VALUE + 1;
+        long max = maxPrice != null ? maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue() : Long.MAX_VALUE;
+        BitSet result = new BitSet(slotCount);
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            long cents = priceCents[slot];
+            if (cents != NO_PRICE && cents >= min && cents <= max) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    private List<ListingFacetsDTO.PriceBucket> histogram(BitSet candidates) {
+        long[] edges = new long[priceBucketEdges.length];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = priceBucketEdges[i].movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        }
+        long[] counts = new long[edges.length];
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            long cents = priceCents[slot];
+            if (cents == NO_PRICE) {
+                continue;
+            }
+            int bucket = Arrays.binarySearch(edges, cents);
+            if (bucket < 0) {
+                bucket = -bucket - 2;
+            }
+            if (bucket >= 0) {
+                counts[bucket]++;
+            }
+        }
+        List<ListingFacetsDTO.PriceBucket> buckets = new ArrayList<>(edges.length);
+        for (int i = 0; i < edges.length; i++) {
+            BigDecimal upper = i + 1 < edges.length ? priceBucketEdges[i + 1] : null;
+            buckets.add(new ListingFacetsDTO.PriceBucket(priceBucketEdges[i], upper, counts[i]));
+        }
+        return buckets;
+    }
+
+    /** Intersection of the live slots with every non-null filter. */
+    private BitSet combine(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static long intersectionCount(BitSet base, BitSet other) {
+        if (other == null) {
+            return 0;
+        }
+        BitSet copy = (BitSet) base.clone();
+        copy.and(other);
+        return copy.cardinality();
+    }
+
+    private static BitSet bitmapOrEmpty(BitSet bitmap) {
+        return bitmap != null ? bitmap : new BitSet();
+    }
+}
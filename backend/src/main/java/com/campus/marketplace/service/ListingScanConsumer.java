@@ -0,0 +1,36 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.repository.ListingIndexRow;
+
+import java.util.List;
+
+/**
+ * An in-memory structure built from a pass over the listings table by {@link ListingScanner}.
+ *
+ * The calls of one pass come from one thread, in order: {@link #beginScan}, {@link #acceptRows} per
+ * batch, then {@link #endScan} or, if the database read failed, {@link #failScan}.
+ */
+interface ListingScanConsumer {
+
+    /** @return false to leave this consumer out of the startup scan */
+    boolean isScanEnabled();
+
+    /** Reset before the first batch. */
+    void beginScan();
+
+    /**
+     * One batch of listings in primary-key order.
+     * @param rows listing rows
+     * @return false once no more rows are needed
+     */
+    boolean acceptRows(List<ListingIndexRow> rows);
+
+    /** Every row, or every row that was wanted, has been delivered. */
+    void endScan();
+
+    /**
+     * The scan stopped early.
+     * @param e the error that stopped it
+     */
+    void failScan(RuntimeException e);
+}
@@ -0,0 +1,129 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the in-memory listing structures (search, facet, spelling, semantic and autocomplete indexes,
+ * the chatbot intent classifier) from one keyset scan of the listings table, on the shared
+ * {@link TaskScheduler}, once the application is up. Each batch is read once and handed to every
+ * {@link ListingScanConsumer} in turn.
+ */
+@Service
+public class ListingScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingScanner.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired(required = false)
+    private List<ListingScanConsumer> consumers = new ArrayList<>();
+
+    /**
+     * Start the scan in the background once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<ListingScanConsumer> enabled = consumers.stream()
+            .filter(ListingScanConsumer::isScanEnabled)
+            .collect(Collectors.toList());
+        if (enabled.isEmpty()) {
+            return;
+        }
+        taskScheduler.schedule(() -> scan(listingRepository, enabled), Instant.now());
+    }
+
+    /**
+     * Scan every listing in primary-key order and feed each batch to the consumers. A consumer that throws
+     * is failed and dropped; the others carry on. A database error fails every consumer still running.
+     * @param listingRepository repository to read from
+     * @param consumers consumers of this pass
+     */
+    static void scan(ListingRepository listingRepository, List<? extends ListingScanConsumer> consumers) {
+        long start = System.nanoTime();
+        List<ListingScanConsumer> active = new ArrayList<>();
+        for (ListingScanConsumer consumer : consumers) {
+            try {
+                consumer.beginScan();
+                active.add(consumer);
+            } catch (RuntimeException e) {
+                fail(consumer, e);
+            }
+        }
+
+        List<ListingScanConsumer> finished = new ArrayList<>();
+        String afterId = "";
+        int scanned = 0;
+        try {
+            while (!active.isEmpty()) {
+                List<ListingIndexRow> rows = listingRepository.findIndexRowsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (Iterator<ListingScanConsumer> it = active.iterator(); it.hasNext(); ) {
+                    ListingScanConsumer consumer = it.next();
+                    try {
+                        if (!consumer.acceptRows(rows)) {
+                            it.remove();
+                            finished.add(consumer);
+                        }
+                    } catch (RuntimeException e) {
+                        it.remove();
+                        fail(consumer, e);
+                    }
+                }
+                scanned += rows.size();
+                afterId = rows.get(rows.size() - 1).getId();
+                if (rows.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Listing scan failed after {} listings", scanned, e);
+            for (ListingScanConsumer consumer : active) {
+                fail(consumer, e);
+            }
+            active.clear();
+        }
+
+        finished.addAll(active);
+        for (ListingScanConsumer consumer : finished) {
+            try {
+                consumer.endScan();
+            } catch (RuntimeException e) {
+                fail(consumer, e);
+            }
+        }
+        logger.info("Scanned {} listings for {} consumers in {} ms", scanned, consumers.size(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void fail(ListingScanConsumer consumer, RuntimeException e) {
+        try {
+            consumer.failScan(e);
+        } catch (RuntimeException suppressed) {
+            e.addSuppressed(suppressed);
+            logger.error("{} failed to handle a listing scan error", consumer.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of advanced-search results (GET /api/listings/search/advanced), holding one page of listing ids
+ * and the total per normalized filter tuple. DTOs are still projected per request, so cached pages
+ * never serve stale titles or prices.
+ *
+ * Invalidation is by generation rather than by scanning keys: every key embeds the generation of the
+ * category it filters on (or of the "any category" scope), and a committed listing write bumps the
+ * generations of the categories it touched, so only searches over those categories miss afterwards.
+ * Superseded entries are never read again and age out through the size bound and TTL. Because the
+ * generation is read before loading, a load racing with a write is stored under the old generation
+ * and cannot hide the write; for the in-memory index, "the write" is the moment the index applies it,
+ * so the index retires the generations again at that point. The TTL also bounds staleness the events
+ * do not cover (index rebuilds, writes made by other instances). Concurrent misses on one key run a
+ * single load.
+ * Hit/miss statistics are published to Micrometer as cache.* metrics with cache=listing.search.
+ */
+@Service
+public class ListingSearchCache {
+
+    static final String CACHE_NAME = "listing.search";
+
+    private static final char SEPARATOR = '\u001f';
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${listings.search-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${listings.search-cache.max-entries:10000}")
+    private long maxEntries = 10_000;
+
+    @Value("${listings.search-cache.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    private Cache<String, Page<String>> cache;
+
+    // bumped on every write: searches without a category filter
+    private final AtomicLong anyCategoryGeneration = new AtomicLong();
+    // bumped when a write's category is unknown: every search
+    private final AtomicLong epoch = new AtomicLong();
+    private final Map<String, AtomicLong> categoryGenerations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    /**
+     * Cached page of result ids for a search, loading it on a miss.
+     * Callers pass the filters as they will be queried (status already defaulted, term trimmed).
+     * @param loader query producing the ids page on a miss
+     * @return ordered ids of the requested page, with the total match count
+     */
+    public Page<String> get(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status,
+            String sortBy,
+            Pageable pageable,
+            Supplier<Page<String>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        String key = key(searchTerm, categoryId, minPrice, maxPrice, condition, status, sortBy, pageable);
+        Page<String> ids = cache.get(key, k -> {
+            Page<String> page = loader.get();
+            // keep only what a hit needs, not the repository's Pageable/Sort
+            return new PageImpl<>(List.copyOf(page.getContent()), pageable, page.getTotalElements());
+        });
+        return new PageImpl<>(ids.getContent(), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Retire cached searches after every committed listing write.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        invalidate(event);
+    }
+
+    /**
+     * Retire cached searches a listing write may have changed: those over the listing's current and
+     * previous category and those without a category filter. If the category is unknown, every cached
+     * search is retired. {@link ListingSearchIndex} calls this again once it has applied the write, since
+     * listeners of one event run in no set order and a search between the two could otherwise cache the
+     * index's pre-write results under the new generation.
+     * @param event listing change
+     */
+    public void invalidate(ListingChangedEvent event) {
+        String previous = event.getPreviousCategoryId();
+        if (event.isDeleted()) {
+            if (previous == null) {
+                invalidateAll();
+            } else {
+                bump(previous);
+            }
+            return;
+        }
+        Listing listing = event.getListing();
+        String current = listing != null && listing.getCategory() != null ? listing.getCategory().getId() : null;
+        if (current == null) {
+            invalidateAll();
+            return;
+        }
+        bump(current);
+        if (previous != null && !previous.equals(current)) {
+            bump(previous);
+        }
+    }
+
+    /** Retire every cached search. */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        anyCategoryGeneration.incrementAndGet();
+    }
+
+    /** @return true when caching is switched on (listings.search-cache.enabled) */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /** @return approximate number of cached pages, including superseded ones not yet evicted */
+    public long size() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    private void bump(String categoryId) {
+        categoryGenerations.computeIfAbsent(categoryId, id -> new AtomicLong()).incrementAndGet();
+        anyCategoryGeneration.incrementAndGet();
+    }
+
+    private long generation(String categoryId) {
+        if (categoryId == null) {
+            return anyCategoryGeneration.get();
+        }
+        AtomicLong generation = categoryGenerations.get(categoryId);
+        return generation != null ? generation.get() : 0;
+    }
+
+    /**
+     * Normalized key: the term is lower-cased with whitespace collapsed (all backends match
+     * case-insensitively), prices drop trailing zeros, and sortBy defaults to "newest".
+     */
+    String key(String searchTerm, String categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+               Listing.ItemCondition condition, Listing.ListingStatus status, String sortBy, Pageable pageable) {
+        StringBuilder key = new StringBuilder();
+        key.append(epoch.get()).append(SEPARATOR)
+            .append(generation(categoryId)).append(SEPARATOR)
+            .append(searchTerm != null ? searchTerm.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : "")
+            .append(SEPARATOR).append(categoryId != null ? categoryId : "")
+            .append(SEPARATOR).append(price(minPrice))
+            .append(SEPARATOR).append(price(maxPrice))
+            .append(SEPARATOR).append(condition != null ? condition.name() : "")
+            .append(SEPARATOR).append(status != null ? status.name() : "")
+            .append(SEPARATOR).append(sortBy != null ? sortBy.toLowerCase(Locale.ROOT) : "newest")
+            .append(SEPARATOR).append(pageable.getPageNumber())
+            .append(SEPARATOR).append(pageable.getPageSize());
+        return key.toString();
+    }
+
+    private static String price(BigDecimal price) {
+        return price != null ? price.stripTrailingZeros().toPlainString() : "";
+    }
+}
@@ -0,0 +1,467 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.SearchTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over listing title and description.
+ *
+ * Queries are tokenized with {@link SearchTokenizer}; every query token must match (exactly or as a
+ * prefix of an indexed term), matches are scored with BM25, and only the requested page is selected
+ * from the candidates with a bounded heap. The index is built from MySQL at startup by {@link ListingScanner}
+ * and kept current from {@link ListingChangedEvent}s. Until the first build finishes, {@link #search} returns
+ * empty and callers fall back to the database.
+ */
+@Service
+public class ListingSearchIndex implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final double PREFIX_MATCH_WEIGHT = 0.7;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired(required = false)
+    private ListingSearchCache listingSearchCache;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled = true;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (listing id -> weighted term frequency)
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, IndexedListing> documents = new HashMap<>();
+    private long totalLength;
+
+    // ids deleted while a rebuild is scanning, so stale batches cannot resurrect them
+    private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+    // listings read by the current rebuild
+    private int scanned;
+
+    /**
+     * Keep the index in sync with committed listing writes.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getListingId());
+        } else {
+            index(event.getListing());
+        }
+        // searches cached since the search cache's own listener ran may hold pre-write results
+        if (listingSearchCache != null) {
+            listingSearchCache.invalidate(event);
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the database, scanning listings in primary-key order.
+     * Searches fall back to the database while this runs. At startup the index is built by {@link ListingScanner}.
+     */
+    public void rebuild() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Listing search index disabled; searches will use the database");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        ready = false;
+        rebuilding = true;
+        tombstones.clear();
+        scanned = 0;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        lock.writeLock().lock();
+        try {
+            for (ListingIndexRow row : rows) {
+                if (!tombstones.contains(row.getId())) {
+                    upsert(toDocument(row.getId(), row.getTitle(), row.getDescription(), row.getCategoryId(),
+                        row.getPrice(), row.getItemCondition(), row.getStatus(), row.getCreatedAt(), row.getUpdatedAt()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scanned += rows.size();
+        return true;
+    }
+
+    @Override
+    public void endScan() {
+        ready = true;
+        rebuilding = false;
+        tombstones.clear();
+        logger.info("Listing search index built with {} listings", scanned);
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        rebuilding = false;
+        tombstones.clear();
+        logger.error("Listing search index rebuild failed; searches will use the database", e);
+    }
+
+    /**
+     * Add or replace a listing. Older versions (by updatedAt) never overwrite newer ones.
+     * @param listing listing entity
+     */
+    public void index(Listing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        String categoryId = listing.getCategory() != null ? listing.getCategory().getId() : null;
+        IndexedListing document = toDocument(listing.getId(), listing.getTitle(), listing.getDescription(), categoryId,
+            listing.getPrice(), listing.getCondition(), listing.getStatus(), listing.getCreatedAt(), listing.getUpdatedAt());
+        lock.writeLock().lock();
+        try {
+            upsert(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a listing from the index.
+     * @param listingId listing id
+     */
+    public void remove(String listingId) {
+        if (listingId == null) {
+            return;
+        }
+        if (rebuilding) {
+            tombstones.add(listingId);
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedListing existing = documents.remove(listingId);
+            if (existing != null) {
+                unlink(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return true once the index has been fully built and can answer searches */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** @return number of indexed listings */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked keyword search with optional filters.
+     *
+     * @param query search text
+     * @param categoryId category filter (optional)
+     * @param minPrice minimum price (optional)
+     * @param maxPrice maximum price (optional)
+     * @param condition condition filter (optional)
+     * @param status status filter (optional, null matches every status)
+     * @param sortBy "relevance", "newest", "price_asc" or "price_desc" (defaults to "newest")
+     * @param offset number of ranked hits to skip
+     * @param limit maximum number of hits to return
+     * @return hits, or empty if the index is not ready or the query has no searchable terms
+     */
+    public Optional<SearchHits> search(String query, String categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                       Listing.ItemCondition condition, Listing.ListingStatus status,
+                                       String sortBy, long offset, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<String> tokens = SearchTokenizer.tokenizeQuery(query);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String token : tokens) {
+                Map<String, Double> tokenScores = scoreToken(token);
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    return Optional.of(SearchHits.empty());
+                }
+            }
+
+            Comparator<Hit> order = comparatorFor(sortBy);
+            long k = Math.min(offset + (long) limit, scores.size());
+            PriorityQueue<Hit> heap = new PriorityQueue<>((int) Math.max(1, Math.min(k, 1024)), order.reversed());
+            long total = 0;
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                IndexedListing document = documents.get(entry.getKey());
+                if (!document.matches(categoryId, minPrice, maxPrice, condition, status)) {
+                    continue;
+                }
+                total++;
+                if (k <= 0) {
+                    continue;
+                }
+                Hit hit = new Hit(document, entry.getValue());
+                if (heap.size() < k) {
+                    heap.add(hit);
+                } else if (order.compare(hit, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(hit);
+                }
+            }
+
+            List<Hit> top = new ArrayList<>(heap);
+            top.sort(order);
+            List<String> ids = new ArrayList<>();
+            for (int i = (int) Math.min(offset, top.size()); i < top.size(); i++) {
+                ids.add(top.get(i).document.id);
+            }
+            return Optional.of(new SearchHits(ids, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- internals (callers hold the appropriate lock) ---
+
+    private IndexedListing toDocument(String id, String title, String description, String categoryId, BigDecimal price,
+                                      Listing.ItemCondition condition, Listing.ListingStatus status,
+                                      LocalDateTime createdAt, LocalDateTime updatedAt) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : SearchTokenizer.tokenizeDocument(title)) {
+            frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : SearchTokenizer.tokenizeDocument(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        return new IndexedListing(id, categoryId, price, condition, status, createdAt, updatedAt, frequencies, length);
+    }
+
+    private void upsert(IndexedListing document) {
+        IndexedListing existing = documents.get(document.id);
+        if (existing != null) {
+            if (existing.updatedAt != null && document.updatedAt != null && existing.updatedAt.isAfter(document.updatedAt)) {
+                return;
+            }
+            unlink(existing);
+        }
+        documents.put(document.id, document);
+        for (Map.Entry<String, Integer> entry : document.frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(document.id, entry.getValue());
+        }
+        totalLength += document.length;
+    }
+
+    private void unlink(IndexedListing document) {
+        for (String term : document.frequencies.keySet()) {
+            Map<String, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(document.id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private Map<String, Double> scoreToken(String token) {
+        Map<String, Double> scores = new HashMap<>();
+        double averageLength = documents.isEmpty() ? 1.0 : Math.max(1.0, (double) totalLength / documents.size());
+        accumulate(postings.get(token), 1.0, averageLength, scores);
+        int expansions = 0;
+        for (Map.Entry<String, Map<String, Integer>> entry : postings.tailMap(token, false).entrySet()) {
+            if (!entry.getKey().startsWith(token) || expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(entry.getValue(), PREFIX_MATCH_WEIGHT, averageLength, scores);
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<String, Integer> list, double weight, double averageLength, Map<String, Double> scores) {
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        int n = documents.size();
+        int df = list.size();
+        double idf = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+        for (Map.Entry<String, Integer> posting : list.entrySet()) {
+            IndexedListing document = documents.get(posting.getKey());
+            double tf = posting.getValue();
+            double norm = K1 * (1 - B + B * document.length / averageLength);
+            double score = weight * idf * (tf * (K1 + 1)) / (tf + norm);
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private static Map<String, Double> intersect(Map<String, Double> a, Map<String, Double> b) {
+        Map<String, Double> smaller = a.size() <= b.size() ? a : b;
+        Map<String, Double> larger = smaller == a ? b : a;
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : smaller.entrySet()) {
+            Double other = larger.get(entry.getKey());
+            if (other != null) {
+                result.put(entry.getKey(), entry.getValue() + other);
+            }
+        }
+        return result;
+    }
+
+    private static Comparator<Hit> comparatorFor(String sortBy) {
+        Comparator<Hit> newest = Comparator.comparing((Hit h) -> h.document.createdAt,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+        Comparator<Hit> byId = Comparator.comparing(h -> h.document.id);
+        String sort = sortBy == null ? "newest" : sortBy.toLowerCase();
+        switch (sort) {
+            case "relevance":
+                return Comparator.comparingDouble((Hit h) -> h.score).reversed().thenComparing(newest).thenComparing(byId);
+            case "price_asc":
+                return Comparator.comparing((Hit h) -> h.document.price, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()))
+                    .thenComparing(newest).thenComparing(byId);
+            case "price_desc":
+                return Comparator.comparing((Hit h) -> h.document.price, Comparator.nullsLast(Comparator.<BigDecimal>reverseOrder()))
+                    .thenComparing(newest).thenComparing(byId);
+            case "newest":
+            default:
+                return newest.thenComparing(byId);
+        }
+    }
+
+    /**
+     * Page of ranked listing ids plus the total number of matches.
+     */
+    public static class SearchHits {
+        private final List<String> listingIds;
+        private final long total;
+
+        public SearchHits(List<String> listingIds, long total) {
+            this.listingIds = listingIds;
+            this.total = total;
+        }
+
+        public static SearchHits empty() {
+            return new SearchHits(Collections.emptyList(), 0);
+        }
+
+        public List<String> getListingIds() {
+            return listingIds;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    private static class Hit {
+        private final IndexedListing document;
+        private final double score;
+
+        private Hit(IndexedListing document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+
+    private static class IndexedListing {
+        private final String id;
+        private final String categoryId;
+        private final BigDecimal price;
+        private final Listing.ItemCondition condition;
+        private final Listing.ListingStatus status;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final Map<String, Integer> frequencies;
+        private final int length;
+
+        private IndexedListing(String id, String categoryId, BigDecimal price, Listing.ItemCondition condition,
+                               Listing.ListingStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                               Map<String, Integer> frequencies, int length) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.price = price;
+            this.condition = condition;
+            this.status = status;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        private boolean matches(String categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                Listing.ItemCondition condition, Listing.ListingStatus status) {
+            if (categoryId != null && !categoryId.equals(this.categoryId)) {
+                return false;
+            }
+            if (condition != null && condition != this.condition) {
+                return false;
+            }
+            if (status != null && status != this.status) {
+                return false;
+            }
+            if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+                return false;
+            }
+            return maxPrice == null || (price != null && price.compareTo(maxPrice) <= 0);
+        }
+    }
+}
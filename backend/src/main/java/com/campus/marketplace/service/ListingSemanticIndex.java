@@ -0,0 +1,513 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.HashedEmbedder;
+import com.campus.marketplace.util.HnswIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory semantic index over ACTIVE listings: one {@link HashedEmbedder} vector per listing in an
+ * {@link HnswIndex}, so "graphing calculator" finds "TI-84 Plus" without a shared word.
+ *
+ * Listings are embedded when they are written (from {@link ListingChangedEvent}s) and only re-inserted
+ * when their title or description changed. At startup the index is loaded from the snapshot at
+ * search.semantic.snapshot-path, when there is one built with the same embedder, and reconciled with
+ * MySQL; without a snapshot it is built from scratch. The snapshot is written after every startup build
+ * and at shutdown. Until the index is ready, {@link #search} returns empty.
+ */
+@Service
+public class ListingSemanticIndex implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingSemanticIndex.class);
+
+    static final String LEXICON_RESOURCE = "search/semantic-lexicon.tsv";
+    private static final int DIMENSIONS = 256;
+    private static final int LINKS_PER_NODE = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int SNAPSHOT_MAGIC = 0x4C53454D; // "LSEM"
+    private static final int SNAPSHOT_VERSION = 1;
+    // replaced and removed listings stay in the graph as deleted nodes until it is compacted
+    private static final int MIN_DELETED_TO_COMPACT = 256;
+    private static final double COMPACT_DELETED_RATIO = 0.25;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired(required = false)
+    private TaskScheduler taskScheduler;
+
+    @Value("${search.semantic.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.semantic.snapshot-path:}")
+    private String snapshotPath = "";
+
+    @Value("${search.semantic.ef-search:64}")
+    private int efSearch = 64;
+
+    @Value("${search.semantic.min-similarity:0.2}")
+    private double minSimilarity = 0.2;
+
+    private final HashedEmbedder embedder = HashedEmbedder.fromResource(DIMENSIONS, LEXICON_RESOURCE);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private HnswIndex graph = newGraph();
+    // listing id -> what the graph holds for it
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // ids written while a rebuild is scanning, so stale batches cannot overwrite them
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+    private Scan scan;
+
+    // ids written while a compacted graph is being built, replayed onto it before the swap
+    private final Set<String> changedDuringCompaction = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // progress of the current rebuild
+    private static class Scan {
+        private final Set<String> seen = new HashSet<>();
+        private boolean loaded;
+        private int scanned;
+        private int embedded;
+    }
+
+    private static class Entry {
+        private final String categoryId;
+        private final int textHash;
+
+        private Entry(String categoryId, int textHash) {
+            this.categoryId = categoryId;
+            this.textHash = textHash;
+        }
+    }
+
+    /**
+     * Keep the index in sync with committed listing writes.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getListingId());
+        } else {
+            index(event.getListing());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        if (ready) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Load the snapshot if there is a usable one (the index is ready from then on), then reconcile
+     * with the database in primary-key order: listings whose text changed are re-embedded, listings
+     * that are gone or no longer ACTIVE are removed. Finally compact if needed and write a new snapshot.
+     * At startup this is done by {@link ListingScanner}.
+     */
+    public void rebuild() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Listing semantic index disabled");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        rebuilding = true;
+        touched.clear();
+        scan = new Scan();
+        scan.loaded = loadSnapshot();
+        if (!scan.loaded) {
+            lock.writeLock().lock();
+            try {
+                graph = newGraph();
+                entries.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = scan.loaded;
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        lock.writeLock().lock();
+        try {
+            for (ListingIndexRow row : rows) {
+                scan.seen.add(row.getId());
+                if (touched.contains(row.getId())) {
+                    continue;
+                }
+                if (row.getStatus() == Listing.ListingStatus.ACTIVE) {
+                    scan.embedded += upsert(row.getId(), row.getTitle(), row.getDescription(), row.getCategoryId()) ? 1 : 0;
+                } else {
+                    unindex(row.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scan.scanned += rows.size();
+        return true;
+    }
+
+    @Override
+    public void endScan() {
+        try {
+            // listings deleted while the application was down
+            lock.writeLock().lock();
+            try {
+                for (String id : new ArrayList<>(entries.keySet())) {
+                    if (!scan.seen.contains(id) && !touched.contains(id)) {
+                        unindex(id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            logger.info("Listing semantic index ready: {} listings scanned, {} embedded{}", scan.scanned, scan.embedded,
+                scan.loaded ? " after loading the snapshot" : "");
+
+            if (needsCompaction() && compacting.compareAndSet(false, true)) {
+                compact();
+            }
+            saveSnapshot();
+        } finally {
+            finishScan();
+        }
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        finishScan();
+        logger.error("Listing semantic index rebuild failed; semantic search is unavailable", e);
+    }
+
+    private void finishScan() {
+        rebuilding = false;
+        touched.clear();
+        scan = null;
+    }
+
+    /**
+     * Embed a saved listing, or drop it if it is no longer ACTIVE.
+     * @param listing listing entity
+     */
+    public void index(Listing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        if (rebuilding) {
+            touched.add(listing.getId());
+        }
+        String categoryId = listing.getCategory() != null ? listing.getCategory().getId() : null;
+        lock.writeLock().lock();
+        try {
+            if (listing.getStatus() == Listing.ListingStatus.ACTIVE) {
+                upsert(listing.getId(), listing.getTitle(), listing.getDescription(), categoryId);
+            } else {
+                unindex(listing.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactInBackgroundIfNeeded();
+    }
+
+    /**
+     * Remove a listing from the index.
+     * @param listingId listing id
+     */
+    public void remove(String listingId) {
+        if (listingId == null) {
+            return;
+        }
+        if (rebuilding) {
+            touched.add(listingId);
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(listingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactInBackgroundIfNeeded();
+    }
+
+    /** @return true once the index can answer searches */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** @return number of indexed listings */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return graph.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Listings closest in meaning to a query.
+     * @param query search text
+     * @param categoryId category filter (optional)
+     * @param k maximum number of listings
+     * @return listing ids with cosine similarity (at least search.semantic.min-similarity), most similar
+     *         first; empty if the index is not ready
+     */
+    public Optional<List<HnswIndex.Neighbor>> search(String query, String categoryId, int k) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        float[] vector = embedder.embed(query);
+        if (HashedEmbedder.isZero(vector)) {
+            return Optional.of(Collections.emptyList());
+        }
+        List<HnswIndex.Neighbor> neighbors;
+        lock.readLock().lock();
+        try {
+            Predicate<String> filter = categoryId == null ? null : id -> {
+                Entry entry = entries.get(id);
+                return entry != null && categoryId.equals(entry.categoryId);
+            };
+            neighbors = graph.search(vector, k, Math.max(efSearch, k), filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.of(neighbors.stream()
+            .filter(neighbor -> neighbor.getSimilarity() >= minSimilarity)
+            .collect(Collectors.toList()));
+    }
+
+    // --- internals (callers hold the write lock) ---
+
+    /**
+     * @return true if the listing was (re-)embedded, false if only its category was refreshed
+     */
+    private boolean upsert(String id, String title, String description, String categoryId) {
+        int textHash = Objects.hash(title, description);
+        Entry existing = entries.get(id);
+        if (existing != null && existing.textHash == textHash && graph.contains(id)) {
+            entries.put(id, new Entry(categoryId, textHash));
+            return false;
+        }
+        float[] vector = embedder.embed(title, description);
+        if (HashedEmbedder.isZero(vector)) {
+            unindex(id);
+            return false;
+        }
+        graph.add(id, vector);
+        entries.put(id, new Entry(categoryId, textHash));
+        if (compacting.get()) {
+            changedDuringCompaction.add(id);
+        }
+        return true;
+    }
+
+    private void unindex(String id) {
+        entries.remove(id);
+        if (graph.remove(id) && compacting.get()) {
+            changedDuringCompaction.add(id);
+        }
+    }
+
+    private HnswIndex newGraph() {
+        return new HnswIndex(DIMENSIONS, LINKS_PER_NODE, EF_CONSTRUCTION, System.nanoTime());
+    }
+
+    private boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            int deleted = graph.getDeletedCount();
+            return deleted >= MIN_DELETED_TO_COMPACT && deleted >= COMPACT_DELETED_RATIO * (deleted + graph.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactInBackgroundIfNeeded() {
+        if (!rebuilding && needsCompaction() && compacting.compareAndSet(false, true)) {
+            if (taskScheduler != null) {
+                taskScheduler.schedule(this::compact, Instant.now());
+            } else {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Build a graph without deleted nodes off the lock, replay the writes made meanwhile, then swap it in.
+     * The caller has set the compacting flag.
+     */
+    private void compact() {
+        try {
+            List<String> ids;
+            List<float[]> vectors = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                changedDuringCompaction.clear();
+                ids = graph.ids();
+                for (String id : ids) {
+                    vectors.add(graph.getVector(id));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            HnswIndex compacted = newGraph();
+            for (int i = 0; i < ids.size(); i++) {
+                compacted.add(ids.get(i), vectors.get(i));
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (String id : changedDuringCompaction) {
+                    float[] vector = graph.getVector(id);
+                    if (vector != null) {
+                        compacted.add(id, vector);
+                    } else {
+                        compacted.remove(id);
+                    }
+                }
+                int dropped = graph.getDeletedCount();
+                graph = compacted;
+                logger.info("Compacted listing semantic index: dropped {} deleted nodes, {} listings", dropped, graph.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Listing semantic index compaction failed", e);
+        } finally {
+            changedDuringCompaction.clear();
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Write entries and graph to a temporary file and move it over the snapshot.
+     */
+    void saveSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            return;
+        }
+        Path target = Paths.get(snapshotPath);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            lock.readLock().lock();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(embedder.fingerprint());
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeBoolean(entry.getValue().categoryId != null);
+                    if (entry.getValue().categoryId != null) {
+                        out.writeUTF(entry.getValue().categoryId);
+                    }
+                    out.writeInt(entry.getValue().textHash);
+                }
+                graph.writeTo(out);
+            } finally {
+                lock.readLock().unlock();
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote listing semantic index snapshot to {}", target);
+        } catch (IOException e) {
+            logger.warn("Could not write listing semantic index snapshot to {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the index with the snapshot, if there is one for the current embedder.
+     * @return true if loaded
+     */
+    private boolean loadSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank() || !Files.isRegularFile(Paths.get(snapshotPath))) {
+            return false;
+        }
+        Path source = Paths.get(snapshotPath);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION
+                    || in.readLong() != embedder.fingerprint()) {
+                logger.info("Ignoring listing semantic index snapshot {} built with another embedder", source);
+                return false;
+            }
+            int count = in.readInt();
+            Map<String, Entry> loadedEntries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String categoryId = in.readBoolean() ? in.readUTF() : null;
+                loadedEntries.put(id, new Entry(categoryId, in.readInt()));
+            }
+            HnswIndex loadedGraph = HnswIndex.readFrom(in, System.nanoTime());
+            if (loadedGraph.getDimensions() != DIMENSIONS) {
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                graph = loadedGraph;
+                entries.clear();
+                entries.putAll(loadedEntries);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Loaded listing semantic index snapshot with {} listings", loadedGraph.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read listing semantic index snapshot {}: {}", source, e.getMessage());
+            return false;
+        }
+    }
+}
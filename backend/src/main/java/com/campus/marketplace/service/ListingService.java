@@ -1,24 +1,72 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.CursorPage;
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.ScoredListingDTO;
 import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.ListingCourseCode;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingCourseCodeRepository;
 import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingSpecifications;
+import com.campus.marketplace.repository.ListingVersion;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.util.CourseCodes;
+import com.campus.marketplace.util.HnswIndex;
+import com.campus.marketplace.util.ListingCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ListingService {
     
+    /** In-memory BM25 index ({@link ListingSearchIndex}). */
+    static final String SEARCH_BACKEND_INDEX = "index";
+    /** MySQL FULLTEXT index (MATCH ... AGAINST). */
+    static final String SEARCH_BACKEND_FULLTEXT = "fulltext";
+    
+    private static final Pattern FULLTEXT_OPERATORS = Pattern.compile("[+\\-<>()~*\"@]");
+    
+    /** Upper bound for keyset page sizes. */
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
+    /** Upper bound for semantic search results. */
+    static final int MAX_SEMANTIC_RESULTS = 50;
+    
+    // The advanced search's defaults (GET /api/listings/search/advanced), so warmed pages are hit
+    private static final int WARM_PAGE_SIZE = 10;
+    private static final String WARM_SORT = "newest";
+    
+    // Seek positions used when no cursor is given: every real row compares strictly past them
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final BigDecimal FIRST_PAGE_MIN_PRICE = new BigDecimal("-1");
+    private static final BigDecimal FIRST_PAGE_MAX_PRICE = new BigDecimal("100000000"); // price is DECIMAL(10,2)
+    
     @Autowired
     private ListingRepository listingRepository;
     
@@ -30,8 +78,40 @@ public class ListingService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private ListingCourseCodeRepository listingCourseCodeRepository;
+    
+    @Autowired
+    private ListingSearchIndex listingSearchIndex;
+    
+    @Autowired
+    private ListingSemanticIndex listingSemanticIndex;
+    
+    @Autowired
+    private ListingDetailCache listingDetailCache;
+    
+    @Autowired
+    private ListingSearchCache listingSearchCache;
+    
+    @Autowired
+    private SearchQueryLog searchQueryLog;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${search.backend:index}")
+    private String searchBackend = SEARCH_BACKEND_INDEX;
+    
+    // Must match the server's ngram_token_size; shorter terms cannot hit the FULLTEXT index
+    @Value("${search.fulltext.min-token-length:2}")
+    private int fullTextMinTokenLength = 2;
+    
+    // Hard cap on rows written by one GET /api/listings response
+    @Value("${listings.feed.max-rows:1000}")
+    private int feedMaxRows = 1000;
+    
     /**
-     * Create a listing, generating id if absent.
+     * Create a listing, generating id if absent, and store its course codes.
      * @param listing listing entity
      * @return saved Listing
      */
@@ -39,7 +119,10 @@ public class ListingService {
         if (listing.getId() == null) {
             listing.setId(UUID.randomUUID().toString());
         }
-        return listingRepository.save(listing);
+        Listing saved = listingRepository.save(listing);
+        syncCourseCodes(saved);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(saved));
+        return saved;
     }
     
     /**
@@ -51,6 +134,41 @@ public class ListingService {
         return listingRepository.findById(id);
     }
     
+    /**
+     * Get listing detail as a DTO, served from the listing detail cache when enabled.
+     * @param id listing id
+     * @return Optional listing DTO
+     */
+    public Optional<ListingDTO> getListingDTOById(String id) {
+        return listingDetailCache.get(id, listingRepository::findDTOById);
+    }
+    
+    /**
+     * Get listing detail that agrees with a version from {@link #getListingVersion}. The detail cache is not
+     * told when a seller or category is renamed, so an entry showing other names is dropped and reloaded.
+     * @param id listing id
+     * @param version current version of the listing
+     * @return Optional listing DTO
+     */
+    public Optional<ListingDTO> getListingDTOById(String id, ListingVersion version) {
+        Optional<ListingDTO> listing = getListingDTOById(id);
+        if (listing.isPresent() && (!Objects.equals(listing.get().getSellerName(), version.getSellerName())
+                || !Objects.equals(listing.get().getCategoryName(), version.getCategoryName()))) {
+            listingDetailCache.invalidate(id);
+            return getListingDTOById(id);
+        }
+        return listing;
+    }
+    
+    /**
+     * Version of a listing's detail response (update time, seller and category names), without loading the entity.
+     * @param id listing id
+     * @return Optional version
+     */
+    public Optional<ListingVersion> getListingVersion(String id) {
+        return listingRepository.findVersionById(id);
+    }
+    
     /**
      * Get listing by id with seller eagerly loaded.
      * Use this when you need to access seller information.
@@ -62,116 +180,309 @@ public class ListingService {
     }
     
     /**
-     * List all listings.
-     * @return list of listings
+     * Keyset page of the listing feed (every status), newest first. Rows are read through a streaming
+     * projection and the capped page is collected before returning, so the read-only transaction and
+     * its connection are released before anything is written to the client.
+     * @param cursor nextCursor from the previous page (null for the first page)
+     * @param limit requested row count (capped at listings.feed.max-rows; non-positive means the cap)
+     * @return CursorPage of ListingDTO
+     * @throws RuntimeException if the cursor is invalid
      */
-    public List<Listing> getAllListings() {
-        return listingRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<ListingDTO> getListingFeed(String cursor, int limit) {
+        ListingCursor after = createdAtCursor(cursor);
+        int rows = limit > 0 ? Math.min(limit, feedMaxRows) : feedMaxRows;
+        try (Stream<ListingDTO> feed = listingRepository.streamFeedCreatedBefore(
+                after.getCreatedAt(), after.getId(), PageRequest.of(0, rows + 1))) {
+            return toCursorPage(feed.collect(Collectors.toList()), rows, ListingCursor.Kind.CREATED_AT);
+        }
     }
     
     /**
-     * List listings by seller.
+     * Listing DTOs by seller, read with one projection query.
      * @param sellerId seller id
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> getListingsBySeller(String sellerId) {
-        return listingRepository.findBySellerId(sellerId);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsBySeller(String sellerId) {
+        return listingRepository.findDTOsBySellerId(sellerId);
     }
     
     /**
-     * List listings by category.
+     * Listing DTOs by category, read with one projection query.
      * @param categoryId category id
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> getListingsByCategory(String categoryId) {
-        return listingRepository.findByCategoryId(categoryId);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsByCategory(String categoryId) {
+        return listingRepository.findDTOsByCategoryId(categoryId);
     }
     
     /**
-     * List listings by status.
+     * Listing DTOs by status, read with one projection query.
      * @param status listing status
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> getListingsByStatus(Listing.ListingStatus status) {
-        return listingRepository.findByStatus(status);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsByStatus(Listing.ListingStatus status) {
+        return listingRepository.findDTOsByStatus(status);
     }
     
     /**
-     * List listings by item condition.
+     * Listing DTOs by item condition, read with one projection query.
      * @param condition condition enum
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> getListingsByCondition(Listing.ItemCondition condition) {
-        return listingRepository.findByCondition(condition);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsByCondition(Listing.ItemCondition condition) {
+        return listingRepository.findDTOsByCondition(condition);
     }
     
     /**
-     * List listings within price range.
+     * Listing DTOs within a price range, read with one projection query.
      * @param minPrice min
      * @param maxPrice max
-     * @return list of listings
+     * @return list of ListingDTO
+     */
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return listingRepository.findDTOsByPriceRange(minPrice, maxPrice);
+    }
+    
+    /**
+     * Semantic search: ACTIVE listings closest in meaning to the query, from {@link ListingSemanticIndex}.
+     * @param query search text
+     * @param categoryId category filter (optional)
+     * @param limit maximum number of listings (capped at MAX_SEMANTIC_RESULTS)
+     * @return listings with their similarity, most similar first; empty while the index is not ready
      */
-    public List<Listing> getListingsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return listingRepository.findByPriceRange(minPrice, maxPrice);
+    @Transactional(readOnly = true)
+    public Optional<List<ScoredListingDTO>> semanticSearch(String query, String categoryId, int limit) {
+        Optional<List<HnswIndex.Neighbor>> neighbors = listingSemanticIndex.search(
+            query, categoryId, Math.min(Math.max(limit, 1), MAX_SEMANTIC_RESULTS));
+        if (neighbors.isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> ids = neighbors.get().stream().map(HnswIndex.Neighbor::getId).collect(Collectors.toList());
+        Map<String, ListingDTO> byId = listingRepository.findDTOsByIdIn(ids).stream()
+            .collect(Collectors.toMap(ListingDTO::getId, Function.identity()));
+        List<ScoredListingDTO> listings = new ArrayList<>(ids.size());
+        for (HnswIndex.Neighbor neighbor : neighbors.get()) {
+            ListingDTO dto = byId.get(neighbor.getId());
+            // the index may briefly lag a status change
+            if (dto != null && dto.getStatus() == Listing.ListingStatus.ACTIVE) {
+                listings.add(new ScoredListingDTO(dto, neighbor.getSimilarity()));
+            }
+        }
+        return Optional.of(listings);
     }
     
     /**
-     * Search listings by term across title/description.
+     * Keyword search rendered as DTOs: ranked ids from the in-memory index when available,
+     * otherwise a LIKE projection query. Recorded in the {@link SearchQueryLog}.
      * @param searchTerm query
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> searchListings(String searchTerm) {
-        return listingRepository.findByTitleOrDescriptionContaining(searchTerm, searchTerm);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> searchListingDTOs(String searchTerm) {
+        long start = System.nanoTime();
+        List<ListingDTO> listings = keywordSearchDTOs(searchTerm);
+        searchQueryLog.record(SearchQueryLog.SOURCE_SEARCH, searchTerm, System.nanoTime() - start, listings.size());
+        return listings;
+    }
+    
+    private List<ListingDTO> keywordSearchDTOs(String searchTerm) {
+        if (SEARCH_BACKEND_INDEX.equalsIgnoreCase(searchBackend)) {
+            Optional<ListingSearchIndex.SearchHits> hits = listingSearchIndex.search(
+                searchTerm, null, null, null, null, null, "relevance", 0, Integer.MAX_VALUE);
+            if (hits.isPresent()) {
+                return loadDTOsInOrder(hits.get().getListingIds());
+            }
+        }
+        return listingRepository.findDTOsByTitleOrDescriptionContaining(searchTerm);
     }
     
     /**
-     * List listings by seller and status.
+     * Listing DTOs by seller and status, read with one projection query.
      * @param sellerId seller id
      * @param status status
-     * @return list of listings
+     * @return list of ListingDTO
      */
-    public List<Listing> getListingsBySellerAndStatus(String sellerId, Listing.ListingStatus status) {
-        return listingRepository.findBySellerIdAndStatus(sellerId, status);
+    @Transactional(readOnly = true)
+    public List<ListingDTO> getListingDTOsBySellerAndStatus(String sellerId, Listing.ListingStatus status) {
+        return listingRepository.findDTOsBySellerIdAndStatus(sellerId, status);
     }
     
     /**
-     * Page listings by category and status.
+     * Page listing DTOs by category and status.
      * @param categoryId category id
      * @param status status
      * @param pageable paging
-     * @return Page<Listing>
+     * @return Page<ListingDTO>
      */
-    public Page<Listing> getListingsByCategoryAndStatus(String categoryId, Listing.ListingStatus status, Pageable pageable) {
-        return listingRepository.findByCategoryIdAndStatus(categoryId, status, pageable);
+    @Transactional(readOnly = true)
+    public Page<ListingDTO> getListingDTOsByCategoryAndStatus(String categoryId, Listing.ListingStatus status, Pageable pageable) {
+        return listingRepository.findDTOsByCategoryIdAndStatus(categoryId, status, pageable);
     }
     
     /**
-     * Page listings by status ordered by creation time desc.
+     * Page listing DTOs by status ordered by creation time desc.
      * @param status status
      * @param pageable paging
-     * @return Page<Listing>
+     * @return Page<ListingDTO>
      */
-    public Page<Listing> getListingsByStatusOrderByCreatedAtDesc(Listing.ListingStatus status, Pageable pageable) {
-        return listingRepository.findByStatusOrderByCreatedAtDesc(status, pageable);
+    @Transactional(readOnly = true)
+    public Page<ListingDTO> getListingDTOsByStatusOrderByCreatedAtDesc(Listing.ListingStatus status, Pageable pageable) {
+        return listingRepository.findDTOsByStatusOrderByCreatedAtDesc(status, pageable);
     }
     
     /**
-     * Page listings by seller ordered by creation time desc.
+     * Page listing DTOs by seller ordered by creation time desc.
      * @param sellerId seller id
      * @param pageable paging
-     * @return Page<Listing>
+     * @return Page<ListingDTO>
+     */
+    @Transactional(readOnly = true)
+    public Page<ListingDTO> getListingDTOsBySellerOrderByCreatedAtDesc(String sellerId, Pageable pageable) {
+        return listingRepository.findDTOsBySellerIdOrderByCreatedAtDesc(sellerId, pageable);
+    }
+    
+    /**
+     * Keyset page of listings by status, newest first. No count query is issued.
+     * @param status status
+     * @param cursor nextCursor from the previous page (null for the first page)
+     * @param size page size (capped at MAX_CURSOR_PAGE_SIZE)
+     * @return CursorPage of ListingDTO
+     * @throws RuntimeException if the cursor is invalid
+     */
+    public CursorPage<ListingDTO> getListingsByStatusAfter(Listing.ListingStatus status, String cursor, int size) {
+        ListingCursor after = createdAtCursor(cursor);
+        int limit = cursorPageSize(size);
+        List<ListingDTO> rows = listingRepository.findByStatusCreatedBefore(
+            status, after.getCreatedAt(), after.getId(), PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, ListingCursor.Kind.CREATED_AT);
+    }
+    
+    /**
+     * Keyset page of listings by seller, newest first. No count query is issued.
+     * @param sellerId seller id
+     * @param cursor nextCursor from the previous page (null for the first page)
+     * @param size page size (capped at MAX_CURSOR_PAGE_SIZE)
+     * @return CursorPage of ListingDTO
+     * @throws RuntimeException if the cursor is invalid
+     */
+    public CursorPage<ListingDTO> getListingsBySellerAfter(String sellerId, String cursor, int size) {
+        ListingCursor after = createdAtCursor(cursor);
+        int limit = cursorPageSize(size);
+        List<ListingDTO> rows = listingRepository.findBySellerIdCreatedBefore(
+            sellerId, after.getCreatedAt(), after.getId(), PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, ListingCursor.Kind.CREATED_AT);
+    }
+    
+    /**
+     * Keyset page of listings by category and status, newest first. No count query is issued.
+     * @param categoryId category id
+     * @param status status
+     * @param cursor nextCursor from the previous page (null for the first page)
+     * @param size page size (capped at MAX_CURSOR_PAGE_SIZE)
+     * @return CursorPage of ListingDTO
+     * @throws RuntimeException if the cursor is invalid
      */
-    public Page<Listing> getListingsBySellerOrderByCreatedAtDesc(String sellerId, Pageable pageable) {
-        return listingRepository.findBySellerIdOrderByCreatedAtDesc(sellerId, pageable);
+    public CursorPage<ListingDTO> getListingsByCategoryAndStatusAfter(
+            String categoryId, Listing.ListingStatus status, String cursor, int size) {
+        ListingCursor after = createdAtCursor(cursor);
+        int limit = cursorPageSize(size);
+        List<ListingDTO> rows = listingRepository.findByCategoryIdAndStatusCreatedBefore(
+            categoryId, status, after.getCreatedAt(), after.getId(), PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, ListingCursor.Kind.CREATED_AT);
     }
     
     /**
-     * Update listing fields.
+     * Keyset variant of searchListingDTOsWithFilters. Keywords are matched with LIKE; "relevance" has no
+     * stable seek key and is served in newest order.
+     * @param searchTerm keyword search (optional)
+     * @param categoryId filter by category (optional)
+     * @param minPrice minimum price filter (optional)
+     * @param maxPrice maximum price filter (optional)
+     * @param condition filter by condition (optional)
+     * @param status filter by status (optional, defaults to ACTIVE)
+     * @param sortBy sort field: "newest", "price_asc", "price_desc" (defaults to "newest")
+     * @param cursor nextCursor from the previous page (null for the first page)
+     * @param size page size (capped at MAX_CURSOR_PAGE_SIZE)
+     * @return CursorPage of ListingDTO
+     * @throws RuntimeException if the cursor is invalid or was issued for another sort
+     */
+    public CursorPage<ListingDTO> searchWithFiltersAfter(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status,
+            String sortBy,
+            String cursor,
+            int size) {
+        
+        if (status == null) {
+            status = Listing.ListingStatus.ACTIVE;
+        }
+        String normalizedSearchTerm = (searchTerm != null && !searchTerm.trim().isEmpty()) ? searchTerm.trim() : null;
+        String sort = sortBy != null ? sortBy.toLowerCase() : "newest";
+        int limit = cursorPageSize(size);
+        Pageable firstRows = PageRequest.of(0, limit + 1);
+        
+        if ("price_asc".equals(sort) || "price_desc".equals(sort)) {
+            boolean ascending = "price_asc".equals(sort);
+            ListingCursor after = cursor != null
+                ? ListingCursor.decode(cursor, ListingCursor.Kind.PRICE)
+                : ListingCursor.ofPrice(ascending ? FIRST_PAGE_MIN_PRICE : FIRST_PAGE_MAX_PRICE, "");
+            List<ListingDTO> rows = ascending
+                ? listingRepository.searchWithFiltersPriceAfter(normalizedSearchTerm, categoryId, minPrice, maxPrice,
+                    condition, status, after.getPrice(), after.getId(), firstRows)
+                : listingRepository.searchWithFiltersPriceBefore(normalizedSearchTerm, categoryId, minPrice, maxPrice,
+                    condition, status, after.getPrice(), after.getId(), firstRows);
+            return toCursorPage(rows, limit, ListingCursor.Kind.PRICE);
+        }
+        
+        ListingCursor after = createdAtCursor(cursor);
+        List<ListingDTO> rows = listingRepository.searchWithFiltersCreatedBefore(normalizedSearchTerm, categoryId,
+            minPrice, maxPrice, condition, status, after.getCreatedAt(), after.getId(), firstRows);
+        return toCursorPage(rows, limit, ListingCursor.Kind.CREATED_AT);
+    }
+    
+    /**
+     * Update listing fields and its stored course codes.
      * @param listing listing entity
      * @return saved Listing
      */
     public Listing updateListing(Listing listing) {
-        return listingRepository.save(listing);
+        Listing saved = listingRepository.save(listing);
+        syncCourseCodes(saved);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(saved));
+        return saved;
+    }
+    
+    /**
+     * Make listing_course_codes hold exactly the course codes in the listing's title and description.
+     * Only the difference is written, so saves that do not touch the text cost one indexed read.
+     */
+    private void syncCourseCodes(Listing listing) {
+        Set<CourseCodes.CourseCode> wanted = new LinkedHashSet<>(
+            CourseCodes.extract(listing.getTitle(), listing.getDescription()));
+        List<ListingCourseCode> stale = new ArrayList<>();
+        for (ListingCourseCode stored : listingCourseCodeRepository.findByListingId(listing.getId())) {
+            if (!wanted.remove(new CourseCodes.CourseCode(stored.getDept(), stored.getNumber()))) {
+                stale.add(stored);
+            }
+        }
+        if (!stale.isEmpty()) {
+            listingCourseCodeRepository.deleteAll(stale);
+        }
+        if (!wanted.isEmpty()) {
+            listingCourseCodeRepository.saveAll(wanted.stream()
+                .map(code -> new ListingCourseCode(listing.getId(), code.getDept(), code.getNumber()))
+                .collect(Collectors.toList()));
+        }
     }
     
     /**
@@ -179,7 +490,9 @@ public class ListingService {
      * @param id listing id
      */
     public void deleteListing(String id) {
+        String categoryId = listingRepository.findCategoryIdById(id).orElse(null);
         listingRepository.deleteById(id);
+        eventPublisher.publishEvent(ListingChangedEvent.deleted(id, categoryId));
     }
     
     /**
@@ -194,7 +507,9 @@ public class ListingService {
         if (listingOpt.isPresent()) {
             Listing listing = listingOpt.get();
             listing.setStatus(status);
-            return listingRepository.save(listing);
+            Listing saved = listingRepository.save(listing);
+            eventPublisher.publishEvent(ListingChangedEvent.saved(saved));
+            return saved;
         }
         throw new RuntimeException("Listing not found with id: " + id);
     }
@@ -211,18 +526,28 @@ public class ListingService {
     }
     
     /**
-     * Combined search with filters and sorting.
+     * Combined search with filters and sorting, rendered as DTOs without loading entities.
+     * Keyword searches go to the backend selected by search.backend: the in-memory index
+     * ("index", used once it is built), MySQL FULLTEXT ("fulltext") or plain LIKE ("like").
+     * Filter-only browsing and any search the selected backend cannot answer use LIKE, built as a
+     * criteria query containing only the supplied filters (see {@link ListingSpecifications}).
+     * A search term that is a single course code skips the keyword backends and matches listings
+     * through the listing_course_codes index, whatever spelling the listing used.
+     * The backend yields one page of ids, then a single projection query fetches the DTO columns
+     * (listing, seller name, category name) for those ids. The page of ids is served from
+     * {@link ListingSearchCache} when the same search ran recently.
      * @param searchTerm keyword search (optional)
      * @param categoryId filter by category (optional)
      * @param minPrice minimum price filter (optional)
      * @param maxPrice maximum price filter (optional)
      * @param condition filter by condition (optional)
      * @param status filter by status (optional, defaults to ACTIVE)
-     * @param sortBy sort field: "newest", "price_asc", "price_desc" (defaults to "newest")
+     * @param sortBy sort field: "newest", "price_asc", "price_desc", "relevance" (defaults to "newest")
      * @param pageable pagination
-     * @return Page of listings
+     * @return Page of ListingDTO
      */
-    public Page<Listing> searchWithFilters(
+    @Transactional(readOnly = true)
+    public Page<ListingDTO> searchListingDTOsWithFilters(
             String searchTerm,
             String categoryId,
             BigDecimal minPrice,
@@ -232,14 +557,95 @@ public class ListingService {
             String sortBy,
             Pageable pageable) {
         
-        // Default status to ACTIVE if not specified
+        long start = System.nanoTime();
         if (status == null) {
             status = Listing.ListingStatus.ACTIVE;
         }
-        
-        // Normalize search term
         String normalizedSearchTerm = (searchTerm != null && !searchTerm.trim().isEmpty()) ? searchTerm.trim() : null;
+        Listing.ListingStatus statusFilter = status;
         
+        Page<String> ids = listingSearchCache.get(
+            normalizedSearchTerm, categoryId, minPrice, maxPrice, condition, statusFilter, sortBy, pageable,
+            () -> searchIds(normalizedSearchTerm, categoryId, minPrice, maxPrice, condition, statusFilter, sortBy, pageable));
+        Page<ListingDTO> listings = new PageImpl<>(loadDTOsInOrder(ids.getContent()), pageable, ids.getTotalElements());
+        searchQueryLog.record(SearchQueryLog.SOURCE_ADVANCED, normalizedSearchTerm, System.nanoTime() - start,
+            listings.getTotalElements());
+        return listings;
+    }
+    
+    /**
+     * Load the first page of a keyword search, as the advanced search runs it without filters
+     * (ACTIVE, newest first, default page size), into {@link ListingSearchCache}. Used by
+     * {@link SearchCacheWarmer}; not recorded in the query log.
+     * @param searchTerm search term
+     */
+    @Transactional(readOnly = true)
+    public void warmSearchCache(String searchTerm) {
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return;
+        }
+        String term = searchTerm.trim();
+        Pageable pageable = PageRequest.of(0, WARM_PAGE_SIZE);
+        listingSearchCache.get(term, null, null, null, null, Listing.ListingStatus.ACTIVE, WARM_SORT, pageable,
+            () -> searchIds(term, null, null, null, null, Listing.ListingStatus.ACTIVE, WARM_SORT, pageable));
+    }
+    
+    /**
+     * One page of search result ids: ranked backend first, LIKE otherwise.
+     */
+    private Page<String> searchIds(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status,
+            String sortBy,
+            Pageable pageable) {
+        Page<String> ids = rankedSearchIds(searchTerm, categoryId, minPrice, maxPrice, condition, status, sortBy, pageable);
+        if (ids != null) {
+            return ids;
+        }
+        return listingRepository.findIds(
+            ListingSpecifications.searchFilters(searchTerm, categoryId, minPrice, maxPrice, condition, status),
+            likeSearchPageable(sortBy, pageable));
+    }
+    
+    /**
+     * One page of ids from the ranked keyword backend selected by search.backend.
+     * @return ordered ids with total, or null when there is no keyword or the backend cannot answer
+     */
+    private Page<String> rankedSearchIds(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status,
+            String sortBy,
+            Pageable pageable) {
+        // course-code searches are an indexed lookup in listing_course_codes (see ListingSpecifications)
+        if (searchTerm == null || CourseCodes.parse(searchTerm).isPresent()) {
+            return null;
+        }
+        if (SEARCH_BACKEND_INDEX.equalsIgnoreCase(searchBackend)) {
+            Optional<ListingSearchIndex.SearchHits> hits = listingSearchIndex.search(
+                searchTerm, categoryId, minPrice, maxPrice, condition, status,
+                sortBy, pageable.getOffset(), pageable.getPageSize());
+            if (hits.isPresent()) {
+                return new PageImpl<>(hits.get().getListingIds(), pageable, hits.get().getTotal());
+            }
+        }
+        if (SEARCH_BACKEND_FULLTEXT.equalsIgnoreCase(searchBackend)) {
+            return fullTextSearchIds(searchTerm, categoryId, minPrice, maxPrice, condition, status, sortBy, pageable);
+        }
+        return null;
+    }
+    
+    /**
+     * Pageable with the ORDER BY used by the LIKE search for the given sortBy.
+     */
+    private Pageable likeSearchPageable(String sortBy, Pageable pageable) {
         // Apply sorting
         Pageable sortedPageable = pageable;
         if (sortBy != null) {
@@ -275,15 +681,108 @@ public class ListingService {
                 org.springframework.data.domain.Sort.by("createdAt").descending()
             );
         }
+        return sortedPageable;
+    }
+    
+    /**
+     * MySQL FULLTEXT search (ft_listings_search). Every term is required (boolean mode);
+     * "relevance" orders by the natural-language score.
+     * @return page of listing ids, or null if any term is shorter than the ngram token size (caller uses LIKE)
+     */
+    private Page<String> fullTextSearchIds(
+            String searchTerm,
+            String categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Listing.ItemCondition condition,
+            Listing.ListingStatus status,
+            String sortBy,
+            Pageable pageable) {
+        List<String> terms = new ArrayList<>();
+        for (String term : FULLTEXT_OPERATORS.matcher(searchTerm).replaceAll(" ").trim().split("\\s+")) {
+            // The index cannot match a short term, and dropping it would broaden the query ("ipad 2" -> "+ipad")
+            if (term.length() < fullTextMinTokenLength) {
+                return null;
+            }
+            terms.add(term);
+        }
+        
+        String booleanQuery = terms.stream().map(term -> "+" + term).collect(Collectors.joining(" "));
+        String conditionName = condition != null ? condition.name() : null;
+        String sort = sortBy != null ? sortBy.toLowerCase() : "newest";
+        
+        if ("relevance".equals(sort)) {
+            return listingRepository.fullTextSearchIdsByRelevance(
+                booleanQuery, String.join(" ", terms), categoryId, minPrice, maxPrice, conditionName, status.name(),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        }
         
-        return listingRepository.searchWithFilters(
-            normalizedSearchTerm,
-            categoryId,
-            minPrice,
-            maxPrice,
-            condition,
-            status,
-            sortedPageable
-        );
+        Sort order;
+        switch (sort) {
+            case "price_asc":
+                order = Sort.by("price").ascending();
+                break;
+            case "price_desc":
+                order = Sort.by("price").descending();
+                break;
+            case "newest":
+            default:
+                order = Sort.by("created_at").descending();
+                break;
+        }
+        return listingRepository.fullTextSearchIds(
+            booleanQuery, categoryId, minPrice, maxPrice, conditionName, status.name(),
+            PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), order));
+    }
+    
+    private ListingCursor createdAtCursor(String cursor) {
+        return cursor != null
+            ? ListingCursor.decode(cursor, ListingCursor.Kind.CREATED_AT)
+            : ListingCursor.ofCreatedAt(FIRST_PAGE_CREATED_AT, "");
+    }
+    
+    private int cursorPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+    
+    /**
+     * Trim the look-ahead row and build the cursor from the last row returned.
+     * @param rows up to limit + 1 rows in seek order
+     * @param limit requested page size
+     * @param kind sort key of the feed
+     * @return CursorPage of ListingDTO
+     */
+    private CursorPage<ListingDTO> toCursorPage(List<ListingDTO> rows, int limit, ListingCursor.Kind kind) {
+        boolean hasNext = rows.size() > limit;
+        List<ListingDTO> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ListingDTO last = content.get(content.size() - 1);
+            nextCursor = (kind == ListingCursor.Kind.PRICE
+                ? ListingCursor.ofPrice(last.getPrice(), last.getId())
+                : ListingCursor.ofCreatedAt(last.getCreatedAt(), last.getId())).encode();
+        }
+        return new CursorPage<>(content, nextCursor, hasNext, limit);
+    }
+    
+    /**
+     * Project listings to DTOs by id in one query, preserving the given order.
+     * @param ids ordered listing ids
+     * @return DTOs in the same order
+     */
+    private List<ListingDTO> loadDTOsInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, ListingDTO> byId = listingRepository.findDTOsByIdIn(ids).stream()
+            .collect(Collectors.toMap(ListingDTO::getId, Function.identity()));
+        List<ListingDTO> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            ListingDTO dto = byId.get(id);
+            if (dto != null) {
+                ordered.add(dto);
+            }
+        }
+        return ordered;
     }
 }
@@ -0,0 +1,297 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.SearchTokenizer;
+import com.campus.marketplace.util.SymSpellDictionary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * "Did you mean" for listing searches: a {@link SymSpellDictionary} of the words in ACTIVE listing titles,
+ * weighted by how many titles use them, so "calculater" becomes "calculator" and "textbok" "textbook".
+ *
+ * Built from MySQL at startup by {@link ListingScanner} and kept current from {@link ListingChangedEvent}s.
+ * Until the first build finishes, {@link #suggest} returns empty. Dictionary size and lookup latency are
+ * published as search.spelling.* metrics.
+ */
+@Service
+public class ListingSpellingIndex implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingSpellingIndex.class);
+
+    /** Gauges of the dictionary: distinct words, delete keys and approximate heap bytes. */
+    static final String WORDS_METRIC = "search.spelling.dictionary.words";
+    static final String DELETES_METRIC = "search.spelling.dictionary.deletes";
+    static final String BYTES_METRIC = "search.spelling.dictionary.bytes";
+    /** Timer of {@link #suggest} calls. */
+    static final String LOOKUP_METRIC = "search.spelling.lookup";
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+    private static final int PREFIX_LENGTH = 7;
+    // shorter words are neither corrected nor offered; words below LONG_WORD_LENGTH allow one edit
+    private static final int MIN_WORD_LENGTH = 4;
+    private static final int LONG_WORD_LENGTH = 6;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.spelling.enabled:true}")
+    private boolean enabled = true;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SymSpellDictionary dictionary = new SymSpellDictionary(MAX_EDIT_DISTANCE, PREFIX_LENGTH);
+    // listing id -> distinct title words it added to the dictionary
+    private final Map<String, Set<String>> titleWords = new HashMap<>();
+
+    // ids written while a rebuild is scanning, so stale batches cannot overwrite them
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    @PostConstruct
+    void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        meterRegistry.gauge(WORDS_METRIC, this, index -> index.read(SymSpellDictionary::size));
+        meterRegistry.gauge(DELETES_METRIC, this, index -> index.read(SymSpellDictionary::deleteCount));
+        meterRegistry.gauge(BYTES_METRIC, this, index -> index.read(SymSpellDictionary::estimatedBytes));
+    }
+
+    /**
+     * Keep the dictionary in sync with committed listing writes.
+     * @param event listing change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getListingId());
+        } else {
+            index(event.getListing());
+        }
+    }
+
+    /**
+     * Rebuild the dictionary from the database, scanning listings in primary-key order.
+     * At startup the dictionary is built by {@link ListingScanner}.
+     */
+    public void rebuild() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Listing spelling index disabled");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        ready = false;
+        rebuilding = true;
+        touched.clear();
+        lock.writeLock().lock();
+        try {
+            dictionary.clear();
+            titleWords.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        lock.writeLock().lock();
+        try {
+            for (ListingIndexRow row : rows) {
+                if (!touched.contains(row.getId())) {
+                    put(row.getId(), row.getStatus() == Listing.ListingStatus.ACTIVE ? row.getTitle() : null);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void endScan() {
+        ready = true;
+        rebuilding = false;
+        touched.clear();
+        logger.info("Listing spelling index built with {} words (~{} KB)",
+            read(SymSpellDictionary::size), read(SymSpellDictionary::estimatedBytes) / 1024);
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        rebuilding = false;
+        touched.clear();
+        logger.error("Listing spelling index rebuild failed; searches will not be corrected", e);
+    }
+
+    /**
+     * Add or replace a listing's title words; listings that are not ACTIVE are removed.
+     * @param listing listing entity
+     */
+    public void index(Listing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        if (rebuilding) {
+            touched.add(listing.getId());
+        }
+        lock.writeLock().lock();
+        try {
+            put(listing.getId(), listing.getStatus() == Listing.ListingStatus.ACTIVE ? listing.getTitle() : null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a listing's title words.
+     * @param listingId listing id
+     */
+    public void remove(String listingId) {
+        if (listingId == null) {
+            return;
+        }
+        if (rebuilding) {
+            touched.add(listingId);
+        }
+        lock.writeLock().lock();
+        try {
+            put(listingId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return true once the dictionary has been built */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Spelling correction for a search term: every word that no listing title uses is replaced by the
+     * closest title word (one edit for short words, two for words of six letters or more); stop words,
+     * words with digits and words under four letters are kept. Everything else in the term is unchanged.
+     * @param searchTerm search text
+     * @return the corrected term, or empty if nothing was corrected or the dictionary is not ready
+     */
+    public Optional<String> suggest(String searchTerm) {
+        if (!ready || searchTerm == null || searchTerm.isBlank()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Matcher matcher = WORD.matcher(searchTerm);
+            StringBuilder corrected = new StringBuilder();
+            boolean changed = false;
+            while (matcher.find()) {
+                String correction = correct(matcher.group().toLowerCase(Locale.ROOT));
+                if (correction != null) {
+                    changed = true;
+                    matcher.appendReplacement(corrected, Matcher.quoteReplacement(correction));
+                }
+            }
+            matcher.appendTail(corrected);
+            return changed ? Optional.of(corrected.toString()) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+            if (meterRegistry != null) {
+                meterRegistry.timer(LOOKUP_METRIC).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /** Correction for one lowercased word, or null to keep it. */
+    private String correct(String word) {
+        if (!isCorrectable(word) || dictionary.count(word) > 0) {
+            return null;
+        }
+        int maxDistance = word.length() < LONG_WORD_LENGTH ? 1 : MAX_EDIT_DISTANCE;
+        return dictionary.lookup(word, maxDistance).map(SymSpellDictionary.Suggestion::getTerm).orElse(null);
+    }
+
+    // Replace the words a listing contributes; null title removes them
+    private void put(String listingId, String title) {
+        Set<String> words = title != null ? dictionaryWords(title) : Collections.emptySet();
+        Set<String> previous = words.isEmpty() ? titleWords.remove(listingId) : titleWords.put(listingId, words);
+        if (previous != null) {
+            for (String word : previous) {
+                if (!words.contains(word)) {
+                    dictionary.remove(word);
+                }
+            }
+        }
+        for (String word : words) {
+            if (previous == null || !previous.contains(word)) {
+                dictionary.add(word);
+            }
+        }
+    }
+
+    private static Set<String> dictionaryWords(String title) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : SearchTokenizer.tokenizeDocument(title)) {
+            if (isCorrectable(token)) {
+                words.add(token);
+            }
+        }
+        return words;
+    }
+
+    private static boolean isCorrectable(String word) {
+        if (word.length() < MIN_WORD_LENGTH || SearchTokenizer.tokenizeQuery(word).isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long read(ToLongFunction<SymSpellDictionary> metric) {
+        lock.readLock().lock();
+        try {
+            return metric.applyAsLong(dictionary);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.event.MessageChangedEvent;
+import com.campus.marketplace.repository.MessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Real-time message delivery over Server-Sent Events (GET /api/messages/stream).
+ *
+ * Each open stream is a connection of its user. After a message is committed, the recipient's and the
+ * sender's connections get a "message" event with the MessageDTO, and the recipient's an "unread" event
+ * with their unread count (also sent on connect and after messages are marked read).
+ *
+ * Sends never block the request that caused them: each connection has a bounded outbound queue of
+ * messages.push.queue-capacity events, drained by a small sender pool (at most one sender per connection,
+ * so events arrive in order). Unread counts are recounted on the sender pool too, once for a burst of
+ * messages to the same user, and are not queued: only the latest one is kept. A connection
+ * whose queue is full is too slow to keep up and is closed; the client reconnects and reloads. Idle
+ * connections get a heartbeat comment every messages.push.heartbeat-interval, which keeps proxies from
+ * closing them and detects clients that went away. Connections end after messages.push.timeout.
+ */
+@Service
+public class MessagePushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePushService.class);
+
+    /** Event names. */
+    public static final String EVENT_MESSAGE = "message";
+    public static final String EVENT_UNREAD = "unread";
+
+    /** Gauge of open connections. */
+    static final String CONNECTIONS_METRIC = "messages.push.connections";
+    /** Counter of connections closed because their queue was full. */
+    static final String SLOW_CLOSED_METRIC = "messages.push.slow-closed";
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${messages.push.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${messages.push.queue-capacity:32}")
+    private int queueCapacity = 32;
+
+    @Value("${messages.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser = 5;
+
+    @Value("${messages.push.timeout:30m}")
+    private Duration timeout = Duration.ofMinutes(30);
+
+    @Value("${messages.push.heartbeat-interval:25s}")
+    private Duration heartbeatInterval = Duration.ofSeconds(25);
+
+    @Value("${messages.push.sender-threads:4}")
+    private int senderThreads = 4;
+
+    // user id -> open connections, oldest first; lists are replaced, never modified
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // users whose unread count is waiting to be recounted on the sender pool
+    private final Set<String> unreadRecounts = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService senderPool;
+    private ScheduledFuture<?> heartbeats;
+
+    private static class PushEvent {
+        private static final PushEvent HEARTBEAT = new PushEvent(null, null);
+
+        private final String name;
+        private final Object data;
+
+        private PushEvent(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private class Connection {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<PushEvent> queue;
+        // latest unread count not yet sent, -1 if none: counts supersede each other, so they are not queued
+        private final AtomicLong pendingUnread = new AtomicLong(-1);
+        // set while a sender owns the connection
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private boolean hasPending() {
+            return !closed && (!queue.isEmpty() || pendingUnread.get() >= 0);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        senderPool = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "message-push-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (meterRegistry != null) {
+            meterRegistry.gauge(CONNECTIONS_METRIC, connectionCount);
+        }
+    }
+
+    /**
+     * Start the heartbeats on the shared scheduler once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            logger.info("Message push disabled");
+            return;
+        }
+        heartbeats = taskScheduler.scheduleWithFixedDelay(this::heartbeat,
+            Instant.now().plus(heartbeatInterval), heartbeatInterval);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (heartbeats != null) {
+            heartbeats.cancel(false);
+        }
+        for (List<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.emitter.complete();
+            }
+        }
+        if (senderPool != null) {
+            senderPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Open a stream for a user. Its first event is the user's unread count. If the user already has
+     * messages.push.max-connections-per-user streams, the oldest is closed.
+     * @param userId authenticated user
+     * @return the stream, or empty if push is disabled
+     */
+    public Optional<SseEmitter> subscribe(String userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(() -> unregister(connection));
+        emitter.onError(error -> unregister(connection));
+        register(connection);
+        connection.pendingUnread.set(messageRepository.countUnreadMessagesByUserId(userId));
+        schedule(connection);
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Push committed message changes to the connected users.
+     * @param event sent message or messages marked read
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageChanged(MessageChangedEvent event) {
+        List<Connection> userConnections = connections.getOrDefault(event.getUserId(), List.of());
+        if (event.isSent()) {
+            PushEvent message = new PushEvent(EVENT_MESSAGE, event.getMessage());
+            for (Connection connection : userConnections) {
+                enqueue(connection, message);
+            }
+            // the sender's other tabs
+            for (Connection connection : connections.getOrDefault(event.getMessage().getFromUserId(), List.of())) {
+                enqueue(connection, message);
+            }
+        }
+        if (!userConnections.isEmpty()) {
+            recountUnread(event.getUserId());
+        }
+    }
+
+    /** @return number of open connections */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    // Off the committing request's thread; a recount already waiting covers this change as well
+    private void recountUnread(String userId) {
+        if (!unreadRecounts.add(userId)) {
+            return;
+        }
+        Runnable recount = () -> {
+            // before counting, so a change committed after this point queues its own recount
+            unreadRecounts.remove(userId);
+            List<Connection> userConnections = connections.getOrDefault(userId, List.of());
+            if (userConnections.isEmpty()) {
+                return;
+            }
+            long unread;
+            try {
+                unread = messageRepository.countUnreadMessagesByUserId(userId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not count unread messages of user {}: {}", userId, e.getMessage());
+                return;
+            }
+            for (Connection connection : userConnections) {
+                connection.pendingUnread.set(unread);
+                schedule(connection);
+            }
+        };
+        if (senderPool == null) {
+            recount.run();
+            return;
+        }
+        try {
+            senderPool.execute(recount);
+        } catch (RejectedExecutionException e) {
+            unreadRecounts.remove(userId);
+        }
+    }
+
+    private void enqueue(Connection connection, PushEvent event) {
+        if (connection.closed) {
+            return;
+        }
+        if (!connection.queue.offer(event)) {
+            close(connection);
+            if (meterRegistry != null) {
+                meterRegistry.counter(SLOW_CLOSED_METRIC).increment();
+            }
+            logger.debug("Closing slow message stream of user {}", connection.userId);
+        }
+        schedule(connection);
+    }
+
+    // Idle connections only: a busy one shows it is alive by sending
+    void heartbeat() {
+        for (List<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                if (!connection.draining.get() && !connection.hasPending() && connection.queue.offer(PushEvent.HEARTBEAT)) {
+                    schedule(connection);
+                }
+            }
+        }
+    }
+
+    private void schedule(Connection connection) {
+        if (!connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        if (senderPool == null) {
+            // not initialized (plain unit tests): send inline
+            drain(connection);
+            return;
+        }
+        try {
+            senderPool.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.draining.set(false);
+        }
+    }
+
+    private void drain(Connection connection) {
+        try {
+            while (!connection.closed) {
+                PushEvent event = connection.queue.poll();
+                if (event == null) {
+                    long unread = connection.pendingUnread.getAndSet(-1);
+                    if (unread < 0) {
+                        break;
+                    }
+                    event = new PushEvent(EVENT_UNREAD, Collections.singletonMap("count", unread));
+                }
+                send(connection.emitter, event);
+            }
+            if (connection.closed) {
+                // after any send in progress, so the emitter is not completed under it
+                connection.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away
+            unregister(connection);
+        } finally {
+            connection.draining.set(false);
+        }
+        if (connection.hasPending()) {
+            schedule(connection);
+        }
+    }
+
+    private static void send(SseEmitter emitter, PushEvent event) throws IOException {
+        if (event == PushEvent.HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        } else {
+            emitter.send(SseEmitter.event().name(event.name).data(event.data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void register(Connection connection) {
+        List<Connection> evicted = new ArrayList<>();
+        connections.compute(connection.userId, (userId, current) -> {
+            List<Connection> updated = new ArrayList<>(current != null ? current : List.of());
+            updated.add(connection);
+            while (updated.size() > maxConnectionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            return List.copyOf(updated);
+        });
+        connectionCount.addAndGet(1 - evicted.size());
+        for (Connection oldest : evicted) {
+            close(oldest);
+        }
+    }
+
+    private void close(Connection connection) {
+        connection.closed = true;
+        unregister(connection);
+        schedule(connection);
+    }
+
+    private void unregister(Connection connection) {
+        AtomicBoolean removed = new AtomicBoolean();
+        connections.computeIfPresent(connection.userId, (userId, current) -> {
+            if (!current.contains(connection)) {
+                return current;
+            }
+            removed.set(true);
+            List<Connection> updated = new ArrayList<>(current);
+            updated.remove(connection);
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+        if (removed.get()) {
+            connectionCount.decrementAndGet();
+        }
+    }
+}
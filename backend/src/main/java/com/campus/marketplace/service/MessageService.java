@@ -1,27 +1,43 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.ConversationDTO;
 import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.CursorPage;
 import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.entity.Conversation;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.Message;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.event.MessageChangedEvent;
+import com.campus.marketplace.repository.ConversationRepository;
 import com.campus.marketplace.repository.ListingRepository;
 import com.campus.marketplace.repository.MessageRepository;
 import com.campus.marketplace.repository.UserRepository;
+import com.campus.marketplace.util.MessageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 @Transactional
 public class MessageService {
     
+    /** Largest page of message history served at once. */
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
+    // Seek position before every message, for the first (newest) page of a history
+    private static final LocalDateTime LATEST_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
     @Autowired
     private MessageRepository messageRepository;
     
@@ -31,6 +47,12 @@ public class MessageService {
     @Autowired
     private ListingRepository listingRepository;
     
+    @Autowired
+    private ConversationRepository conversationRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     // Send a message
     public MessageDTO sendMessage(CreateMessageRequest request, String fromUserId) {
         // Validate that the listing exists
@@ -50,11 +72,8 @@ public class MessageService {
             throw new RuntimeException("Cannot send message to yourself");
         }
         
-        // Create and save the message
-        Message message = new Message(listing, fromUser, toUser, request.getContent());
-        Message savedMessage = messageRepository.save(message);
-        
-        return new MessageDTO(savedMessage);
+        // Create and save the message; connected users get it pushed after commit
+        return saveMessage(listing, fromUser, toUser, request.getContent());
     }
     
     // Get message by ID (with permission check)
@@ -70,24 +89,25 @@ public class MessageService {
         return new MessageDTO(message);
     }
     
-    // Get messages for a listing
+    // Get the messages of a listing that the user sent or received
     public List<MessageDTO> getMessagesForListing(String listingId, String userId) {
         // Validate that the listing exists
-        Listing listing = listingRepository.findById(listingId)
-                .orElseThrow(() -> new RuntimeException("Listing not found"));
-        
-        // Check if user is the seller or has sent/received messages about this listing
-        List<Message> messages = messageRepository.findByListingIdOrderByCreatedAtAsc(listingId);
+        if (!listingRepository.existsById(listingId)) {
+            throw new RuntimeException("Listing not found");
+        }
         
-        // Filter messages to only include those where the user is involved
-        List<Message> userMessages = messages.stream()
-                .filter(message -> message.getFromUser().getId().equals(userId) || 
-                                 message.getToUser().getId().equals(userId))
-                .collect(Collectors.toList());
+        return messageRepository.findDTOsByListingIdAndParticipant(listingId, userId);
+    }
+    
+    // Get the messages of a listing that the user sent or received, with pagination
+    public Page<MessageDTO> getMessagesForListing(String listingId, String userId, int page, int size) {
+        // Validate that the listing exists
+        if (!listingRepository.existsById(listingId)) {
+            throw new RuntimeException("Listing not found");
+        }
         
-        return userMessages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        Pageable pageable = PageRequest.of(page, size);
+        return messageRepository.findDTOsByListingIdAndParticipant(listingId, userId, pageable);
     }
     
     // Get conversation between two users
@@ -97,11 +117,8 @@ public class MessageService {
             throw new RuntimeException("Access denied: You can only view conversations you're part of");
         }
         
-        List<Message> messages = messageRepository.findConversationBetweenUsers(userId1, userId2);
-        
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return messageRepository.findConversationDTOsBetweenUsers(
+                Conversation.lowId(userId1, userId2), Conversation.highId(userId1, userId2));
     }
     
     // Get conversation for a specific listing between two users
@@ -111,11 +128,9 @@ public class MessageService {
             throw new RuntimeException("Access denied: You can only view conversations you're part of");
         }
         
-        List<Message> messages = messageRepository.findConversationForListing(listingId, userId1, userId2);
-        
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return findConversationId(listingId, userId1, userId2)
+                .map(messageRepository::findDTOsByConversationId)
+                .orElse(Collections.emptyList());
     }
     
     // Get conversation for a specific listing between two users with pagination
@@ -126,65 +141,111 @@ public class MessageService {
         }
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Message> messages = messageRepository.findConversationForListing(listingId, userId1, userId2, pageable);
+        return findConversationId(listingId, userId1, userId2)
+                .map(conversationId -> messageRepository.findDTOsByConversationId(conversationId, pageable))
+                .orElse(Page.empty(pageable));
+    }
+    
+    // Get a user's conversations, most recent first, with last message and unread count
+    @Transactional(readOnly = true)
+    public Page<ConversationDTO> getInbox(String userId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return conversationRepository.findInbox(userId, pageable)
+                .map(conversation -> new ConversationDTO(conversation, userId));
+    }
+    
+    // Get the messages of a conversation with pagination (participants only)
+    @Transactional(readOnly = true)
+    public Page<MessageDTO> getConversationMessages(String conversationId, String userId, int page, int size) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        if (!conversation.hasParticipant(userId)) {
+            throw new RuntimeException("Access denied: You can only view conversations you're part of");
+        }
+        
+        Pageable pageable = PageRequest.of(page, size);
+        return messageRepository.findDTOsByConversationId(conversationId, pageable);
+    }
+    
+    /**
+     * Keyset page of a conversation's messages, newest first (participants only). No count query is issued.
+     * Pass nextCursor as before to load older messages while hasNext. Pass the prevCursor of the newest page
+     * seen as after to fetch only the messages sent since; hasNext then means more are waiting.
+     * @param conversationId conversation id
+     * @param userId current user
+     * @param before cursor to page older messages from (optional)
+     * @param after cursor to fetch newer messages from (optional, not with before)
+     * @param size page size (capped at MAX_HISTORY_PAGE_SIZE)
+     * @return CursorPage of MessageDTO, newest first
+     * @throws RuntimeException if the conversation is not found or not the user's, or a cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getConversationHistory(String conversationId, String userId,
+                                                         String before, String after, int size) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        if (!conversation.hasParticipant(userId)) {
+            throw new RuntimeException("Access denied: You can only view conversations you're part of");
+        }
+        
+        return historyPage(conversationId, before, after, size);
+    }
+    
+    /**
+     * Keyset page of the conversation about a listing between two users, newest first; see
+     * {@link #getConversationHistory}.
+     * @throws RuntimeException if the current user is not one of the two users, or a cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getConversationHistoryForListing(String listingId, String userId1, String userId2,
+                                                                   String currentUserId, String before, String after,
+                                                                   int size) {
+        // Validate that current user is one of the participants
+        if (!currentUserId.equals(userId1) && !currentUserId.equals(userId2)) {
+            throw new RuntimeException("Access denied: You can only view conversations you're part of");
+        }
         
-        return messages.map(MessageDTO::new);
+        return findConversationId(listingId, userId1, userId2)
+                .map(conversationId -> historyPage(conversationId, before, after, size))
+                .orElseGet(() -> new CursorPage<>(new ArrayList<>(), null, after, false, historyPageSize(size)));
     }
     
     // Get messages sent by user
     public List<MessageDTO> getMessagesSentByUser(String userId) {
-        List<Message> messages = messageRepository.findByFromUserIdOrderByCreatedAtDesc(userId);
-        
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return messageRepository.findSentDTOs(userId);
     }
     
     // Get messages received by user
     public List<MessageDTO> getMessagesReceivedByUser(String userId) {
-        List<Message> messages = messageRepository.findByToUserIdOrderByCreatedAtDesc(userId);
-        
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return messageRepository.findReceivedDTOs(userId);
     }
     
     // Get all messages for a user (sent and received)
     public List<MessageDTO> getAllMessagesForUser(String userId) {
-        List<Message> messages = messageRepository.findAllMessagesForUser(userId);
-        
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return messageRepository.findAllDTOsForUser(userId);
     }
     
     // Get messages sent by user with pagination
     public Page<MessageDTO> getMessagesSentByUser(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Message> messages = messageRepository.findByFromUserIdOrderByCreatedAtDesc(userId, pageable);
-        
-        return messages.map(MessageDTO::new);
+        return messageRepository.findSentDTOs(userId, pageable);
     }
     
     // Get messages received by user with pagination
     public Page<MessageDTO> getMessagesReceivedByUser(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Message> messages = messageRepository.findByToUserIdOrderByCreatedAtDesc(userId, pageable);
-        
-        return messages.map(MessageDTO::new);
+        return messageRepository.findReceivedDTOs(userId, pageable);
     }
     
     // Get all messages for a user with pagination
     public Page<MessageDTO> getAllMessagesForUser(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Message> messages = messageRepository.findAllMessagesForUser(userId, pageable);
-        
-        return messages.map(MessageDTO::new);
+        return messageRepository.findAllDTOsForUser(userId, pageable);
     }
     
     // Get conversation partners for a user
     public List<String> getConversationPartners(String userId) {
-        return messageRepository.findConversationPartners(userId);
+        return conversationRepository.findPartners(userId);
     }
     
     // Delete message (only sender can delete)
@@ -197,7 +258,22 @@ public class MessageService {
             throw new RuntimeException("Access denied: Only the sender can delete this message");
         }
         
+        Conversation conversation = lockConversation(message);
+        if (!conversation.isReadBy(message.getToUser().getId(), message)) {
+            conversation.addUnread(message.getToUser().getId(), -1);
+        }
         messageRepository.delete(message);
+        
+        // The conversation shows its previous message now, or goes away with its last one
+        if (message.getId().equals(conversation.getLastMessageId())) {
+            Optional<Message> previous = messageRepository
+                    .findFirstByConversationIdAndIdNotOrderByCreatedAtDescIdDesc(conversation.getId(), message.getId());
+            if (previous.isPresent()) {
+                conversation.setLastMessage(previous.get());
+            } else {
+                conversationRepository.delete(conversation);
+            }
+        }
     }
     
     // Get unread message count for a user
@@ -207,13 +283,10 @@ public class MessageService {
     
     // Get unread messages for a user
     public List<MessageDTO> getUnreadMessages(String userId) {
-        List<Message> messages = messageRepository.findUnreadMessagesByUserId(userId);
-        return messages.stream()
-                .map(MessageDTO::new)
-                .collect(Collectors.toList());
+        return messageRepository.findUnreadDTOsByUserId(userId);
     }
     
-    // Mark message as read
+    // Mark message as read: the recipient has read the conversation up to this message
     public MessageDTO markMessageAsRead(String messageId, String userId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found"));
@@ -223,24 +296,39 @@ public class MessageService {
             throw new RuntimeException("Access denied: Only the recipient can mark this message as read");
         }
         
-        message.setIsRead(true);
-        Message savedMessage = messageRepository.save(message);
+        // Moves the read cursor (one conversation row); messages are not written
+        Conversation conversation = lockConversation(message);
+        if (conversation.markReadUpTo(userId, message)) {
+            long unread = messageRepository.countReceivedAfter(
+                    conversation.getId(), userId, message.getCreatedAt(), message.getId());
+            conversation.setUnreadCount(userId, (int) unread);
+            eventPublisher.publishEvent(MessageChangedEvent.read(userId));
+        }
+        return new MessageDTO(message);
+    }
+    
+    // Mark a conversation as read up to its last message (participants only)
+    public void markConversationAsRead(String conversationId, String userId) {
+        Conversation conversation = conversationRepository.findByIdForUpdate(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        if (!conversation.hasParticipant(userId)) {
+            throw new RuntimeException("Access denied: You can only view conversations you're part of");
+        }
         
-        return new MessageDTO(savedMessage);
+        conversation.markAllRead(userId);
+        eventPublisher.publishEvent(MessageChangedEvent.read(userId));
     }
     
-    // Mark all messages as read for a user
+    // Mark all messages as read for a user: one update of the cursors of their unread conversations
     public void markAllMessagesAsRead(String userId) {
-        List<Message> unreadMessages = messageRepository.findUnreadMessagesByUserId(userId);
-        for (Message message : unreadMessages) {
-            message.setIsRead(true);
-        }
-        messageRepository.saveAll(unreadMessages);
+        conversationRepository.markAllRead(userId);
+        eventPublisher.publishEvent(MessageChangedEvent.read(userId));
     }
     
     /**
      * Create a system message automatically (e.g., for transaction notifications).
      * This bypasses normal validation since it's an automated message.
+     * Pushed to connected users after commit, like sent messages.
      * 
      * @param listing The listing associated with the message
      * @param fromUser The user sending the message (buyer or seller)
@@ -249,8 +337,83 @@ public class MessageService {
      * @return The created message DTO
      */
     public MessageDTO createSystemMessage(Listing listing, User fromUser, User toUser, String content) {
+        return saveMessage(listing, fromUser, toUser, content);
+    }
+    
+    // Save a message in its conversation (created with the first message) and update the conversation's
+    // summary: last message, one more unread for the recipient
+    private MessageDTO saveMessage(Listing listing, User fromUser, User toUser, String content) {
+        Conversation conversation = lockConversation(listing.getId(), fromUser.getId(), toUser.getId());
         Message message = new Message(listing, fromUser, toUser, content);
+        message.setConversation(conversation);
         Message savedMessage = messageRepository.save(message);
-        return new MessageDTO(savedMessage);
+        conversation.setLastMessage(savedMessage);
+        conversation.addUnread(toUser.getId(), 1);
+        
+        MessageDTO messageDTO = new MessageDTO(savedMessage);
+        eventPublisher.publishEvent(MessageChangedEvent.sent(messageDTO));
+        return messageDTO;
+    }
+    
+    // Lock the conversation of a listing between two users, creating it if this is its first message.
+    // The upsert comes first so that no locking read ever looks for a missing row.
+    private Conversation lockConversation(String listingId, String userId1, String userId2) {
+        String userLowId = Conversation.lowId(userId1, userId2);
+        String userHighId = Conversation.highId(userId1, userId2);
+        conversationRepository.insertIfAbsent(listingId, userLowId, userHighId);
+        return conversationRepository.findForUpdate(listingId, userLowId, userHighId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+    }
+    
+    // Lock the conversation of a saved message
+    private Conversation lockConversation(Message message) {
+        return conversationRepository.findByIdForUpdate(message.getConversation().getId())
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+    }
+    
+    /**
+     * Seek one page of a conversation from a cursor, reading one row past the page to learn whether
+     * more follow. Rows come back newest first in both directions.
+     */
+    private CursorPage<MessageDTO> historyPage(String conversationId, String before, String after, int size) {
+        if (before != null && after != null) {
+            throw new RuntimeException("Use either before or after, not both");
+        }
+        int limit = historyPageSize(size);
+        Pageable firstRows = PageRequest.of(0, limit + 1);
+        
+        if (after != null) {
+            MessageCursor from = MessageCursor.decode(after);
+            List<MessageDTO> rows = messageRepository.findDTOsByConversationIdAfter(
+                    conversationId, from.getCreatedAt(), from.getId(), firstRows);
+            boolean hasNext = rows.size() > limit;
+            List<MessageDTO> content = new ArrayList<>(hasNext ? rows.subList(0, limit) : rows);
+            Collections.reverse(content);
+            // Nothing new: the caller stays where it was
+            String newest = content.isEmpty() ? after : cursorOf(content.get(0));
+            return new CursorPage<>(content, hasNext ? newest : null, newest, hasNext, limit);
+        }
+        
+        MessageCursor from = before != null ? MessageCursor.decode(before) : MessageCursor.of(LATEST_CREATED_AT, "");
+        List<MessageDTO> rows = messageRepository.findDTOsByConversationIdBefore(
+                conversationId, from.getCreatedAt(), from.getId(), firstRows);
+        boolean hasNext = rows.size() > limit;
+        List<MessageDTO> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = hasNext ? cursorOf(content.get(content.size() - 1)) : null;
+        String prevCursor = content.isEmpty() ? null : cursorOf(content.get(0));
+        return new CursorPage<>(content, nextCursor, prevCursor, hasNext, limit);
+    }
+    
+    private int historyPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+    }
+    
+    private static String cursorOf(MessageDTO message) {
+        return MessageCursor.of(message.getCreatedAt(), message.getId()).encode();
+    }
+    
+    private Optional<String> findConversationId(String listingId, String userId1, String userId2) {
+        return conversationRepository.findIdByParticipants(
+                listingId, Conversation.lowId(userId1, userId2), Conversation.highId(userId1, userId2));
     }
 }
\ No newline at end of file
@@ -0,0 +1,294 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.NaiveBayesClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local interpreter for chatbot queries, so common ones never reach ChatGPT.
+ *
+ * Keywords come from simple patterns ("&lt;item&gt; for &lt;course code&gt;", "do you have &lt;item&gt;"):
+ * course codes are kept whole and filler words are dropped. The category comes from a
+ * {@link NaiveBayesClassifier} trained at startup on category names, the seed queries in
+ * {@value #TRAINING_RESOURCE} and the titles and descriptions of existing listings.
+ * {@link #classify} marks an intent confident when the category posterior reaches
+ * chatbot.classifier.min-confidence; anything less is left to ChatGPT.
+ */
+@Service
+public class QueryIntentClassifier implements ListingScanConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryIntentClassifier.class);
+
+    static final String TRAINING_RESOURCE = "chatbot/intent-training.tsv";
+    private static final int MAX_KEYWORDS = 4;
+    // "cmpe202", "engl1a"
+    private static final Pattern JOINED_COURSE_CODE = Pattern.compile("(\\p{L}{2,5})(\\d{1,3}\\p{L}?)");
+
+    private static final Set<String> FILLER_WORDS = Set.of(
+        "a", "an", "and", "any", "anyone", "are", "as", "at", "be", "buy", "by", "can", "cheap", "class",
+        "classes", "course", "do", "does", "find", "for", "from", "get", "good", "got", "has", "have", "how",
+        "i", "in", "is", "it", "looking", "look", "me", "my", "need", "of", "on", "or", "please", "sale",
+        "sell", "selling", "some", "someone", "that", "the", "there", "this", "to", "used", "want", "what",
+        "where", "who", "with", "you"
+    );
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Value("${chatbot.classifier.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${chatbot.classifier.min-confidence:0.4}")
+    private double minConfidence = 0.4;
+
+    @Value("${chatbot.classifier.max-training-listings:20000}")
+    private int maxTrainingListings = 20000;
+
+    private volatile Model model;
+    private Training training;
+
+    /**
+     * Interpretation of a query: search keywords plus the predicted category.
+     */
+    public static class Intent {
+        private final String keywords;
+        private final String categoryId;
+        private final String categoryName;
+        private final double confidence;
+        private final boolean confident;
+
+        public Intent(String keywords, String categoryId, String categoryName, double confidence, boolean confident) {
+            this.keywords = keywords;
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.confidence = confidence;
+            this.confident = confident;
+        }
+
+        /** Comma-separated keywords, in the same format ChatGPT returns. */
+        public String getKeywords() {
+            return keywords;
+        }
+
+        public String getCategoryId() {
+            return categoryId;
+        }
+
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+
+        /** True if the intent can be used without asking ChatGPT. */
+        public boolean isConfident() {
+            return confident;
+        }
+    }
+
+    // examples gathered by the current training pass
+    private static class Training {
+        private final long start = System.nanoTime();
+        private final Map<String, String> categoryNames = new HashMap<>();
+        private final Map<String, String> categoryIdsByName = new HashMap<>();
+        private final List<NaiveBayesClassifier.Example> examples = new ArrayList<>();
+        private int listings;
+    }
+
+    private static class Model {
+        private final NaiveBayesClassifier classifier;
+        private final Map<String, String> categoryNames;
+
+        Model(NaiveBayesClassifier classifier, Map<String, String> categoryNames) {
+            this.classifier = classifier;
+            this.categoryNames = categoryNames;
+        }
+    }
+
+    /**
+     * (Re)train the model from categories, seed queries and listings, then swap it in.
+     * At startup the model is trained from the {@link ListingScanner} pass; until then every query goes to ChatGPT.
+     */
+    public void train() {
+        ListingScanner.scan(listingRepository, List.of(this));
+    }
+
+    @Override
+    public boolean isScanEnabled() {
+        if (!enabled) {
+            logger.info("Chatbot intent classifier disabled");
+        }
+        return enabled;
+    }
+
+    @Override
+    public void beginScan() {
+        training = new Training();
+        for (Category category : categoryRepository.findAll()) {
+            training.categoryNames.put(category.getId(), category.getName());
+            training.categoryIdsByName.put(category.getName().toLowerCase(Locale.ROOT), category.getId());
+        }
+        for (Map.Entry<String, String> category : training.categoryNames.entrySet()) {
+            training.examples.add(new NaiveBayesClassifier.Example(category.getValue(), category.getKey()));
+        }
+        for (NaiveBayesClassifier.Example seed : loadSeedQueries(TRAINING_RESOURCE)) {
+            String categoryId = training.categoryIdsByName.get(seed.getLabel().toLowerCase(Locale.ROOT));
+            if (categoryId != null) {
+                training.examples.add(new NaiveBayesClassifier.Example(seed.getText(), categoryId));
+            }
+        }
+    }
+
+    @Override
+    public boolean acceptRows(List<ListingIndexRow> rows) {
+        for (ListingIndexRow row : rows) {
+            if (training.listings >= maxTrainingListings) {
+                break;
+            }
+            String text = row.getDescription() == null ? row.getTitle() : row.getTitle() + " " + row.getDescription();
+            training.examples.add(new NaiveBayesClassifier.Example(text, row.getCategoryId()));
+            training.listings++;
+        }
+        return training.listings < maxTrainingListings;
+    }
+
+    @Override
+    public void endScan() {
+        try {
+            NaiveBayesClassifier classifier = NaiveBayesClassifier.train(training.examples);
+            model = new Model(classifier, training.categoryNames);
+            logger.info("Trained chatbot intent classifier on {} examples ({} listings): {} categories, {} features in {} ms",
+                training.examples.size(), training.listings, classifier.getLabelCount(), classifier.getFeatureCount(),
+                (System.nanoTime() - training.start) / 1_000_000);
+        } finally {
+            training = null;
+        }
+    }
+
+    @Override
+    public void failScan(RuntimeException e) {
+        training = null;
+        logger.error("Chatbot intent classifier training failed; queries will use ChatGPT", e);
+    }
+
+    /**
+     * Interpret a query locally.
+     * @param query natural language query
+     * @return keywords and category, or null if the model is not ready or the query has no keywords
+     */
+    public Intent classify(String query) {
+        Model current = model;
+        if (!enabled || current == null || query == null) {
+            return null;
+        }
+        String keywords = keywords(query);
+        if (keywords.isEmpty()) {
+            return null;
+        }
+        NaiveBayesClassifier.Prediction prediction = current.classifier.classify(query);
+        if (prediction == null) {
+            return new Intent(keywords, null, null, 0, false);
+        }
+        return new Intent(keywords, prediction.getLabel(), current.categoryNames.get(prediction.getLabel()),
+            prediction.getConfidence(), prediction.getConfidence() >= minConfidence);
+    }
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    /**
+     * Search keywords of a query: course codes first ("CMPE 202", also written "cmpe202"), then the remaining words
+     * that are not filler, at most MAX_KEYWORDS. Clothing sizes ("size 10") are dropped.
+     * @param query natural language query
+     * @return comma-separated keywords, empty if none
+     */
+    static String keywords(String query) {
+        String[] words = query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+");
+        Set<String> courseCodes = new LinkedHashSet<>();
+        Set<String> items = new LinkedHashSet<>();
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            if (word.isEmpty()) {
+                continue;
+            }
+            String next = i + 1 < words.length ? words[i + 1] : "";
+            Matcher joined = JOINED_COURSE_CODE.matcher(word);
+            if (word.equals("size")) {
+                i++;
+            } else if (joined.matches()) {
+                courseCodes.add(joined.group(1).toUpperCase(Locale.ROOT) + " " + joined.group(2).toUpperCase(Locale.ROOT));
+            } else if (isCourseCode(word, next)) {
+                courseCodes.add(word.toUpperCase(Locale.ROOT) + " " + next.toUpperCase(Locale.ROOT));
+                i++;
+            } else if (word.length() > 1 && !FILLER_WORDS.contains(word)) {
+                items.add(word);
+            }
+        }
+        List<String> keywords = new ArrayList<>(courseCodes);
+        keywords.addAll(items);
+        return String.join(", ", keywords.subList(0, Math.min(MAX_KEYWORDS, keywords.size())));
+    }
+
+    /**
+     * Seed queries from a classpath TSV of &lt;category name&gt;&lt;TAB&gt;&lt;query&gt; lines; '#' starts a comment.
+     * Examples are labelled with the category name.
+     */
+    static List<NaiveBayesClassifier.Example> loadSeedQueries(String resource) {
+        InputStream in = QueryIntentClassifier.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return Collections.emptyList();
+        }
+        List<NaiveBayesClassifier.Example> examples = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length >= 2) {
+                    examples.add(new NaiveBayesClassifier.Example(columns[columns.length - 1], columns[0]));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + resource, e);
+        }
+        return examples;
+    }
+
+    private static boolean isCourseCode(String letters, String digits) {
+        return letters.length() >= 2 && letters.length() <= 5 && letters.chars().allMatch(Character::isLetter)
+            && !FILLER_WORDS.contains(letters)
+            && digits.length() >= 1 && digits.length() <= 3 && Character.isDigit(digits.charAt(0));
+    }
+}
@@ -0,0 +1,109 @@
+package com.campus.marketplace.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Pre-warms the search caches with the most frequent queries from the {@link SearchQueryLog}, shortly
+ * after startup and then every search.query-log.prewarm.interval, so popular searches hit the cache
+ * after a restart or once their entries expired.
+ *
+ * The top search.query-log.prewarm.top-n advanced searches get their first page loaded into
+ * {@link ListingSearchCache}. The top search.query-log.prewarm.chatbot-top-n chatbot queries get their
+ * ChatGPT interpretation cached; each miss costs a ChatGPT call, so this is off by default. Plain
+ * keyword searches have no result cache (the in-memory index answers them) and are not warmed.
+ */
+@Service
+public class SearchCacheWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchCacheWarmer.class);
+
+    // gives the in-memory search index time to build, so warmed pages come from it rather than LIKE
+    private static final Duration STARTUP_DELAY = Duration.ofSeconds(30);
+
+    @Autowired
+    private SearchQueryLog searchQueryLog;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ChatbotSearchService chatbotSearchService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${search.query-log.prewarm.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.query-log.prewarm.top-n:20}")
+    private int topN = 20;
+
+    @Value("${search.query-log.prewarm.chatbot-top-n:0}")
+    private int chatbotTopN = 0;
+
+    @Value("${search.query-log.prewarm.interval:10m}")
+    private Duration interval = Duration.ofMinutes(10);
+
+    private ScheduledFuture<?> warming;
+
+    /**
+     * Start warming on the shared scheduler once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            logger.info("Search cache pre-warming disabled");
+            return;
+        }
+        warming = taskScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                warm();
+            } catch (RuntimeException e) {
+                logger.error("Search cache pre-warming failed", e);
+            }
+        }, Instant.now().plus(STARTUP_DELAY), interval);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (warming != null) {
+            warming.cancel(false);
+        }
+    }
+
+    /**
+     * Warm the caches with the current top queries.
+     * @return number of queries warmed
+     */
+    public int warm() {
+        long start = System.nanoTime();
+        int warmed = 0;
+        for (String query : searchQueryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, topN)) {
+            try {
+                listingService.warmSearchCache(query);
+                warmed++;
+            } catch (RuntimeException e) {
+                logger.warn("Could not pre-warm search \"{}\": {}", query, e.getMessage());
+            }
+        }
+        for (String query : searchQueryLog.topQueries(SearchQueryLog.SOURCE_CHATBOT, chatbotTopN)) {
+            if (chatbotSearchService.warmInterpretation(query)) {
+                warmed++;
+            }
+        }
+        logger.debug("Pre-warmed {} searches in {} ms", warmed, (System.nanoTime() - start) / 1_000_000);
+        return warmed;
+    }
+}
@@ -0,0 +1,469 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.SearchQueryStatsDTO;
+import com.campus.marketplace.util.HeavyHitters;
+import com.campus.marketplace.util.MpscRingBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+/**
+ * What people search for: the most frequent normalized queries of the keyword, advanced and chatbot
+ * searches, with their latency and how often they found nothing.
+ *
+ * Request threads only offer a sample to a lock-free {@link MpscRingBuffer} (dropped, and counted,
+ * if it is full). A background thread drains it every search.query-log.drain-interval into
+ * {@link HeavyHitters}: a Count-Min Sketch over all queries plus the search.query-log.tracked-queries
+ * most frequent ones by name, for which latency, zero-result counts and (hashed) who found something with
+ * them are kept. Counts are halved
+ * every search.query-log.half-life so recent searches dominate. Everything is written to
+ * search.query-log.snapshot-path periodically and at shutdown, and loaded at startup.
+ * {@link SearchCacheWarmer} uses the top queries to pre-warm the search caches, and
+ * {@link ListingAutocompleteIndex} offers the {@link #popularQueries} as completions.
+ */
+@Service
+public class SearchQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchQueryLog.class);
+
+    /** Query sources. */
+    public static final String SOURCE_SEARCH = "search";
+    public static final String SOURCE_ADVANCED = "advanced";
+    public static final String SOURCE_CHATBOT = "chatbot";
+
+    /** Counter of samples dropped because the buffer was full. */
+    static final String DROPPED_METRIC = "search.query-log.dropped";
+    /** Gauges of samples waiting to be drained and of queries tracked by name. */
+    static final String PENDING_METRIC = "search.query-log.pending";
+    static final String TRACKED_METRIC = "search.query-log.tracked";
+
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int SKETCH_WIDTH = 8192;
+    private static final int SKETCH_DEPTH = 4;
+    private static final char SEPARATOR = '\u001f';
+    private static final int SNAPSHOT_MAGIC = 0x53514C47; // "SQLG"
+    private static final int SNAPSHOT_VERSION = 2;
+    // enough to tell a query many people run from one person's repeated search
+    private static final int MAX_COUNTED_SEARCHERS = 32;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${search.query-log.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.query-log.buffer-capacity:8192}")
+    private int bufferCapacity = 8192;
+
+    @Value("${search.query-log.tracked-queries:200}")
+    private int trackedQueries = 200;
+
+    @Value("${search.query-log.drain-interval:1s}")
+    private Duration drainInterval = Duration.ofSeconds(1);
+
+    @Value("${search.query-log.persist-interval:5m}")
+    private Duration persistInterval = Duration.ofMinutes(5);
+
+    @Value("${search.query-log.half-life:7d}")
+    private Duration halfLife = Duration.ofDays(7);
+
+    @Value("${search.query-log.snapshot-path:}")
+    private String snapshotPath = "";
+
+    private MpscRingBuffer<Sample> buffer;
+
+    // guarded by this: the buffer's single consumer and everything it feeds
+    private HeavyHitters heavyHitters;
+    // source + SEPARATOR + query -> figures since the query was last picked up as a heavy hitter
+    private final Map<String, QueryStats> stats = new HashMap<>();
+
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+
+    private static class Sample {
+        private final String key;
+        private final long latencyNanos;
+        private final boolean zeroResults;
+        // hash of who searched, 0 if unknown
+        private final int searcher;
+
+        private Sample(String key, long latencyNanos, boolean zeroResults, int searcher) {
+            this.key = key;
+            this.latencyNanos = latencyNanos;
+            this.zeroResults = zeroResults;
+            this.searcher = searcher;
+        }
+    }
+
+    private static class QueryStats {
+        private long samples;
+        private long zeroResults;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        // hashes of the users or clients whose search found listings, at most MAX_COUNTED_SEARCHERS
+        private final Set<Integer> searchers = new HashSet<>();
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferCapacity);
+        heavyHitters = new HeavyHitters(trackedQueries, SKETCH_WIDTH, SKETCH_DEPTH);
+        // loaded here rather than when the application is ready, so the cache warmer starts with it
+        loadSnapshot();
+        if (meterRegistry != null) {
+            meterRegistry.gauge(PENDING_METRIC, buffer, MpscRingBuffer::size);
+            meterRegistry.gauge(TRACKED_METRIC, this, log -> log.trackedCount());
+        }
+    }
+
+    /**
+     * Drain the buffer, persist and age the counts on the shared scheduler once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            logger.info("Search query log disabled");
+            return;
+        }
+        schedule(this::drain, drainInterval);
+        schedule(this::saveSnapshot, persistInterval);
+        schedule(this::decay, halfLife);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ScheduledFuture<?> task : tasks) {
+            task.cancel(false);
+        }
+        if (buffer != null) {
+            drain();
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Record one search by the current user (or, for anonymous searches, client address). Never blocks;
+     * the sample is dropped if the buffer is full.
+     * @param source SOURCE_SEARCH, SOURCE_ADVANCED or SOURCE_CHATBOT
+     * @param query query as typed (blank queries are ignored)
+     * @param latencyNanos time the search took
+     * @param results number of results found
+     */
+    public void record(String source, String query, long latencyNanos, long results) {
+        if (buffer == null || query == null) {
+            return;
+        }
+        record(source, query, latencyNanos, results, currentSearcher());
+    }
+
+    void record(String source, String query, long latencyNanos, long results, String searcher) {
+        if (buffer == null || query == null) {
+            return;
+        }
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        int searcherHash = searcher != null ? searcher.hashCode() : 0;
+        Sample sample = new Sample(source + SEPARATOR + normalized, latencyNanos, results == 0,
+            searcher != null && searcherHash == 0 ? 1 : searcherHash);
+        if (!buffer.offer(sample) && meterRegistry != null) {
+            meterRegistry.counter(DROPPED_METRIC).increment();
+        }
+    }
+
+    /**
+     * Most frequent queries with their figures, pending samples included.
+     * @param limit number of queries
+     * @return queries, most frequent first
+     */
+    public List<SearchQueryStatsDTO> topQueries(int limit) {
+        if (buffer == null) {
+            return List.of();
+        }
+        List<SearchQueryStatsDTO> result = new ArrayList<>();
+        synchronized (this) {
+            drain();
+            for (HeavyHitters.Entry entry : heavyHitters.top(limit)) {
+                int separator = entry.getKey().indexOf(SEPARATOR);
+                QueryStats queryStats = stats.getOrDefault(entry.getKey(), new QueryStats());
+                long samples = queryStats.samples;
+                result.add(new SearchQueryStatsDTO(
+                    entry.getKey().substring(separator + 1),
+                    entry.getKey().substring(0, separator),
+                    entry.getCount(),
+                    samples,
+                    samples > 0 ? queryStats.totalLatencyNanos / 1e6 / samples : 0,
+                    queryStats.maxLatencyNanos / 1e6,
+                    samples > 0 ? (double) queryStats.zeroResults / samples : 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Most frequent normalized queries of one source.
+     * @param source SOURCE_SEARCH, SOURCE_ADVANCED or SOURCE_CHATBOT
+     * @param limit number of queries
+     */
+    public List<String> topQueries(String source, int limit) {
+        if (buffer == null) {
+            return List.of();
+        }
+        String prefix = source + SEPARATOR;
+        List<String> queries = new ArrayList<>();
+        synchronized (this) {
+            for (HeavyHitters.Entry entry : heavyHitters.top(Integer.MAX_VALUE)) {
+                if (queries.size() >= limit) {
+                    break;
+                }
+                if (entry.getKey().startsWith(prefix)) {
+                    queries.add(entry.getKey().substring(prefix.length()));
+                }
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Tracked queries of the given sources that found listings for at least minSearchers different users or
+     * clients, most frequent first. A query run from several sources is counted once, with the sum of its
+     * counts.
+     * @param sources sources to include
+     * @param minSearchers distinct users or clients needed, at most MAX_COUNTED_SEARCHERS
+     * @param limit number of queries
+     * @return normalized query -> estimated count
+     */
+    public List<Map.Entry<String, Long>> popularQueries(Collection<String> sources, int minSearchers, int limit) {
+        if (buffer == null) {
+            return List.of();
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        Map<String, Set<Integer>> searchers = new HashMap<>();
+        synchronized (this) {
+            for (HeavyHitters.Entry entry : heavyHitters.top(Integer.MAX_VALUE)) {
+                int separator = entry.getKey().indexOf(SEPARATOR);
+                QueryStats queryStats = stats.get(entry.getKey());
+                if (queryStats == null || !sources.contains(entry.getKey().substring(0, separator))) {
+                    continue;
+                }
+                String query = entry.getKey().substring(separator + 1);
+                counts.merge(query, entry.getCount(), Long::sum);
+                searchers.computeIfAbsent(query, q -> new HashSet<>()).addAll(queryStats.searchers);
+            }
+        }
+        int needed = Math.min(minSearchers, MAX_COUNTED_SEARCHERS);
+        return counts.entrySet().stream()
+            .filter(query -> searchers.get(query.getKey()).size() >= needed)
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(limit)
+            .map(query -> Map.entry(query.getKey(), query.getValue()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Move buffered samples into the heavy hitters. Runs on the shared scheduler; callers that need
+     * current figures may call it too (it is the buffer's only consumer, so it is synchronized).
+     */
+    synchronized void drain() {
+        if (buffer == null) {
+            return;
+        }
+        buffer.drain(sample -> {
+            heavyHitters.add(sample.key, 1);
+            if (!heavyHitters.contains(sample.key)) {
+                return;
+            }
+            QueryStats queryStats = stats.computeIfAbsent(sample.key, key -> new QueryStats());
+            queryStats.samples++;
+            queryStats.totalLatencyNanos += sample.latencyNanos;
+            queryStats.maxLatencyNanos = Math.max(queryStats.maxLatencyNanos, sample.latencyNanos);
+            if (sample.zeroResults) {
+                queryStats.zeroResults++;
+            } else if (sample.searcher != 0 && queryStats.searchers.size() < MAX_COUNTED_SEARCHERS) {
+                queryStats.searchers.add(sample.searcher);
+            }
+        }, buffer.capacity());
+        if (stats.size() > heavyHitters.size()) {
+            stats.keySet().removeIf(key -> !heavyHitters.contains(key));
+        }
+    }
+
+    /**
+     * Halve all counts, so queries nobody searches any more fall out of the top list.
+     */
+    synchronized void decay() {
+        if (heavyHitters == null) {
+            return;
+        }
+        heavyHitters.halve();
+        stats.keySet().removeIf(key -> !heavyHitters.contains(key));
+        for (QueryStats queryStats : stats.values()) {
+            queryStats.samples >>>= 1;
+            queryStats.zeroResults >>>= 1;
+            queryStats.totalLatencyNanos >>>= 1;
+        }
+    }
+
+    /**
+     * Key for counting: lower-cased with whitespace collapsed, like the search caches' keys.
+     */
+    static String normalize(String query) {
+        String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized.length() > MAX_QUERY_LENGTH ? normalized.substring(0, MAX_QUERY_LENGTH) : normalized;
+    }
+
+    /**
+     * Write the heavy hitters and their figures to a temporary file and move it over the snapshot.
+     */
+    void saveSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank() || heavyHitters == null) {
+            return;
+        }
+        Path target = Paths.get(snapshotPath);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            synchronized (this) {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    heavyHitters.writeTo(out);
+                    out.writeInt(stats.size());
+                    for (Map.Entry<String, QueryStats> entry : stats.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeLong(entry.getValue().samples);
+                        out.writeLong(entry.getValue().zeroResults);
+                        out.writeLong(entry.getValue().totalLatencyNanos);
+                        out.writeLong(entry.getValue().maxLatencyNanos);
+                        out.writeInt(entry.getValue().searchers.size());
+                        for (int searcher : entry.getValue().searchers) {
+                            out.writeInt(searcher);
+                        }
+                    }
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote search query log snapshot to {}", target);
+        } catch (IOException e) {
+            logger.warn("Could not write search query log snapshot to {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the counts with the snapshot, if there is one.
+     * @return true if loaded
+     */
+    synchronized boolean loadSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank() || !Files.isRegularFile(Paths.get(snapshotPath))) {
+            return false;
+        }
+        Path source = Paths.get(snapshotPath);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                logger.info("Ignoring search query log snapshot {} of another version", source);
+                return false;
+            }
+            HeavyHitters loaded = HeavyHitters.readFrom(in, trackedQueries);
+            int count = in.readInt();
+            Map<String, QueryStats> loadedStats = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                QueryStats queryStats = new QueryStats();
+                queryStats.samples = in.readLong();
+                queryStats.zeroResults = in.readLong();
+                queryStats.totalLatencyNanos = in.readLong();
+                queryStats.maxLatencyNanos = in.readLong();
+                // version 1 did not record who searched
+                int searchers = version >= 2 ? in.readInt() : 0;
+                for (int j = 0; j < searchers; j++) {
+                    queryStats.searchers.add(in.readInt());
+                }
+                if (loaded.contains(key)) {
+                    loadedStats.put(key, queryStats);
+                }
+            }
+            heavyHitters = loaded;
+            stats.clear();
+            stats.putAll(loadedStats);
+            logger.info("Loaded search query log snapshot with {} tracked queries", loaded.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read search query log snapshot {}: {}", source, e.getMessage());
+            return false;
+        }
+    }
+
+    // signed-in user, else the client address; null outside a request
+    private static String currentSearcher() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return "client:" + ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    private synchronized int trackedCount() {
+        return heavyHitters != null ? heavyHitters.size() : 0;
+    }
+
+    private void schedule(Runnable task, Duration interval) {
+        tasks.add(taskScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Search query log task failed", e);
+            }
+        }, Instant.now().plus(interval), interval));
+    }
+}
@@ -1,12 +1,15 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.TransactionDTO;
 import com.campus.marketplace.entity.Transaction;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.event.ListingChangedEvent;
 import com.campus.marketplace.repository.TransactionRepository;
 import com.campus.marketplace.repository.ListingRepository;
 import com.campus.marketplace.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +41,9 @@ public class TransactionService {
     @Autowired
     private MessageService messageService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
 	/**
 	 * Creates a new transaction for a listing and a buyer with a negotiated final price.
 	 *
@@ -85,6 +91,7 @@ public class TransactionService {
         // Update listing status to pending
         listing.setStatus(Listing.ListingStatus.PENDING);
         listingRepository.save(listing);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(listing));
         
         return transactionRepository.save(transaction);
     }
@@ -158,6 +165,61 @@ public class TransactionService {
 	public List<Transaction> getTransactionsBySellerAndStatus(String sellerId, Transaction.TransactionStatus status) {
         return transactionRepository.findBySellerIdAndStatusOrderByCreatedAtDesc(sellerId, status);
     }
+
+	/**
+	 * Retrieves all transactions as DTOs in a single joined query, ordered newest to oldest.
+	 *
+	 * @return A list of transaction DTOs
+	 */
+	@Transactional(readOnly = true)
+	public List<TransactionDTO> getAllTransactionDTOs() {
+        return transactionRepository.findAllDTOs();
+    }
+
+	/**
+	 * Retrieves a buyer's transactions as DTOs, ordered newest to oldest.
+	 *
+	 * @param buyerId The buyer identifier
+	 * @return A list of transaction DTOs for the buyer
+	 */
+	@Transactional(readOnly = true)
+	public List<TransactionDTO> getTransactionDTOsByBuyer(String buyerId) {
+        return transactionRepository.findDTOsByBuyerIdOrderByCreatedAtDesc(buyerId);
+    }
+
+	/**
+	 * Retrieves transactions with the given status as DTOs, ordered newest to oldest.
+	 *
+	 * @param status The status filter
+	 * @return A list of transaction DTOs with the status
+	 */
+	@Transactional(readOnly = true)
+	public List<TransactionDTO> getTransactionDTOsByStatus(Transaction.TransactionStatus status) {
+        return transactionRepository.findDTOsByStatusOrderByCreatedAtDesc(status);
+    }
+
+	/**
+	 * Retrieves a seller's transactions as DTOs, ordered newest to oldest.
+	 *
+	 * @param sellerId The seller identifier
+	 * @return A list of transaction DTOs for the seller
+	 */
+	@Transactional(readOnly = true)
+	public List<TransactionDTO> getTransactionDTOsBySeller(String sellerId) {
+        return transactionRepository.findDTOsBySellerIdOrderByCreatedAtDesc(sellerId);
+    }
+
+	/**
+	 * Retrieves a seller's transactions with the given status as DTOs, ordered newest to oldest.
+	 *
+	 * @param sellerId The seller identifier
+	 * @param status The status filter
+	 * @return A list of transaction DTOs matching the seller and status
+	 */
+	@Transactional(readOnly = true)
+	public List<TransactionDTO> getTransactionDTOsBySellerAndStatus(String sellerId, Transaction.TransactionStatus status) {
+        return transactionRepository.findDTOsBySellerIdAndStatusOrderByCreatedAtDesc(sellerId, status);
+    }
     
 	/**
 	 * Persists updates to an existing transaction.
@@ -197,6 +259,7 @@ public class TransactionService {
             listing.setStatus(Listing.ListingStatus.ACTIVE);
         }
         listingRepository.save(listing);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(listing));
         
         return transactionRepository.save(transaction);
     }
@@ -249,6 +312,7 @@ public class TransactionService {
         // Update listing status to pending
         listing.setStatus(Listing.ListingStatus.PENDING);
         listingRepository.save(listing);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(listing));
         
         Transaction savedTransaction = transactionRepository.save(transaction);
         
@@ -294,6 +358,7 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
         listing.setStatus(Listing.ListingStatus.SOLD);
         listingRepository.save(listing);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(listing));
         
         Transaction savedTransaction = transactionRepository.save(transaction);
         
@@ -340,6 +405,7 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.CANCELLED);
         listing.setStatus(Listing.ListingStatus.ACTIVE);
         listingRepository.save(listing);
+        eventPublisher.publishEvent(ListingChangedEvent.saved(listing));
         
         Transaction savedTransaction = transactionRepository.save(transaction);
         
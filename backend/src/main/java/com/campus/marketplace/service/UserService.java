@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,6 +39,15 @@ public class UserService {
         return userRepository.findById(id);
     }
     
+    /**
+     * Last update time of a user, without loading the entity.
+     * @param id user id
+     * @return Optional updatedAt
+     */
+    public Optional<LocalDateTime> getUserVersion(String id) {
+        return userRepository.findUpdatedAtById(id);
+    }
+    
     /**
      * Get user by email.
      * @param email email
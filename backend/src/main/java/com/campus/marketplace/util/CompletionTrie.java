@@ -0,0 +1,227 @@
+package com.campus.marketplace.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable weighted prefix completion over a fixed set of keys.
+ *
+ * The keys are sorted once and the radix trie over them is stored in flat int arrays: a node is the
+ * range of keys sharing its prefix, and its children are contiguous. Every node keeps the indexes of
+ * its topK heaviest keys, so a completion costs one step per prefix character plus copying at most
+ * topK results, however many keys share the prefix. Built off to the side and replaced whole.
+ */
+public class CompletionTrie {
+
+    private static final int ROOT = 0;
+
+    private final String[] keys;
+    private final long[] weights;
+    private final int topK;
+
+    // per node: key range [lo, hi), depth (length of the shared prefix), children, best keys
+    private int[] lo;
+    private int[] hi;
+    private int[] depth;
+    private int[] firstChild;
+    private int[] childCount;
+    private int[] topStart;
+    private int[] topLength;
+    private int[] top;
+    private int nodeCount;
+    private int topSize;
+
+    private CompletionTrie(String[] keys, long[] weights, int topK) {
+        this.keys = keys;
+        this.weights = weights;
+        this.topK = topK;
+    }
+
+    /**
+     * @param weightedKeys key -> weight; keys are matched as given, so normalize them first
+     * @param topK completions kept per node (the largest useful limit)
+     */
+    public static CompletionTrie build(Map<String, Long> weightedKeys, int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        String[] keys = weightedKeys.keySet().stream().filter(key -> !key.isEmpty()).sorted().toArray(String[]::new);
+        long[] weights = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            weights[i] = weightedKeys.get(keys[i]);
+        }
+        CompletionTrie trie = new CompletionTrie(keys, weights, topK);
+        trie.buildNodes();
+        return trie;
+    }
+
+    public static CompletionTrie empty() {
+        return build(Collections.emptyMap(), 1);
+    }
+
+    /**
+     * Heaviest keys starting with prefix, best first (ties in key order).
+     * @param prefix normalized prefix; empty matches every key
+     * @param limit maximum number of keys (capped at topK)
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (keys.length == 0 || limit < 1) {
+            return Collections.emptyList();
+        }
+        int node = ROOT;
+        while (prefix.length() > depth[node]) {
+            node = child(node, prefix.charAt(depth[node]));
+            if (node < 0) {
+                return Collections.emptyList();
+            }
+        }
+        if (!keys[lo[node]].startsWith(prefix)) {
+            return Collections.emptyList();
+        }
+        int count = Math.min(limit, topLength[node]);
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(keys[top[topStart[node] + i]]);
+        }
+        return result;
+    }
+
+    /** @return weight of a key, 0 if absent */
+    public long weight(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? weights[index] : 0;
+    }
+
+    /** @return number of keys */
+    public int size() {
+        return keys.length;
+    }
+
+    /** @return number of trie nodes */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // Child of node whose edge starts with c (children are sorted by that character)
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        int at = depth[node];
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char edge = keys[lo[mid]].charAt(at);
+            if (edge < c) {
+                low = mid + 1;
+            } else if (edge > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void buildNodes() {
+        int capacity = Math.max(1, keys.length * 2);
+        lo = new int[capacity];
+        hi = new int[capacity];
+        depth = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        topStart = new int[capacity];
+        topLength = new int[capacity];
+        top = new int[Math.max(1, keys.length * 2)];
+        nodeCount = 1;
+        lo[ROOT] = 0;
+        hi[ROOT] = keys.length;
+        if (keys.length > 0) {
+            buildNode(ROOT, 0);
+        }
+    }
+
+    // Fill in node's depth, children (recursively) and best keys; parentDepth is where its edge starts
+    private void buildNode(int node, int parentDepth) {
+        int from = lo[node];
+        int to = hi[node];
+        depth[node] = from + 1 == to ? keys[from].length() : commonPrefix(keys[from], keys[to - 1], parentDepth);
+        int at = depth[node];
+
+        // a key equal to the node's prefix sorts first; the rest split by their next character
+        int start = keys[from].length() == at ? from + 1 : from;
+        int children = 0;
+        for (int i = start; i < to; i++) {
+            if (i == start || keys[i].charAt(at) != keys[i - 1].charAt(at)) {
+                children++;
+            }
+        }
+        ensureNodeCapacity(nodeCount + children);
+        firstChild[node] = nodeCount;
+        childCount[node] = children;
+        int child = nodeCount;
+        nodeCount += children;
+        for (int i = start; i < to; i++) {
+            if (i == start || keys[i].charAt(at) != keys[i - 1].charAt(at)) {
+                if (i != start) {
+                    hi[child++] = i;
+                }
+                lo[child] = i;
+            }
+        }
+        if (children > 0) {
+            hi[child] = to;
+        }
+        for (int c = firstChild[node]; c < firstChild[node] + children; c++) {
+            buildNode(c, at);
+        }
+        collectTop(node, start > from ? from : -1);
+    }
+
+    // Best keys of a node: merge of its own key and its children's lists
+    private void collectTop(int node, int ownKey) {
+        List<Integer> candidates = new ArrayList<>();
+        if (ownKey >= 0) {
+            candidates.add(ownKey);
+        }
+        for (int c = firstChild[node]; c < firstChild[node] + childCount[node]; c++) {
+            for (int i = 0; i < topLength[c]; i++) {
+                candidates.add(top[topStart[c] + i]);
+            }
+        }
+        candidates.sort((a, b) -> weights[a] != weights[b] ? Long.compare(weights[b], weights[a]) : Integer.compare(a, b));
+        int count = Math.min(topK, candidates.size());
+        if (topSize + count > top.length) {
+            top = Arrays.copyOf(top, Math.max(top.length * 2, topSize + count));
+        }
+        topStart[node] = topSize;
+        topLength[node] = count;
+        for (int i = 0; i < count; i++) {
+            top[topSize++] = candidates.get(i);
+        }
+    }
+
+    private void ensureNodeCapacity(int needed) {
+        if (needed <= lo.length) {
+            return;
+        }
+        int capacity = Math.max(lo.length * 2, needed);
+        lo = Arrays.copyOf(lo, capacity);
+        hi = Arrays.copyOf(hi, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        childCount = Arrays.copyOf(childCount, capacity);
+        topStart = Arrays.copyOf(topStart, capacity);
+        topLength = Arrays.copyOf(topLength, capacity);
+    }
+
+    private static int commonPrefix(String a, String b, int from) {
+        int length = Math.min(a.length(), b.length());
+        int i = from;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,161 @@
+package com.campus.marketplace.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Count-Min Sketch: approximate counts of an unbounded set of strings in fixed memory.
+ *
+ * Each key maps to one counter in each of depth rows; its estimate is the smallest of them, which
+ * never undercounts and overcounts by at most about 2/width of the total with high probability.
+ * Updates are conservative (only counters at the current minimum are raised), which tightens the
+ * overcount for skewed streams such as search queries. {@link #halve} ages all counts at once.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class CountMinSketch {
+
+    private static final int SNAPSHOT_MAGIC = 0x434D534B; // "CMSK"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final long[][] counters;
+    private long total;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows (independent hashes)
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || width > (1 << 26) || depth < 1 || depth > 16) {
+            throw new IllegalArgumentException("need 0 < width <= 2^26 and 0 < depth <= 16");
+        }
+        int size = Integer.highestOneBit(width);
+        if (size < width) {
+            size <<= 1;
+        }
+        this.width = size;
+        this.depth = depth;
+        this.mask = size - 1;
+        this.counters = new long[depth][size];
+    }
+
+    /**
+     * Count occurrences of a key.
+     * @param key key
+     * @param count occurrences to add (positive)
+     * @return the key's estimate after the update
+     */
+    public long add(String key, long count) {
+        if (count <= 0) {
+            return estimate(key);
+        }
+        long hash = hash(key);
+        int[] indexes = new int[depth];
+        long current = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            indexes[row] = index(hash, row);
+            current = Math.min(current, counters[row][indexes[row]]);
+        }
+        long updated = current + count;
+        for (int row = 0; row < depth; row++) {
+            if (counters[row][indexes[row]] < updated) {
+                counters[row][indexes[row]] = updated;
+            }
+        }
+        total += count;
+        return updated;
+    }
+
+    /** @return estimated occurrences of a key (never less than the true count since the last halve) */
+    public long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /** Halve every counter, so old occurrences weigh less than recent ones. */
+    public void halve() {
+        for (long[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        total >>>= 1;
+    }
+
+    /** @return sum of all counts added (halved along with the counters) */
+    public long total() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Write the sketch in a compact binary form.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeLong(total);
+        for (long[] row : counters) {
+            for (long counter : row) {
+                out.writeLong(counter);
+            }
+        }
+    }
+
+    /**
+     * Read a sketch written by {@link #writeTo}.
+     */
+    public static CountMinSketch readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a count-min sketch snapshot of version " + SNAPSHOT_VERSION);
+        }
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        sketch.total = in.readLong();
+        for (long[] row : sketch.counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = in.readLong();
+            }
+        }
+        return sketch;
+    }
+
+    // Row index from two halves of one 64-bit hash (Kirsch-Mitzenmacher double hashing)
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + row * h2) & mask;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur3 mix
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,140 @@
+package com.campus.marketplace.util;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Course-code extraction and normalization ("CMPE 202", "cmpe202", "CMPE-202" -> CMPE 202).
+ * Listings store the codes found in their title and description in listing_course_codes, so a
+ * course-code search is an indexed (dept, number) lookup instead of a LIKE over description text.
+ */
+public class CourseCodes {
+
+    // department, optional space or hyphen, course number with an optional letter suffix (ENGL 1A).
+    // Course prefixes are ASCII: other letters can grow when upper-cased ("ß" -> "SS") and would not fit
+    // listing_course_codes. The lookarounds keep the ASCII part of a longer word ("Größe 40") from matching.
+    private static final Pattern COURSE_CODE = Pattern.compile(
+        "(?<![\\p{L}\\p{N}_])([A-Za-z]{2,5})[ \\t-]?(\\d{1,3}[A-Za-z]?)(?![\\p{L}\\p{N}_])");
+    private static final Pattern WHOLE_COURSE_CODE = Pattern.compile("\\s*([A-Za-z]{2,5})[ \\t-]?(\\d{1,3}[A-Za-z]?)\\s*");
+
+    // words that are followed by numbers in listing text but are not departments
+    private static final Set<String> NOT_DEPARTMENTS = Set.of(
+        "AND", "FOR", "THE", "WITH", "FROM", "ONLY", "OVER", "UNDER", "THAN", "ABOUT", "SIZE", "INCH", "PACK",
+        "SET", "OF", "TO", "IN", "AT", "BY", "ON", "OR", "IS", "GEN", "MODEL", "YEAR", "PAGE", "PAGES", "VOL",
+        "ROOM", "APT", "UNIT", "FT", "LBS", "OZ", "GB", "TB", "MB", "MM", "CM", "USD", "ALL", "ARE", "WAS"
+    );
+
+    /** Longest department and course number stored (listing_course_codes.dept and course_number). */
+    public static final int MAX_DEPT_LENGTH = 5;
+    public static final int MAX_NUMBER_LENGTH = 4;
+
+    /** Cap on codes stored per listing, so a pasted syllabus cannot bloat the side table. */
+    public static final int MAX_CODES_PER_LISTING = 10;
+
+    private CourseCodes() {}
+
+    /**
+     * Normalized course code: upper-case department and number.
+     */
+    public static class CourseCode {
+        private final String dept;
+        private final String number;
+
+        public CourseCode(String dept, String number) {
+            this.dept = dept.toUpperCase(Locale.ROOT);
+            this.number = number.toUpperCase(Locale.ROOT);
+        }
+
+        public String getDept() {
+            return dept;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CourseCode that = (CourseCode) o;
+            return dept.equals(that.dept) && number.equals(that.number);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dept, number);
+        }
+
+        /** Display form, e.g. "CMPE 202". */
+        @Override
+        public String toString() {
+            return dept + " " + number;
+        }
+    }
+
+    /**
+     * All course codes in the given texts, in order of appearance, at most MAX_CODES_PER_LISTING.
+     * @param texts title, description, ... (nulls are skipped)
+     * @return distinct normalized codes
+     */
+    public static Set<CourseCode> extract(String... texts) {
+        Set<CourseCode> codes = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            Matcher matcher = COURSE_CODE.matcher(text);
+            while (matcher.find() && codes.size() < MAX_CODES_PER_LISTING) {
+                toCode(matcher.group(1), matcher.group(2)).ifPresent(codes::add);
+            }
+        }
+        return codes.isEmpty() ? Collections.emptySet() : codes;
+    }
+
+    /**
+     * First course code in a text.
+     * @param text free text, e.g. a chatbot query
+     * @return the code, or empty if there is none
+     */
+    public static Optional<CourseCode> find(String text) {
+        if (text == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = COURSE_CODE.matcher(text);
+        while (matcher.find()) {
+            Optional<CourseCode> code = toCode(matcher.group(1), matcher.group(2));
+            if (code.isPresent()) {
+                return code;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The course code a search term consists of, if the whole term is one code.
+     * @param term search term or keyword
+     * @return the code, or empty if the term is anything else
+     */
+    public static Optional<CourseCode> parse(String term) {
+        if (term == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = WHOLE_COURSE_CODE.matcher(term);
+        return matcher.matches() ? toCode(matcher.group(1), matcher.group(2)) : Optional.empty();
+    }
+
+    private static Optional<CourseCode> toCode(String dept, String number) {
+        CourseCode code = new CourseCode(dept, number);
+        if (code.getDept().length() > MAX_DEPT_LENGTH || code.getNumber().length() > MAX_NUMBER_LENGTH) {
+            return Optional.empty();
+        }
+        return NOT_DEPARTMENTS.contains(code.getDept()) ? Optional.empty() : Optional.of(code);
+    }
+}
@@ -0,0 +1,80 @@
+package com.campus.marketplace.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Function;
+
+/**
+ * Strong entity tags and Last-Modified values for conditional GETs.
+ * Single resources are tagged with id + updatedAt (plus what they show of related rows) so the tag
+ * can be computed from a version lookup alone; collections are tagged with a digest of their rendered identity fields.
+ */
+public class ETags {
+
+    private ETags() {}
+
+    /**
+     * Whether the request carries a validator, i.e. a version lookup could answer it with 304.
+     * @param request current request
+     * @return true if If-None-Match or If-Modified-Since is present
+     */
+    public static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+            || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Tag for one row, derived from its id and last update time. When the representation also shows
+     * fields of other rows (a listing's seller and category names), pass them as related parts: their
+     * digest is appended, so renaming the seller changes the listing's tag.
+     * @param id resource id
+     * @param updatedAt last update time (nullable)
+     * @param related values from other rows shown in the representation
+     * @return quoted strong ETag
+     */
+    public static String forVersion(String id, LocalDateTime updatedAt, Object... related) {
+        String tag = id + "-" + toEpochMilli(updatedAt);
+        if (related.length > 0) {
+            StringBuilder content = new StringBuilder();
+            for (Object part : related) {
+                content.append(part).append('\n');
+            }
+            tag += "-" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+        }
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Tag for a collection: digest of each element's key fields plus any extra parts
+     * (page number, size, total) that change the payload.
+     * @param items rendered elements
+     * @param key fields identifying an element's version (e.g. id and updatedAt)
+     * @param extra additional payload-affecting values
+     * @return quoted strong ETag
+     */
+    public static <T> String forContent(Iterable<T> items, Function<T, String> key, Object... extra) {
+        StringBuilder content = new StringBuilder();
+        for (Object part : extra) {
+            content.append(part).append('|');
+        }
+        for (T item : items) {
+            content.append(key.apply(item)).append('\n');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Epoch milliseconds for a database timestamp (server time zone), or -1 when absent,
+     * which Spring treats as "no Last-Modified".
+     * @param time timestamp (nullable)
+     * @return epoch millis or -1
+     */
+    public static long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
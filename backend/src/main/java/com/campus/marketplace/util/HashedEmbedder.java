@@ -0,0 +1,203 @@
+package com.campus.marketplace.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CPU-only text embedding: feature hashing of words, character trigrams and lexicon concepts.
+ *
+ * Text is tokenized with {@link SearchTokenizer}. Every token adds a word feature and its character
+ * trigrams (so "calculators" lands near "calculator"); every phrase of up to three tokens found in the
+ * concept lexicon adds a shared concept feature, which is what puts "TI-84" next to "graphing calculator".
+ * Features are hashed with a sign bit into a fixed number of dimensions and the result is L2-normalized,
+ * so the dot product of two embeddings is their cosine similarity.
+ *
+ * The lexicon is a classpath TSV of &lt;concept&gt;&lt;TAB&gt;&lt;term&gt;, &lt;term&gt;, ... lines; '#' starts a comment.
+ */
+public class HashedEmbedder {
+
+    // bump when feature extraction changes, so persisted vectors are rebuilt
+    private static final int FEATURE_VERSION = 1;
+    private static final int MAX_PHRASE_TOKENS = 3;
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.25f;
+    private static final float CONCEPT_WEIGHT = 2.0f;
+
+    private final int dimensions;
+    // normalized phrase ("ti84", "graphing calculator") -> concept
+    private final Map<String, String> concepts;
+
+    /**
+     * @param dimensions embedding length
+     * @param lexicon phrase -> concept; phrases are normalized with {@link SearchTokenizer#tokenizeQuery}
+     */
+    public HashedEmbedder(int dimensions, Map<String, String> lexicon) {
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("dimensions must be positive");
+        }
+        this.dimensions = dimensions;
+        Map<String, String> normalized = new TreeMap<>();
+        for (Map.Entry<String, String> entry : lexicon.entrySet()) {
+            String phrase = String.join(" ", SearchTokenizer.tokenizeQuery(entry.getKey()));
+            if (!phrase.isEmpty()) {
+                normalized.put(phrase, entry.getValue());
+            }
+        }
+        this.concepts = normalized;
+    }
+
+    /**
+     * Embedder over the concept lexicon in a classpath resource.
+     * @param dimensions embedding length
+     * @param resource classpath TSV (missing resource means no concepts)
+     */
+    public static HashedEmbedder fromResource(int dimensions, String resource) {
+        return new HashedEmbedder(dimensions, loadLexicon(resource));
+    }
+
+    /**
+     * Embed a listing; title features count twice.
+     * @param title listing title (nullable)
+     * @param description listing description (nullable)
+     * @return unit vector, or all zeros if the text has no tokens
+     */
+    public float[] embed(String title, String description) {
+        float[] vector = new float[dimensions];
+        addText(vector, title, TITLE_WEIGHT);
+        addText(vector, description, 1.0f);
+        normalize(vector);
+        return vector;
+    }
+
+    /**
+     * Embed a query.
+     * @param query search text
+     * @return unit vector, or all zeros if the text has no tokens
+     */
+    public float[] embed(String query) {
+        return embed(query, null);
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Identifies the embedding function (dimensions, feature version and lexicon):
+     * vectors are only comparable when fingerprints are equal.
+     */
+    public long fingerprint() {
+        long h = 1125899906842597L;
+        h = 31 * h + dimensions;
+        h = 31 * h + FEATURE_VERSION;
+        for (Map.Entry<String, String> entry : concepts.entrySet()) {
+            h = 31 * h + entry.getKey().hashCode();
+            h = 31 * h + entry.getValue().hashCode();
+        }
+        return h;
+    }
+
+    public static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lexicon from a classpath TSV: every listed term, and the concept itself, maps to the concept.
+     */
+    static Map<String, String> loadLexicon(String resource) {
+        InputStream in = HashedEmbedder.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> lexicon = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                String concept = columns[0].trim();
+                lexicon.put(concept, concept);
+                if (columns.length > 1) {
+                    for (String term : columns[1].split(",")) {
+                        if (!term.isBlank()) {
+                            lexicon.put(term.trim(), concept);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + resource, e);
+        }
+        return lexicon;
+    }
+
+    private void addText(float[] vector, String text, float weight) {
+        List<String> tokens = SearchTokenizer.tokenizeDocument(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            add(vector, "w:" + token, WORD_WEIGHT * weight);
+            String padded = "<" + token + ">";
+            for (int start = 0; start + 3 <= padded.length(); start++) {
+                add(vector, "t:" + padded.substring(start, start + 3), TRIGRAM_WEIGHT * weight);
+            }
+            StringBuilder phrase = new StringBuilder();
+            for (int length = 1; length <= MAX_PHRASE_TOKENS && i + length <= tokens.size(); length++) {
+                if (length > 1) {
+                    phrase.append(' ');
+                }
+                phrase.append(tokens.get(i + length - 1));
+                String concept = concept(phrase.toString());
+                if (concept != null) {
+                    add(vector, "c:" + concept, CONCEPT_WEIGHT * weight);
+                }
+            }
+        }
+    }
+
+    /** Concept of a phrase, also matching a plural ("calculators") against its singular. */
+    private String concept(String phrase) {
+        String concept = concepts.get(phrase);
+        if (concept == null && phrase.length() > 3 && phrase.endsWith("s")) {
+            concept = concepts.get(phrase.substring(0, phrase.length() - 1));
+        }
+        return concept;
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        int h = feature.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        int bucket = Math.floorMod(h, dimensions);
+        vector[bucket] += (h & 0x40000000) == 0 ? weight : -weight;
+    }
+
+    private static void normalize(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
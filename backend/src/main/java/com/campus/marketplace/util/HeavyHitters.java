@@ -0,0 +1,189 @@
+package com.campus.marketplace.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most frequent keys of a stream, in memory independent of the number of distinct keys.
+ *
+ * Every key is counted in a {@link CountMinSketch}; the capacity keys with the highest estimates
+ * are kept by name. A new key replaces the weakest tracked one once its estimate exceeds it, so a
+ * query that becomes popular is picked up without having been tracked from the start.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class HeavyHitters {
+
+    private static final int SNAPSHOT_MAGIC = 0x48485452; // "HHTR"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int capacity;
+    private CountMinSketch sketch;
+    // tracked key -> estimate when it was last counted
+    private final Map<String, Long> tracked = new HashMap<>();
+    // weakest tracked key, recomputed lazily after it changes
+    private String minKey;
+
+    /**
+     * @param capacity number of keys tracked by name
+     * @param width counters per sketch row
+     * @param depth sketch rows
+     */
+    public HeavyHitters(int capacity, int width, int depth) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(width, depth);
+    }
+
+    /**
+     * Count occurrences of a key.
+     * @return the key's estimate after the update
+     */
+    public long add(String key, long count) {
+        long estimate = sketch.add(key, count);
+        if (tracked.containsKey(key)) {
+            tracked.put(key, estimate);
+            if (key.equals(minKey)) {
+                minKey = null;
+            }
+        } else if (tracked.size() < capacity) {
+            tracked.put(key, estimate);
+            if (minKey != null && estimate < tracked.get(minKey)) {
+                minKey = key;
+            }
+        } else if (estimate > tracked.get(minKey())) {
+            tracked.remove(minKey);
+            tracked.put(key, estimate);
+            minKey = null;
+        }
+        return estimate;
+    }
+
+    /** @return true if the key is currently tracked by name */
+    public boolean contains(String key) {
+        return tracked.containsKey(key);
+    }
+
+    /** @return estimated occurrences of any key */
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * Tracked keys with their estimates, most frequent first (ties in key order).
+     * @param limit maximum number of keys
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(tracked.size());
+        for (Map.Entry<String, Long> entry : tracked.entrySet()) {
+            entries.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        entries.sort((a, b) -> a.count != b.count ? Long.compare(b.count, a.count) : a.key.compareTo(b.key));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, Math.max(limit, 0))) : entries;
+    }
+
+    /** Halve all counts; tracked keys whose count drops to zero are forgotten. */
+    public void halve() {
+        sketch.halve();
+        Iterator<Map.Entry<String, Long>> iterator = tracked.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            long halved = entry.getValue() >>> 1;
+            if (halved == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(halved);
+            }
+        }
+        minKey = null;
+    }
+
+    /** @return sum of all counts (halved along with them) */
+    public long total() {
+        return sketch.total();
+    }
+
+    /** @return number of keys tracked by name */
+    public int size() {
+        return tracked.size();
+    }
+
+    /**
+     * Write the sketch and the tracked keys.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        sketch.writeTo(out);
+        out.writeInt(tracked.size());
+        for (Map.Entry<String, Long> entry : tracked.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    /**
+     * Read heavy hitters written by {@link #writeTo}.
+     * @param capacity number of keys to track from now on; the strongest saved keys are kept
+     */
+    public static HeavyHitters readFrom(DataInputStream in, int capacity) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a heavy hitters snapshot of version " + SNAPSHOT_VERSION);
+        }
+        CountMinSketch sketch = CountMinSketch.readFrom(in);
+        HeavyHitters heavyHitters = new HeavyHitters(capacity, sketch.getWidth(), sketch.getDepth());
+        heavyHitters.sketch = sketch;
+        int count = in.readInt();
+        List<Entry> saved = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            saved.add(new Entry(in.readUTF(), in.readLong()));
+        }
+        saved.sort((a, b) -> Long.compare(b.count, a.count));
+        for (Entry entry : saved.subList(0, Math.min(capacity, saved.size()))) {
+            heavyHitters.tracked.put(entry.key, entry.count);
+        }
+        return heavyHitters;
+    }
+
+    private String minKey() {
+        if (minKey == null) {
+            long min = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> entry : tracked.entrySet()) {
+                if (entry.getValue() < min) {
+                    min = entry.getValue();
+                    minKey = entry.getKey();
+                }
+            }
+        }
+        return minKey;
+    }
+
+    /**
+     * A tracked key and its estimated count.
+     */
+    public static class Entry {
+        private final String key;
+        private final long count;
+
+        public Entry(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.campus.marketplace.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest-neighbor index over unit vectors (HNSW: hierarchical navigable small world graph).
+ *
+ * Similarity is the dot product, i.e. cosine similarity for normalized vectors. Every node links to at
+ * most M neighbors per layer (2M on layer 0), chosen with the diversity heuristic of Malkov and Yashunin;
+ * a search descends greedily through the sparse upper layers and runs a beam search of width ef on layer 0.
+ * Removing or replacing a vector only marks its node deleted: the node still routes searches but is never
+ * returned. Call {@link #compact} once {@link #getDeletedCount} grows to drop them.
+ *
+ * Not thread-safe; callers guard writes against concurrent searches.
+ */
+public class HnswIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount;
+
+    /**
+     * @param dimensions vector length
+     * @param m links per node and layer (16 is a good default)
+     * @param efConstruction beam width while inserting; higher builds a better graph, slower
+     * @param seed seed for the random layer assignment
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        if (dimensions < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("dimensions >= 1, m >= 2 and efConstruction >= 1 required");
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Search result: id and its similarity to the query.
+     */
+    public static class Neighbor {
+        private final String id;
+        private final double similarity;
+
+        public Neighbor(String id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /** Dot product with the query, between -1 and 1 for unit vectors. */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static class Node {
+        private final String id;
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+        private boolean deleted;
+
+        private Node(String id, float[] vector, int level, int m) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[maxLinks(layer, m) + 1];
+            }
+        }
+
+        private int level() {
+            return links.length - 1;
+        }
+    }
+
+    /** Candidate node with its similarity to the current query. */
+    private static class Scored {
+        private final int node;
+        private final double similarity;
+
+        private Scored(int node, double similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+    }
+
+    private static final Comparator<Scored> BY_SIMILARITY = Comparator.comparingDouble(s -> s.similarity);
+
+    /**
+     * Insert a vector, replacing any previous vector stored under the same id.
+     * @param id caller's id
+     * @param vector unit vector of length dimensions (kept, not copied)
+     */
+    public void add(String id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        remove(id);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        int index = nodes.size();
+        Node node = new Node(id, vector, level, m);
+        nodes.add(node);
+        nodeById.put(id, index);
+
+        if (entryPoint < 0) {
+            entryPoint = index;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        double currentSimilarity = similarity(vector, nodes.get(current).vector);
+        for (int layer = maxLevel; layer > level; layer--) {
+            Scored closest = greedyClosest(vector, current, currentSimilarity, layer);
+            current = closest.node;
+            currentSimilarity = closest.similarity;
+        }
+
+        List<Scored> entryPoints = Collections.singletonList(new Scored(current, currentSimilarity));
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<Scored> candidates = searchLayer(vector, entryPoints, efConstruction, layer, null);
+            List<Scored> selected = selectNeighbors(candidates, m);
+            for (Scored neighbor : selected) {
+                node.links[layer][node.linkCounts[layer]++] = neighbor.node;
+                link(neighbor.node, index, neighbor.similarity, layer);
+            }
+            entryPoints = candidates;
+        }
+
+        if (level > maxLevel) {
+            entryPoint = index;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Mark the vector stored under an id as deleted.
+     * @param id caller's id
+     * @return true if the id was present
+     */
+    public boolean remove(String id) {
+        Integer index = nodeById.remove(id);
+        if (index == null) {
+            return false;
+        }
+        nodes.get(index).deleted = true;
+        deletedCount++;
+        return true;
+    }
+
+    /**
+     * Approximate k nearest live vectors.
+     * @param query unit vector of length dimensions
+     * @param k number of neighbors wanted
+     * @param ef beam width on layer 0 (at least k); higher is more accurate, slower
+     * @param filter ids that may be returned (null accepts all); rejected nodes still route the search
+     * @return up to k neighbors, most similar first
+     */
+    public List<Neighbor> search(float[] query, int k, int ef, Predicate<String> filter) {
+        if (entryPoint < 0 || k < 1 || nodeById.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int current = entryPoint;
+        double currentSimilarity = similarity(query, nodes.get(current).vector);
+        for (int layer = maxLevel; layer > 0; layer--) {
+            Scored closest = greedyClosest(query, current, currentSimilarity, layer);
+            current = closest.node;
+            currentSimilarity = closest.similarity;
+        }
+        Predicate<Node> accept = node -> !node.deleted && (filter == null || filter.test(node.id));
+        List<Scored> found = searchLayer(query, Collections.singletonList(new Scored(current, currentSimilarity)),
+            Math.max(ef, k), 0, accept);
+        List<Neighbor> neighbors = new ArrayList<>(Math.min(k, found.size()));
+        for (int i = 0; i < found.size() && neighbors.size() < k; i++) {
+            Scored scored = found.get(i);
+            neighbors.add(new Neighbor(nodes.get(scored.node).id, scored.similarity));
+        }
+        return neighbors;
+    }
+
+    /**
+     * @param id caller's id
+     * @return the stored vector, or null if the id is absent
+     */
+    public float[] getVector(String id) {
+        Integer index = nodeById.get(id);
+        return index == null ? null : nodes.get(index).vector;
+    }
+
+    public boolean contains(String id) {
+        return nodeById.containsKey(id);
+    }
+
+    /** @return number of live vectors */
+    public int size() {
+        return nodeById.size();
+    }
+
+    /** @return number of deleted nodes still held by the graph */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /** @return live ids, in insertion order */
+    public List<String> ids() {
+        List<String> ids = new ArrayList<>(nodeById.size());
+        for (Node node : nodes) {
+            if (!node.deleted) {
+                ids.add(node.id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * New graph holding only the live vectors, with the same parameters.
+     * @return compacted copy; this index is unchanged
+     */
+    public HnswIndex compact() {
+        HnswIndex compacted = new HnswIndex(dimensions, m, efConstruction, random.nextLong());
+        for (Node node : nodes) {
+            if (!node.deleted) {
+                compacted.add(node.id, node.vector);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Write the graph, vectors and links included, so it can be loaded without re-inserting.
+     * @param out destination
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            out.writeUTF(node.id);
+            out.writeBoolean(node.deleted);
+            out.writeInt(node.level());
+            for (float value : node.vector) {
+                out.writeFloat(value);
+            }
+            for (int layer = 0; layer <= node.level(); layer++) {
+                out.writeInt(node.linkCounts[layer]);
+                for (int i = 0; i < node.linkCounts[layer]; i++) {
+                    out.writeInt(node.links[layer][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a graph written by {@link #writeTo}.
+     * @param in source
+     * @param seed seed for layer assignment of future inserts
+     * @return the graph
+     * @throws IOException if the stream is not a snapshot of this format
+     */
+    public static HnswIndex readFrom(DataInputStream in, long seed) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not an HNSW snapshot of version " + SNAPSHOT_VERSION);
+        }
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), in.readInt(), seed);
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        int count = in.readInt();
+        for (int n = 0; n < count; n++) {
+            String id = in.readUTF();
+            boolean deleted = in.readBoolean();
+            int level = in.readInt();
+            float[] vector = new float[index.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            Node node = new Node(id, vector, level, index.m);
+            for (int layer = 0; layer <= level; layer++) {
+                int linkCount = in.readInt();
+                if (linkCount > node.links[layer].length) {
+                    throw new IOException("Corrupt HNSW snapshot: too many links on node " + n);
+                }
+                node.linkCounts[layer] = linkCount;
+                for (int i = 0; i < linkCount; i++) {
+                    node.links[layer][i] = in.readInt();
+                }
+            }
+            node.deleted = deleted;
+            index.nodes.add(node);
+            if (deleted) {
+                index.deletedCount++;
+            } else {
+                index.nodeById.put(id, n);
+            }
+        }
+        return index;
+    }
+
+    // --- graph internals ---
+
+    private static int maxLinks(int layer, int m) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private Scored greedyClosest(float[] query, int start, double startSimilarity, int layer) {
+        int current = start;
+        double best = startSimilarity;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbor = node.links[layer][i];
+                double similarity = similarity(query, nodes.get(neighbor).vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return new Scored(current, best);
+    }
+
+    /**
+     * Beam search on one layer.
+     * @param accept nodes that may enter the result (null accepts all, deleted included, as insertion needs)
+     * @return up to ef accepted nodes, most similar first
+     */
+    private List<Scored> searchLayer(float[] query, List<Scored> entryPoints, int ef, int layer, Predicate<Node> accept) {
+        boolean[] visited = new boolean[nodes.size()];
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BY_SIMILARITY.reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(BY_SIMILARITY);
+        for (Scored entry : entryPoints) {
+            visited[entry.node] = true;
+            candidates.add(entry);
+            if (accept == null || accept.test(nodes.get(entry.node))) {
+                offer(results, entry, ef);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity < results.peek().similarity) {
+                break;
+            }
+            Node node = nodes.get(candidate.node);
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbor = node.links[layer][i];
+                if (visited[neighbor]) {
+                    continue;
+                }
+                visited[neighbor] = true;
+                Node neighborNode = nodes.get(neighbor);
+                double similarity = similarity(query, neighborNode.vector);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Scored scored = new Scored(neighbor, similarity);
+                    candidates.add(scored);
+                    if (accept == null || accept.test(neighborNode)) {
+                        offer(results, scored, ef);
+                    }
+                }
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SIMILARITY.reversed());
+        return sorted;
+    }
+
+    private static void offer(PriorityQueue<Scored> results, Scored scored, int ef) {
+        results.add(scored);
+        if (results.size() > ef) {
+            results.poll();
+        }
+    }
+
+    /**
+     * Diversity heuristic: keep a candidate only if it is closer to the base than to every neighbor
+     * already kept, then top up with the closest pruned candidates.
+     * @param candidates sorted most similar first
+     */
+    private List<Scored> selectNeighbors(List<Scored> candidates, int max) {
+        if (candidates.size() <= max) {
+            return candidates;
+        }
+        List<Scored> selected = new ArrayList<>(max);
+        List<Scored> pruned = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            float[] vector = nodes.get(candidate.node).vector;
+            boolean diverse = true;
+            for (Scored kept : selected) {
+                if (similarity(vector, nodes.get(kept.node).vector) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    /** Add a back link from node to target, re-selecting node's links when it has too many. */
+    private void link(int node, int target, double similarity, int layer) {
+        Node from = nodes.get(node);
+        int max = maxLinks(layer, m);
+        from.links[layer][from.linkCounts[layer]++] = target;
+        if (from.linkCounts[layer] <= max) {
+            return;
+        }
+        List<Scored> candidates = new ArrayList<>(from.linkCounts[layer]);
+        for (int i = 0; i < from.linkCounts[layer]; i++) {
+            int neighbor = from.links[layer][i];
+            double s = neighbor == target ? similarity : similarity(from.vector, nodes.get(neighbor).vector);
+            candidates.add(new Scored(neighbor, s));
+        }
+        candidates.sort(BY_SIMILARITY.reversed());
+        List<Scored> kept = selectNeighbors(candidates, max);
+        Arrays.fill(from.links[layer], 0);
+        from.linkCounts[layer] = 0;
+        for (Scored scored : kept) {
+            from.links[layer][from.linkCounts[layer]++] = scored.node;
+        }
+    }
+
+    private static double similarity(float[] a, float[] b) {
+        // four independent sums so the additions pipeline
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int limit = a.length - 3; i < limit; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
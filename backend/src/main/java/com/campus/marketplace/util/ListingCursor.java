@@ -0,0 +1,102 @@
+package com.campus.marketplace.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for listing feeds: the sort key of the last row a client has seen
+ * plus its id as a tie-breaker. Encoded as URL-safe Base64 so clients treat it as a token.
+ */
+public class ListingCursor {
+
+    /** Sort key carried by the cursor. */
+    public enum Kind {
+        CREATED_AT, PRICE
+    }
+
+    private final Kind kind;
+    private final LocalDateTime createdAt;
+    private final BigDecimal price;
+    private final String id;
+
+    private ListingCursor(Kind kind, LocalDateTime createdAt, BigDecimal price, String id) {
+        this.kind = kind;
+        this.createdAt = createdAt;
+        this.price = price;
+        this.id = id;
+    }
+
+    /**
+     * Cursor positioned after a row in a created_at-ordered feed.
+     * @param createdAt created_at of the last returned row
+     * @param id id of the last returned row
+     * @return cursor
+     */
+    public static ListingCursor ofCreatedAt(LocalDateTime createdAt, String id) {
+        return new ListingCursor(Kind.CREATED_AT, createdAt, null, id);
+    }
+
+    /**
+     * Cursor positioned after a row in a price-ordered feed.
+     * @param price price of the last returned row
+     * @param id id of the last returned row
+     * @return cursor
+     */
+    public static ListingCursor ofPrice(BigDecimal price, String id) {
+        return new ListingCursor(Kind.PRICE, null, price, id);
+    }
+
+    /**
+     * Encode to the opaque token returned to clients.
+     * @return URL-safe token
+     */
+    public String encode() {
+        String value = kind == Kind.CREATED_AT ? createdAt.toString() : price.toPlainString();
+        String raw = (kind == Kind.CREATED_AT ? "c" : "p") + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     * @param token cursor from a previous response
+     * @param expected sort key the caller is paging by
+     * @return decoded cursor
+     * @throws RuntimeException if the token is malformed or was issued for a different sort
+     */
+    public static ListingCursor decode(String token, Kind expected) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("expected 3 parts");
+            }
+            ListingCursor cursor = "c".equals(parts[0])
+                ? ofCreatedAt(LocalDateTime.parse(parts[1]), parts[2])
+                : "p".equals(parts[0]) ? ofPrice(new BigDecimal(parts[1]), parts[2]) : null;
+            if (cursor == null || cursor.kind != expected) {
+                throw new IllegalArgumentException("cursor does not match sort order");
+            }
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,66 @@
+package com.campus.marketplace.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for message history: the (createdAt, id) of a message, the order messages of a
+ * conversation are stored and read in. Encoded as URL-safe Base64 so clients treat it as a token.
+ */
+public class MessageCursor {
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    private MessageCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Cursor positioned at a message.
+     * @param createdAt created_at of the message
+     * @param id id of the message
+     * @return cursor
+     */
+    public static MessageCursor of(LocalDateTime createdAt, String id) {
+        return new MessageCursor(createdAt, id);
+    }
+
+    /**
+     * Encode to the opaque token returned to clients.
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = "m|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     * @param token cursor from a previous response
+     * @return decoded cursor
+     * @throws RuntimeException if the token is malformed
+     */
+    public static MessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !"m".equals(parts[0]) || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("expected a message cursor");
+            }
+            return of(LocalDateTime.parse(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
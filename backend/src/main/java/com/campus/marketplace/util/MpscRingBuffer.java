@@ -0,0 +1,91 @@
+package com.campus.marketplace.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ *
+ * Producers claim a slot by advancing the tail with a CAS and then publish the element into it;
+ * the consumer takes published elements in order and frees their slots. Nothing blocks: a producer
+ * that finds the buffer full gets false and the element is dropped, which is what a request thread
+ * recording statistics wants. Only one thread may call {@link #drain} at a time.
+ */
+public class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    // next slot a producer claims
+    private final AtomicLong tail = new AtomicLong();
+    // next slot the consumer reads; written by the consumer only
+    private volatile long head;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add an element without blocking.
+     * @param element element (not null)
+     * @return false if the buffer is full and the element was dropped
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        while (true) {
+            long claimed = tail.get();
+            if (claimed - head >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(claimed, claimed + 1)) {
+                slots.lazySet((int) (claimed & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hand up to max elements to the consumer, oldest first. Stops early at a slot that was claimed
+     * but not yet published; that element is taken by the next drain.
+     * @return number of elements consumed
+     */
+    public int drain(Consumer<? super E> consumer, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            head = ++position;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    /** @return approximate number of elements waiting (claimed slots included) */
+    public int size() {
+        return (int) Math.max(0, Math.min(slots.length(), tail.get() - head));
+    }
+
+    /** @return number of slots */
+    public int capacity() {
+        return slots.length();
+    }
+}
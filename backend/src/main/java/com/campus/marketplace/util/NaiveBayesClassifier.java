@@ -0,0 +1,196 @@
+package com.campus.marketplace.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multinomial naive Bayes text classifier over hashed word unigrams and bigrams.
+ *
+ * Text is tokenized with {@link SearchTokenizer}; every unigram and adjacent bigram is hashed into
+ * 2^20 buckets, so the model holds one row of per-label log-likelihoods per bucket seen in training
+ * and nothing else. Instances are immutable; build one with {@link #train}.
+ */
+public class NaiveBayesClassifier {
+
+    private static final int FEATURE_BITS = 20;
+    private static final int FEATURE_MASK = (1 << FEATURE_BITS) - 1;
+    // Laplace smoothing
+    private static final double ALPHA = 1.0;
+
+    private final String[] labels;
+    private final double[] logPriors;
+    // feature bucket -> log P(feature | label) for every label
+    private final Map<Integer, float[]> logLikelihoods;
+
+    private NaiveBayesClassifier(String[] labels, double[] logPriors, Map<Integer, float[]> logLikelihoods) {
+        this.labels = labels;
+        this.logPriors = logPriors;
+        this.logLikelihoods = logLikelihoods;
+    }
+
+    /**
+     * Labelled training text.
+     */
+    public static class Example {
+        private final String text;
+        private final String label;
+
+        public Example(String text, String label) {
+            this.text = text;
+            this.label = label;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Most likely label with its posterior probability.
+     */
+    public static class Prediction {
+        private final String label;
+        private final double confidence;
+
+        public Prediction(String label, double confidence) {
+            this.label = label;
+            this.confidence = confidence;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** Posterior probability of the label, between 0 and 1. */
+        public double getConfidence() {
+            return confidence;
+        }
+    }
+
+    /**
+     * Count features per label and turn the counts into smoothed log probabilities.
+     * @param examples labelled texts; examples without features are ignored
+     * @return trained classifier (with no labels if nothing could be learned)
+     */
+    public static NaiveBayesClassifier train(List<Example> examples) {
+        Map<String, Integer> labelIndex = new LinkedHashMap<>();
+        List<int[]> featuresPerExample = new ArrayList<>(examples.size());
+        List<Integer> labelPerExample = new ArrayList<>(examples.size());
+        for (Example example : examples) {
+            int[] features = features(example.getText());
+            if (features.length == 0 || example.getLabel() == null) {
+                continue;
+            }
+            Integer label = labelIndex.computeIfAbsent(example.getLabel(), l -> labelIndex.size());
+            featuresPerExample.add(features);
+            labelPerExample.add(label);
+        }
+
+        int labelCount = labelIndex.size();
+        int[] docsPerLabel = new int[labelCount];
+        long[] featuresPerLabel = new long[labelCount];
+        Map<Integer, int[]> counts = new HashMap<>();
+        for (int i = 0; i < featuresPerExample.size(); i++) {
+            int label = labelPerExample.get(i);
+            docsPerLabel[label]++;
+            for (int feature : featuresPerExample.get(i)) {
+                counts.computeIfAbsent(feature, f -> new int[labelCount])[label]++;
+                featuresPerLabel[label]++;
+            }
+        }
+
+        double[] logPriors = new double[labelCount];
+        double[] logDenominators = new double[labelCount];
+        int vocabulary = counts.size();
+        for (int label = 0; label < labelCount; label++) {
+            logPriors[label] = Math.log((double) docsPerLabel[label] / featuresPerExample.size());
+            logDenominators[label] = Math.log(featuresPerLabel[label] + ALPHA * vocabulary);
+        }
+        Map<Integer, float[]> logLikelihoods = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            float[] row = new float[labelCount];
+            for (int label = 0; label < labelCount; label++) {
+                row[label] = (float) (Math.log(entry.getValue()[label] + ALPHA) - logDenominators[label]);
+            }
+            logLikelihoods.put(entry.getKey(), row);
+        }
+        return new NaiveBayesClassifier(labelIndex.keySet().toArray(new String[0]), logPriors, logLikelihoods);
+    }
+
+    /**
+     * Classify a text. Features never seen in training carry no evidence and are skipped.
+     * @param text text to classify
+     * @return best label, or null if the model is empty or the text has no known features
+     */
+    public Prediction classify(String text) {
+        if (labels.length == 0) {
+            return null;
+        }
+        double[] scores = logPriors.clone();
+        boolean known = false;
+        for (int feature : features(text)) {
+            float[] row = logLikelihoods.get(feature);
+            if (row == null) {
+                continue;
+            }
+            known = true;
+            for (int label = 0; label < labels.length; label++) {
+                scores[label] += row[label];
+            }
+        }
+        if (!known) {
+            return null;
+        }
+
+        int best = 0;
+        for (int label = 1; label < labels.length; label++) {
+            if (scores[label] > scores[best]) {
+                best = label;
+            }
+        }
+        // posterior of the best label: 1 / sum(exp(score - best))
+        double sum = 0;
+        for (double score : scores) {
+            sum += Math.exp(score - scores[best]);
+        }
+        return new Prediction(labels[best], 1.0 / sum);
+    }
+
+    public int getLabelCount() {
+        return labels.length;
+    }
+
+    public int getFeatureCount() {
+        return logLikelihoods.size();
+    }
+
+    /**
+     * Hashed unigram and bigram features of a text, one entry per occurrence.
+     */
+    static int[] features(String text) {
+        List<String> tokens = SearchTokenizer.tokenizeDocument(text);
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        int[] features = new int[tokens.size() * 2 - 1];
+        for (int i = 0; i < tokens.size(); i++) {
+            features[i] = hash(tokens.get(i));
+        }
+        for (int i = 1; i < tokens.size(); i++) {
+            features[tokens.size() + i - 1] = hash(tokens.get(i - 1) + ' ' + tokens.get(i));
+        }
+        return features;
+    }
+
+    private static int hash(String feature) {
+        int h = feature.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & FEATURE_MASK;
+    }
+}
@@ -0,0 +1,110 @@
+package com.campus.marketplace.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer shared by the in-memory listing search structures.
+ * Splits text on anything that is not a letter or digit, lowercases, and drops stop words.
+ * A letters-only token followed by a digits-only token (e.g. "CMPE 202", "cmpe-202")
+ * is also emitted as a joined course-code token ("cmpe202").
+ */
+public class SearchTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "do", "for", "from", "have", "i",
+        "in", "is", "it", "of", "on", "or", "the", "to", "with", "you"
+    );
+
+    private SearchTokenizer() {}
+
+    /**
+     * Tokenize document text for indexing. Keeps duplicates so callers can count term frequency.
+     * Course codes are emitted both as their parts and as the joined token.
+     *
+     * @param text title or description text (nullable)
+     * @return list of tokens in document order
+     */
+    public static List<String> tokenizeDocument(String text) {
+        List<String> raw = split(text);
+        List<String> tokens = new ArrayList<>(raw.size() + 4);
+        for (int i = 0; i < raw.size(); i++) {
+            String token = raw.get(i);
+            if (!STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+            if (i + 1 < raw.size() && isLetters(token) && isDigits(raw.get(i + 1))) {
+                tokens.add(token + raw.get(i + 1));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenize a user query. Course-code pairs collapse into the joined token so that
+     * "CMPE 202" and "CMPE202" match the same documents. Duplicates are removed.
+     *
+     * @param query search text (nullable)
+     * @return distinct query tokens in query order
+     */
+    public static List<String> tokenizeQuery(String query) {
+        List<String> raw = split(query);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int i = 0; i < raw.size(); i++) {
+            String token = raw.get(i);
+            if (i + 1 < raw.size() && isLetters(token) && isDigits(raw.get(i + 1))) {
+                tokens.add(token + raw.get(i + 1));
+                i++;
+            } else if (!STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static List<String> split(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> parts = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                parts.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            parts.add(lower.substring(start));
+        }
+        return parts;
+    }
+
+    private static boolean isLetters(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isLetter(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigits(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
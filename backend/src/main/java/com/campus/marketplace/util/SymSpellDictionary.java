@@ -0,0 +1,252 @@
+package com.campus.marketplace.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Spelling dictionary using symmetric deletes (SymSpell).
+ *
+ * Every word is stored under all strings obtained by deleting up to maxEditDistance characters from
+ * its first prefixLength characters. A lookup generates the same deletes for the misspelled term, so
+ * candidate words are found with hash lookups only; each candidate is then verified with the real
+ * (optimal string alignment) edit distance. Words are reference-counted, so the same word can be added
+ * once per document and disappears when its last document is removed.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class SymSpellDictionary {
+
+    // rough per-object sizes for estimatedBytes(): String + backing array, map entry, list
+    private static final int STRING_BYTES = 56;
+    private static final int ENTRY_BYTES = 48;
+    private static final int LIST_BYTES = 40;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final int maxEditDistance;
+    private final int prefixLength;
+
+    // word -> number of times it was added
+    private final Map<String, Integer> counts = new HashMap<>();
+    // delete of a word prefix -> words producing it
+    private final Map<String, List<String>> deletes = new HashMap<>();
+    private long estimatedBytes;
+
+    /**
+     * @param maxEditDistance largest edit distance lookups can correct
+     * @param prefixLength characters of each word that deletes are generated from (greater than maxEditDistance)
+     */
+    public SymSpellDictionary(int maxEditDistance, int prefixLength) {
+        if (maxEditDistance < 1 || prefixLength <= maxEditDistance) {
+            throw new IllegalArgumentException("need 0 < maxEditDistance < prefixLength");
+        }
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Add one occurrence of a word.
+     * @param word normalized word
+     */
+    public void add(String word) {
+        if (counts.merge(word, 1, Integer::sum) > 1) {
+            return;
+        }
+        estimatedBytes += STRING_BYTES + word.length() + ENTRY_BYTES;
+        for (String delete : deletesOf(prefix(word), maxEditDistance)) {
+            List<String> words = deletes.get(delete);
+            if (words == null) {
+                words = new ArrayList<>(2);
+                deletes.put(delete, words);
+                estimatedBytes += STRING_BYTES + delete.length() + ENTRY_BYTES + LIST_BYTES;
+            }
+            words.add(word);
+            estimatedBytes += REFERENCE_BYTES;
+        }
+    }
+
+    /**
+     * Remove one occurrence of a word; the word is dropped with its last occurrence.
+     * @param word normalized word
+     */
+    public void remove(String word) {
+        Integer count = counts.get(word);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(word, count - 1);
+            return;
+        }
+        counts.remove(word);
+        estimatedBytes -= STRING_BYTES + word.length() + ENTRY_BYTES;
+        for (String delete : deletesOf(prefix(word), maxEditDistance)) {
+            List<String> words = deletes.get(delete);
+            if (words == null || !words.remove(word)) {
+                continue;
+            }
+            estimatedBytes -= REFERENCE_BYTES;
+            if (words.isEmpty()) {
+                deletes.remove(delete);
+                estimatedBytes -= STRING_BYTES + delete.length() + ENTRY_BYTES + LIST_BYTES;
+            }
+        }
+    }
+
+    /** @return occurrences of the word, 0 if unknown */
+    public int count(String word) {
+        return counts.getOrDefault(word, 0);
+    }
+
+    /** @return number of distinct words */
+    public int size() {
+        return counts.size();
+    }
+
+    /** @return number of distinct delete keys */
+    public int deleteCount() {
+        return deletes.size();
+    }
+
+    /** @return approximate heap used by the dictionary */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public void clear() {
+        counts.clear();
+        deletes.clear();
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Closest word within maxDistance. Ties go to the more frequent word, then to the alphabetically first.
+     * @param term normalized term
+     * @param maxDistance largest edit distance to accept (capped at the dictionary's maxEditDistance)
+     * @return the term itself (distance 0) if it is a word, otherwise the best correction, or empty
+     */
+    public Optional<Suggestion> lookup(String term, int maxDistance) {
+        Integer exact = counts.get(term);
+        if (exact != null) {
+            return Optional.of(new Suggestion(term, 0, exact));
+        }
+        int limit = Math.min(maxDistance, maxEditDistance);
+        Suggestion best = null;
+        Set<String> checked = new HashSet<>();
+        for (String delete : deletesOf(prefix(term), limit)) {
+            List<String> words = deletes.get(delete);
+            if (words == null) {
+                continue;
+            }
+            for (String word : words) {
+                if (!checked.add(word) || Math.abs(word.length() - term.length()) > limit) {
+                    continue;
+                }
+                int distance = distance(term, word, best == null ? limit : best.distance);
+                if (distance < 0) {
+                    continue;
+                }
+                int count = counts.get(word);
+                if (best == null || distance < best.distance
+                        || (distance == best.distance && (count > best.count
+                            || (count == best.count && word.compareTo(best.term) < 0)))) {
+                    best = new Suggestion(word, distance, count);
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private String prefix(String word) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+
+    /** The string itself and every string with up to maxDeletes characters deleted from it. */
+    private static Set<String> deletesOf(String word, int maxDeletes) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = List.of(word);
+        for (int round = 0; round < maxDeletes; round++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String delete = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (insert, delete, substitute, swap adjacent).
+     * @return the distance, or -1 if it exceeds limit
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return -1;
+        }
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return -1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        int distance = previous[b.length()];
+        return distance <= limit ? distance : -1;
+    }
+
+    /**
+     * A dictionary word offered for a term.
+     */
+    public static class Suggestion {
+        private final String term;
+        private final int distance;
+        private final int count;
+
+        public Suggestion(String term, int distance, int count) {
+            this.term = term;
+            this.distance = distance;
+            this.count = count;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package db.migration;
+
+import com.campus.marketplace.util.CourseCodes;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * V10: Fill listing_course_codes (V9) for listings created before course codes were extracted on write.
+ * Runs in Java because the extraction rules live in {@link CourseCodes}; re-running is harmless (INSERT IGNORE).
+ */
+public class V10__backfill_listing_course_codes extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, title, description FROM listings");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT IGNORE INTO listing_course_codes (listing_id, dept, course_number) VALUES (?, ?, ?)")) {
+            int pending = 0;
+            while (rows.next()) {
+                for (CourseCodes.CourseCode code : CourseCodes.extract(rows.getString("title"), rows.getString("description"))) {
+                    insert.setString(1, rows.getString("id"));
+                    insert.setString(2, code.getDept());
+                    insert.setString(3, code.getNumber());
+                    insert.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+}
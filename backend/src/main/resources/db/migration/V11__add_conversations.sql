@@ -0,0 +1,60 @@
+-- V11: One row per conversation (a listing and two users) with its inbox summary
+-- Users are stored in canonical order (user_low_id < user_high_id), so both directions of a thread map to
+-- the same row. MessageService keeps the last message and per-participant unread counts current on send,
+-- read and delete, in the transaction that changes the messages. The inbox reads these rows instead of
+-- scanning messages, and a conversation's history is a range scan on messages(conversation_id, created_at).
+CREATE TABLE IF NOT EXISTS conversations (
+  id                    CHAR(36) NOT NULL PRIMARY KEY,
+  listing_id            CHAR(36) NOT NULL,
+  user_low_id           CHAR(36) NOT NULL,
+  user_high_id          CHAR(36) NOT NULL,
+  last_message_id       CHAR(36) NULL,
+  last_message_preview  VARCHAR(200) NULL,
+  last_message_at       DATETIME NULL,
+  last_sender_id        CHAR(36) NULL,
+  user_low_unread       INT NOT NULL DEFAULT 0,
+  user_high_unread      INT NOT NULL DEFAULT 0,
+  created_at            DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT uk_conversations_participants UNIQUE (listing_id, user_low_id, user_high_id),
+  CONSTRAINT fk_conversation_listing FOREIGN KEY (listing_id) REFERENCES listings(id) ON DELETE CASCADE,
+  CONSTRAINT fk_conversation_user_low FOREIGN KEY (user_low_id) REFERENCES users(id) ON DELETE CASCADE,
+  CONSTRAINT fk_conversation_user_high FOREIGN KEY (user_high_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Inbox of a user, newest first, from either side of the conversation
+CREATE INDEX idx_conversations_low_inbox ON conversations(user_low_id, last_message_at);
+CREATE INDEX idx_conversations_high_inbox ON conversations(user_high_id, last_message_at);
+
+-- Conversations of existing messages
+INSERT INTO conversations (id, listing_id, user_low_id, user_high_id, user_low_unread, user_high_unread, created_at)
+SELECT UUID(), listing_id, LEAST(from_user_id, to_user_id), GREATEST(from_user_id, to_user_id),
+       SUM(to_user_id = LEAST(from_user_id, to_user_id) AND is_read = FALSE),
+       SUM(to_user_id = GREATEST(from_user_id, to_user_id) AND is_read = FALSE),
+       MIN(created_at)
+FROM messages
+GROUP BY listing_id, LEAST(from_user_id, to_user_id), GREATEST(from_user_id, to_user_id);
+
+ALTER TABLE messages ADD COLUMN conversation_id CHAR(36) NULL;
+
+UPDATE messages m
+JOIN conversations c ON c.listing_id = m.listing_id
+  AND c.user_low_id = LEAST(m.from_user_id, m.to_user_id)
+  AND c.user_high_id = GREATEST(m.from_user_id, m.to_user_id)
+SET m.conversation_id = c.id;
+
+UPDATE conversations c
+JOIN (
+  SELECT conversation_id, id, content, created_at, from_user_id,
+         ROW_NUMBER() OVER (PARTITION BY conversation_id ORDER BY created_at DESC, id DESC) AS position
+  FROM messages
+) latest ON latest.conversation_id = c.id AND latest.position = 1
+SET c.last_message_id = latest.id,
+    c.last_message_preview = LEFT(latest.content, 200),
+    c.last_message_at = latest.created_at,
+    c.last_sender_id = latest.from_user_id;
+
+ALTER TABLE messages MODIFY conversation_id CHAR(36) NOT NULL;
+ALTER TABLE messages ADD CONSTRAINT fk_msg_conversation FOREIGN KEY (conversation_id) REFERENCES conversations(id) ON DELETE CASCADE;
+
+-- Conversation history in order
+CREATE INDEX idx_messages_conversation_created ON messages(conversation_id, created_at, id);
@@ -0,0 +1,53 @@
+-- V12: Read state as one cursor per participant per conversation instead of a flag per message
+-- A participant has read every message up to (last_read_at, last_read_message_id) in conversation order
+-- (created_at, id). Marking a conversation or the whole inbox read moves cursors and zeroes the unread
+-- counters (V11) with one UPDATE, instead of rewriting every message. Timestamps get microseconds so the
+-- order, and with it the cursors, does not depend on random ids for messages sent within a second.
+ALTER TABLE messages MODIFY created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+ALTER TABLE conversations
+  MODIFY last_message_at DATETIME(6) NULL,
+  ADD COLUMN user_low_last_read_at DATETIME(6) NULL,
+  ADD COLUMN user_low_last_read_message_id CHAR(36) NULL,
+  ADD COLUMN user_high_last_read_at DATETIME(6) NULL,
+  ADD COLUMN user_high_last_read_message_id CHAR(36) NULL;
+
+-- Cursors from the old flags: each participant has read up to the newest message they received and read
+UPDATE conversations c
+JOIN (
+  SELECT conversation_id, to_user_id, id, created_at,
+         ROW_NUMBER() OVER (PARTITION BY conversation_id, to_user_id ORDER BY created_at DESC, id DESC) AS position
+  FROM messages
+  WHERE is_read = TRUE
+) latest ON latest.conversation_id = c.id AND latest.to_user_id = c.user_low_id AND latest.position = 1
+SET c.user_low_last_read_at = latest.created_at,
+    c.user_low_last_read_message_id = latest.id;
+
+UPDATE conversations c
+JOIN (
+  SELECT conversation_id, to_user_id, id, created_at,
+         ROW_NUMBER() OVER (PARTITION BY conversation_id, to_user_id ORDER BY created_at DESC, id DESC) AS position
+  FROM messages
+  WHERE is_read = TRUE
+) latest ON latest.conversation_id = c.id AND latest.to_user_id = c.user_high_id AND latest.position = 1
+SET c.user_high_last_read_at = latest.created_at,
+    c.user_high_last_read_message_id = latest.id;
+
+-- A participant's received messages after a cursor: an index range count
+CREATE INDEX idx_messages_conversation_recipient ON messages(conversation_id, to_user_id, created_at, id);
+
+-- Unread counters that agree with the cursors
+UPDATE conversations c
+SET c.user_low_unread = (
+      SELECT COUNT(*) FROM messages m
+      WHERE m.conversation_id = c.id AND m.to_user_id = c.user_low_id
+        AND (c.user_low_last_read_at IS NULL OR m.created_at > c.user_low_last_read_at
+             OR (m.created_at = c.user_low_last_read_at AND m.id > c.user_low_last_read_message_id))),
+    c.user_high_unread = (
+      SELECT COUNT(*) FROM messages m
+      WHERE m.conversation_id = c.id AND m.to_user_id = c.user_high_id
+        AND (c.user_high_last_read_at IS NULL OR m.created_at > c.user_high_last_read_at
+             OR (m.created_at = c.user_high_last_read_at AND m.id > c.user_high_last_read_message_id)));
+
+-- Read state is derived from the cursors now (idx_messages_is_read goes with the column)
+ALTER TABLE messages DROP COLUMN is_read;
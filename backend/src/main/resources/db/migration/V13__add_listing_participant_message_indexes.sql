@@ -0,0 +1,10 @@
+-- V13: Indexes for the messages of a listing that one user sent or received
+-- GET /api/messages/listing/{listingId} filtered a listing's whole message history down to the caller.
+-- With (listing_id, from_user_id, ...) for the messages they sent and (listing_id, to_user_id, ...) for
+-- the ones they received, the OR of the two is an index merge of two ranges that holds only their
+-- threads, however many other buyers wrote about the listing.
+CREATE INDEX idx_messages_listing_from_to_created ON messages(listing_id, from_user_id, to_user_id, created_at);
+CREATE INDEX idx_messages_listing_to_created ON messages(listing_id, to_user_id, created_at);
+
+-- Both start with listing_id, which also serves fk_msg_listing
+DROP INDEX idx_messages_listing_id ON messages;
@@ -0,0 +1,19 @@
+-- V6: FULLTEXT index for listing search (MATCH ... AGAINST)
+-- Uses the ngram parser so partial words and course codes ("CMPE202") match.
+-- Idempotent: MySQL has no CREATE FULLTEXT INDEX IF NOT EXISTS, so check
+-- information_schema first (the index may have been added manually, see V5).
+
+SET @ft_exists := (
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'listings'
+      AND index_name = 'ft_listings_search'
+);
+
+SET @ft_ddl := IF(@ft_exists = 0,
+    'ALTER TABLE listings ADD FULLTEXT INDEX ft_listings_search (title, description) WITH PARSER ngram',
+    'SELECT 1');
+
+PREPARE ft_stmt FROM @ft_ddl;
+EXECUTE ft_stmt;
+DEALLOCATE PREPARE ft_stmt;
@@ -0,0 +1,9 @@
+-- V7: Composite indexes for keyset (cursor) pagination on listing feeds
+-- Each index matches a feed's equality filter followed by its sort key, so a page is a
+-- range seek that stops after size + 1 rows. InnoDB appends the primary key (id) to every
+-- secondary index, which supplies the tie-breaker column of the cursor.
+
+CREATE INDEX idx_listings_status_created_at ON listings(status, created_at);
+CREATE INDEX idx_listings_seller_created_at ON listings(seller_id, created_at);
+CREATE INDEX idx_listings_category_status_created_at ON listings(category_id, status, created_at);
+CREATE INDEX idx_listings_status_price ON listings(status, price);
@@ -0,0 +1,23 @@
+-- V8: Composite indexes for the advanced listing search (ListingSpecifications)
+-- The search now emits only the filters a caller supplies, always led by status (defaulted to
+-- ACTIVE). Each index below pairs status with an equality filter and then the column of a
+-- supported sortBy, so the page is read in index order without a filesort. InnoDB appends the
+-- primary key, which makes the id-only page query covering.
+--
+-- Already provided by V7:
+--   status only, sortBy=newest                -> idx_listings_status_created_at
+--   status only, sortBy=price_asc/price_desc  -> idx_listings_status_price (also serves price ranges)
+--   status + category, sortBy=newest          -> idx_listings_category_status_created_at
+
+-- status + category, sortBy=price_asc/price_desc (and category + price range)
+CREATE INDEX idx_listings_status_category_price ON listings(status, category_id, price);
+
+-- status + condition, sortBy=newest
+CREATE INDEX idx_listings_status_condition_created_at ON listings(status, `condition`, created_at);
+
+-- status + condition, sortBy=price_asc/price_desc (and condition + price range)
+CREATE INDEX idx_listings_status_condition_price ON listings(status, `condition`, price);
+
+-- idx_listings_status is a prefix of idx_listings_status_created_at and was the index MySQL
+-- settled on for the old "(:param IS NULL OR ...)" query; drop it to save a write per insert.
+DROP INDEX idx_listings_status ON listings;
@@ -0,0 +1,14 @@
+-- V9: Course codes extracted from listing titles and descriptions
+-- Written by ListingService on create/update (normalized: "cmpe-202" -> CMPE / 202) and backfilled
+-- by V10. A course-code search becomes an equality lookup on (dept, course_number) instead of
+-- LIKE '%CMPE 202%' over description text, and matches every spelling of the code.
+CREATE TABLE IF NOT EXISTS listing_course_codes (
+  listing_id     CHAR(36) NOT NULL,
+  dept           VARCHAR(5) NOT NULL,
+  course_number  VARCHAR(4) NOT NULL,
+  PRIMARY KEY (listing_id, dept, course_number),
+  CONSTRAINT fk_course_code_listing FOREIGN KEY (listing_id) REFERENCES listings(id) ON DELETE CASCADE
+);
+
+-- code -> listings; listing_id in the key makes the id lookup covering
+CREATE INDEX idx_listing_course_codes_code ON listing_course_codes(dept, course_number, listing_id);
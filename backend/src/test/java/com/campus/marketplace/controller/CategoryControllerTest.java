@@ -78,6 +78,20 @@ public class CategoryControllerTest {
             .andExpect(jsonPath("$[0].name").value("Electronics"));
     }
     
+    @Test
+    void testGetAllCategories_NotModified() throws Exception {
+        when(categoryService.getAllCategories()).thenReturn(Arrays.asList(testCategory));
+
+        String etag = mockMvc.perform(get("/api/categories"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/categories").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+    
     @Test
     void testGetCategoryByName() throws Exception {
         when(categoryService.getCategoryByName("Electronics")).thenReturn(Optional.of(testCategory));
@@ -1,11 +1,23 @@
 package com.campus.marketplace.controller;
 
+import com.campus.marketplace.dto.AutocompleteSuggestionDTO;
+import com.campus.marketplace.dto.CursorPage;
 import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.ListingFacetsDTO;
+import com.campus.marketplace.dto.ScoredListingDTO;
+import com.campus.marketplace.dto.SearchQueryStatsDTO;
 import com.campus.marketplace.entity.Category;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.repository.ListingVersion;
+import com.campus.marketplace.service.ChatbotSearchService;
+import com.campus.marketplace.service.ListingAutocompleteIndex;
+import com.campus.marketplace.service.ListingFacetIndex;
 import com.campus.marketplace.service.ListingService;
+import com.campus.marketplace.service.ListingSpellingIndex;
+import com.campus.marketplace.service.SearchQueryLog;
 import com.campus.marketplace.service.UserService;
+import com.campus.marketplace.util.ETags;
 import com.campus.marketplace.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,24 +26,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -49,6 +70,21 @@ public class ListingControllerTest {
     @Mock
     private UserService userService;
     
+    @Mock
+    private ListingFacetIndex listingFacetIndex;
+    
+    @Mock
+    private ChatbotSearchService chatbotSearchService;
+    
+    @Mock
+    private ListingSpellingIndex listingSpellingIndex;
+    
+    @Mock
+    private ListingAutocompleteIndex listingAutocompleteIndex;
+    
+    @Mock
+    private SearchQueryLog searchQueryLog;
+    
     @InjectMocks
     private ListingController listingController;
     
@@ -62,6 +98,7 @@ public class ListingControllerTest {
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(listingController).build();
         objectMapper = new ObjectMapper();
+        ReflectionTestUtils.setField(listingController, "objectMapper", new ObjectMapper().findAndRegisterModules());
         
         testSeller = new User();
         testSeller.setId("seller-123");
@@ -121,7 +158,7 @@ public class ListingControllerTest {
     
     @Test
     void testGetListingById_Found() throws Exception {
-        when(listingService.getListingById("listing-123")).thenReturn(Optional.of(testListing));
+        when(listingService.getListingDTOById("listing-123")).thenReturn(Optional.of(new ListingDTO(testListing)));
         
         mockMvc.perform(get("/api/listings/listing-123")
             .contentType(MediaType.APPLICATION_JSON))
@@ -129,12 +166,78 @@ public class ListingControllerTest {
             .andExpect(jsonPath("$.id").value("listing-123"))
             .andExpect(jsonPath("$.title").value("Test Item"));
         
-        verify(listingService, times(1)).getListingById("listing-123");
+        verify(listingService, times(1)).getListingDTOById("listing-123");
     }
     
+    @Test
+    void testGetListingById_SetsETag() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        ListingDTO dto = new ListingDTO(testListing);
+        dto.setUpdatedAt(updatedAt);
+        when(listingService.getListingDTOById("listing-123")).thenReturn(Optional.of(dto));
+
+        mockMvc.perform(get("/api/listings/listing-123"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", ETags.forVersion("listing-123", updatedAt, "Seller", "Electronics")))
+            .andExpect(header().exists("Last-Modified"));
+    }
+
+    @Test
+    void testGetListingById_NotModified() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(listingService.getListingVersion("listing-123")).thenReturn(Optional.of(version(updatedAt, "Seller")));
+
+        mockMvc.perform(get("/api/listings/listing-123")
+                .header("If-None-Match", ETags.forVersion("listing-123", updatedAt, "Seller", "Electronics")))
+            .andExpect(status().isNotModified());
+
+        verify(listingService, never()).getListingDTOById(any());
+    }
+
+    @Test
+    void testGetListingById_StaleETagReturnsBody() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        ListingDTO dto = new ListingDTO(testListing);
+        dto.setUpdatedAt(updatedAt);
+        ListingVersion version = version(updatedAt, "Seller");
+        when(listingService.getListingVersion("listing-123")).thenReturn(Optional.of(version));
+        when(listingService.getListingDTOById("listing-123", version)).thenReturn(Optional.of(dto));
+
+        mockMvc.perform(get("/api/listings/listing-123")
+                .header("If-None-Match", ETags.forVersion("listing-123", updatedAt.minusMinutes(1), "Seller", "Electronics")))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", ETags.forVersion("listing-123", updatedAt, "Seller", "Electronics")))
+            .andExpect(jsonPath("$.id").value("listing-123"));
+    }
+
+    @Test
+    void testGetListingById_SellerRenameChangesETag() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        ListingDTO dto = new ListingDTO(testListing);
+        dto.setUpdatedAt(updatedAt);
+        dto.setSellerName("Renamed Seller");
+        ListingVersion version = version(updatedAt, "Renamed Seller");
+        when(listingService.getListingVersion("listing-123")).thenReturn(Optional.of(version));
+        when(listingService.getListingDTOById("listing-123", version)).thenReturn(Optional.of(dto));
+
+        mockMvc.perform(get("/api/listings/listing-123")
+                .header("If-None-Match", ETags.forVersion("listing-123", updatedAt, "Seller", "Electronics")))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", ETags.forVersion("listing-123", updatedAt, "Renamed Seller", "Electronics")))
+            .andExpect(jsonPath("$.sellerName").value("Renamed Seller"));
+    }
+
+    private static ListingVersion version(LocalDateTime updatedAt, String sellerName) {
+        return new ListingVersion() {
+            public LocalDateTime getUpdatedAt() { return updatedAt; }
+            public String getSellerName() { return sellerName; }
+            public String getCategoryName() { return "Electronics"; }
+        };
+    }
+
     @Test
     void testGetListingById_NotFound() throws Exception {
-        when(listingService.getListingById("non-existent")).thenReturn(Optional.empty());
+        when(listingService.getListingDTOById("non-existent")).thenReturn(Optional.empty());
         
         mockMvc.perform(get("/api/listings/non-existent")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -143,19 +246,96 @@ public class ListingControllerTest {
     
     @Test
     void testGetAllListings() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.getAllListings()).thenReturn(listings);
+        when(listingService.getListingFeed(null, 0))
+            .thenReturn(new CursorPage<>(Arrays.asList(new ListingDTO(testListing)), null, false, 1000));
         
-        mockMvc.perform(get("/api/listings")
+        MvcResult result = mockMvc.perform(get("/api/listings")
             .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        mockMvc.perform(asyncDispatch(result))
             .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Link"))
             .andExpect(jsonPath("$[0].title").value("Test Item"));
     }
     
+    @Test
+    void testGetAllListings_NdjsonWithLimit() throws Exception {
+        Listing second = new Listing();
+        second.setId("listing-456");
+        second.setTitle("Second Item");
+        second.setSeller(testSeller);
+        second.setCategory(testCategory);
+        when(listingService.getListingFeed(null, 2)).thenReturn(new CursorPage<>(
+            Arrays.asList(new ListingDTO(testListing), new ListingDTO(second)), null, false, 2));
+        
+        MvcResult result = mockMvc.perform(get("/api/listings")
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"title\":\"Test Item\""));
+        assertTrue(lines[1].contains("\"id\":\"listing-456\""));
+    }
+    
+    @Test
+    void testGetAllListings_LinksToNextPage() throws Exception {
+        when(listingService.getListingFeed("page-1", 1))
+            .thenReturn(new CursorPage<>(Arrays.asList(new ListingDTO(testListing)), "page-2", true, 1));
+        
+        MvcResult result = mockMvc.perform(get("/api/listings")
+            .param("cursor", "page-1")
+            .param("limit", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Link", "</api/listings?cursor=page-2&limit=1>; rel=\"next\""))
+            .andExpect(jsonPath("$[0].id").value("listing-123"));
+    }
+    
+    @Test
+    void testChatbotSearchStream_SendsKeywordsRefinedThenDone() throws Exception {
+        ScoredListingDTO hit = new ScoredListingDTO(new ListingDTO(testListing), 1.0);
+        ChatbotSearchService.ChatbotSearchResult keywords = new ChatbotSearchService.ChatbotSearchResult(
+            "textbook", new PageImpl<>(List.of(hit), PageRequest.of(0, 20), 1), true);
+        ChatbotSearchService.ChatbotSearchResult refined = new ChatbotSearchService.ChatbotSearchResult(
+            "CMPE 202,textbook", new PageImpl<>(List.of(hit), PageRequest.of(0, 20), 1), false);
+        doAnswer(invocation -> {
+            ChatbotSearchService.StreamListener listener = invocation.getArgument(3);
+            listener.onResults(ChatbotSearchService.Stage.KEYWORDS, keywords);
+            listener.onResults(ChatbotSearchService.Stage.REFINED, refined);
+            listener.onComplete(refined);
+            return null;
+        }).when(chatbotSearchService).streamQuery(eq("textbook for CMPE 202?"), eq(0), eq(20), any());
+        
+        MvcResult result = mockMvc.perform(get("/api/listings/chatbot-search/stream")
+            .param("query", "textbook for CMPE 202?")
+            .accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        String body = result.getResponse().getContentAsString();
+        int keywordsAt = body.indexOf("event:keywords");
+        int refinedAt = body.indexOf("event:refined");
+        int doneAt = body.indexOf("event:done");
+        assertTrue(keywordsAt >= 0 && keywordsAt < refinedAt && refinedAt < doneAt, body);
+        assertTrue(body.contains("\"interpretedQuery\":\"CMPE 202,textbook\""));
+        assertTrue(body.contains("\"title\":\"Test Item\""));
+    }
+    
     @Test
     void testGetListingsBySeller() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.getListingsBySeller("seller-123")).thenReturn(listings);
+        List<ListingDTO> listings = Arrays.asList(new ListingDTO(testListing));
+        when(listingService.getListingDTOsBySeller("seller-123")).thenReturn(listings);
         
         mockMvc.perform(get("/api/listings/seller/seller-123")
             .contentType(MediaType.APPLICATION_JSON))
@@ -165,8 +345,8 @@ public class ListingControllerTest {
     
     @Test
     void testGetListingsByCategory() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.getListingsByCategory("category-123")).thenReturn(listings);
+        List<ListingDTO> listings = Arrays.asList(new ListingDTO(testListing));
+        when(listingService.getListingDTOsByCategory("category-123")).thenReturn(listings);
         
         mockMvc.perform(get("/api/listings/category/category-123")
             .contentType(MediaType.APPLICATION_JSON))
@@ -176,8 +356,8 @@ public class ListingControllerTest {
     
     @Test
     void testGetListingsByStatus() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.getListingsByStatus(Listing.ListingStatus.ACTIVE)).thenReturn(listings);
+        List<ListingDTO> listings = Arrays.asList(new ListingDTO(testListing));
+        when(listingService.getListingDTOsByStatus(Listing.ListingStatus.ACTIVE)).thenReturn(listings);
         
         mockMvc.perform(get("/api/listings/status/ACTIVE")
             .contentType(MediaType.APPLICATION_JSON))
@@ -187,8 +367,8 @@ public class ListingControllerTest {
     
     @Test
     void testGetListingsByCondition() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.getListingsByCondition(Listing.ItemCondition.GOOD)).thenReturn(listings);
+        List<ListingDTO> listings = Arrays.asList(new ListingDTO(testListing));
+        when(listingService.getListingDTOsByCondition(Listing.ItemCondition.GOOD)).thenReturn(listings);
         
         mockMvc.perform(get("/api/listings/condition/GOOD")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -198,13 +378,159 @@ public class ListingControllerTest {
     
     @Test
     void testSearchListingsByKeyword() throws Exception {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingService.searchListings("Test")).thenReturn(listings);
+        List<ListingDTO> listings = Arrays.asList(new ListingDTO(testListing));
+        when(listingService.searchListingDTOs("Test")).thenReturn(listings);
 
         mockMvc.perform(get("/api/listings/search?searchTerm=Test")
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$[0].title").value("Test Item"));
+        // the service logs the search; autocomplete reads it from the query log
+        verifyNoInteractions(listingAutocompleteIndex);
+    }
+    
+    @Test
+    void testSearchListings_NoMatchRetriesSpellingCorrection() throws Exception {
+        when(listingService.searchListingDTOs("graphing calculater")).thenReturn(Collections.emptyList());
+        when(listingSpellingIndex.suggest("graphing calculater")).thenReturn(Optional.of("graphing calculator"));
+        when(listingService.searchListingDTOs("graphing calculator")).thenReturn(List.of(new ListingDTO(testListing)));
+        
+        mockMvc.perform(get("/api/listings/search").param("searchTerm", "graphing calculater"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(ListingController.DID_YOU_MEAN_HEADER, "graphing+calculator"))
+            .andExpect(jsonPath("$[0].title").value("Test Item"));
+        verifyNoInteractions(listingAutocompleteIndex);
+    }
+    
+    @Test
+    void testSearchWithFilters_NoMatchReturnsDidYouMean() throws Exception {
+        when(listingService.searchListingDTOsWithFilters(eq("textbok"), any(), any(), any(), any(), any(), eq("newest"), any()))
+            .thenReturn(Page.empty(PageRequest.of(0, 10)));
+        when(listingSpellingIndex.suggest("textbok")).thenReturn(Optional.of("textbook"));
+        when(listingService.searchListingDTOsWithFilters(eq("textbook"), any(), any(), any(), any(), any(), eq("newest"), any()))
+            .thenReturn(new PageImpl<>(List.of(new ListingDTO(testListing)), PageRequest.of(0, 10), 1));
+        
+        mockMvc.perform(get("/api/listings/search/advanced").param("searchTerm", "textbok"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.didYouMean").value("textbook"))
+            .andExpect(jsonPath("$.totalElements").value(1))
+            .andExpect(jsonPath("$.content[0].title").value("Test Item"));
+    }
+    
+    @Test
+    void testSearchWithFilters_MatchesSkipSpellingCorrection() throws Exception {
+        when(listingService.searchListingDTOsWithFilters(eq("textbook"), any(), any(), any(), any(), any(), eq("newest"), any()))
+            .thenReturn(new PageImpl<>(List.of(new ListingDTO(testListing)), PageRequest.of(0, 10), 1));
+        
+        mockMvc.perform(get("/api/listings/search/advanced").param("searchTerm", "textbook"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.didYouMean").doesNotExist())
+            .andExpect(jsonPath("$.content[0].title").value("Test Item"));
+        verify(listingSpellingIndex, never()).suggest(any());
+    }
+    
+    @Test
+    void testAutocomplete() throws Exception {
+        when(listingAutocompleteIndex.complete("cmpe2", 5)).thenReturn(Optional.of(List.of(
+            new AutocompleteSuggestionDTO("CMPE 202", AutocompleteSuggestionDTO.TYPE_COURSE, 4))));
+        
+        mockMvc.perform(get("/api/listings/autocomplete")
+                .param("prefix", "cmpe2")
+                .param("limit", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].text").value("CMPE 202"))
+            .andExpect(jsonPath("$[0].type").value("course"))
+            .andExpect(jsonPath("$[0].weight").value(4));
+    }
+    
+    @Test
+    void testAutocomplete_IndexNotReady() throws Exception {
+        when(listingAutocompleteIndex.complete("calc", 10)).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/listings/autocomplete").param("prefix", "calc"))
+            .andExpect(status().isServiceUnavailable());
+    }
+    
+    @Test
+    void testGetTopQueries_AdminAccess() {
+        setAdminSecurityContext();
+        when(searchQueryLog.topQueries(200)).thenReturn(List.of(
+            new SearchQueryStatsDTO("calculator", SearchQueryLog.SOURCE_ADVANCED, 42, 40, 3.5, 12.0, 0.25)));
+        
+        var response = listingController.getTopQueries(1000);
+        
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("calculator", response.getBody().get(0).getQuery());
+        assertEquals(0.25, response.getBody().get(0).getZeroResultRate(), 1e-9);
+        
+        clearSecurityContext();
+    }
+    
+    @Test
+    void testGetTopQueries_RegularUserAccessDenied() {
+        setUserSecurityContext();
+        
+        assertThrows(AccessDeniedException.class, () -> listingController.getTopQueries(50));
+        verifyNoInteractions(searchQueryLog);
+        
+        clearSecurityContext();
+    }
+    
+    @Test
+    void testGetFacets() throws Exception {
+        ListingFacetsDTO facets = new ListingFacetsDTO(3, Map.of("category-123", 3L), Map.of("GOOD", 2L),
+            Map.of("ACTIVE", 3L), List.of(new ListingFacetsDTO.PriceBucket(BigDecimal.ZERO, BigDecimal.TEN, 1)));
+        when(listingFacetIndex.facets("category-123", null, null, null, new BigDecimal("50")))
+            .thenReturn(Optional.of(facets));
+        
+        mockMvc.perform(get("/api/listings/facets")
+                .param("categoryId", "category-123")
+                .param("maxPrice", "50"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.categories['category-123']").value(3))
+            .andExpect(jsonPath("$.priceHistogram[0].count").value(1));
+    }
+    
+    @Test
+    void testGetFacets_IndexNotReady() throws Exception {
+        when(listingFacetIndex.facets(null, null, null, null, null)).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/listings/facets"))
+            .andExpect(status().isServiceUnavailable());
+    }
+    
+    @Test
+    void testSemanticSearch() throws Exception {
+        ScoredListingDTO hit = new ScoredListingDTO(new ListingDTO(testListing), 0.62);
+        when(listingService.semanticSearch("graphing calculator", null, 5)).thenReturn(Optional.of(List.of(hit)));
+        
+        mockMvc.perform(get("/api/listings/semantic-search")
+                .param("query", "graphing calculator")
+                .param("k", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].title").value("Test Item"))
+            .andExpect(jsonPath("$[0].score").value(0.62));
+    }
+    
+    @Test
+    void testSemanticSearch_IndexNotReady() throws Exception {
+        when(listingService.semanticSearch("laptop", null, 10)).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/listings/semantic-search").param("query", "laptop"))
+            .andExpect(status().isServiceUnavailable());
+    }
+    
+    @Test
+    void testGetListingsByStatusCursor() throws Exception {
+        CursorPage<ListingDTO> page = new CursorPage<>(Arrays.asList(new ListingDTO(testListing)), "next-token", true, 1);
+        when(listingService.getListingsByStatusAfter(Listing.ListingStatus.ACTIVE, "abc", 1)).thenReturn(page);
+        
+        mockMvc.perform(get("/api/listings/status/ACTIVE/cursor").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("listing-123"))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.hasNext").value(true));
     }
     
     @Test
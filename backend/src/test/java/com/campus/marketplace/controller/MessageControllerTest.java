@@ -1,10 +1,13 @@
 package com.campus.marketplace.controller;
 
+import com.campus.marketplace.dto.ConversationDTO;
 import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.CursorPage;
 import com.campus.marketplace.dto.MessageDTO;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.Message;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.service.MessagePushService;
 import com.campus.marketplace.service.MessageService;
 import com.campus.marketplace.service.UserService;
 import com.campus.marketplace.util.JwtUtil;
@@ -15,9 +18,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +40,9 @@ public class MessageControllerTest {
     @Mock
     private MessageService messageService;
     
+    @Mock
+    private MessagePushService messagePushService;
+    
     @Mock
     private JwtUtil jwtUtil;
     
@@ -196,6 +204,45 @@ public class MessageControllerTest {
         verify(messageService).getUnreadMessageCount("user-123");
     }
     
+    @Test
+    void testStreamMessages_OpensStreamForCurrentUser() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messagePushService.subscribe("user-123")).thenReturn(Optional.of(new SseEmitter()));
+        
+        mockMvc.perform(get("/api/messages/stream")
+                .header("Authorization", authToken)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        
+        verify(messagePushService).subscribe("user-123");
+    }
+    
+    @Test
+    void testStreamMessages_UnknownUser() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/messages/stream")
+                .header("Authorization", authToken)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+        
+        verifyNoInteractions(messagePushService);
+    }
+    
+    @Test
+    void testStreamMessages_PushDisabled() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messagePushService.subscribe("user-123")).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/messages/stream")
+                .header("Authorization", authToken)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+    
     @Test
     void testGetUnreadMessageCount_AccessDenied() throws Exception {
         // Arrange
@@ -210,4 +257,124 @@ public class MessageControllerTest {
         
         verify(messageService, never()).getUnreadMessageCount(anyString());
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testGetInbox_Success() throws Exception {
+        ConversationDTO conversation = new ConversationDTO();
+        conversation.setId("conversation-123");
+        conversation.setOtherUserId("user-2");
+        conversation.setUnreadCount(2);
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getInbox("user-123", 0, 20)).thenReturn(new PageImpl<>(Arrays.asList(conversation)));
+        
+        mockMvc.perform(get("/api/messages/inbox")
+                .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("conversation-123"))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(2));
+    }
+    
+    @Test
+    void testGetConversationMessages_Success() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getConversationMessages("conversation-123", "user-123", 1, 10))
+                .thenReturn(new PageImpl<>(Arrays.asList(messageDTO)));
+        
+        mockMvc.perform(get("/api/messages/conversations/conversation-123")
+                .header("Authorization", authToken)
+                .param("page", "1")
+                .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("message-123"));
+    }
+    
+    @Test
+    void testGetMessagesForListing_Paged() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getMessagesForListing("listing-123", "user-123", 0, 5))
+                .thenReturn(new PageImpl<>(Arrays.asList(messageDTO)));
+        
+        mockMvc.perform(get("/api/messages/listing/listing-123")
+                .header("Authorization", authToken)
+                .param("page", "0")
+                .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("message-123"));
+        
+        verify(messageService, never()).getMessagesForListing("listing-123", "user-123");
+    }
+    
+    @Test
+    void testGetConversationHistory_PassesCursors() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getConversationHistory("conversation-123", "user-123", "older-token", null, 30))
+                .thenReturn(new CursorPage<>(Arrays.asList(messageDTO), "next-token", "prev-token", true, 30));
+        
+        mockMvc.perform(get("/api/messages/conversations/conversation-123/history")
+                .header("Authorization", authToken)
+                .param("before", "older-token")
+                .param("size", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("message-123"))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.prevCursor").value("prev-token"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+    
+    @Test
+    void testGetConversationHistoryForListing_InvalidCursor() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getConversationHistoryForListing("listing-123", "user-123", "user-456", "user-123", null, "bad", 20))
+                .thenThrow(new RuntimeException("Invalid cursor: bad"));
+        
+        mockMvc.perform(get("/api/messages/conversation/listing/listing-123/user-123/user-456/history")
+                .header("Authorization", authToken)
+                .param("after", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Error: Invalid cursor: bad"));
+    }
+    
+    @Test
+    void testGetConversationMessages_NotParticipant() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        when(messageService.getConversationMessages("conversation-123", "user-123", 0, 20))
+                .thenThrow(new RuntimeException("Access denied: You can only view conversations you're part of"));
+        
+        mockMvc.perform(get("/api/messages/conversations/conversation-123")
+                .header("Authorization", authToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Error: Access denied: You can only view conversations you're part of"));
+    }
+    
+    @Test
+    void testMarkConversationAsRead_Success() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        doNothing().when(messageService).markConversationAsRead("conversation-123", "user-123");
+        
+        mockMvc.perform(patch("/api/messages/conversations/conversation-123/mark-read")
+                .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Conversation marked as read"));
+        
+        verify(messageService).markConversationAsRead("conversation-123", "user-123");
+    }
+    
+    @Test
+    void testMarkConversationAsRead_NotParticipant() throws Exception {
+        when(jwtUtil.extractUsername("test-jwt-token")).thenReturn("user@example.com");
+        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(testUser));
+        doThrow(new RuntimeException("Access denied: You can only view conversations you're part of"))
+                .when(messageService).markConversationAsRead("conversation-123", "user-123");
+        
+        mockMvc.perform(patch("/api/messages/conversations/conversation-123/mark-read")
+                .header("Authorization", authToken))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -133,15 +133,15 @@ public class TransactionControllerTest {
     @Test
     void testGetAllTransactions() throws Exception {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(transaction);
-        when(transactionService.getAllTransactions()).thenReturn(transactions);
+        List<TransactionDTO> transactions = Arrays.asList(new TransactionDTO(transaction));
+        when(transactionService.getAllTransactionDTOs()).thenReturn(transactions);
         
         // Act & Assert
         mockMvc.perform(get("/api/transactions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value("transaction-123"));
         
-        verify(transactionService).getAllTransactions();
+        verify(transactionService).getAllTransactionDTOs();
     }
     
     @Test
@@ -2,6 +2,7 @@ package com.campus.marketplace.controller;
 
 import com.campus.marketplace.entity.User;
 import com.campus.marketplace.service.UserService;
+import com.campus.marketplace.util.ETags;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +18,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -91,6 +93,18 @@ public class UserControllerTest {
         verify(userService, times(1)).getUserById("non-existent");
     }
     
+    @Test
+    void testGetUserById_NotModified() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(userService.getUserVersion("user-123")).thenReturn(Optional.of(updatedAt));
+
+        mockMvc.perform(get("/api/users/user-123")
+                .header("If-None-Match", ETags.forVersion("user-123", updatedAt)))
+                .andExpect(status().isNotModified());
+
+        verify(userService, never()).getUserById(any());
+    }
+    
     @Test
     void testGetAllUsers() throws Exception {
         List<User> users = Arrays.asList(testUser);
@@ -0,0 +1,148 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.User;
+import com.campus.marketplace.service.ListingService;
+import com.campus.marketplace.service.MessageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows InnoDB reads to answer GET /api/messages/listing/{listingId} for one participant of a listing with
+ * 50 buyer threads: the listing-wide read filtered in Java (before) against the participant-scoped query
+ * (after, V13 indexes). Measured as the server's Innodb_rows_read delta, so nothing else may use the
+ * database while it runs. Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups= -Dtest=ListingMessagesRowsReadBenchmarkTest}.
+ */
+@Tag("benchmark")
+class ListingMessagesRowsReadBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int BUYERS = 50;
+    private static final int MESSAGES_PER_THREAD = 10;
+    private static final int ROUNDS = 20;
+    private static final int MEASUREMENTS = 3;
+
+    // The listing-wide read getMessagesForListing used to do (same joins as MessageRepository.DTO_SELECT)
+    private static final String LISTING_WIDE_SQL =
+            "SELECT m.id AS message_id, m.from_user_id, m.to_user_id, l.title, f.name AS from_name, " +
+            "t.name AS to_name, m.content, m.created_at " +
+            "FROM messages m JOIN listings l ON l.id = m.listing_id JOIN users f ON f.id = m.from_user_id " +
+            "JOIN users t ON t.id = m.to_user_id JOIN conversations c ON c.id = m.conversation_id " +
+            "WHERE m.listing_id = ? ORDER BY m.created_at, m.id";
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void participantQueryReadsOnlyTheirThreads() {
+        User seller = createUserFixture("Benchmark Seller", randomEmail(), User.UserRole.USER);
+        Listing listing = createListing(seller, createCategoryFixture("RowsRead"));
+        List<User> buyers = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            User buyer = createUserFixture("Benchmark Buyer " + b, randomEmail(), User.UserRole.USER);
+            buyers.add(buyer);
+            for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                boolean fromBuyer = i % 2 == 0;
+                sendMessage(fromBuyer ? buyer : seller, listing, fromBuyer ? seller.getId() : buyer.getId(), i);
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE messages");
+        User buyer = buyers.get(BUYERS / 2);
+
+        // Same answer both ways
+        List<String> expected = listingWideRead(listing.getId(), buyer.getId());
+        List<String> actual = messageService.getMessagesForListing(listing.getId(), buyer.getId()).stream()
+                .map(MessageDTO::getId)
+                .collect(Collectors.toList());
+        assertEquals(MESSAGES_PER_THREAD, actual.size());
+        assertEquals(expected, actual);
+
+        long buyerBefore = rowsRead(() -> listingWideRead(listing.getId(), buyer.getId()));
+        long buyerAfter = rowsRead(() -> messageService.getMessagesForListing(listing.getId(), buyer.getId()));
+        long buyerPageAfter = rowsRead(() -> messageService.getMessagesForListing(listing.getId(), buyer.getId(), 0, 20));
+        long sellerBefore = rowsRead(() -> listingWideRead(listing.getId(), seller.getId()));
+        long sellerAfter = rowsRead(() -> messageService.getMessagesForListing(listing.getId(), seller.getId()));
+
+        System.out.printf("listing with %d buyer threads, %d messages each%n", BUYERS, MESSAGES_PER_THREAD);
+        System.out.printf("buyer  rows read per request: before %d, after %d (paged: %d)%n",
+                buyerBefore, buyerAfter, buyerPageAfter);
+        System.out.printf("seller rows read per request: before %d, after %d%n", sellerBefore, sellerAfter);
+
+        assertTrue(buyerAfter * 10 < buyerBefore,
+                "a buyer should read a fraction of the listing's rows: before " + buyerBefore + ", after " + buyerAfter);
+        // the seller is in every thread, so there is nothing to skip, but nothing extra should be read either
+        assertTrue(sellerAfter <= sellerBefore * 2,
+                "seller read more rows than the listing-wide query: before " + sellerBefore + ", after " + sellerAfter);
+    }
+
+    // What getMessagesForListing did before: load the listing, read every message of it, filter in Java
+    private List<String> listingWideRead(String listingId, String userId) {
+        jdbcTemplate.queryForList("SELECT * FROM listings WHERE id = ?", listingId);
+        return jdbcTemplate.queryForList(LISTING_WIDE_SQL, listingId).stream()
+                .filter(row -> userId.equals(row.get("from_user_id")) || userId.equals(row.get("to_user_id")))
+                .map(row -> (String) row.get("message_id"))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Average Innodb_rows_read per run of a request. The counter is server-wide, so the lowest of a few
+     * measurements is taken: background reads (the startup listing scan, index refreshes) that overlap one
+     * of them do not count against the request.
+     */
+    private long rowsRead(Runnable request) {
+        request.run();
+        long lowest = Long.MAX_VALUE;
+        for (int m = 0; m < MEASUREMENTS; m++) {
+            long start = innodbRowsRead();
+            for (int i = 0; i < ROUNDS; i++) {
+                request.run();
+            }
+            lowest = Math.min(lowest, (innodbRowsRead() - start) / ROUNDS);
+        }
+        return lowest;
+    }
+
+    private long innodbRowsRead() {
+        return Long.parseLong(String.valueOf(
+                jdbcTemplate.queryForMap("SHOW GLOBAL STATUS LIKE 'Innodb_rows_read'").get("Value")));
+    }
+
+    private Listing createListing(User seller, Category category) {
+        Listing listing = new Listing();
+        listing.setSeller(seller);
+        listing.setCategory(category);
+        listing.setTitle("Popular bike");
+        listing.setDescription("Listing with many interested buyers");
+        listing.setPrice(new BigDecimal("120.00"));
+        listing.setCondition(Listing.ItemCondition.GOOD);
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        return listingService.createListing(listing);
+    }
+
+    private void sendMessage(User from, Listing listing, String toUserId, int n) {
+        CreateMessageRequest request = new CreateMessageRequest();
+        request.setListingId(listing.getId());
+        request.setToUserId(toUserId);
+        request.setContent("Benchmark message " + n);
+        messageService.sendMessage(request, from.getId());
+    }
+}
@@ -0,0 +1,172 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.User;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL the advanced search actually emits and checks that each supported
+ * filter/sort combination is served by its composite index (V7/V8) without a filesort, and that
+ * course-code searches are answered from listing_course_codes (V9).
+ */
+class ListingSearchExplainIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int LISTING_COUNT = 5000;
+    private static final int PAGE_SIZE = 10;
+
+    @DynamicPropertySource
+    static void captureSql(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlCapture.class::getName);
+    }
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String categoryId;
+
+    @BeforeEach
+    void seedListings() {
+        User seller = createUserFixture("Explain Seller", randomEmail(), User.UserRole.USER);
+        for (int i = 0; i < 8; i++) {
+            Category category = createCategoryFixture("Explain" + i);
+            if (i == 0) {
+                categoryId = category.getId();
+            }
+        }
+        jdbcTemplate.execute("SET SESSION cte_max_recursion_depth = " + (LISTING_COUNT + 1));
+        jdbcTemplate.update(
+                "INSERT INTO listings (id, seller_id, title, description, price, category_id, `condition`, status, created_at) " +
+                "WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < ?), " +
+                "cats AS (SELECT id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS idx FROM categories) " +
+                "SELECT UUID(), ?, CONCAT('Explain item ', n), 'Seeded for EXPLAIN checks', " +
+                "ROUND(5 + (n * 7919) % 50000 / 100, 2), cats.id, " +
+                "ELT(1 + n % 5, 'NEW', 'LIKE_NEW', 'GOOD', 'FAIR', 'POOR'), " +
+                "ELT(1 + n % 10, 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'ACTIVE', 'SOLD', 'PENDING', 'DRAFT'), " +
+                "NOW() - INTERVAL n MINUTE " +
+                "FROM seq JOIN cats ON cats.idx = n % 8",
+                LISTING_COUNT, seller.getId());
+        jdbcTemplate.execute("ANALYZE TABLE listings");
+    }
+
+    @Test
+    void statusOnlyNewestUsesStatusCreatedAtIndex() {
+        assertIndex("idx_listings_status_created_at", newest(),
+                null, null, null, null);
+    }
+
+    @Test
+    void statusOnlyPriceSortUsesStatusPriceIndex() {
+        assertIndex("idx_listings_status_price", priceAsc(),
+                null, null, null, null);
+    }
+
+    @Test
+    void categoryNewestUsesCategoryStatusCreatedAtIndex() {
+        assertIndex("idx_listings_category_status_created_at", newest(),
+                categoryId, null, null, null);
+    }
+
+    @Test
+    void categoryPriceSortUsesStatusCategoryPriceIndex() {
+        assertIndex("idx_listings_status_category_price", priceAsc(),
+                categoryId, null, null, null);
+    }
+
+    @Test
+    void categoryPriceRangeUsesStatusCategoryPriceIndex() {
+        assertIndex("idx_listings_status_category_price", priceAsc(),
+                categoryId, new BigDecimal("50.00"), new BigDecimal("150.00"), null);
+    }
+
+    @Test
+    void conditionNewestUsesStatusConditionCreatedAtIndex() {
+        assertIndex("idx_listings_status_condition_created_at", newest(),
+                null, null, null, Listing.ItemCondition.GOOD);
+    }
+
+    @Test
+    void conditionPriceSortUsesStatusConditionPriceIndex() {
+        assertIndex("idx_listings_status_condition_price", priceAsc(),
+                null, null, null, Listing.ItemCondition.GOOD);
+    }
+
+    @Test
+    void courseCodeSearchUsesCourseCodeIndex() {
+        jdbcTemplate.update(
+                "INSERT INTO listing_course_codes (listing_id, dept, course_number) " +
+                "SELECT id, ELT(1 + CRC32(id) % 4, 'CMPE', 'CS', 'MATH', 'ENGL'), CAST(100 + CRC32(id) % 200 AS CHAR) " +
+                "FROM listings");
+        jdbcTemplate.execute("ANALYZE TABLE listing_course_codes");
+        SqlCapture.clear();
+        listingRepository.findIds(ListingSpecifications.searchFilters(
+                "cmpe202", null, null, null, null, Listing.ListingStatus.ACTIVE), newest());
+        String sql = SqlCapture.first("select l1_0.id");
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql,
+                Listing.ListingStatus.ACTIVE.name(), "CMPE", "202", PAGE_SIZE);
+        assertTrue(plan.stream().anyMatch(row -> "idx_listing_course_codes_code".equals(row.get("key"))),
+                "course code not looked up by index for: " + sql + " plan: " + plan);
+        assertFalse(sql.contains(" like "), "course code search still uses LIKE: " + sql);
+    }
+
+    private void assertIndex(String expectedKey, PageRequest pageable, String category,
+                             BigDecimal minPrice, BigDecimal maxPrice, Listing.ItemCondition condition) {
+        SqlCapture.clear();
+        listingRepository.findIds(ListingSpecifications.searchFilters(
+                null, category, minPrice, maxPrice, condition, Listing.ListingStatus.ACTIVE), pageable);
+        String sql = SqlCapture.first("select l1_0.id");
+
+        // Bind order follows the predicate order in ListingSpecifications, then the LIMIT.
+        List<Object> args = new ArrayList<>();
+        args.add(Listing.ListingStatus.ACTIVE.name());
+        if (category != null) {
+            args.add(category);
+        }
+        if (condition != null) {
+            args.add(condition.name());
+        }
+        if (minPrice != null) {
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            args.add(maxPrice);
+        }
+        args.add(pageable.getPageSize());
+
+        Map<String, Object> plan = jdbcTemplate.queryForMap("EXPLAIN " + sql, args.toArray());
+        assertEquals(expectedKey, plan.get("key"), "unexpected index for: " + sql + " plan: " + plan);
+        Object extra = plan.get("Extra");
+        assertFalse(extra != null && extra.toString().contains("Using filesort"),
+                "sort not served by index for: " + sql + " plan: " + plan);
+    }
+
+    private static PageRequest newest() {
+        return PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt").descending());
+    }
+
+    private static PageRequest priceAsc() {
+        return PageRequest.of(0, PAGE_SIZE, Sort.by("price").ascending());
+    }
+}
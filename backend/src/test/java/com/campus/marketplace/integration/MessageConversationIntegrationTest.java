@@ -0,0 +1,249 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.service.MessageService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MessageConversationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int RACE_LISTINGS = 8;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Test
+    void inboxSummaryFollowsSendsAndReads() throws Exception {
+        AuthResult seller = registerUserThroughApi("Seller Inbox", randomEmail(), "SellerPass321!");
+        AuthResult buyer = registerUserThroughApi("Buyer Inbox", randomEmail(), "BuyerPass321!");
+        AuthResult stranger = registerUserThroughApi("Stranger Inbox", randomEmail(), "StrangerPass321!");
+        String listingId = createListing(seller);
+
+        String firstMessageId = sendMessage(buyer, listingId, seller.getUserId(), "Is the lamp still available?");
+        sendMessage(buyer, listingId, seller.getUserId(), "I can pick it up today.");
+        sendMessage(seller, listingId, buyer.getUserId(), "Yes, come by after 5.");
+
+        String inbox = mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].listingId").value(listingId))
+                .andExpect(jsonPath("$.content[0].otherUserId").value(buyer.getUserId()))
+                .andExpect(jsonPath("$.content[0].lastMessagePreview").value("Yes, come by after 5."))
+                .andExpect(jsonPath("$.content[0].lastSenderId").value(seller.getUserId()))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(2))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String conversationId = objectMapper.readTree(inbox).get("content").get(0).get("id").asText();
+
+        mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(conversationId))
+                .andExpect(jsonPath("$.content[0].otherUserId").value(seller.getUserId()))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(1));
+
+        mockMvc.perform(get("/api/messages/conversations/" + conversationId)
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+
+        mockMvc.perform(get("/api/messages/conversations/" + conversationId)
+                        .header("Authorization", authHeader(stranger.getToken())))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/api/messages/" + firstMessageId + "/mark-read")
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(1));
+
+        mockMvc.perform(patch("/api/messages/mark-all-read/" + seller.getUserId())
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(0));
+        mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(1));
+
+        mockMvc.perform(patch("/api/messages/conversations/" + conversationId + "/mark-read")
+                        .header("Authorization", authHeader(stranger.getToken())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(patch("/api/messages/conversations/" + conversationId + "/mark-read")
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/messages/inbox")
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(jsonPath("$.content[0].unreadCount").value(0));
+        mockMvc.perform(get("/api/messages/unread/count/" + buyer.getUserId())
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(0));
+
+        // both directions of the thread are one conversation
+        mockMvc.perform(get("/api/messages/conversation/listing/" + listingId + "/" + seller.getUserId() + "/" + buyer.getUserId())
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void historyPagesOlderAndSyncsNewer() throws Exception {
+        AuthResult seller = registerUserThroughApi("Seller History", randomEmail(), "SellerPass321!");
+        AuthResult buyer = registerUserThroughApi("Buyer History", randomEmail(), "BuyerPass321!");
+        String listingId = createListing(seller);
+        for (int i = 1; i <= 5; i++) {
+            sendMessage(i % 2 == 1 ? buyer : seller, listingId,
+                    i % 2 == 1 ? seller.getUserId() : buyer.getUserId(), "history message " + i);
+        }
+        String history = "/api/messages/conversation/listing/" + listingId + "/" + seller.getUserId() + "/" + buyer.getUserId() + "/history";
+
+        JsonNode newest = getJson(history + "?size=2", buyer);
+        assertEquals(List.of("history message 5", "history message 4"), contents(newest));
+        assertTrue(newest.get("hasNext").asBoolean());
+
+        JsonNode older = getJson(history + "?size=2&before=" + newest.get("nextCursor").asText(), buyer);
+        assertEquals(List.of("history message 3", "history message 2"), contents(older));
+        JsonNode oldest = getJson(history + "?size=2&before=" + older.get("nextCursor").asText(), buyer);
+        assertEquals(List.of("history message 1"), contents(oldest));
+        assertFalse(oldest.get("hasNext").asBoolean());
+
+        // back in focus: only what was sent since the newest message shown
+        String synced = newest.get("prevCursor").asText();
+        assertTrue(contents(getJson(history + "?after=" + synced, buyer)).isEmpty());
+        sendMessage(seller, listingId, buyer.getUserId(), "history message 6");
+        JsonNode update = getJson(history + "?after=" + synced, buyer);
+        assertEquals(List.of("history message 6"), contents(update));
+
+        mockMvc.perform(get(history + "?before=" + synced + "&after=" + synced)
+                        .header("Authorization", authHeader(buyer.getToken())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void concurrentFirstMessagesOfAThreadBothSucceed() throws Exception {
+        AuthResult seller = registerUserThroughApi("Seller Race", randomEmail(), "SellerPass321!");
+        AuthResult buyer = registerUserThroughApi("Buyer Race", randomEmail(), "BuyerPass321!");
+        List<String> listingIds = new ArrayList<>();
+        for (int i = 0; i < RACE_LISTINGS; i++) {
+            listingIds.add(createListing(seller));
+        }
+
+        // both participants write the first message of every thread at once; the conversation keys
+        // of the listings are neighbours, so gap locks of one thread would also block the others
+        ExecutorService executor = Executors.newFixedThreadPool(RACE_LISTINGS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MessageDTO>> sends = new ArrayList<>();
+        try {
+            for (String listingId : listingIds) {
+                sends.add(executor.submit(() -> {
+                    start.await();
+                    return messageService.sendMessage(
+                            new CreateMessageRequest(listingId, seller.getUserId(), "Still available?"), buyer.getUserId());
+                }));
+                sends.add(executor.submit(() -> {
+                    start.await();
+                    return messageService.sendMessage(
+                            new CreateMessageRequest(listingId, buyer.getUserId(), "Yes, it is."), seller.getUserId());
+                }));
+            }
+            start.countDown();
+            for (Future<MessageDTO> send : sends) {
+                assertNotNull(send.get(30, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (String listingId : listingIds) {
+            mockMvc.perform(get("/api/messages/conversation/listing/" + listingId + "/" + seller.getUserId() + "/" + buyer.getUserId())
+                            .header("Authorization", authHeader(buyer.getToken())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+        }
+        mockMvc.perform(get("/api/messages/inbox")
+                        .param("size", String.valueOf(RACE_LISTINGS * 2))
+                        .header("Authorization", authHeader(seller.getToken())))
+                .andExpect(jsonPath("$.totalElements").value(RACE_LISTINGS));
+    }
+
+    private JsonNode getJson(String url, AuthResult user) throws Exception {
+        String response = mockMvc.perform(get(url)
+                        .header("Authorization", authHeader(user.getToken())))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private List<String> contents(JsonNode page) {
+        List<String> contents = new ArrayList<>();
+        page.get("content").forEach(message -> contents.add(message.get("content").asText()));
+        return contents;
+    }
+
+    private String createListing(AuthResult seller) throws Exception {
+        ListingDTO listingRequest = new ListingDTO();
+        listingRequest.setSellerId(seller.getUserId());
+        listingRequest.setTitle("Inbox Desk Lamp");
+        listingRequest.setDescription("Lamp used by the inbox integration test.");
+        listingRequest.setPrice(new BigDecimal("15.00"));
+        listingRequest.setCategoryId(createCategoryFixture("InboxCategory").getId());
+        listingRequest.setCondition(Listing.ItemCondition.GOOD);
+        listingRequest.setImages("[]");
+        listingRequest.setStatus(Listing.ListingStatus.ACTIVE);
+
+        String response = mockMvc.perform(post("/api/listings")
+                        .header("Authorization", authHeader(seller.getToken()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(listingRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+
+    private String sendMessage(AuthResult from, String listingId, String toUserId, String content) throws Exception {
+        String response = mockMvc.perform(post("/api/messages")
+                        .header("Authorization", authHeader(from.getToken()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateMessageRequest(listingId, toUserId, content))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+}
@@ -0,0 +1,217 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.User;
+import com.campus.marketplace.service.MessagePushService;
+import com.campus.marketplace.util.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Load test of GET /api/messages/stream on one server: opens 10,000 idle streams (50 users with 200 each),
+ * then has every user send a message and measures heap per open stream and how long the messages take
+ * to reach all of their recipients' streams.
+ * Client and server sockets share this JVM, so it needs a file descriptor limit above 20,000
+ * (e.g. {@code ulimit -n 65536}) besides Docker for MySQL. Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups= -Dtest=MessagePushLoadIntegrationTest}.
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+    "messages.push.max-connections-per-user=200",
+    "server.tomcat.max-connections=12000",
+    "server.tomcat.accept-count=1000"
+})
+class MessagePushLoadIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int USERS = 50;
+    private static final int STREAMS_PER_USER = 200;
+    private static final int CONNECT_BATCH = 500;
+    private static final long TIMEOUT_MS = 120_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MessagePushService messagePushService;
+
+    // One client stream: its socket and everything received on it
+    private static class StreamClient {
+        private final int user;
+        private final String token;
+        private final SocketChannel channel;
+        private final StringBuilder received = new StringBuilder();
+        private boolean closed;
+
+        StreamClient(int user, String token, SocketChannel channel) {
+            this.user = user;
+            this.token = token;
+            this.channel = channel;
+        }
+
+        boolean has(String text) {
+            return received.indexOf(text) >= 0;
+        }
+    }
+
+    @Test
+    void tenThousandIdleStreams() throws Exception {
+        List<User> users = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = createUserFixture("Stream User " + i, randomEmail(), User.UserRole.USER);
+            users.add(user);
+            tokens.add(jwtUtil.generateToken(user.getEmail()));
+        }
+        String listingId = createListing(users.get(0).getId(), tokens.get(0));
+
+        List<StreamClient> clients = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+        try (Selector selector = Selector.open()) {
+            long heapBefore = usedHeap();
+            long openStart = System.nanoTime();
+            for (int opened = 0; opened < USERS * STREAMS_PER_USER; opened += CONNECT_BATCH) {
+                List<StreamClient> batch = new ArrayList<>();
+                for (int i = opened; i < opened + CONNECT_BATCH; i++) {
+                    batch.add(connect(selector, i % USERS, tokens.get(i % USERS)));
+                }
+                clients.addAll(batch);
+                awaitAll(selector, buffer, batch, client -> client.has("event:unread"));
+            }
+            long openMs = (System.nanoTime() - openStart) / 1_000_000;
+            long heapAfter = usedHeap();
+            assertEquals(USERS * STREAMS_PER_USER, messagePushService.getConnectionCount());
+
+            // every user sends one message to the next, so each stream gets one as recipient and one as sender
+            long sendStart = System.nanoTime();
+            for (int i = 0; i < USERS; i++) {
+                CreateMessageRequest request = new CreateMessageRequest(
+                    listingId, users.get((i + 1) % USERS).getId(), "load test message " + i);
+                mockMvc.perform(post("/api/messages")
+                        .header("Authorization", authHeader(tokens.get(i)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk());
+            }
+            long sentMs = (System.nanoTime() - sendStart) / 1_000_000;
+            awaitAll(selector, buffer, clients,
+                client -> client.has(content((client.user + USERS - 1) % USERS)) && client.has(content(client.user)));
+            long deliveredMs = (System.nanoTime() - sendStart) / 1_000_000;
+
+            assertTrue(clients.stream().noneMatch(client -> client.closed));
+            assertEquals(USERS * STREAMS_PER_USER, messagePushService.getConnectionCount());
+            System.out.printf("streams: %d open in %d ms, ~%d heap bytes per stream (client and server side)%n",
+                clients.size(), openMs, (heapAfter - heapBefore) / clients.size());
+            System.out.printf("%d messages sent in %d ms, delivered to all %d streams after %d ms%n",
+                USERS, sentMs, clients.size(), deliveredMs);
+        } finally {
+            for (StreamClient client : clients) {
+                client.channel.close();
+            }
+        }
+    }
+
+    private String createListing(String sellerId, String token) throws Exception {
+        ListingDTO listingRequest = new ListingDTO();
+        listingRequest.setSellerId(sellerId);
+        listingRequest.setTitle("Load Test Desk");
+        listingRequest.setDescription("Desk used by the message stream load test.");
+        listingRequest.setPrice(new BigDecimal("40.00"));
+        listingRequest.setCategoryId(createCategoryFixture("PushLoad").getId());
+        listingRequest.setCondition(Listing.ItemCondition.GOOD);
+        listingRequest.setImages("[]");
+        listingRequest.setStatus(Listing.ListingStatus.ACTIVE);
+        String response = mockMvc.perform(post("/api/listings")
+                .header("Authorization", authHeader(token))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(listingRequest)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(response).get("id").asText();
+    }
+
+    private StreamClient connect(Selector selector, int user, String token) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        StreamClient client = new StreamClient(user, token, channel);
+        channel.connect(new InetSocketAddress("localhost", port));
+        channel.register(selector, SelectionKey.OP_CONNECT, client);
+        return client;
+    }
+
+    private void awaitAll(Selector selector, ByteBuffer buffer, List<StreamClient> clients,
+                          Predicate<StreamClient> done) throws IOException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!clients.stream().allMatch(done)) {
+            assertTrue(System.currentTimeMillis() < deadline, "streams did not receive their events in time");
+            assertTrue(clients.stream().noneMatch(client -> client.closed), "a stream was closed");
+            selector.select(100);
+            for (SelectionKey key : selector.selectedKeys()) {
+                handle(key, buffer);
+            }
+            selector.selectedKeys().clear();
+        }
+    }
+
+    private void handle(SelectionKey key, ByteBuffer buffer) throws IOException {
+        StreamClient client = (StreamClient) key.attachment();
+        if (key.isConnectable()) {
+            client.channel.finishConnect();
+            String request = "GET /api/messages/stream HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Authorization: Bearer " + client.token + "\r\n"
+                + "Accept: text/event-stream\r\n\r\n";
+            client.channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+            key.interestOps(SelectionKey.OP_READ);
+        } else if (key.isReadable()) {
+            buffer.clear();
+            int read = client.channel.read(buffer);
+            if (read < 0) {
+                client.closed = true;
+                key.cancel();
+                return;
+            }
+            client.received.append(new String(buffer.array(), 0, read, StandardCharsets.UTF_8));
+        }
+    }
+
+    // content of message i as it appears in an event, so message 1 does not match message 10
+    private static String content(int i) {
+        return "\"content\":\"load test message " + i + "\"";
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
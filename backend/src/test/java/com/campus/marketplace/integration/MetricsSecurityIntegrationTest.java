@@ -0,0 +1,33 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.entity.User;
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MetricsSecurityIntegrationTest extends AbstractIntegrationTest {
+
+    @Test
+    void metricsAreOnlyVisibleToAdmins() throws Exception {
+        AuthResult user = registerUserThroughApi("Metrics User", randomEmail(), DEFAULT_PASSWORD);
+        User admin = createUserFixture("Metrics Admin", randomEmail(), User.UserRole.ADMIN);
+        String adminToken = loginAndGetToken(admin.getEmail(), DEFAULT_PASSWORD);
+
+        mockMvc.perform(get("/api/metrics"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/metrics")
+                        .header("Authorization", authHeader(user.getToken())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/metrics/jvm.memory.used")
+                        .header("Authorization", authHeader(user.getToken())))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/metrics")
+                        .header("Authorization", authHeader(adminToken)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names").isArray());
+    }
+}
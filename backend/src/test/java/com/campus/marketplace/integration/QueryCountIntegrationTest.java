@@ -0,0 +1,157 @@
+package com.campus.marketplace.integration;
+
+import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.User;
+import com.campus.marketplace.service.ListingService;
+import com.campus.marketplace.service.MessageService;
+import com.campus.marketplace.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards against N+1 regressions: each read endpoint must issue the same number of SQL
+ * statements whether it returns one row or many.
+ */
+class QueryCountIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int MANY = 5;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void listingEndpointsIssueConstantStatementCount() throws Exception {
+        AuthResult oneSeller = registerUserThroughApi("One Seller", randomEmail(), "SellerPass123!");
+        AuthResult manySeller = registerUserThroughApi("Many Seller", randomEmail(), "SellerPass123!");
+        Category oneCategory = createCategoryFixture("QueryCountOne");
+        Category manyCategory = createCategoryFixture("QueryCountMany");
+
+        createListing(oneSeller.getUserId(), oneCategory, "Single item");
+        for (int i = 0; i < MANY; i++) {
+            createListing(manySeller.getUserId(), manyCategory, "Bulk item " + i);
+        }
+
+        String token = authHeader(oneSeller.getToken());
+        assertSameStatementCount(
+                get("/api/listings/seller/" + oneSeller.getUserId()).header("Authorization", token),
+                get("/api/listings/seller/" + manySeller.getUserId()).header("Authorization", token));
+        assertSameStatementCount(
+                get("/api/listings/category/" + oneCategory.getId() + "/status/ACTIVE").header("Authorization", token),
+                get("/api/listings/category/" + manyCategory.getId() + "/status/ACTIVE").header("Authorization", token));
+        assertSameStatementCount(
+                get("/api/listings/search/advanced").param("categoryId", oneCategory.getId()).header("Authorization", token),
+                get("/api/listings/search/advanced").param("categoryId", manyCategory.getId()).header("Authorization", token));
+    }
+
+    @Test
+    void messageEndpointsIssueConstantStatementCount() throws Exception {
+        AuthResult oneRecipient = registerUserThroughApi("One Recipient", randomEmail(), "RecipientPass123!");
+        AuthResult manyRecipient = registerUserThroughApi("Many Recipient", randomEmail(), "RecipientPass123!");
+        Category category = createCategoryFixture("QueryCountMessages");
+
+        Listing oneListing = createListing(oneRecipient.getUserId(), category, "Message target");
+        Listing manyListing = createListing(manyRecipient.getUserId(), category, "Popular item");
+        sendMessage(createUserFixture("Sender", randomEmail(), User.UserRole.USER), oneListing, oneRecipient.getUserId());
+        for (int i = 0; i < MANY; i++) {
+            User sender = createUserFixture("Sender " + i, randomEmail(), User.UserRole.USER);
+            sendMessage(sender, manyListing, manyRecipient.getUserId());
+        }
+
+        assertSameStatementCount(
+                get("/api/messages/user/" + oneRecipient.getUserId()).param("page", "-1")
+                        .header("Authorization", authHeader(oneRecipient.getToken())),
+                get("/api/messages/user/" + manyRecipient.getUserId()).param("page", "-1")
+                        .header("Authorization", authHeader(manyRecipient.getToken())));
+        assertSameStatementCount(
+                get("/api/messages/received/" + oneRecipient.getUserId())
+                        .header("Authorization", authHeader(oneRecipient.getToken())),
+                get("/api/messages/received/" + manyRecipient.getUserId())
+                        .header("Authorization", authHeader(manyRecipient.getToken())));
+    }
+
+    @Test
+    void transactionEndpointsIssueConstantStatementCount() throws Exception {
+        AuthResult oneSeller = registerUserThroughApi("One Tx Seller", randomEmail(), "SellerPass123!");
+        AuthResult manySeller = registerUserThroughApi("Many Tx Seller", randomEmail(), "SellerPass123!");
+        Category category = createCategoryFixture("QueryCountTransactions");
+
+        Listing single = createListing(oneSeller.getUserId(), category, "Sold once");
+        User firstBuyer = createUserFixture("Buyer", randomEmail(), User.UserRole.USER);
+        transactionService.createTransaction(single.getId(), firstBuyer.getId(), single.getPrice());
+        for (int i = 0; i < MANY; i++) {
+            Listing listing = createListing(manySeller.getUserId(), category, "Sold many " + i);
+            User buyer = createUserFixture("Buyer " + i, randomEmail(), User.UserRole.USER);
+            transactionService.createTransaction(listing.getId(), buyer.getId(), listing.getPrice());
+        }
+
+        String token = authHeader(oneSeller.getToken());
+        assertSameStatementCount(
+                get("/api/transactions/seller/" + oneSeller.getUserId()).header("Authorization", token),
+                get("/api/transactions/seller/" + manySeller.getUserId()).header("Authorization", token));
+        assertSameStatementCount(
+                get("/api/transactions/seller/" + oneSeller.getUserId() + "/status/PENDING").header("Authorization", token),
+                get("/api/transactions/seller/" + manySeller.getUserId() + "/status/PENDING").header("Authorization", token));
+    }
+
+    private void assertSameStatementCount(RequestBuilder oneRow, RequestBuilder manyRows) throws Exception {
+        long single = countStatements(oneRow);
+        long many = countStatements(manyRows);
+        assertEquals(single, many, "statement count grew with result size");
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Listing createListing(String sellerId, Category category, String title) {
+        Listing listing = new Listing();
+        listing.setSeller(userService.getUserById(sellerId).orElseThrow());
+        listing.setCategory(category);
+        listing.setTitle(title);
+        listing.setDescription(title + " for query count checks");
+        listing.setPrice(new BigDecimal("25.00"));
+        listing.setCondition(Listing.ItemCondition.GOOD);
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        return listingService.createListing(listing);
+    }
+
+    private void sendMessage(User from, Listing listing, String toUserId) {
+        CreateMessageRequest request = new CreateMessageRequest();
+        request.setListingId(listing.getId());
+        request.setToUserId(toUserId);
+        request.setContent("Is this still available?");
+        messageService.sendMessage(request, from.getId());
+    }
+}
@@ -0,0 +1,34 @@
+package com.campus.marketplace.integration;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hibernate statement inspector that records every SQL string it sees, so tests can
+ * EXPLAIN exactly what the ORM sent. Register with
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /** First captured statement starting with the given prefix (case-insensitive). */
+    public static String first(String prefix) {
+        return STATEMENTS.stream()
+                .filter(sql -> sql.regionMatches(true, 0, prefix, 0, prefix.length()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement starting with: " + prefix + " in " + STATEMENTS));
+    }
+}
@@ -0,0 +1,99 @@
+package com.campus.marketplace.repository;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.ListingCourseCode;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ListingSpecificationsTest {
+
+    @Mock
+    private Root<Listing> root;
+
+    @Mock
+    private CriteriaQuery<?> query;
+
+    @Mock
+    private CriteriaBuilder cb;
+
+    @Mock
+    private Path<Object> path;
+
+    @BeforeEach
+    void setUp() {
+        when(root.get(anyString())).thenReturn(path);
+        when(path.get(anyString())).thenReturn(path);
+    }
+
+    @Test
+    void testOnlySuppliedFiltersBecomePredicates() {
+        ListingSpecifications.searchFilters(null, "category-123", null, null, null, Listing.ListingStatus.ACTIVE)
+            .toPredicate(root, query, cb);
+
+        verify(cb).equal(path, Listing.ListingStatus.ACTIVE);
+        verify(cb).equal(path, "category-123");
+        verify(cb, times(2)).equal(any(), any(Object.class));
+        verify(cb, never()).like(any(), anyString(), anyChar());
+        verify(cb, never()).greaterThanOrEqualTo(any(), any(BigDecimal.class));
+        verify(cb, never()).lessThanOrEqualTo(any(), any(BigDecimal.class));
+        verify(cb).and(any(Predicate[].class));
+    }
+
+    @Test
+    void testSearchTermEscapesLikeWildcards() {
+        ListingSpecifications.searchFilters("100%_off", null, null, null, null, null)
+            .toPredicate(root, query, cb);
+
+        verify(cb, times(2)).like(any(), eq("%100\\%\\_off%"), eq('\\'));
+        verify(cb, never()).equal(any(), any(Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCourseCodeTermUsesCourseCodeTable() {
+        Subquery<String> listingIds = mock(Subquery.class);
+        Root<ListingCourseCode> code = mock(Root.class);
+        doReturn(listingIds).when(query).subquery(String.class);
+        when(listingIds.from(ListingCourseCode.class)).thenReturn(code);
+        when(listingIds.select(any())).thenReturn(listingIds);
+        when(code.get(anyString())).thenReturn(path);
+
+        ListingSpecifications.searchFilters("cmpe-202", null, null, null, null, Listing.ListingStatus.ACTIVE)
+            .toPredicate(root, query, cb);
+
+        verify(cb).equal(path, "CMPE");
+        verify(cb).equal(path, "202");
+        verify(path).in(listingIds);
+        verify(cb, never()).like(any(), anyString(), anyChar());
+    }
+
+    @Test
+    void testPriceRangeAddsBothBounds() {
+        ListingSpecifications.searchFilters(null, null, new BigDecimal("10"), new BigDecimal("20"), null, null)
+            .toPredicate(root, query, cb);
+
+        verify(cb).greaterThanOrEqualTo(any(), eq(new BigDecimal("10")));
+        verify(cb).lessThanOrEqualTo(any(), eq(new BigDecimal("20")));
+    }
+}
@@ -0,0 +1,209 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.config.OpenAiConfig;
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingRepositoryCustom;
+import com.campus.marketplace.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpServer;
+import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives ChatbotSearchService through the real OpenAI client against a local HTTP server
+ * that answers quickly, slowly, or with errors.
+ */
+public class ChatbotSearchServiceStubServerTest {
+
+    private static final String COMPLETION = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1,"
+        + "\"model\":\"gpt-3.5-turbo\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+        + "\"content\":\"CMPE 202, textbook\"},\"finish_reason\":\"stop\"}],"
+        + "\"usage\":{\"prompt_tokens\":1,\"completion_tokens\":1,\"total_tokens\":2}}";
+    private static final String ERROR = "{\"error\":{\"message\":\"overloaded\",\"type\":\"server_error\"}}";
+
+    private enum Mode { FAST, SLOW, FAIL }
+
+    private final AtomicReference<Mode> mode = new AtomicReference<>(Mode.FAST);
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private OpenAiService openAiService;
+    private SimpleMeterRegistry meterRegistry;
+    private ListingRepository listingRepository;
+    private ChatbotSearchService chatbotSearchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            Mode current = mode.get();
+            if (current == Mode.SLOW) {
+                try {
+                    Thread.sleep(1500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = (current == Mode.FAIL ? ERROR : COMPLETION).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(current == Mode.FAIL ? 500 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        openAiService = new OpenAiConfig().openAiService("test-key", Duration.ofSeconds(5), 2, Duration.ofMinutes(1),
+            "http://localhost:" + server.getAddress().getPort() + "/");
+
+        Category category = new Category();
+        category.setName("Books");
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        ListingDTO listing = new ListingDTO();
+        listing.setId("listing-1");
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        listingRepository = mock(ListingRepository.class);
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Arrays.asList(new ListingRepositoryCustom.ScoredId("listing-1", 2))));
+        when(listingRepository.findDTOsByIdIn(anyCollection())).thenReturn(Arrays.asList(listing));
+
+        meterRegistry = new SimpleMeterRegistry();
+        chatbotSearchService = new ChatbotSearchService();
+        ReflectionTestUtils.setField(chatbotSearchService, "listingRepository", listingRepository);
+        ReflectionTestUtils.setField(chatbotSearchService, "categoryRepository", categoryRepository);
+        ReflectionTestUtils.setField(chatbotSearchService, "openAiService", openAiService);
+        ReflectionTestUtils.setField(chatbotSearchService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(chatbotSearchService, "model", "gpt-3.5-turbo");
+        ReflectionTestUtils.setField(chatbotSearchService, "temperature", 0.3);
+        // generous default: the first call also pays for client warm-up
+        ReflectionTestUtils.setField(chatbotSearchService, "latencyBudget", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(chatbotSearchService, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(chatbotSearchService, "circuitOpenDuration", Duration.ofMinutes(1));
+        chatbotSearchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatbotSearchService.shutdown();
+        openAiService.shutdownExecutor();
+        server.stop(0);
+    }
+
+    @Test
+    void testFastResponseIsUsed() {
+        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery("textbook for CMPE 202?");
+
+        assertFalse(result.isUsedFallback());
+        assertEquals("CMPE 202, textbook", result.getInterpretedQuery());
+        assertEquals(1.0, calls(ChatbotSearchService.OUTCOME_SUCCESS));
+    }
+
+    @Test
+    void testSlowResponseFallsBackWithinBudget() {
+        mode.set(Mode.SLOW);
+        ReflectionTestUtils.setField(chatbotSearchService, "latencyBudget", Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery("textbook for CMPE 202?");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.isUsedFallback());
+        assertEquals(1, result.getListings().size());
+        assertTrue(elapsedMillis < 1200, "waited " + elapsedMillis + " ms");
+        assertEquals(1.0, calls(ChatbotSearchService.OUTCOME_TIMEOUT));
+        // the keyword search ran while the call was pending
+        verify(listingRepository, times(1)).findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class));
+    }
+
+    @Test
+    void testRepeatedFailuresOpenCircuit() {
+        mode.set(Mode.FAIL);
+
+        assertTrue(chatbotSearchService.processQuery("desk lamp").isUsedFallback());
+        assertTrue(chatbotSearchService.processQuery("office chair").isUsedFallback());
+        assertEquals(CircuitBreaker.State.OPEN, chatbotSearchService.getCircuitState());
+
+        mode.set(Mode.FAST);
+        assertTrue(chatbotSearchService.processQuery("calculator").isUsedFallback());
+
+        assertEquals(2, requests.get());
+        assertEquals(2.0, calls(ChatbotSearchService.OUTCOME_FAILURE));
+        assertEquals(1.0, calls(ChatbotSearchService.OUTCOME_SHORT_CIRCUITED));
+        assertEquals(1.0, meterRegistry.get(ChatbotSearchService.CIRCUIT_STATE_METRIC).gauge().value());
+    }
+
+    @Test
+    void testStreamSendsKeywordResultsBeforeSlowInterpretation() throws Exception {
+        mode.set(Mode.SLOW);
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        chatbotSearchService.streamQuery("textbook for CMPE 202?", 0, 20, new ChatbotSearchService.StreamListener() {
+            @Override
+            public void onResults(ChatbotSearchService.Stage stage, ChatbotSearchService.ChatbotSearchResult result) {
+                events.add(stage.getEventName() + ":" + result.isUsedFallback());
+            }
+
+            @Override
+            public void onComplete(ChatbotSearchService.ChatbotSearchResult result) {
+                events.add("done:" + result.getInterpretedQuery());
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                events.add("error");
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("keywords:true", "refined:false", "done:CMPE 202, textbook"), events);
+        assertEquals(1.0, calls(ChatbotSearchService.OUTCOME_SUCCESS));
+        double firstResultMillis = meterRegistry.get(ChatbotSearchService.FIRST_RESULT_METRIC)
+            .tag("mode", ChatbotSearchService.MODE_STREAM).timer().totalTime(TimeUnit.MILLISECONDS);
+        double totalMillis = meterRegistry.get(ChatbotSearchService.LATENCY_METRIC)
+            .tag("mode", ChatbotSearchService.MODE_STREAM).timer().totalTime(TimeUnit.MILLISECONDS);
+        // keyword results did not wait for the 1.5 s upstream call
+        assertTrue(firstResultMillis < 1000, "first result after " + firstResultMillis + " ms");
+        assertTrue(totalMillis >= 1500, "total " + totalMillis + " ms");
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.counter(ChatbotSearchService.CALLS_METRIC, "outcome", outcome).count();
+    }
+}
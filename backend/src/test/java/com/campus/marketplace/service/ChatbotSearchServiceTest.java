@@ -1,22 +1,44 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.ListingDTO;
 import com.campus.marketplace.entity.Category;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.repository.CategoryRepository;
 import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingRepositoryCustom;
+import com.campus.marketplace.util.HnswIndex;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.completion.chat.ChatMessageRole;
+import com.theokanning.openai.service.OpenAiService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,11 +50,23 @@ public class ChatbotSearchServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
     
+    @Mock
+    private OpenAiService openAiService;
+    
+    @Mock
+    private QueryIntentClassifier intentClassifier;
+    
+    @Mock
+    private ListingSemanticIndex semanticIndex;
+    
+    @Mock
+    private SearchQueryLog searchQueryLog;
+    
     @InjectMocks
     private ChatbotSearchService chatbotSearchService;
     
-    private Listing activeListing;
-    private Listing soldListing;
+    private ListingDTO activeListing;
+    private ListingDTO otherListing;
     private Category category;
     
     @BeforeEach
@@ -45,17 +79,17 @@ public class ChatbotSearchServiceTest {
         category.setId("cat-123");
         category.setName("Books");
         
-        activeListing = new Listing();
+        activeListing = new ListingDTO();
         activeListing.setId("listing-1");
         activeListing.setTitle("CMPE 202 Textbook");
         activeListing.setDescription("Textbook for CMPE 202 course");
         activeListing.setStatus(Listing.ListingStatus.ACTIVE);
         
-        soldListing = new Listing();
-        soldListing.setId("listing-2");
-        soldListing.setTitle("CMPE 202 Textbook");
-        soldListing.setDescription("Textbook for CMPE 202 course");
-        soldListing.setStatus(Listing.ListingStatus.SOLD);
+        otherListing = new ListingDTO();
+        otherListing.setId("listing-2");
+        otherListing.setTitle("Textbook bundle");
+        otherListing.setDescription("Assorted textbooks");
+        otherListing.setStatus(Listing.ListingStatus.ACTIVE);
     }
     
     @Test
@@ -85,8 +119,7 @@ public class ChatbotSearchServiceTest {
     @Test
     void testProcessQuery_FallbackKeywordExtraction() {
         // Arrange
-        when(listingRepository.findByTitleOrDescriptionContaining(anyString(), anyString()))
-            .thenReturn(Arrays.asList(activeListing));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
         
         // Act
         ChatbotSearchService.ChatbotSearchResult result = 
@@ -98,31 +131,55 @@ public class ChatbotSearchServiceTest {
         assertFalse(result.getInterpretedQuery().isEmpty());
         assertEquals(1, result.getListings().size());
         assertEquals("listing-1", result.getListings().get(0).getId());
-        verify(listingRepository).findByTitleOrDescriptionContaining(anyString(), anyString());
+        verify(listingRepository).findActiveIdsByKeywords(
+            eq(Arrays.asList("CMPE 202", "textbook")), isNull(), any(Pageable.class));
     }
     
     @Test
-    void testProcessQuery_FiltersInactiveListings() {
-        // Arrange
-        when(listingRepository.findByTitleOrDescriptionContaining(anyString(), anyString()))
-            .thenReturn(Arrays.asList(activeListing, soldListing));
+    void testProcessQuery_KeepsDatabaseRankingAndScores() {
+        // Arrange: the repository ranks; DTOs come back in arbitrary order
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Arrays.asList(
+                new ListingRepositoryCustom.ScoredId("listing-1", 6),
+                new ListingRepositoryCustom.ScoredId("listing-2", 1)), PageRequest.of(0, 20), 2));
+        when(listingRepository.findDTOsByIdIn(anyCollection()))
+            .thenReturn(Arrays.asList(otherListing, activeListing));
         
         // Act
         ChatbotSearchService.ChatbotSearchResult result = 
-            chatbotSearchService.processQuery("textbook");
+            chatbotSearchService.processQuery("textbook for CMPE 202");
         
-        // Assert
-        assertEquals(1, result.getListings().size());
+        // Assert: two keywords -> max score 6
+        assertEquals(2, result.getListings().size());
         assertEquals("listing-1", result.getListings().get(0).getId());
-        assertTrue(result.getListings().stream()
-            .allMatch(l -> l.getStatus() == Listing.ListingStatus.ACTIVE));
+        assertEquals(1.0, result.getListings().get(0).getScore(), 1e-9);
+        assertEquals("listing-2", result.getListings().get(1).getId());
+        assertEquals(1.0 / 6, result.getListings().get(1).getScore(), 1e-9);
+        assertEquals(2, result.getTotalResults());
+    }
+    
+    @Test
+    void testProcessQuery_PassesPageToRepository() {
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(2, 50), 101));
+        
+        ChatbotSearchService.ChatbotSearchResult result =
+            chatbotSearchService.processQuery("desk lamp", 2, 500);
+        
+        assertTrue(result.getListings().isEmpty());
+        assertEquals(101, result.getTotalResults());
+        assertEquals(2, result.getPage());
+        assertEquals(50, result.getSize());
+        verify(listingRepository).findActiveIdsByKeywords(anyList(), isNull(), eq(PageRequest.of(2, 50)));
+        verify(listingRepository, never()).findDTOsByIdIn(anyCollection());
+        verify(searchQueryLog).record(eq(SearchQueryLog.SOURCE_CHATBOT), eq("desk lamp"), anyLong(), eq(101L));
     }
     
     @Test
     void testProcessQuery_NoResults() {
         // Arrange
-        when(listingRepository.findByTitleOrDescriptionContaining(anyString(), anyString()))
-            .thenReturn(Collections.emptyList());
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(Page.empty(PageRequest.of(0, 20)));
         
         // Act
         ChatbotSearchService.ChatbotSearchResult result = 
@@ -138,8 +195,7 @@ public class ChatbotSearchServiceTest {
         // Arrange
         ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
         when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
-        when(listingRepository.findByTitleOrDescriptionContaining(anyString(), anyString()))
-                .thenReturn(Arrays.asList(activeListing));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
         
         // Act - ChatGPT will fail (no actual API call in unit test), should fallback
         ChatbotSearchService.ChatbotSearchResult result = 
@@ -148,14 +204,13 @@ public class ChatbotSearchServiceTest {
         // Assert - Should use fallback
         assertNotNull(result);
         assertTrue(result.isUsedFallback());
-        verify(listingRepository).findByTitleOrDescriptionContaining(anyString(), anyString());
+        verify(listingRepository).findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class));
     }
     
     @Test
     void testProcessQuery_ExtractCourseCode() {
         // Arrange
-        when(listingRepository.findByTitleOrDescriptionContaining(anyString(), anyString()))
-            .thenReturn(Arrays.asList(activeListing));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
         
         // Act
         ChatbotSearchService.ChatbotSearchResult result = 
@@ -163,8 +218,221 @@ public class ChatbotSearchServiceTest {
         
         // Assert
         assertNotNull(result);
-        // The fallback should extract "CMPE 202" from the query
-        assertFalse(result.getInterpretedQuery().isEmpty());
+        // The fallback should extract "CMPE 202" from the query as one keyword
+        assertEquals("CMPE 202, textbook", result.getInterpretedQuery());
+    }
+    
+    @Test
+    void testProcessQuery_RepeatQueryServedFromInterpretationCache() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        chatbotSearchService.init();
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(openAiService.createChatCompletion(any(ChatCompletionRequest.class)))
+            .thenReturn(completion("CMPE 202, textbook, CMPE202"));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
+        
+        ChatbotSearchService.ChatbotSearchResult first =
+            chatbotSearchService.processQuery("Textbook for CMPE 202?");
+        ChatbotSearchService.ChatbotSearchResult second =
+            chatbotSearchService.processQuery("  textbook   for cmpe 202? ");
+        
+        assertFalse(first.isUsedFallback());
+        assertFalse(second.isUsedFallback());
+        assertEquals("CMPE 202, textbook, CMPE202", second.getInterpretedQuery());
+        assertEquals(1, second.getListings().size());
+        verify(openAiService, times(1)).createChatCompletion(any(ChatCompletionRequest.class));
+        verify(categoryRepository, times(1)).findAll();
+        // cache hit: searched with the cached interpretation, no keyword hedge;
+        // "CMPE202" is the same course code as "CMPE 202"
+        verify(listingRepository, times(2)).findActiveIdsByKeywords(
+            eq(Arrays.asList("CMPE 202", "textbook")), isNull(), any(Pageable.class));
+    }
+    
+    @Test
+    void testProcessQuery_FailedInterpretationIsNotCached() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        chatbotSearchService.init();
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(openAiService.createChatCompletion(any(ChatCompletionRequest.class)))
+            .thenThrow(new RuntimeException("upstream timeout"));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 1));
+        
+        assertTrue(chatbotSearchService.processQuery("desk lamp").isUsedFallback());
+        assertTrue(chatbotSearchService.processQuery("desk lamp").isUsedFallback());
+        
+        verify(openAiService, times(2)).createChatCompletion(any(ChatCompletionRequest.class));
+        verify(categoryRepository, times(1)).findAll();
+    }
+    
+    @Test
+    void testWarmInterpretation_CachesChatGptAnswerWithoutRecordingQuery() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        chatbotSearchService.init();
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(openAiService.createChatCompletion(any(ChatCompletionRequest.class)))
+            .thenReturn(completion("lamp, desk lamp"));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
+        
+        assertTrue(chatbotSearchService.warmInterpretation("Desk lamp"));
+        assertFalse(chatbotSearchService.warmInterpretation("desk  lamp"));
+        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery("desk lamp");
+        
+        assertEquals("lamp, desk lamp", result.getInterpretedQuery());
+        verify(openAiService, times(1)).createChatCompletion(any(ChatCompletionRequest.class));
+        verify(searchQueryLog, times(1)).record(any(), any(), anyLong(), anyLong());
+    }
+    
+    @Test
+    void testWarmInterpretation_SkippedWithoutChatGpt() {
+        chatbotSearchService.init();
+        
+        assertFalse(chatbotSearchService.warmInterpretation("desk lamp"));
+        
+        verifyNoInteractions(openAiService);
+    }
+    
+    @Test
+    void testNormalizeQuery() {
+        assertEquals("textbook for cmpe 202?", ChatbotSearchService.normalizeQuery("  Textbook\tfor  CMPE 202? "));
+    }
+    
+    @Test
+    void testProcessQuery_ConfidentLocalIntentSkipsChatGPT() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        chatbotSearchService.init();
+        when(intentClassifier.classify("textbook for CMPE 202"))
+            .thenReturn(new QueryIntentClassifier.Intent("CMPE 202, textbook", "cat-123", "Books", 0.95, true));
+        when(listingRepository.findActiveIdsByKeywords(anyList(), eq("cat-123"), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(
+                new ListingRepositoryCustom.ScoredId("listing-1", 7)), PageRequest.of(0, 20), 1));
+        when(listingRepository.findDTOsByIdIn(anyCollection()))
+            .thenReturn(Collections.singletonList(activeListing));
+        
+        ChatbotSearchService.ChatbotSearchResult result =
+            chatbotSearchService.processQuery("textbook for CMPE 202");
+        
+        assertFalse(result.isUsedFallback());
+        assertEquals("CMPE 202, textbook", result.getInterpretedQuery());
+        // two keywords in title and description plus the category bonus
+        assertEquals(1.0, result.getListings().get(0).getScore(), 1e-9);
+        verifyNoInteractions(openAiService);
+        verifyNoInteractions(categoryRepository);
+    }
+    
+    @Test
+    void testProcessQuery_UnsureLocalIntentAsksChatGPT() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        chatbotSearchService.init();
+        when(intentClassifier.classify(anyString()))
+            .thenReturn(new QueryIntentClassifier.Intent("thing", "cat-123", "Books", 0.2, false));
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(openAiService.createChatCompletion(any(ChatCompletionRequest.class)))
+            .thenReturn(completion("lamp, desk lamp"));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
+        
+        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery("something to light my desk");
+        
+        assertFalse(result.isUsedFallback());
+        assertEquals("lamp, desk lamp", result.getInterpretedQuery());
+        verify(openAiService).createChatCompletion(any(ChatCompletionRequest.class));
+    }
+    
+    @Test
+    void testProcessQuery_NoKeywordMatchUsesSemanticIndex() {
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(Page.empty(PageRequest.of(0, 20)));
+        when(semanticIndex.search("graphing calculator", null, 20)).thenReturn(Optional.of(Arrays.asList(
+            new HnswIndex.Neighbor("listing-1", 0.43), new HnswIndex.Neighbor("listing-2", 0.25))));
+        otherListing.setStatus(Listing.ListingStatus.SOLD);
+        when(listingRepository.findDTOsByIdIn(anyCollection())).thenReturn(Arrays.asList(otherListing, activeListing));
+        
+        ChatbotSearchService.ChatbotSearchResult result = chatbotSearchService.processQuery("graphing calculator");
+        
+        assertEquals(1, result.getListings().size());
+        assertEquals("listing-1", result.getListings().get(0).getId());
+        assertEquals(0.43, result.getListings().get(0).getScore(), 1e-9);
+    }
+    
+    @Test
+    void testStreamQuery_WithoutChatGPTSendsOnlyKeywordStage() {
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
+        List<String> events = new ArrayList<>();
+        
+        chatbotSearchService.streamQuery("textbook for CMPE 202", 0, 20, recorder(events));
+        
+        assertEquals(Arrays.asList("keywords:CMPE 202, textbook", "done:CMPE 202, textbook"), events);
+        verify(openAiService, never()).createChatCompletion(any(ChatCompletionRequest.class));
+    }
+    
+    @Test
+    void testStreamQuery_SendsKeywordsThenRefinedResults() {
+        ReflectionTestUtils.setField(chatbotSearchService, "apiKey", "valid-api-key");
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(openAiService.createChatCompletion(any(ChatCompletionRequest.class)))
+            .thenReturn(completion("lamp, desk lamp"));
+        stubRanked(new ListingRepositoryCustom.ScoredId("listing-1", 3));
+        List<String> events = new ArrayList<>();
+        
+        chatbotSearchService.streamQuery("something to light my desk", 0, 20, recorder(events));
+        
+        assertEquals(3, events.size());
+        assertTrue(events.get(0).startsWith("keywords:"));
+        assertEquals("refined:lamp, desk lamp", events.get(1));
+        assertEquals("done:lamp, desk lamp", events.get(2));
+        verify(listingRepository, times(2)).findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class));
+    }
+    
+    @Test
+    void testStreamQuery_SearchFailureEndsStreamWithError() {
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenThrow(new RuntimeException("database unavailable"));
+        List<String> events = new ArrayList<>();
+        
+        chatbotSearchService.streamQuery("desk lamp", 0, 20, recorder(events));
+        
+        assertEquals(Collections.singletonList("error:database unavailable"), events);
+    }
+    
+    @Test
+    void testToKeywords() {
+        assertEquals(Arrays.asList("CMPE 202", "textbook"),
+            ChatbotSearchService.toKeywords(" CMPE 202, textbook,, cmpe 202 ,"));
+        assertEquals(Arrays.asList("CMPE 202", "textbook"),
+            ChatbotSearchService.toKeywords("cmpe202, textbook, CMPE-202"));
+    }
+    
+    private void stubRanked(ListingRepositoryCustom.ScoredId... ids) {
+        when(listingRepository.findActiveIdsByKeywords(anyList(), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Arrays.asList(ids), PageRequest.of(0, 20), ids.length));
+        when(listingRepository.findDTOsByIdIn(anyCollection()))
+            .thenReturn(Collections.singletonList(activeListing));
+    }
+    
+    private static ChatbotSearchService.StreamListener recorder(List<String> events) {
+        return new ChatbotSearchService.StreamListener() {
+            @Override
+            public void onResults(ChatbotSearchService.Stage stage, ChatbotSearchService.ChatbotSearchResult result) {
+                events.add(stage.getEventName() + ":" + result.getInterpretedQuery());
+            }
+            
+            @Override
+            public void onComplete(ChatbotSearchService.ChatbotSearchResult result) {
+                events.add("done:" + result.getInterpretedQuery());
+            }
+            
+            @Override
+            public void onError(Exception error) {
+                events.add("error:" + error.getMessage());
+            }
+        };
+    }
+    
+    private static ChatCompletionResult completion(String content) {
+        ChatCompletionChoice choice = new ChatCompletionChoice();
+        choice.setMessage(new ChatMessage(ChatMessageRole.ASSISTANT.value(), content));
+        ChatCompletionResult result = new ChatCompletionResult();
+        result.setChoices(Collections.singletonList(choice));
+        return result;
     }
     
     // Note: Testing actual ChatGPT API calls would require:
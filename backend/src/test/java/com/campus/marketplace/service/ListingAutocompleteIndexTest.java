@@ -0,0 +1,258 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.AutocompleteSuggestionDTO;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingAutocompleteIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private ListingAutocompleteIndex autocompleteIndex;
+
+    private final SearchQueryLog searchQueryLog = new SearchQueryLog();
+
+    @BeforeEach
+    void setUp() {
+        searchQueryLog.init();
+        ReflectionTestUtils.setField(autocompleteIndex, "searchQueryLog", searchQueryLog);
+    }
+
+    @Test
+    void testComplete_NotReadyReturnsEmpty() {
+        autocompleteIndex.init();
+
+        assertFalse(autocompleteIndex.complete("calc", 10).isPresent());
+        assertFalse(autocompleteIndex.isReady());
+    }
+
+    @Test
+    void testComplete_RanksByListingCountAndSearches() {
+        autocompleteIndex.init();
+        search("Calculus", 1, "alice", "bob", "carol");
+        rebuild();
+
+        List<AutocompleteSuggestionDTO> suggestions = autocompleteIndex.complete("Calc", 10).orElseThrow();
+
+        assertEquals(List.of("calculus", "calculator", "Calculators"), texts(suggestions));
+        assertEquals(AutocompleteSuggestionDTO.TYPE_QUERY, suggestions.get(0).getType());
+        assertEquals(4, suggestions.get(0).getWeight());   // one title plus three searches
+        assertEquals(AutocompleteSuggestionDTO.TYPE_CATEGORY, suggestions.get(2).getType());
+        assertEquals(List.of("calculus"), texts(autocompleteIndex.complete("calc", 1).orElseThrow()));
+        // words of listings that are not ACTIVE are not offered
+        assertTrue(autocompleteIndex.complete("use", 10).orElseThrow().isEmpty());
+        verify(listingRepository).findIndexRowsAfter(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void testComplete_CourseCodesMatchWithOrWithoutSpace() {
+        autocompleteIndex.init();
+        rebuild();
+
+        for (String prefix : List.of("cmpe2", "CMPE 2", "cmpe-20")) {
+            List<AutocompleteSuggestionDTO> suggestions = autocompleteIndex.complete(prefix, 10).orElseThrow();
+            assertEquals(List.of("CMPE 202"), texts(suggestions), prefix);
+            assertEquals(AutocompleteSuggestionDTO.TYPE_COURSE, suggestions.get(0).getType());
+        }
+    }
+
+    @Test
+    void testComplete_CompletesLastWordFromTitleWords() {
+        autocompleteIndex.init();
+        rebuild();
+
+        assertEquals(List.of("scientific calculator", "scientific calculus"),
+            texts(autocompleteIndex.complete("scientific calc", 10).orElseThrow()));
+        assertTrue(autocompleteIndex.complete("  ", 10).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void testPopularQuery_OfferedAfterNextRefresh() {
+        autocompleteIndex.init();
+        rebuild();
+        search("Desk  lamp", 1, "alice", "bob", "carol");
+
+        assertTrue(autocompleteIndex.complete("desk", 10).orElseThrow().isEmpty());
+
+        autocompleteIndex.refresh();
+
+        List<AutocompleteSuggestionDTO> suggestions = autocompleteIndex.complete("desk", 10).orElseThrow();
+        assertEquals(List.of("desk lamp"), texts(suggestions));
+        assertEquals(AutocompleteSuggestionDTO.TYPE_QUERY, suggestions.get(0).getType());
+        assertEquals(3, suggestions.get(0).getWeight());
+    }
+
+    @Test
+    void testPopularQuery_NeedsDifferentPeopleWhoFoundListings() {
+        autocompleteIndex.init();
+        search("call me 408 555 0100", 1, "alice");
+        // one person searching again and again
+        for (int i = 0; i < 5; i++) {
+            search("desk lamp", 1, "bob");
+        }
+        search("desk chair", 0, "alice", "bob", "carol");
+        rebuild();
+
+        assertTrue(autocompleteIndex.complete("call me", 10).orElseThrow().isEmpty());
+        assertTrue(autocompleteIndex.complete("desk", 10).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void testPopularQuery_KeepsOnlyTheMostFrequent() {
+        ReflectionTestUtils.setField(autocompleteIndex, "maxQuerySuggestions", 1);
+        autocompleteIndex.init();
+        search("desk lamp", 1, "alice", "bob", "carol", "dave");
+        search("desk chair", 1, "alice", "bob", "carol");
+        rebuild();
+
+        assertEquals(List.of("desk lamp"), texts(autocompleteIndex.complete("desk", 10).orElseThrow()));
+    }
+
+    @Test
+    void testOnListingChanged_OfferedAfterRefreshWithoutRescan() {
+        autocompleteIndex.init();
+        rebuild();
+
+        autocompleteIndex.onListingChanged(ListingChangedEvent.saved(
+            listing("listing-6", "Desk lamp", "category-1", Listing.ListingStatus.ACTIVE)));
+        autocompleteIndex.onListingChanged(ListingChangedEvent.deleted("listing-2", "category-1"));
+        autocompleteIndex.onListingChanged(ListingChangedEvent.saved(
+            listing("listing-4", "Calculus textbook", "category-2", Listing.ListingStatus.SOLD)));
+
+        assertTrue(autocompleteIndex.complete("desk", 10).orElseThrow().isEmpty());
+
+        autocompleteIndex.refresh();
+
+        assertEquals(List.of("desk"), texts(autocompleteIndex.complete("desk", 10).orElseThrow()));
+        assertTrue(autocompleteIndex.complete("scien", 10).orElseThrow().isEmpty());
+        assertEquals(List.of("Calculators", "calculator"), texts(autocompleteIndex.complete("calc", 10).orElseThrow()));
+        verify(listingRepository, times(1)).findIndexRowsAfter(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void testOnListingChanged_WriteDuringRescanWins() {
+        autocompleteIndex.init();
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenAnswer(invocation -> {
+            // the listing is sold after the scan started but before its stale row is read
+            autocompleteIndex.onListingChanged(ListingChangedEvent.saved(
+                listing("listing-1", "Graphing calculator", "category-1", Listing.ListingStatus.SOLD)));
+            return List.of(row("listing-1", "Graphing calculator", "category-1", Listing.ListingStatus.ACTIVE));
+        });
+        when(categoryRepository.findAll()).thenReturn(List.of(category("category-1", "Calculators")));
+
+        autocompleteIndex.rebuild();
+
+        assertTrue(autocompleteIndex.complete("graph", 10).orElseThrow().isEmpty());
+        assertEquals(0, autocompleteIndex.complete("calc", 10).orElseThrow().get(0).getWeight());
+    }
+
+    @Test
+    void testRefresh_NothingChangedKeepsTheTrie() {
+        autocompleteIndex.init();
+        rebuild();
+
+        autocompleteIndex.refresh();
+        autocompleteIndex.refresh();
+
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testMetrics_RecordLookups() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(autocompleteIndex, "meterRegistry", meterRegistry);
+        autocompleteIndex.init();
+        rebuild();
+
+        autocompleteIndex.complete("text", 10);
+        autocompleteIndex.complete("cmpe", 10);
+
+        assertEquals(2, meterRegistry.get(ListingAutocompleteIndex.LOOKUP_METRIC).timer().count());
+    }
+
+    private void rebuild() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Arrays.asList(
+            row("listing-1", "Graphing calculator", "category-1", Listing.ListingStatus.ACTIVE),
+            row("listing-2", "Scientific calculator", "category-1", Listing.ListingStatus.ACTIVE),
+            row("listing-3", "CMPE 202 textbook", "category-2", Listing.ListingStatus.ACTIVE),
+            row("listing-4", "Calculus textbook", "category-2", Listing.ListingStatus.ACTIVE),
+            row("listing-5", "Used bicycle", "category-3", Listing.ListingStatus.SOLD)));
+        when(categoryRepository.findAll()).thenReturn(List.of(
+            category("category-1", "Calculators"),
+            category("category-2", "Textbooks")));
+        autocompleteIndex.rebuild();
+        assertTrue(autocompleteIndex.isReady());
+    }
+
+    private void search(String query, long results, String... searchers) {
+        for (String searcher : searchers) {
+            searchQueryLog.record(SearchQueryLog.SOURCE_SEARCH, query, 1_000_000, results, searcher);
+        }
+        searchQueryLog.drain();
+    }
+
+    private static List<String> texts(List<AutocompleteSuggestionDTO> suggestions) {
+        return suggestions.stream().map(AutocompleteSuggestionDTO::getText).collect(Collectors.toList());
+    }
+
+    private static Category category(String id, String name) {
+        Category category = new Category(name);
+        category.setId(id);
+        return category;
+    }
+
+    private static Listing listing(String id, String title, String categoryId, Listing.ListingStatus status) {
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setTitle(title);
+        listing.setCategory(category(categoryId, null));
+        listing.setStatus(status);
+        return listing;
+    }
+
+    private static ListingIndexRow row(String id, String title, String categoryId, Listing.ListingStatus status) {
+        return new ListingIndexRow() {
+            public String getId() { return id; }
+            public String getTitle() { return title; }
+            public String getDescription() { return null; }
+            public String getCategoryId() { return categoryId; }
+            public BigDecimal getPrice() { return BigDecimal.TEN; }
+            public Listing.ItemCondition getItemCondition() { return Listing.ItemCondition.GOOD; }
+            public Listing.ListingStatus getStatus() { return status; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.now(); }
+            public LocalDateTime getUpdatedAt() { return LocalDateTime.now(); }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.event.ListingChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListingDetailCacheTest {
+    
+    private ListingDetailCache listingDetailCache;
+    private AtomicInteger loads;
+    private Function<String, Optional<ListingDTO>> loader;
+    
+    @BeforeEach
+    void setUp() {
+        listingDetailCache = new ListingDetailCache();
+        listingDetailCache.init();
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            if (id.startsWith("missing")) {
+                return Optional.empty();
+            }
+            ListingDTO dto = new ListingDTO();
+            dto.setId(id);
+            dto.setTitle("Title " + loads.get());
+            return Optional.of(dto);
+        };
+    }
+    
+    @Test
+    void testGet_SecondReadIsServedFromCache() {
+        ListingDTO first = listingDetailCache.get("listing-1", loader).orElseThrow();
+        ListingDTO second = listingDetailCache.get("listing-1", loader).orElseThrow();
+        
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, listingDetailCache.size());
+    }
+    
+    @Test
+    void testGet_MissingListingIsNotCached() {
+        assertFalse(listingDetailCache.get("missing-1", loader).isPresent());
+        assertFalse(listingDetailCache.get("missing-1", loader).isPresent());
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    void testOnListingChanged_InvalidatesEntry() {
+        listingDetailCache.get("listing-1", loader);
+        
+        listingDetailCache.onListingChanged(ListingChangedEvent.deleted("listing-1"));
+        ListingDTO reloaded = listingDetailCache.get("listing-1", loader).orElseThrow();
+        
+        assertEquals(2, loads.get());
+        assertEquals("Title 2", reloaded.getTitle());
+    }
+    
+    @Test
+    void testDisabled_AlwaysLoads() {
+        ListingDetailCache disabled = new ListingDetailCache();
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.init();
+        
+        disabled.get("listing-1", loader);
+        disabled.get("listing-1", loader);
+        
+        assertFalse(disabled.isEnabled());
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,133 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.ListingFacetsDTO;
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingFacetIndexTest {
+    
+    @Mock
+    private ListingRepository listingRepository;
+    
+    @InjectMocks
+    private ListingFacetIndex listingFacetIndex;
+    
+    @BeforeEach
+    void setUp() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        listingFacetIndex.rebuild();
+        
+        listingFacetIndex.index(listing("listing-1", "books", "40.00", Listing.ItemCondition.GOOD, Listing.ListingStatus.ACTIVE));
+        listingFacetIndex.index(listing("listing-2", "electronics", "60.00", Listing.ItemCondition.NEW, Listing.ListingStatus.ACTIVE));
+        listingFacetIndex.index(listing("listing-3", "books", "25.00", Listing.ItemCondition.GOOD, Listing.ListingStatus.SOLD));
+        listingFacetIndex.index(listing("listing-4", "books", "5.00", Listing.ItemCondition.FAIR, Listing.ListingStatus.ACTIVE));
+        listingFacetIndex.index(listing("listing-5", "electronics", "1200.00", Listing.ItemCondition.GOOD, Listing.ListingStatus.ACTIVE));
+    }
+    
+    private Listing listing(String id, String categoryId, String price, Listing.ItemCondition condition,
+                            Listing.ListingStatus status) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setCategory(category);
+        listing.setPrice(new BigDecimal(price));
+        listing.setCondition(condition);
+        listing.setStatus(status);
+        listing.setUpdatedAt(LocalDateTime.now());
+        return listing;
+    }
+    
+    private ListingFacetsDTO facets(String categoryId, Listing.ItemCondition condition, BigDecimal minPrice, BigDecimal maxPrice) {
+        return listingFacetIndex.facets(categoryId, condition, null, minPrice, maxPrice).orElseThrow();
+    }
+    
+    @Test
+    void testFacets_NotReadyReturnsEmpty() {
+        ListingFacetIndex fresh = new ListingFacetIndex();
+        
+        assertFalse(fresh.facets(null, null, null, null, null).isPresent());
+    }
+    
+    @Test
+    void testFacets_DefaultsToActiveListings() {
+        ListingFacetsDTO result = facets(null, null, null, null);
+        
+        assertEquals(4, result.getTotal());
+        assertEquals(2L, result.getCategories().get("books"));
+        assertEquals(2L, result.getCategories().get("electronics"));
+        assertEquals(2L, result.getConditions().get("GOOD"));
+        assertEquals(0L, result.getConditions().get("POOR"));
+    }
+    
+    @Test
+    void testFacets_FacetIgnoresItsOwnFilter() {
+        ListingFacetsDTO result = facets("books", null, null, null);
+        
+        assertEquals(2, result.getTotal());
+        assertEquals(2L, result.getCategories().get("electronics"));
+        assertEquals(1L, result.getConditions().get("GOOD"));
+        assertEquals(1L, result.getConditions().get("FAIR"));
+        assertEquals(1L, result.getStatuses().get("SOLD"));
+        assertEquals(2L, result.getStatuses().get("ACTIVE"));
+    }
+    
+    @Test
+    void testFacets_PriceRangeFiltersOtherFacetsButNotHistogram() {
+        ListingFacetsDTO result = facets(null, null, new BigDecimal("10"), new BigDecimal("100"));
+        
+        assertEquals(2, result.getTotal());
+        assertEquals(1L, result.getCategories().get("books"));
+        List<ListingFacetsDTO.PriceBucket> histogram = result.getPriceHistogram();
+        assertEquals(new BigDecimal("0"), histogram.get(0).getMin());
+        assertEquals(1, histogram.get(0).getCount());
+        assertEquals(1, histogram.get(3).getCount());
+        assertNull(histogram.get(histogram.size() - 1).getMax());
+        assertEquals(1, histogram.get(histogram.size() - 1).getCount());
+    }
+    
+    @Test
+    void testFacets_UpdatesAndDeletesAreApplied() {
+        Listing sold = listing("listing-2", "electronics", "60.00", Listing.ItemCondition.NEW, Listing.ListingStatus.SOLD);
+        sold.setUpdatedAt(LocalDateTime.now().plusMinutes(1));
+        listingFacetIndex.onListingChanged(ListingChangedEvent.saved(sold));
+        listingFacetIndex.onListingChanged(ListingChangedEvent.deleted("listing-4"));
+        
+        ListingFacetsDTO result = facets(null, null, null, null);
+        
+        assertEquals(2, result.getTotal());
+        assertEquals(1L, result.getCategories().get("books"));
+        assertEquals(1L, result.getCategories().get("electronics"));
+        assertEquals(0L, result.getConditions().get("NEW"));
+        assertEquals(4, listingFacetIndex.size());
+    }
+    
+    @Test
+    void testFacets_StaleUpdateIsIgnored() {
+        Listing stale = listing("listing-1", "electronics", "40.00", Listing.ItemCondition.GOOD, Listing.ListingStatus.ACTIVE);
+        stale.setUpdatedAt(LocalDateTime.now().minusDays(1));
+        listingFacetIndex.index(stale);
+        
+        assertEquals(2L, facets(null, null, null, null).getCategories().get("books"));
+    }
+}
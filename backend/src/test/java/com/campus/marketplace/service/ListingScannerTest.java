@@ -0,0 +1,152 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingScannerTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Test
+    void testScan_ReadsEachBatchOnceForAllConsumers() {
+        List<ListingIndexRow> full = rows("a", ListingScanner.BATCH_SIZE);
+        when(listingRepository.findIndexRowsAfter(eq(""), any(Pageable.class))).thenReturn(full);
+        when(listingRepository.findIndexRowsAfter(eq(full.get(full.size() - 1).getId()), any(Pageable.class)))
+            .thenReturn(rows("b", 1));
+        RecordingConsumer first = new RecordingConsumer(Integer.MAX_VALUE);
+        RecordingConsumer second = new RecordingConsumer(Integer.MAX_VALUE);
+
+        ListingScanner.scan(listingRepository, List.of(first, second));
+
+        verify(listingRepository, times(2)).findIndexRowsAfter(anyString(), any(Pageable.class));
+        assertEquals(ListingScanner.BATCH_SIZE + 1, first.rows);
+        assertEquals(ListingScanner.BATCH_SIZE + 1, second.rows);
+        assertTrue(first.ended && second.ended);
+        assertNull(first.failure);
+    }
+
+    @Test
+    void testScan_StopsReadingOnceNoConsumerWantsMore() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class)))
+            .thenReturn(rows("a", ListingScanner.BATCH_SIZE));
+        RecordingConsumer consumer = new RecordingConsumer(10);
+
+        ListingScanner.scan(listingRepository, List.of(consumer));
+
+        verify(listingRepository, times(1)).findIndexRowsAfter(anyString(), any(Pageable.class));
+        assertTrue(consumer.ended);
+    }
+
+    @Test
+    void testScan_FailingConsumerDoesNotStopTheOthers() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(rows("a", 3));
+        RecordingConsumer failing = new RecordingConsumer(Integer.MAX_VALUE) {
+            @Override
+            public boolean acceptRows(List<ListingIndexRow> batch) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        RecordingConsumer healthy = new RecordingConsumer(Integer.MAX_VALUE);
+
+        ListingScanner.scan(listingRepository, List.of(failing, healthy));
+
+        assertNotNull(failing.failure);
+        assertFalse(failing.ended);
+        assertEquals(3, healthy.rows);
+        assertTrue(healthy.ended);
+    }
+
+    @Test
+    void testScan_DatabaseErrorFailsEveryConsumer() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class)))
+            .thenThrow(new IllegalStateException("connection lost"));
+        RecordingConsumer first = new RecordingConsumer(Integer.MAX_VALUE);
+        RecordingConsumer second = new RecordingConsumer(Integer.MAX_VALUE);
+
+        ListingScanner.scan(listingRepository, List.of(first, second));
+
+        assertNotNull(first.failure);
+        assertNotNull(second.failure);
+        assertFalse(first.ended || second.ended);
+    }
+
+    private static class RecordingConsumer implements ListingScanConsumer {
+        private final int wanted;
+        private int rows;
+        private boolean ended;
+        private RuntimeException failure;
+
+        RecordingConsumer(int wanted) {
+            this.wanted = wanted;
+        }
+
+        @Override
+        public boolean isScanEnabled() {
+            return true;
+        }
+
+        @Override
+        public void beginScan() {
+            rows = 0;
+        }
+
+        @Override
+        public boolean acceptRows(List<ListingIndexRow> batch) {
+            rows += batch.size();
+            return rows < wanted;
+        }
+
+        @Override
+        public void endScan() {
+            ended = true;
+        }
+
+        @Override
+        public void failScan(RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private static List<ListingIndexRow> rows(String prefix, int count) {
+        List<ListingIndexRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(row(String.format("%s-%05d", prefix, i)));
+        }
+        return rows;
+    }
+
+    private static ListingIndexRow row(String id) {
+        return new ListingIndexRow() {
+            public String getId() { return id; }
+            public String getTitle() { return "Listing " + id; }
+            public String getDescription() { return null; }
+            public String getCategoryId() { return "category-1"; }
+            public BigDecimal getPrice() { return BigDecimal.TEN; }
+            public Listing.ItemCondition getItemCondition() { return Listing.ItemCondition.GOOD; }
+            public Listing.ListingStatus getStatus() { return Listing.ListingStatus.ACTIVE; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.now(); }
+            public LocalDateTime getUpdatedAt() { return LocalDateTime.now(); }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListingSearchCacheTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+
+    private ListingSearchCache listingSearchCache;
+    private AtomicInteger loads;
+    private Supplier<Page<String>> loader;
+
+    @BeforeEach
+    void setUp() {
+        listingSearchCache = new ListingSearchCache();
+        listingSearchCache.init();
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(Arrays.asList("listing-1", "listing-2"), FIRST_PAGE, 2);
+        };
+    }
+
+    @Test
+    void testGet_RepeatedSearchIsServedFromCache() {
+        Page<String> first = search("desk", "category-1");
+        Page<String> second = search("desk", "category-1");
+
+        assertEquals(1, loads.get());
+        assertEquals(first.getContent(), second.getContent());
+        assertEquals(2, second.getTotalElements());
+    }
+
+    @Test
+    void testGet_NormalizesSearchTermAndPrices() {
+        listingSearchCache.get("TI-84  Calculator", null, new BigDecimal("10.00"), null, null,
+            Listing.ListingStatus.ACTIVE, "Newest", FIRST_PAGE, loader);
+        listingSearchCache.get("ti-84 calculator", null, new BigDecimal("10"), null, null,
+            Listing.ListingStatus.ACTIVE, null, FIRST_PAGE, loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_DifferentPagesAreSeparateEntries() {
+        search("desk", "category-1");
+        listingSearchCache.get("desk", "category-1", null, null, null, Listing.ListingStatus.ACTIVE, "newest",
+            PageRequest.of(1, 20), loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testOnListingChanged_OnlyRetiresAffectedCategory() {
+        search("desk", "category-1");
+        search("desk", "category-2");
+        search("desk", null);
+
+        listingSearchCache.onListingChanged(ListingChangedEvent.saved(listing("listing-9", "category-1")));
+
+        search("desk", "category-1");
+        assertEquals(4, loads.get());
+        search("desk", "category-2");
+        assertEquals(4, loads.get());
+        search("desk", null);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testOnListingChanged_CategoryMoveRetiresBothCategories() {
+        search("desk", "category-1");
+        search("desk", "category-2");
+        search("desk", "category-3");
+        Listing moved = listing("listing-1", "category-2");
+        ReflectionTestUtils.setField(moved, "loadedCategoryId", "category-1");
+
+        listingSearchCache.onListingChanged(ListingChangedEvent.saved(moved));
+
+        search("desk", "category-1");
+        search("desk", "category-2");
+        search("desk", "category-3");
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testOnListingChanged_DeletionWithCategoryRetiresThatCategory() {
+        search("desk", "category-1");
+        search("desk", "category-2");
+
+        listingSearchCache.onListingChanged(ListingChangedEvent.deleted("listing-1", "category-2"));
+
+        search("desk", "category-1");
+        search("desk", "category-2");
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testOnListingChanged_DeletionWithoutCategoryRetiresEverything() {
+        search("desk", "category-1");
+        search("desk", "category-2");
+
+        listingSearchCache.onListingChanged(ListingChangedEvent.deleted("listing-1"));
+
+        search("desk", "category-1");
+        search("desk", "category-2");
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testGet_ConcurrentMissesRunOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Page<String>> slowLoader = () -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new PageImpl<>(Arrays.asList("listing-1"), FIRST_PAGE, 1);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> listingSearchCache.get("desk", null, null, null, null,
+                    Listing.ListingStatus.ACTIVE, "newest", FIRST_PAGE, slowLoader));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testDisabled_AlwaysLoads() {
+        ListingSearchCache disabled = new ListingSearchCache();
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.init();
+
+        disabled.get("desk", null, null, null, null, Listing.ListingStatus.ACTIVE, "newest", FIRST_PAGE, loader);
+        disabled.get("desk", null, null, null, null, Listing.ListingStatus.ACTIVE, "newest", FIRST_PAGE, loader);
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(2, loads.get());
+    }
+
+    private Page<String> search(String term, String categoryId) {
+        return listingSearchCache.get(term, categoryId, null, null, null, Listing.ListingStatus.ACTIVE, "newest",
+            FIRST_PAGE, loader);
+    }
+
+    private static Listing listing(String id, String categoryId) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setCategory(category);
+        return listing;
+    }
+}
@@ -0,0 +1,179 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingSearchIndexTest {
+    
+    @Mock
+    private ListingRepository listingRepository;
+    
+    @InjectMocks
+    private ListingSearchIndex listingSearchIndex;
+    
+    @BeforeEach
+    void setUp() {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        listingSearchIndex.rebuild();
+        
+        listingSearchIndex.index(listing("listing-1", "CMPE 202 Textbook", "Software engineering book", "books", "40.00", 1, Listing.ListingStatus.ACTIVE));
+        listingSearchIndex.index(listing("listing-2", "TI-84 calculator", "Graphing calculator for math", "electronics", "60.00", 2, Listing.ListingStatus.ACTIVE));
+        listingSearchIndex.index(listing("listing-3", "Calculus textbook", "Used for MATH 30", "books", "25.00", 3, Listing.ListingStatus.SOLD));
+        listingSearchIndex.index(listing("listing-4", "cmpe202 notes", "Notes that go with the textbook", "books", "5.00", 4, Listing.ListingStatus.ACTIVE));
+    }
+    
+    private Listing listing(String id, String title, String description, String categoryId, String price,
+                            int ageDays, Listing.ListingStatus status) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setTitle(title);
+        listing.setDescription(description);
+        listing.setCategory(category);
+        listing.setPrice(new BigDecimal(price));
+        listing.setCondition(Listing.ItemCondition.GOOD);
+        listing.setStatus(status);
+        listing.setCreatedAt(LocalDateTime.now().minusDays(ageDays));
+        listing.setUpdatedAt(LocalDateTime.now());
+        return listing;
+    }
+    
+    private List<String> search(String query, Listing.ListingStatus status, String sortBy) {
+        return listingSearchIndex.search(query, null, null, null, null, status, sortBy, 0, 10)
+            .orElseThrow()
+            .getListingIds();
+    }
+    
+    @Test
+    void testSearch_NotReadyReturnsEmpty() {
+        ListingSearchIndex fresh = new ListingSearchIndex();
+        
+        assertFalse(fresh.search("textbook", null, null, null, null, null, "newest", 0, 10).isPresent());
+    }
+    
+    @Test
+    void testSearch_CourseCodeVariantsMatch() {
+        assertEquals(2, search("CMPE 202", null, "relevance").size());
+        assertTrue(search("cmpe202", null, "relevance").containsAll(Arrays.asList("listing-1", "listing-4")));
+        assertTrue(search("cmpe-202", null, "relevance").containsAll(Arrays.asList("listing-1", "listing-4")));
+    }
+    
+    @Test
+    void testSearch_PrefixMatchesPartialTerm() {
+        assertEquals(Arrays.asList("listing-2", "listing-3"), search("calc", null, "newest"));
+    }
+    
+    @Test
+    void testSearch_AllTermsMustMatch() {
+        assertEquals(Collections.singletonList("listing-2"), search("graphing calculator", null, "relevance"));
+        assertTrue(search("graphing textbook", null, "relevance").isEmpty());
+    }
+    
+    @Test
+    void testSearch_TitleMatchesRankAboveDescriptionMatches() {
+        List<String> result = search("textbook", null, "relevance");
+        
+        assertEquals(3, result.size());
+        assertEquals("listing-4", result.get(2));
+    }
+    
+    @Test
+    void testSearch_FiltersAndSorts() {
+        assertEquals(Arrays.asList("listing-4", "listing-1"), search("textbook", Listing.ListingStatus.ACTIVE, "price_asc"));
+        assertEquals(Arrays.asList("listing-1", "listing-4"), search("textbook", Listing.ListingStatus.ACTIVE, "price_desc"));
+        
+        Optional<ListingSearchIndex.SearchHits> byPrice = listingSearchIndex.search(
+            "textbook", "books", new BigDecimal("20"), new BigDecimal("30"), null, null, "newest", 0, 10);
+        assertEquals(Collections.singletonList("listing-3"), byPrice.orElseThrow().getListingIds());
+    }
+    
+    @Test
+    void testSearch_PagesWithTotal() {
+        ListingSearchIndex.SearchHits hits = listingSearchIndex.search(
+            "textbook", null, null, null, null, null, "newest", 1, 1).orElseThrow();
+        
+        assertEquals(3, hits.getTotal());
+        assertEquals(Collections.singletonList("listing-3"), hits.getListingIds());
+    }
+    
+    @Test
+    void testSearch_StopWordsOnlyQueryIsNotAnswered() {
+        assertFalse(listingSearchIndex.search("the", null, null, null, null, null, "newest", 0, 10).isPresent());
+    }
+    
+    @Test
+    void testOnListingChanged_UpdatesAndRemoves() {
+        Listing renamed = listing("listing-2", "Desk lamp", "LED lamp", "furniture", "15.00", 2, Listing.ListingStatus.ACTIVE);
+        listingSearchIndex.onListingChanged(ListingChangedEvent.saved(renamed));
+        
+        assertTrue(search("calculator", null, "newest").isEmpty());
+        assertEquals(Collections.singletonList("listing-2"), search("lamp", null, "newest"));
+        
+        listingSearchIndex.onListingChanged(ListingChangedEvent.deleted("listing-2"));
+        
+        assertTrue(search("lamp", null, "newest").isEmpty());
+        assertEquals(3, listingSearchIndex.size());
+    }
+    
+    @Test
+    void testOnListingChanged_SearchCachedBeforeIndexAppliedIsRetired() {
+        ListingSearchCache cache = new ListingSearchCache();
+        cache.init();
+        ReflectionTestUtils.setField(listingSearchIndex, "listingSearchCache", cache);
+        Listing lamp = listing("listing-5", "Desk lamp", "LED lamp", "electronics", "15.00", 0, Listing.ListingStatus.ACTIVE);
+        ListingChangedEvent event = ListingChangedEvent.saved(lamp);
+        
+        // the cache's listener runs first and a search lands before the index has the listing
+        cache.onListingChanged(event);
+        assertTrue(cachedSearch(cache, "lamp").isEmpty());
+        
+        listingSearchIndex.onListingChanged(event);
+        
+        assertEquals(Collections.singletonList("listing-5"), cachedSearch(cache, "lamp"));
+    }
+    
+    private List<String> cachedSearch(ListingSearchCache cache, String term) {
+        PageRequest pageable = PageRequest.of(0, 10);
+        return cache.get(term, "electronics", null, null, null, Listing.ListingStatus.ACTIVE, "newest", pageable, () -> {
+            ListingSearchIndex.SearchHits hits = listingSearchIndex.search(
+                term, "electronics", null, null, null, Listing.ListingStatus.ACTIVE, "newest", 0, 10).orElseThrow();
+            return new PageImpl<>(hits.getListingIds(), pageable, hits.getTotal());
+        }).getContent();
+    }
+    
+    @Test
+    void testIndex_OlderVersionDoesNotOverwriteNewer() {
+        Listing stale = listing("listing-1", "Old title", "", "books", "40.00", 1, Listing.ListingStatus.ACTIVE);
+        stale.setUpdatedAt(LocalDateTime.now().minusDays(30));
+        listingSearchIndex.index(stale);
+        
+        assertTrue(search("old", null, "newest").isEmpty());
+        assertTrue(search("textbook", null, "newest").contains("listing-1"));
+    }
+}
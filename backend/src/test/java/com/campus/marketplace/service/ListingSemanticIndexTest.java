@@ -0,0 +1,166 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.util.HnswIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingSemanticIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @InjectMocks
+    private ListingSemanticIndex semanticIndex;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSearch_NotReadyReturnsEmpty() {
+        assertFalse(semanticIndex.search("graphing calculator", null, 10).isPresent());
+    }
+
+    @Test
+    void testRebuild_FindsListingsWithoutSharedWords() {
+        rebuild(semanticIndex, listingRepository,
+            row("listing-1", "TI-84 Plus", "Works great, batteries included", "electronics", Listing.ListingStatus.ACTIVE),
+            row("listing-2", "MacBook Air 2020", "8GB RAM", "electronics", Listing.ListingStatus.ACTIVE),
+            row("listing-3", "TI-84 CE", "Color screen", "electronics", Listing.ListingStatus.SOLD));
+
+        assertTrue(semanticIndex.isReady());
+        assertEquals(2, semanticIndex.size());
+        assertEquals(Collections.singletonList("listing-1"), search("graphing calculator", null));
+        assertEquals(Collections.singletonList("listing-2"), search("laptop", null));
+        assertTrue(search("zebra", null).isEmpty());
+    }
+
+    @Test
+    void testListingEvents_KeepIndexCurrent() {
+        rebuild(semanticIndex, listingRepository);
+        Listing listing = listing("listing-1", "Desk lamp", "LED, adjustable", "furniture");
+
+        semanticIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        assertEquals(Collections.singletonList("listing-1"), search("reading light", null));
+
+        listing.setTitle("Mini fridge");
+        listing.setDescription("3.1 cu ft");
+        semanticIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        assertTrue(search("reading light", null).isEmpty());
+        assertEquals(Collections.singletonList("listing-1"), search("refrigerator", null));
+
+        listing.setStatus(Listing.ListingStatus.SOLD);
+        semanticIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        assertTrue(search("refrigerator", null).isEmpty());
+
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        semanticIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        semanticIndex.onListingChanged(ListingChangedEvent.deleted("listing-1"));
+        assertEquals(0, semanticIndex.size());
+    }
+
+    @Test
+    void testSearch_CategoryFilter() {
+        rebuild(semanticIndex, listingRepository,
+            row("listing-1", "Desk lamp", "LED", "furniture", Listing.ListingStatus.ACTIVE),
+            row("listing-2", "Floor lamp", "Tall", "electronics", Listing.ListingStatus.ACTIVE));
+
+        assertEquals(2, search("lamp", null).size());
+        assertEquals(Collections.singletonList("listing-2"), search("lamp", "electronics"));
+    }
+
+    @Test
+    void testSnapshot_ReloadedAndReconciled() {
+        Path snapshot = tempDir.resolve("semantic/index.bin");
+        ReflectionTestUtils.setField(semanticIndex, "snapshotPath", snapshot.toString());
+        rebuild(semanticIndex, listingRepository,
+            row("listing-1", "TI-84 Plus", "Graphing", "electronics", Listing.ListingStatus.ACTIVE),
+            row("listing-2", "MacBook Air", "8GB RAM", "electronics", Listing.ListingStatus.ACTIVE));
+        assertTrue(Files.isRegularFile(snapshot));
+
+        // restart: listing-2 was deleted and listing-3 created while the application was down
+        ListingRepository repository = mock(ListingRepository.class);
+        ListingSemanticIndex restarted = new ListingSemanticIndex();
+        ReflectionTestUtils.setField(restarted, "listingRepository", repository);
+        ReflectionTestUtils.setField(restarted, "snapshotPath", snapshot.toString());
+        rebuild(restarted, repository,
+            row("listing-1", "TI-84 Plus", "Graphing", "electronics", Listing.ListingStatus.ACTIVE),
+            row("listing-3", "Desk lamp", "LED", "furniture", Listing.ListingStatus.ACTIVE));
+
+        assertEquals(2, restarted.size());
+        assertEquals(Collections.singletonList("listing-1"), ids(restarted, "graphing calculator"));
+        assertTrue(ids(restarted, "laptop").isEmpty());
+        assertEquals(Collections.singletonList("listing-3"), ids(restarted, "reading light"));
+    }
+
+    private static void rebuild(ListingSemanticIndex index, ListingRepository repository, ListingIndexRow... rows) {
+        when(repository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Arrays.asList(rows));
+        index.rebuild();
+    }
+
+    private List<String> search(String query, String categoryId) {
+        return semanticIndex.search(query, categoryId, 10).orElseThrow().stream()
+            .map(HnswIndex.Neighbor::getId)
+            .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(ListingSemanticIndex index, String query) {
+        return index.search(query, null, 10).orElseThrow().stream()
+            .map(HnswIndex.Neighbor::getId)
+            .collect(Collectors.toList());
+    }
+
+    private static Listing listing(String id, String title, String description, String categoryId) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setTitle(title);
+        listing.setDescription(description);
+        listing.setCategory(category);
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        listing.setUpdatedAt(LocalDateTime.now());
+        return listing;
+    }
+
+    private static ListingIndexRow row(String id, String title, String description, String categoryId,
+                                       Listing.ListingStatus status) {
+        return new ListingIndexRow() {
+            public String getId() { return id; }
+            public String getTitle() { return title; }
+            public String getDescription() { return description; }
+            public String getCategoryId() { return categoryId; }
+            public BigDecimal getPrice() { return BigDecimal.TEN; }
+            public Listing.ItemCondition getItemCondition() { return Listing.ItemCondition.GOOD; }
+            public Listing.ListingStatus getStatus() { return status; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.now(); }
+            public LocalDateTime getUpdatedAt() { return LocalDateTime.now(); }
+        };
+    }
+}
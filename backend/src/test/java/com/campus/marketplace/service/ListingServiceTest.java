@@ -1,29 +1,54 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.CursorPage;
+import com.campus.marketplace.dto.ListingDTO;
+import com.campus.marketplace.dto.ScoredListingDTO;
 import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.entity.ListingCourseCode;
 import com.campus.marketplace.entity.User;
 import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingCourseCodeRepository;
 import com.campus.marketplace.repository.ListingRepository;
+import com.campus.marketplace.repository.ListingVersion;
 import com.campus.marketplace.repository.UserRepository;
 import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.util.HnswIndex;
+import com.campus.marketplace.util.ListingCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +63,27 @@ public class ListingServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
     
+    @Mock
+    private ListingCourseCodeRepository listingCourseCodeRepository;
+    
+    @Mock
+    private ListingSearchIndex listingSearchIndex;
+    
+    @Mock
+    private ListingSemanticIndex listingSemanticIndex;
+    
+    @Mock
+    private SearchQueryLog searchQueryLog;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Spy
+    private ListingSearchCache listingSearchCache = new ListingSearchCache();
+    
+    @Spy
+    private ListingDetailCache listingDetailCache = new ListingDetailCache();
+    
     @InjectMocks
     private ListingService listingService;
     
@@ -119,69 +165,94 @@ public class ListingServiceTest {
     }
     
     @Test
-    void testGetAllListings() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findAll()).thenReturn(listings);
+    void testGetListingDTOById_ReloadsCachedEntryShowingOldSellerName() {
+        listingDetailCache.init();
+        ListingDTO cached = new ListingDTO(testListing);
+        cached.setSellerName("Old Name");
+        ListingDTO renamed = new ListingDTO(testListing);
+        renamed.setSellerName("New Name");
+        when(listingRepository.findDTOById("listing-123")).thenReturn(Optional.of(cached), Optional.of(renamed));
+        listingService.getListingDTOById("listing-123");
+        ListingVersion version = mock(ListingVersion.class);
+        when(version.getSellerName()).thenReturn("New Name");
         
-        List<Listing> result = listingService.getAllListings();
+        Optional<ListingDTO> result = listingService.getListingDTOById("listing-123", version);
         
-        assertEquals(1, result.size());
-        verify(listingRepository, times(1)).findAll();
+        assertEquals("New Name", result.get().getSellerName());
+        verify(listingRepository, times(2)).findDTOById("listing-123");
     }
     
     @Test
-    void testGetListingsBySeller() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findBySellerId("seller-123")).thenReturn(listings);
+    void testGetListingFeed_CapsRowsAndReturnsNextCursor() {
+        ReflectionTestUtils.setField(listingService, "feedMaxRows", 1);
+        ListingDTO first = new ListingDTO(testListing);
+        first.setCreatedAt(LocalDateTime.of(2025, 3, 1, 9, 0));
+        ListingDTO lookAhead = new ListingDTO();
+        lookAhead.setId("listing-456");
+        when(listingRepository.streamFeedCreatedBefore(any(), eq(""), eq(PageRequest.of(0, 2))))
+            .thenReturn(Stream.of(first, lookAhead));
         
-        List<Listing> result = listingService.getListingsBySeller("seller-123");
+        CursorPage<ListingDTO> result = listingService.getListingFeed(null, 50000);
         
-        assertEquals(1, result.size());
-        assertEquals("seller-123", result.get(0).getSeller().getId());
-        verify(listingRepository, times(1)).findBySellerId("seller-123");
+        assertTrue(result.isHasNext());
+        assertEquals(Arrays.asList("listing-123"), result.getContent().stream().map(ListingDTO::getId).collect(Collectors.toList()));
+        ListingCursor next = ListingCursor.decode(result.getNextCursor(), ListingCursor.Kind.CREATED_AT);
+        assertEquals("listing-123", next.getId());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 9, 0), next.getCreatedAt());
+        verify(listingRepository, never()).findAll();
+    }
+    
+    @Test
+    void testGetListingFeed_SeeksFromCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 2, 1, 8, 30);
+        String cursor = ListingCursor.ofCreatedAt(createdAt, "listing-999").encode();
+        when(listingRepository.streamFeedCreatedBefore(createdAt, "listing-999", PageRequest.of(0, 11)))
+            .thenReturn(Stream.of(new ListingDTO(testListing)));
+        
+        CursorPage<ListingDTO> result = listingService.getListingFeed(cursor, 10);
+        
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(1, result.getContent().size());
     }
     
     @Test
-    void testGetListingsByCategory() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findByCategoryId("category-123")).thenReturn(listings);
+    void testGetListingDTOsByCategory() {
+        when(listingRepository.findDTOsByCategoryId("category-123")).thenReturn(Arrays.asList(new ListingDTO(testListing)));
         
-        List<Listing> result = listingService.getListingsByCategory("category-123");
+        List<ListingDTO> result = listingService.getListingDTOsByCategory("category-123");
         
         assertEquals(1, result.size());
-        verify(listingRepository, times(1)).findByCategoryId("category-123");
+        verify(listingRepository, times(1)).findDTOsByCategoryId("category-123");
     }
     
     @Test
-    void testGetListingsByStatus() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findByStatus(Listing.ListingStatus.ACTIVE)).thenReturn(listings);
+    void testGetListingDTOsByStatus() {
+        when(listingRepository.findDTOsByStatus(Listing.ListingStatus.ACTIVE)).thenReturn(Arrays.asList(new ListingDTO(testListing)));
         
-        List<Listing> result = listingService.getListingsByStatus(Listing.ListingStatus.ACTIVE);
+        List<ListingDTO> result = listingService.getListingDTOsByStatus(Listing.ListingStatus.ACTIVE);
         
         assertEquals(1, result.size());
         assertEquals(Listing.ListingStatus.ACTIVE, result.get(0).getStatus());
     }
     
     @Test
-    void testGetListingsByCondition() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findByCondition(Listing.ItemCondition.GOOD)).thenReturn(listings);
+    void testGetListingDTOsByCondition() {
+        when(listingRepository.findDTOsByCondition(Listing.ItemCondition.GOOD)).thenReturn(Arrays.asList(new ListingDTO(testListing)));
         
-        List<Listing> result = listingService.getListingsByCondition(Listing.ItemCondition.GOOD);
+        List<ListingDTO> result = listingService.getListingDTOsByCondition(Listing.ItemCondition.GOOD);
         
         assertEquals(1, result.size());
         assertEquals(Listing.ItemCondition.GOOD, result.get(0).getCondition());
     }
     
     @Test
-    void testGetListingsByPriceRange() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findByPriceRange(
+    void testGetListingDTOsByPriceRange() {
+        when(listingRepository.findDTOsByPriceRange(
             new BigDecimal("50"), new BigDecimal("150")
-        )).thenReturn(listings);
+        )).thenReturn(Arrays.asList(new ListingDTO(testListing)));
         
-        List<Listing> result = listingService.getListingsByPriceRange(
+        List<ListingDTO> result = listingService.getListingDTOsByPriceRange(
             new BigDecimal("50"), new BigDecimal("150")
         );
         
@@ -189,14 +260,236 @@ public class ListingServiceTest {
     }
     
     @Test
-    void testSearchListingsByKeyword() {
-        List<Listing> listings = Arrays.asList(testListing);
-        when(listingRepository.findByTitleOrDescriptionContaining("Test", "Test"))
-            .thenReturn(listings);
+    void testSearchListingDTOsByKeyword() {
+        when(listingRepository.findDTOsByTitleOrDescriptionContaining("Test"))
+            .thenReturn(Arrays.asList(new ListingDTO(testListing)));
 
-        List<Listing> result = listingService.searchListings("Test");
+        List<ListingDTO> result = listingService.searchListingDTOs("Test");
+        
+        assertEquals(1, result.size());
+    }
+    
+    @Test
+    void testSearchListingDTOsByKeyword_ServedFromIndex() {
+        when(listingSearchIndex.search("Test", null, null, null, null, null, "relevance", 0, Integer.MAX_VALUE))
+            .thenReturn(Optional.of(new ListingSearchIndex.SearchHits(Arrays.asList("listing-123"), 1)));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        List<ListingDTO> result = listingService.searchListingDTOs("Test");
+        
+        assertEquals(1, result.size());
+        verify(listingRepository, never()).findDTOsByTitleOrDescriptionContaining(any());
+    }
+    
+    @Test
+    void testSearchListingDTOs_RecordsQuery() {
+        when(listingRepository.findDTOsByTitleOrDescriptionContaining("lamp")).thenReturn(Collections.emptyList());
+        
+        listingService.searchListingDTOs("lamp");
+        
+        verify(searchQueryLog).record(eq(SearchQueryLog.SOURCE_SEARCH), eq("lamp"), anyLong(), eq(0L));
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_FullTextRelevance() {
+        ReflectionTestUtils.setField(listingService, "searchBackend", "fulltext");
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<String> page = new PageImpl<>(Arrays.asList("listing-123"), pageable, 1);
+        when(listingRepository.fullTextSearchIdsByRelevance("+TI +84 +calculator", "TI 84 calculator", null, null, null,
+                null, "ACTIVE", PageRequest.of(0, 10)))
+            .thenReturn(page);
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("TI-84 (calculator)", null, null, null, null, null, "relevance", pageable);
+        
+        assertEquals(1, result.getTotalElements());
+        verify(listingSearchIndex, never()).search(any(), any(), any(), any(), any(), any(), any(), anyLong(), anyInt());
+        verify(listingRepository, never()).findIds(ArgumentMatchers.<Specification<Listing>>any(), any(Pageable.class));
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_FullTextNewestSortsByColumn() {
+        ReflectionTestUtils.setField(listingService, "searchBackend", "fulltext");
+        Pageable pageable = PageRequest.of(1, 20);
+        Pageable expected = PageRequest.of(1, 20, Sort.by("created_at").descending());
+        when(listingRepository.fullTextSearchIds("+desk", "category-123", null, null, "GOOD", "ACTIVE", expected))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 21));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("desk", "category-123", null, null,
+            Listing.ItemCondition.GOOD, null, "newest", pageable);
+        
+        assertEquals(21, result.getTotalElements());
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_FullTextShortTermFallsBackToLike() {
+        ReflectionTestUtils.setField(listingService, "searchBackend", "fulltext");
+        Pageable expected = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+        when(listingRepository.findIds(ArgumentMatchers.<Specification<Listing>>any(), eq(expected)))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 1));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("a", null, null, null, null, null, "newest",
+            PageRequest.of(0, 10));
+        
+        assertEquals(1, result.getTotalElements());
+        verify(listingRepository, never()).fullTextSearchIds(any(), any(), any(), any(), any(), any(), any());
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_FullTextAnyShortTermFallsBackToLike() {
+        ReflectionTestUtils.setField(listingService, "searchBackend", "fulltext");
+        Pageable expected = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+        when(listingRepository.findIds(ArgumentMatchers.<Specification<Listing>>any(), eq(expected)))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 1));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("ipad 2", null, null, null, null, null, "newest",
+            PageRequest.of(0, 10));
+        
+        assertEquals(1, result.getTotalElements());
+        verify(listingRepository, never()).fullTextSearchIds(any(), any(), any(), any(), any(), any(), any());
+    }
+    
+    @Test
+    void testGetListingDTOsBySeller_UsesProjection() {
+        when(listingRepository.findDTOsBySellerId("seller-123")).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        List<ListingDTO> result = listingService.getListingDTOsBySeller("seller-123");
         
         assertEquals(1, result.size());
+        assertEquals("Test Seller", result.get(0).getSellerName());
+        verify(listingRepository, never()).findAll();
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_IndexHitsProjectedInRankedOrder() {
+        ListingDTO second = new ListingDTO();
+        second.setId("listing-456");
+        Pageable pageable = PageRequest.of(0, 10);
+        when(listingSearchIndex.search("item", null, null, null, null, Listing.ListingStatus.ACTIVE, "relevance", 0L, 10))
+            .thenReturn(Optional.of(new ListingSearchIndex.SearchHits(Arrays.asList("listing-456", "listing-123"), 2)));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-456", "listing-123")))
+            .thenReturn(Arrays.asList(new ListingDTO(testListing), second));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters(" item ", null, null, null, null, null, "relevance", pageable);
+        
+        assertEquals(2, result.getTotalElements());
+        assertEquals("listing-456", result.getContent().get(0).getId());
+        assertEquals("listing-123", result.getContent().get(1).getId());
+        verify(listingRepository, never()).findAllById(any());
+        verify(searchQueryLog).record(eq(SearchQueryLog.SOURCE_ADVANCED), eq("item"), anyLong(), eq(2L));
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_FilterOnlyUsesIdQuery() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Pageable expected = PageRequest.of(0, 10, Sort.by("price").ascending());
+        when(listingRepository.findIds(ArgumentMatchers.<Specification<Listing>>any(), eq(expected)))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 1));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters(null, "category-123", null, null, null, null, "price_asc", pageable);
+        
+        assertEquals(1, result.getTotalElements());
+        assertEquals("Electronics", result.getContent().get(0).getCategoryName());
+        verify(listingRepository, never()).findAll(ArgumentMatchers.<Specification<Listing>>any(), any(Pageable.class));
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_RepeatedSearchReusesCachedIds() {
+        listingSearchCache.init();
+        Pageable pageable = PageRequest.of(0, 10);
+        Pageable expected = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+        when(listingRepository.findIds(ArgumentMatchers.<Specification<Listing>>any(), eq(expected)))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 1));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        listingService.searchListingDTOsWithFilters(null, "category-123", null, null, null, null, "newest", pageable);
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters(null, "category-123", null, null, null, null, "newest", pageable);
+        
+        assertEquals(1, result.getTotalElements());
+        verify(listingRepository, times(1)).findIds(ArgumentMatchers.<Specification<Listing>>any(), any(Pageable.class));
+        verify(listingRepository, times(2)).findDTOsByIdIn(Arrays.asList("listing-123"));
+    }
+    
+    @Test
+    void testWarmSearchCache_FirstAdvancedSearchPageIsCached() {
+        listingSearchCache.init();
+        Pageable pageable = PageRequest.of(0, 10);
+        when(listingSearchIndex.search("desk", null, null, null, null, Listing.ListingStatus.ACTIVE, "newest", 0L, 10))
+            .thenReturn(Optional.of(new ListingSearchIndex.SearchHits(Arrays.asList("listing-123"), 1)));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        listingService.warmSearchCache(" desk ");
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("desk", null, null, null, null, null, "newest", pageable);
+        
+        assertEquals(1, result.getTotalElements());
+        verify(listingSearchIndex, times(1)).search(any(), any(), any(), any(), any(), any(), any(), anyLong(), anyInt());
+        // only the user's search counts, not the warming
+        verify(searchQueryLog, times(1)).record(eq(SearchQueryLog.SOURCE_ADVANCED), eq("desk"), anyLong(), eq(1L));
+    }
+    
+    @Test
+    void testGetListingsByStatusAfter_FirstPageHasNextCursor() {
+        ListingDTO second = new ListingDTO();
+        second.setId("listing-456");
+        second.setCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        ListingDTO lookAhead = new ListingDTO();
+        lookAhead.setId("listing-789");
+        when(listingRepository.findByStatusCreatedBefore(eq(Listing.ListingStatus.ACTIVE), any(), eq(""), eq(PageRequest.of(0, 3))))
+            .thenReturn(new ArrayList<>(Arrays.asList(new ListingDTO(testListing), second, lookAhead)));
+        
+        CursorPage<ListingDTO> result = listingService.getListingsByStatusAfter(Listing.ListingStatus.ACTIVE, null, 2);
+        
+        assertTrue(result.isHasNext());
+        assertEquals(2, result.getContent().size());
+        ListingCursor next = ListingCursor.decode(result.getNextCursor(), ListingCursor.Kind.CREATED_AT);
+        assertEquals("listing-456", next.getId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0), next.getCreatedAt());
+        verify(listingRepository, never()).findDTOsByStatusOrderByCreatedAtDesc(any(), any());
+    }
+    
+    @Test
+    void testGetListingsBySellerAfter_SeeksFromCursorOnLastPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 2, 1, 8, 30);
+        String cursor = ListingCursor.ofCreatedAt(createdAt, "listing-999").encode();
+        when(listingRepository.findBySellerIdCreatedBefore("seller-123", createdAt, "listing-999", PageRequest.of(0, 11)))
+            .thenReturn(new ArrayList<>(Arrays.asList(new ListingDTO(testListing))));
+        
+        CursorPage<ListingDTO> result = listingService.getListingsBySellerAfter("seller-123", cursor, 10);
+        
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(1, result.getContent().size());
+    }
+    
+    @Test
+    void testSearchWithFiltersAfter_PriceAscUsesPriceCursor() {
+        String cursor = ListingCursor.ofPrice(new BigDecimal("50.00"), "listing-001").encode();
+        ListingDTO cheap = new ListingDTO();
+        cheap.setId("listing-002");
+        cheap.setPrice(new BigDecimal("60.00"));
+        when(listingRepository.searchWithFiltersPriceAfter("desk", null, null, null, null, Listing.ListingStatus.ACTIVE,
+                new BigDecimal("50.00"), "listing-001", PageRequest.of(0, 2)))
+            .thenReturn(new ArrayList<>(Arrays.asList(cheap, new ListingDTO(testListing))));
+        
+        CursorPage<ListingDTO> result = listingService.searchWithFiltersAfter(" desk ", null, null, null, null, null,
+            "price_asc", cursor, 1);
+        
+        assertTrue(result.isHasNext());
+        ListingCursor next = ListingCursor.decode(result.getNextCursor(), ListingCursor.Kind.PRICE);
+        assertEquals(new BigDecimal("60.00"), next.getPrice());
+        assertEquals("listing-002", next.getId());
+    }
+    
+    @Test
+    void testSearchWithFiltersAfter_RejectsCursorFromOtherSort() {
+        String cursor = ListingCursor.ofPrice(new BigDecimal("50.00"), "listing-001").encode();
+        
+        assertThrows(RuntimeException.class, () -> listingService.searchWithFiltersAfter(
+            null, null, null, null, null, null, "newest", cursor, 10));
     }
     
     @Test
@@ -208,6 +501,81 @@ public class ListingServiceTest {
         
         assertEquals("Updated Title", result.getTitle());
         verify(listingRepository, times(1)).save(testListing);
+        verify(eventPublisher).publishEvent(any(ListingChangedEvent.class));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateListing_StoresNormalizedCourseCodes() {
+        testListing.setTitle("cmpe-202 textbook");
+        testListing.setDescription("Also used in CS146 and CMPE 202");
+        when(listingRepository.save(testListing)).thenReturn(testListing);
+        
+        listingService.createListing(testListing);
+        
+        ArgumentCaptor<List<ListingCourseCode>> saved = ArgumentCaptor.forClass(List.class);
+        verify(listingCourseCodeRepository).saveAll(saved.capture());
+        assertEquals(Arrays.asList("CMPE 202", "CS 146"), saved.getValue().stream()
+            .map(code -> code.getDept() + " " + code.getNumber())
+            .collect(Collectors.toList()));
+        verify(listingCourseCodeRepository, never()).deleteAll(anyList());
+    }
+    
+    @Test
+    void testUpdateListing_WritesOnlyChangedCourseCodes() {
+        testListing.setTitle("Notes for CMPE 202 and MATH 42");
+        ListingCourseCode kept = new ListingCourseCode("listing-123", "CMPE", "202");
+        ListingCourseCode removed = new ListingCourseCode("listing-123", "CS", "146");
+        when(listingRepository.save(testListing)).thenReturn(testListing);
+        when(listingCourseCodeRepository.findByListingId("listing-123")).thenReturn(Arrays.asList(kept, removed));
+        
+        listingService.updateListing(testListing);
+        
+        verify(listingCourseCodeRepository).deleteAll(Collections.singletonList(removed));
+        verify(listingCourseCodeRepository).saveAll(argThat((List<ListingCourseCode> codes) ->
+            codes.size() == 1 && codes.get(0).getDept().equals("MATH") && codes.get(0).getNumber().equals("42")));
+    }
+    
+    @Test
+    void testSearchListingDTOsWithFilters_CourseCodeSkipsKeywordBackend() {
+        Pageable expected = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+        when(listingRepository.findIds(ArgumentMatchers.<Specification<Listing>>any(), eq(expected)))
+            .thenReturn(new PageImpl<>(Arrays.asList("listing-123"), expected, 1));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-123"))).thenReturn(Arrays.asList(new ListingDTO(testListing)));
+        
+        Page<ListingDTO> result = listingService.searchListingDTOsWithFilters("CMPE202", null, null, null, null, null, "relevance",
+            PageRequest.of(0, 10));
+        
+        assertEquals(1, result.getTotalElements());
+        verifyNoInteractions(listingSearchIndex);
+    }
+    
+    @Test
+    void testSemanticSearch_KeepsSimilarityOrderOfActiveListings() {
+        ListingDTO lamp = new ListingDTO(testListing);
+        Listing soldListing = new Listing();
+        soldListing.setId("listing-456");
+        soldListing.setSeller(testSeller);
+        soldListing.setCategory(testCategory);
+        soldListing.setStatus(Listing.ListingStatus.SOLD);
+        ListingDTO sold = new ListingDTO(soldListing);
+        when(listingSemanticIndex.search("reading light", "category-123", 50)).thenReturn(Optional.of(Arrays.asList(
+            new HnswIndex.Neighbor("listing-456", 0.8), new HnswIndex.Neighbor("listing-123", 0.6))));
+        when(listingRepository.findDTOsByIdIn(Arrays.asList("listing-456", "listing-123"))).thenReturn(Arrays.asList(lamp, sold));
+        
+        List<ScoredListingDTO> result = listingService.semanticSearch("reading light", "category-123", 500).orElseThrow();
+        
+        assertEquals(1, result.size());
+        assertEquals("listing-123", result.get(0).getId());
+        assertEquals(0.6, result.get(0).getScore(), 1e-9);
+    }
+    
+    @Test
+    void testSemanticSearch_IndexNotReady() {
+        when(listingSemanticIndex.search("laptop", null, 10)).thenReturn(Optional.empty());
+        
+        assertFalse(listingService.semanticSearch("laptop", null, 10).isPresent());
+        verifyNoInteractions(listingRepository);
     }
     
     @Test
@@ -226,5 +594,18 @@ public class ListingServiceTest {
         listingService.deleteListing("listing-123");
         
         verify(listingRepository, times(1)).deleteById("listing-123");
+        verify(eventPublisher).publishEvent(any(ListingChangedEvent.class));
+    }
+    
+    @Test
+    void testDeleteListing_EventCarriesCategory() {
+        when(listingRepository.findCategoryIdById("listing-123")).thenReturn(Optional.of("category-123"));
+        ArgumentCaptor<ListingChangedEvent> event = ArgumentCaptor.forClass(ListingChangedEvent.class);
+        
+        listingService.deleteListing("listing-123");
+        
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isDeleted());
+        assertEquals("category-123", event.getValue().getPreviousCategoryId());
     }
 }
@@ -0,0 +1,117 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.event.ListingChangedEvent;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListingSpellingIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @InjectMocks
+    private ListingSpellingIndex spellingIndex;
+
+    @Test
+    void testSuggest_NotReadyReturnsEmpty() {
+        assertFalse(spellingIndex.suggest("calculater").isPresent());
+    }
+
+    @Test
+    void testSuggest_CorrectsMisspelledTitleWords() {
+        rebuild(
+            row("listing-1", "TI-84 Plus graphing calculator", Listing.ListingStatus.ACTIVE),
+            row("listing-2", "CMPE 202 textbook", Listing.ListingStatus.ACTIVE),
+            row("listing-3", "Used bicycle", Listing.ListingStatus.SOLD));
+
+        assertEquals(Optional.of("graphing calculator"), spellingIndex.suggest("graphing calculater"));
+        assertEquals(Optional.of("CMPE 202 textbook!"), spellingIndex.suggest("CMPE 202 Textbok!"));
+        // correct words, stop words, short words and words without a close title word stay as they are
+        assertFalse(spellingIndex.suggest("calculator").isPresent());
+        assertFalse(spellingIndex.suggest("for the plus").isPresent());
+        assertFalse(spellingIndex.suggest("zebra").isPresent());
+        // only ACTIVE titles are in the dictionary
+        assertFalse(spellingIndex.suggest("bicycel").isPresent());
+    }
+
+    @Test
+    void testListingEvents_KeepDictionaryCurrent() {
+        rebuild();
+        Listing listing = listing("listing-1", "Desk lamp");
+
+        spellingIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        assertEquals(Optional.of("desk lamp"), spellingIndex.suggest("desk lmap"));
+
+        listing.setTitle("Mini fridge");
+        spellingIndex.onListingChanged(ListingChangedEvent.saved(listing));
+        assertFalse(spellingIndex.suggest("desk lmap").isPresent());
+        assertEquals(Optional.of("fridge"), spellingIndex.suggest("frige"));
+
+        spellingIndex.onListingChanged(ListingChangedEvent.deleted("listing-1"));
+        assertFalse(spellingIndex.suggest("frige").isPresent());
+    }
+
+    @Test
+    void testMetrics_ReportDictionarySizeAndLookups() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(spellingIndex, "meterRegistry", meterRegistry);
+        spellingIndex.registerMetrics();
+        rebuild(row("listing-1", "Graphing calculator", Listing.ListingStatus.ACTIVE));
+
+        spellingIndex.suggest("calculater");
+
+        assertEquals(2.0, meterRegistry.get(ListingSpellingIndex.WORDS_METRIC).gauge().value());
+        assertTrue(meterRegistry.get(ListingSpellingIndex.DELETES_METRIC).gauge().value() > 2);
+        assertTrue(meterRegistry.get(ListingSpellingIndex.BYTES_METRIC).gauge().value() > 0);
+        assertEquals(1, meterRegistry.get(ListingSpellingIndex.LOOKUP_METRIC).timer().count());
+    }
+
+    private void rebuild(ListingIndexRow... rows) {
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Arrays.asList(rows));
+        spellingIndex.rebuild();
+        assertTrue(spellingIndex.isReady());
+    }
+
+    private static Listing listing(String id, String title) {
+        Listing listing = new Listing();
+        listing.setId(id);
+        listing.setTitle(title);
+        listing.setStatus(Listing.ListingStatus.ACTIVE);
+        listing.setUpdatedAt(LocalDateTime.now());
+        return listing;
+    }
+
+    private static ListingIndexRow row(String id, String title, Listing.ListingStatus status) {
+        return new ListingIndexRow() {
+            public String getId() { return id; }
+            public String getTitle() { return title; }
+            public String getDescription() { return null; }
+            public String getCategoryId() { return "category-1"; }
+            public BigDecimal getPrice() { return BigDecimal.TEN; }
+            public Listing.ItemCondition getItemCondition() { return Listing.ItemCondition.GOOD; }
+            public Listing.ListingStatus getStatus() { return status; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.now(); }
+            public LocalDateTime getUpdatedAt() { return LocalDateTime.now(); }
+        };
+    }
+}
@@ -0,0 +1,219 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.event.MessageChangedEvent;
+import com.campus.marketplace.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+public class MessagePushServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @InjectMocks
+    private MessagePushService messagePushService;
+
+    private MockMvc mockMvc;
+    private MessageDTO message;
+
+    // Serves the service's streams the way MessageController does, for any user
+    @RestController
+    static class StreamController {
+        private final MessagePushService messagePushService;
+
+        StreamController(MessagePushService messagePushService) {
+            this.messagePushService = messagePushService;
+        }
+
+        @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public SseEmitter stream(@PathVariable String userId) {
+            return messagePushService.subscribe(userId).orElseThrow();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(messagePushService)).build();
+        message = new MessageDTO("message-123", "listing-123", "Desk Lamp", "user-1", "User One",
+            "user-2", "User Two", "Is this still available?", false, null);
+    }
+
+    @Test
+    void testSubscribe_SendsUnreadCountFirst() throws Exception {
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(3L);
+
+        MvcResult stream = open("user-2");
+
+        String body = stream.getResponse().getContentAsString();
+        assertTrue(body.startsWith("event:unread\ndata:{\"count\":3}"), body);
+        assertEquals(1, messagePushService.getConnectionCount());
+    }
+
+    @Test
+    void testMessageSent_PushedToRecipientWithUnreadCountAndToSender() throws Exception {
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(0L, 1L);
+        when(messageRepository.countUnreadMessagesByUserId("user-1")).thenReturn(0L);
+        when(messageRepository.countUnreadMessagesByUserId("user-3")).thenReturn(0L);
+        MvcResult recipient = open("user-2");
+        MvcResult sender = open("user-1");
+        MvcResult bystander = open("user-3");
+
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+
+        String recipientBody = recipient.getResponse().getContentAsString();
+        int messageAt = recipientBody.indexOf("event:message");
+        assertTrue(messageAt > 0, recipientBody);
+        assertTrue(recipientBody.contains("\"content\":\"Is this still available?\""));
+        assertTrue(recipientBody.indexOf("data:{\"count\":1}") > messageAt, recipientBody);
+        String senderBody = sender.getResponse().getContentAsString();
+        assertTrue(senderBody.contains("event:message"), senderBody);
+        assertEquals(1, countOccurrences(senderBody, "event:unread"));
+        assertFalse(bystander.getResponse().getContentAsString().contains("event:message"));
+        // the sender's count did not change
+        verify(messageRepository, times(1)).countUnreadMessagesByUserId("user-1");
+    }
+
+    @Test
+    void testMessageSent_UnreadCountedOnSenderPoolOncePerBurst() throws Exception {
+        ExecutorService senderPool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        senderPool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ReflectionTestUtils.setField(messagePushService, "senderPool", senderPool);
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(0L, 2L);
+        open("user-2");
+
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+
+        // only the count taken on subscribe so far: the committing thread did not query
+        verify(messageRepository, times(1)).countUnreadMessagesByUserId("user-2");
+        release.countDown();
+        verify(messageRepository, timeout(5000).times(2)).countUnreadMessagesByUserId("user-2");
+        senderPool.shutdownNow();
+    }
+
+    @Test
+    void testMessagesRead_PushesLowerUnreadCount() throws Exception {
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(4L, 0L);
+        MvcResult stream = open("user-2");
+
+        messagePushService.onMessageChanged(MessageChangedEvent.read("user-2"));
+
+        String body = stream.getResponse().getContentAsString();
+        assertTrue(body.indexOf("data:{\"count\":0}") > body.indexOf("data:{\"count\":4}"), body);
+    }
+
+    @Test
+    void testMessageToDisconnectedUser_NoUnreadCountQuery() {
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testSubscribe_OldestConnectionClosedBeyondLimit() throws Exception {
+        ReflectionTestUtils.setField(messagePushService, "maxConnectionsPerUser", 2);
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(0L, 0L, 0L, 1L);
+        MvcResult oldest = open("user-2");
+        open("user-2");
+        MvcResult newest = open("user-2");
+
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+
+        assertEquals(2, messagePushService.getConnectionCount());
+        assertFalse(oldest.getResponse().getContentAsString().contains("event:message"));
+        assertTrue(newest.getResponse().getContentAsString().contains("event:message"));
+    }
+
+    @Test
+    void testSlowConnection_ClosedWhenQueueIsFull() throws Exception {
+        ReflectionTestUtils.setField(messagePushService, "queueCapacity", 2);
+        // a sender pool that is busy elsewhere, so nothing is drained
+        ExecutorService senderPool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        senderPool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ReflectionTestUtils.setField(messagePushService, "senderPool", senderPool);
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(0L);
+        MvcResult stream = open("user-2");
+
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+        assertEquals(1, messagePushService.getConnectionCount());
+        messagePushService.onMessageChanged(MessageChangedEvent.sent(message));
+
+        assertEquals(0, messagePushService.getConnectionCount());
+        release.countDown();
+        senderPool.shutdown();
+        assertTrue(senderPool.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(stream.getResponse().getContentAsString().contains("event:message"));
+    }
+
+    @Test
+    void testHeartbeat_SentOnIdleConnections() throws Exception {
+        when(messageRepository.countUnreadMessagesByUserId("user-2")).thenReturn(0L);
+        MvcResult stream = open("user-2");
+
+        messagePushService.heartbeat();
+
+        assertTrue(stream.getResponse().getContentAsString().endsWith(":heartbeat\n\n"));
+    }
+
+    @Test
+    void testSubscribe_DisabledReturnsEmpty() {
+        ReflectionTestUtils.setField(messagePushService, "enabled", false);
+
+        assertTrue(messagePushService.subscribe("user-2").isEmpty());
+        verifyNoInteractions(messageRepository);
+    }
+
+    private MvcResult open(String userId) throws Exception {
+        return mockMvc.perform(get("/stream/" + userId).accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
+
+    private static int countOccurrences(String text, String part) {
+        int count = 0;
+        for (int at = text.indexOf(part); at >= 0; at = text.indexOf(part, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
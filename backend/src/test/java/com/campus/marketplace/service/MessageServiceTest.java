@@ -1,24 +1,36 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.ConversationDTO;
 import com.campus.marketplace.dto.CreateMessageRequest;
+import com.campus.marketplace.dto.CursorPage;
 import com.campus.marketplace.dto.MessageDTO;
+import com.campus.marketplace.entity.Conversation;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.Message;
 import com.campus.marketplace.entity.User;
+import com.campus.marketplace.event.MessageChangedEvent;
+import com.campus.marketplace.repository.ConversationRepository;
 import com.campus.marketplace.repository.ListingRepository;
 import com.campus.marketplace.repository.MessageRepository;
 import com.campus.marketplace.repository.UserRepository;
+import com.campus.marketplace.util.MessageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,12 +50,19 @@ public class MessageServiceTest {
     @Mock
     private ListingRepository listingRepository;
     
+    @Mock
+    private ConversationRepository conversationRepository;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private MessageService messageService;
     
     private User fromUser;
     private User toUser;
     private Listing listing;
+    private Conversation conversation;
     private Message message;
     private CreateMessageRequest createRequest;
     
@@ -64,9 +83,13 @@ public class MessageServiceTest {
         listing.setTitle("Test Listing");
         listing.setSeller(toUser);
         
+        conversation = new Conversation(listing, fromUser, toUser);
+        conversation.setId("conversation-123");
+        
         message = new Message(listing, fromUser, toUser, "Hello, is this still available?");
         message.setId("message-123");
-        message.setIsRead(false);
+        message.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 0));
+        message.setConversation(conversation);
         
         createRequest = new CreateMessageRequest();
         createRequest.setListingId("listing-123");
@@ -80,6 +103,7 @@ public class MessageServiceTest {
         when(listingRepository.findById("listing-123")).thenReturn(Optional.of(listing));
         when(userRepository.findById("user-2")).thenReturn(Optional.of(toUser));
         when(userRepository.findById("user-1")).thenReturn(Optional.of(fromUser));
+        when(conversationRepository.findForUpdate("listing-123", "user-1", "user-2")).thenReturn(Optional.of(conversation));
         when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
             Message m = invocation.getArgument(0);
             m.setId("message-123");
@@ -93,7 +117,42 @@ public class MessageServiceTest {
         assertNotNull(result);
         assertEquals("message-123", result.getId());
         assertEquals("Hello, is this still available?", result.getContent());
-        verify(messageRepository).save(any(Message.class));
+        ArgumentCaptor<Message> saved = ArgumentCaptor.forClass(Message.class);
+        verify(messageRepository).save(saved.capture());
+        assertSame(conversation, saved.getValue().getConversation());
+        assertEquals("message-123", conversation.getLastMessageId());
+        assertEquals("Hello, is this still available?", conversation.getLastMessagePreview());
+        assertEquals("user-1", conversation.getLastSenderId());
+        assertEquals(1, conversation.getUnreadCount("user-2"));
+        assertEquals(0, conversation.getUnreadCount("user-1"));
+        // the row is created or locked first; the locking read always finds it
+        verify(conversationRepository).insertIfAbsent("listing-123", "user-1", "user-2");
+        ArgumentCaptor<MessageChangedEvent> event = ArgumentCaptor.forClass(MessageChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isSent());
+        assertSame(result, event.getValue().getMessage());
+        assertEquals("user-2", event.getValue().getUserId());
+    }
+    
+    @Test
+    void testSendMessage_FirstMessageCreatesConversation() {
+        // the recipient's id sorts first, so the users are stored swapped
+        toUser.setId("user-0");
+        createRequest.setToUserId("user-0");
+        when(listingRepository.findById("listing-123")).thenReturn(Optional.of(listing));
+        when(userRepository.findById("user-0")).thenReturn(Optional.of(toUser));
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(fromUser));
+        Conversation created = new Conversation(listing, toUser, fromUser);
+        when(conversationRepository.findForUpdate("listing-123", "user-0", "user-1")).thenReturn(Optional.of(created));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        messageService.sendMessage(createRequest, "user-1");
+        
+        InOrder order = inOrder(conversationRepository);
+        order.verify(conversationRepository).insertIfAbsent("listing-123", "user-0", "user-1");
+        order.verify(conversationRepository).findForUpdate("listing-123", "user-0", "user-1");
+        assertEquals(1, created.getUserLowUnread());
+        assertEquals(0, created.getUserHighUnread());
     }
     
     @Test
@@ -190,6 +249,7 @@ public class MessageServiceTest {
     @Test
     void testCreateSystemMessage_Success() {
         // Arrange
+        when(conversationRepository.findForUpdate("listing-123", "user-1", "user-2")).thenReturn(Optional.of(conversation));
         when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
             Message m = invocation.getArgument(0);
             m.setId("system-message-123");
@@ -205,22 +265,53 @@ public class MessageServiceTest {
         assertEquals("system-message-123", result.getId());
         assertEquals("System notification", result.getContent());
         verify(messageRepository).save(any(Message.class));
+        assertEquals("system-message-123", conversation.getLastMessageId());
+        assertEquals(1, conversation.getUnreadCount("user-2"));
+        ArgumentCaptor<MessageChangedEvent> event = ArgumentCaptor.forClass(MessageChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertSame(result, event.getValue().getMessage());
     }
     
     @Test
     void testMarkMessageAsRead_Success() {
         // Arrange
-        message.setIsRead(false);
+        assertFalse(message.getIsRead());
+        conversation.addUnread("user-2", 2);
         when(messageRepository.findById("message-123")).thenReturn(Optional.of(message));
-        when(messageRepository.save(any(Message.class))).thenReturn(message);
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.countReceivedAfter("conversation-123", "user-2", message.getCreatedAt(), "message-123"))
+            .thenReturn(1L);
         
         // Act
         MessageDTO result = messageService.markMessageAsRead("message-123", "user-2");
         
         // Assert
+        assertTrue(result.getIsRead());
         assertTrue(message.getIsRead());
+        assertEquals("message-123", conversation.getLastReadMessageId("user-2"));
+        assertEquals(1, conversation.getUnreadCount("user-2"));
         verify(messageRepository).findById("message-123");
-        verify(messageRepository).save(message);
+        // the read cursor moved; the message row is not written
+        verify(messageRepository, never()).save(any(Message.class));
+        verify(eventPublisher).publishEvent(any(MessageChangedEvent.class));
+    }
+    
+    @Test
+    void testMarkMessageAsRead_AlreadyReadLeavesUnreadCount() {
+        Message later = new Message(listing, fromUser, toUser, "Still there?");
+        later.setId("message-200");
+        later.setCreatedAt(message.getCreatedAt().plusMinutes(5));
+        conversation.markReadUpTo("user-2", later);
+        when(messageRepository.findById("message-123")).thenReturn(Optional.of(message));
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        MessageDTO result = messageService.markMessageAsRead("message-123", "user-2");
+        
+        assertTrue(result.getIsRead());
+        // the cursor never moves back
+        assertEquals("message-200", conversation.getLastReadMessageId("user-2"));
+        verify(messageRepository, never()).countReceivedAfter(any(), any(), any(), any());
+        verifyNoInteractions(eventPublisher);
     }
     
     @Test
@@ -240,13 +331,39 @@ public class MessageServiceTest {
     @Test
     void testDeleteMessage_Success() {
         // Arrange
+        Message earlier = new Message(listing, toUser, fromUser, "Yes, it is");
+        earlier.setId("message-100");
+        earlier.setCreatedAt(message.getCreatedAt().minusMinutes(5));
+        conversation.setLastMessage(message);
+        conversation.addUnread("user-2", 1);
         when(messageRepository.findById("message-123")).thenReturn(Optional.of(message));
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findFirstByConversationIdAndIdNotOrderByCreatedAtDescIdDesc("conversation-123", "message-123"))
+            .thenReturn(Optional.of(earlier));
         
         // Act
         messageService.deleteMessage("message-123", "user-1");
         
         // Assert
         verify(messageRepository).delete(message);
+        assertEquals("message-100", conversation.getLastMessageId());
+        assertEquals("user-2", conversation.getLastSenderId());
+        assertEquals(0, conversation.getUnreadCount("user-2"));
+        verify(conversationRepository, never()).delete(any(Conversation.class));
+    }
+    
+    @Test
+    void testDeleteMessage_LastMessageDeletesConversation() {
+        conversation.setLastMessage(message);
+        when(messageRepository.findById("message-123")).thenReturn(Optional.of(message));
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findFirstByConversationIdAndIdNotOrderByCreatedAtDescIdDesc("conversation-123", "message-123"))
+            .thenReturn(Optional.empty());
+        
+        messageService.deleteMessage("message-123", "user-1");
+        
+        verify(messageRepository).delete(message);
+        verify(conversationRepository).delete(conversation);
     }
     
     @Test
@@ -278,31 +395,239 @@ public class MessageServiceTest {
     
     @Test
     void testMarkAllMessagesAsRead() {
-        // Arrange
-        List<Message> unreadMessages = Arrays.asList(message);
-        when(messageRepository.findUnreadMessagesByUserId("user-2")).thenReturn(unreadMessages);
-        when(messageRepository.saveAll(anyList())).thenReturn(unreadMessages);
-        
         // Act
         messageService.markAllMessagesAsRead("user-2");
         
-        // Assert
-        assertTrue(message.getIsRead());
-        verify(messageRepository).findUnreadMessagesByUserId("user-2");
-        verify(messageRepository).saveAll(unreadMessages);
+        // Assert: one update of the conversation cursors, no message loads or writes
+        verify(conversationRepository).markAllRead("user-2");
+        verifyNoInteractions(messageRepository);
+        ArgumentCaptor<MessageChangedEvent> event = ArgumentCaptor.forClass(MessageChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertFalse(event.getValue().isSent());
+        assertEquals("user-2", event.getValue().getUserId());
+    }
+    
+    @Test
+    void testGetMessagesForListing_QueriesOnlyTheParticipantsMessages() {
+        when(listingRepository.existsById("listing-123")).thenReturn(true);
+        when(messageRepository.findDTOsByListingIdAndParticipant("listing-123", "user-1"))
+            .thenReturn(Arrays.asList(new MessageDTO(message)));
+        
+        List<MessageDTO> result = messageService.getMessagesForListing("listing-123", "user-1");
+        
+        assertEquals(1, result.size());
+        assertEquals("message-123", result.get(0).getId());
+        verify(listingRepository, never()).findById(any());
+        verify(messageRepository, never()).findByListingIdOrderByCreatedAtAsc(any());
+    }
+    
+    @Test
+    void testGetMessagesForListing_Paged() {
+        Page<MessageDTO> messagePage = new PageImpl<>(Arrays.asList(new MessageDTO(message)));
+        when(listingRepository.existsById("listing-123")).thenReturn(true);
+        when(messageRepository.findDTOsByListingIdAndParticipant("listing-123", "user-2", PageRequest.of(1, 10)))
+            .thenReturn(messagePage);
+        
+        assertSame(messagePage, messageService.getMessagesForListing("listing-123", "user-2", 1, 10));
+    }
+    
+    @Test
+    void testGetMessagesForListing_ListingNotFound() {
+        when(listingRepository.existsById("listing-404")).thenReturn(false);
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            messageService.getMessagesForListing("listing-404", "user-1"));
+        
+        assertEquals("Listing not found", exception.getMessage());
+        verifyNoInteractions(messageRepository);
     }
     
     @Test
     void testGetMessagesSentByUser_WithPagination() {
         // Arrange
-        Page<Message> messagePage = new PageImpl<>(Arrays.asList(message));
-        when(messageRepository.findByFromUserIdOrderByCreatedAtDesc(
+        Page<MessageDTO> messagePage = new PageImpl<>(Arrays.asList(new MessageDTO(message)));
+        when(messageRepository.findSentDTOs(
             "user-1", PageRequest.of(0, 20))).thenReturn(messagePage);
         
         // Act
         messageService.getMessagesSentByUser("user-1", 0, 20);
         
         // Assert
-        verify(messageRepository).findByFromUserIdOrderByCreatedAtDesc("user-1", PageRequest.of(0, 20));
+        verify(messageRepository).findSentDTOs("user-1", PageRequest.of(0, 20));
+    }
+    
+    @Test
+    void testMarkConversationAsRead_MovesCursorToLastMessage() {
+        conversation.setLastMessage(message);
+        conversation.addUnread("user-2", 3);
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        messageService.markConversationAsRead("conversation-123", "user-2");
+        
+        assertEquals(0, conversation.getUnreadCount("user-2"));
+        assertEquals("message-123", conversation.getLastReadMessageId("user-2"));
+        assertTrue(message.getIsRead());
+        verify(eventPublisher).publishEvent(any(MessageChangedEvent.class));
+    }
+    
+    @Test
+    void testMarkConversationAsRead_ParticipantsOnly() {
+        when(conversationRepository.findByIdForUpdate("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            messageService.markConversationAsRead("conversation-123", "user-3"));
+        
+        assertEquals("Access denied: You can only view conversations you're part of", exception.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+    
+    @Test
+    void testGetInbox_SummariesFromViewersSide() {
+        conversation.setLastMessage(message);
+        conversation.addUnread("user-2", 3);
+        when(conversationRepository.findInbox("user-2", PageRequest.of(0, 20)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(conversation)));
+        
+        Page<ConversationDTO> inbox = messageService.getInbox("user-2", 0, 20);
+        
+        ConversationDTO entry = inbox.getContent().get(0);
+        assertEquals("conversation-123", entry.getId());
+        assertEquals("Test Listing", entry.getListingTitle());
+        assertEquals("user-1", entry.getOtherUserId());
+        assertEquals("User One", entry.getOtherUserName());
+        assertEquals("Hello, is this still available?", entry.getLastMessagePreview());
+        assertEquals(3, entry.getUnreadCount());
+    }
+    
+    @Test
+    void testGetConversationMessages_ParticipantsOnly() {
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            messageService.getConversationMessages("conversation-123", "user-3", 0, 20));
+        
+        assertEquals("Access denied: You can only view conversations you're part of", exception.getMessage());
+        verify(messageRepository, never()).findDTOsByConversationId(any(), any());
+    }
+    
+    @Test
+    void testGetConversationMessages_ReadsByConversationId() {
+        Page<MessageDTO> messagePage = new PageImpl<>(Arrays.asList(new MessageDTO(message)));
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findDTOsByConversationId("conversation-123", PageRequest.of(0, 20))).thenReturn(messagePage);
+        
+        assertSame(messagePage, messageService.getConversationMessages("conversation-123", "user-2", 0, 20));
+    }
+    
+    @Test
+    void testGetConversationForListing_LooksUpConversationInEitherOrder() {
+        when(conversationRepository.findIdByParticipants("listing-123", "user-1", "user-2"))
+            .thenReturn(Optional.of("conversation-123"));
+        when(messageRepository.findDTOsByConversationId("conversation-123"))
+            .thenReturn(Arrays.asList(new MessageDTO(message)));
+        
+        List<MessageDTO> result = messageService.getConversationForListing("listing-123", "user-2", "user-1", "user-2");
+        
+        assertEquals(1, result.size());
+    }
+    
+    @Test
+    void testGetConversationForListing_NoConversationIsEmpty() {
+        when(conversationRepository.findIdByParticipants("listing-123", "user-1", "user-2")).thenReturn(Optional.empty());
+        
+        Page<MessageDTO> result = messageService.getConversationForListing("listing-123", "user-1", "user-2", "user-1", 0, 20);
+        
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(messageRepository);
+    }
+    
+    @Test
+    void testGetConversationHistory_FirstPageNewestFirst() {
+        MessageDTO newest = historyMessage("message-3", LocalDateTime.of(2025, 3, 1, 12, 2));
+        MessageDTO middle = historyMessage("message-2", LocalDateTime.of(2025, 3, 1, 12, 1));
+        MessageDTO lookAhead = historyMessage("message-1", LocalDateTime.of(2025, 3, 1, 12, 0));
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findDTOsByConversationIdBefore(eq("conversation-123"), any(), eq(""), eq(PageRequest.of(0, 3))))
+            .thenReturn(new ArrayList<>(Arrays.asList(newest, middle, lookAhead)));
+        
+        CursorPage<MessageDTO> result = messageService.getConversationHistory("conversation-123", "user-2", null, null, 2);
+        
+        assertTrue(result.isHasNext());
+        assertEquals(Arrays.asList(newest, middle), result.getContent());
+        // older messages load from the oldest one shown, new ones arrive after the newest
+        assertEquals("message-2", MessageCursor.decode(result.getNextCursor()).getId());
+        assertEquals(middle.getCreatedAt(), MessageCursor.decode(result.getNextCursor()).getCreatedAt());
+        assertEquals("message-3", MessageCursor.decode(result.getPrevCursor()).getId());
+        verify(messageRepository, never()).findDTOsByConversationId(any(), any());
+    }
+    
+    @Test
+    void testGetConversationHistory_AfterReturnsNewMessagesNewestFirst() {
+        LocalDateTime seenAt = LocalDateTime.of(2025, 3, 1, 12, 0);
+        String after = MessageCursor.of(seenAt, "message-1").encode();
+        MessageDTO second = historyMessage("message-2", seenAt.plusMinutes(1));
+        MessageDTO third = historyMessage("message-3", seenAt.plusMinutes(2));
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findDTOsByConversationIdAfter("conversation-123", seenAt, "message-1", PageRequest.of(0, 21)))
+            .thenReturn(new ArrayList<>(Arrays.asList(second, third)));
+        
+        CursorPage<MessageDTO> result = messageService.getConversationHistory("conversation-123", "user-2", null, after, 20);
+        
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(Arrays.asList(third, second), result.getContent());
+        assertEquals("message-3", MessageCursor.decode(result.getPrevCursor()).getId());
+    }
+    
+    @Test
+    void testGetConversationHistory_NothingNewKeepsCursor() {
+        String after = MessageCursor.of(LocalDateTime.of(2025, 3, 1, 12, 0), "message-1").encode();
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        when(messageRepository.findDTOsByConversationIdAfter(eq("conversation-123"), any(), eq("message-1"), any()))
+            .thenReturn(new ArrayList<>());
+        
+        CursorPage<MessageDTO> result = messageService.getConversationHistory("conversation-123", "user-1", null, after, 20);
+        
+        assertTrue(result.getContent().isEmpty());
+        assertEquals(after, result.getPrevCursor());
+    }
+    
+    @Test
+    void testGetConversationHistory_RejectsBeforeAndAfterTogether() {
+        String cursor = MessageCursor.of(LocalDateTime.of(2025, 3, 1, 12, 0), "message-1").encode();
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            messageService.getConversationHistory("conversation-123", "user-2", cursor, cursor, 20));
+        
+        assertEquals("Use either before or after, not both", exception.getMessage());
+        verifyNoInteractions(messageRepository);
+    }
+    
+    @Test
+    void testGetConversationHistory_ParticipantsOnly() {
+        when(conversationRepository.findById("conversation-123")).thenReturn(Optional.of(conversation));
+        
+        assertThrows(RuntimeException.class, () ->
+            messageService.getConversationHistory("conversation-123", "user-3", null, null, 20));
+        verifyNoInteractions(messageRepository);
+    }
+    
+    @Test
+    void testGetConversationHistoryForListing_NoConversationIsEmpty() {
+        when(conversationRepository.findIdByParticipants("listing-123", "user-1", "user-2")).thenReturn(Optional.empty());
+        
+        CursorPage<MessageDTO> result = messageService.getConversationHistoryForListing(
+            "listing-123", "user-2", "user-1", "user-2", null, null, 500);
+        
+        assertTrue(result.getContent().isEmpty());
+        assertFalse(result.isHasNext());
+        assertEquals(100, result.getSize());
+        verifyNoInteractions(messageRepository);
+    }
+    
+    private MessageDTO historyMessage(String id, LocalDateTime createdAt) {
+        return new MessageDTO(id, "listing-123", "Test Listing", "user-1", "User One",
+            "user-2", "User Two", "Hello " + id, false, createdAt);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Offline training and evaluation of the local chatbot interpreter against the extractKeywords fallback.
+ * Trains on the category names and the seed queries, then scores the held-out queries in
+ * chatbot/intent-eval.tsv for keyword recall, category accuracy, coverage and latency.
+ * Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups= -Dtest=QueryIntentClassifierBenchmarkTest}.
+ */
+@Tag("benchmark")
+public class QueryIntentClassifierBenchmarkTest {
+
+    private static final String EVAL_RESOURCE = "chatbot/intent-eval.tsv";
+    private static final List<String> CATEGORIES = Arrays.asList(
+        "Electronics", "Books", "Clothing", "Furniture", "Sports", "Home & Garden", "Automotive", "Toys & Games",
+        "Health & Beauty", "Musical Instruments", "Art & Crafts", "Office Supplies");
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int MEASURED_ROUNDS = 5000;
+
+    private static class EvalQuery {
+        final String category;
+        final String expectedKeywords;
+        final String query;
+
+        EvalQuery(String category, String expectedKeywords, String query) {
+            this.category = category;
+            this.expectedKeywords = expectedKeywords;
+            this.query = query;
+        }
+    }
+
+    @Test
+    void benchmarkLocalInterpreterAgainstKeywordFallback() throws Exception {
+        QueryIntentClassifier classifier = trainedClassifier();
+        ChatbotSearchService chatbotSearchService = new ChatbotSearchService();
+        Function<String, String> fallback =
+            query -> ReflectionTestUtils.invokeMethod(chatbotSearchService, "extractKeywords", query);
+        List<EvalQuery> queries = loadEvalQueries();
+
+        double localRecall = 0;
+        double fallbackRecall = 0;
+        int correctCategory = 0;
+        int confident = 0;
+        int confidentCorrect = 0;
+        for (EvalQuery eval : queries) {
+            QueryIntentClassifier.Intent intent = classifier.classify(eval.query);
+            localRecall += keywordRecall(eval.expectedKeywords, intent == null ? "" : intent.getKeywords());
+            fallbackRecall += keywordRecall(eval.expectedKeywords, fallback.apply(eval.query));
+            boolean correct = intent != null && eval.category.equals(intent.getCategoryId());
+            if (correct) {
+                correctCategory++;
+            }
+            if (intent != null && intent.isConfident()) {
+                confident++;
+                if (correct) {
+                    confidentCorrect++;
+                }
+            }
+        }
+        int n = queries.size();
+        double localMicros = microsPerQuery(queries, classifier::classify);
+        double fallbackMicros = microsPerQuery(queries, fallback);
+
+        System.out.printf("queries: %d%n", n);
+        System.out.printf("local interpreter : keyword recall %.3f, category accuracy %.3f, %.2f us/query%n",
+            localRecall / n, (double) correctCategory / n, localMicros);
+        System.out.printf("  answered without ChatGPT: %d (%.0f%%), category precision %.3f%n",
+            confident, 100.0 * confident / n, confident == 0 ? 0 : (double) confidentCorrect / confident);
+        System.out.printf("extractKeywords   : keyword recall %.3f, no category, %.2f us/query%n",
+            fallbackRecall / n, fallbackMicros);
+
+        assertTrue(localRecall >= fallbackRecall, "local keyword recall should not be worse than the fallback");
+        assertTrue(confident >= n / 2, "at least half the queries should skip ChatGPT, got " + confident);
+        assertTrue(confidentCorrect >= 0.9 * confident, "confident answers should pick the right category");
+    }
+
+    private QueryIntentClassifier trainedClassifier() {
+        List<Category> categories = new ArrayList<>();
+        for (String name : CATEGORIES) {
+            Category category = new Category();
+            // ids are the names so predictions can be compared with the eval labels
+            category.setId(name);
+            category.setName(name);
+            categories.add(category);
+        }
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(categories);
+        ListingRepository listingRepository = mock(ListingRepository.class);
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        QueryIntentClassifier classifier = new QueryIntentClassifier();
+        ReflectionTestUtils.setField(classifier, "categoryRepository", categoryRepository);
+        ReflectionTestUtils.setField(classifier, "listingRepository", listingRepository);
+        classifier.train();
+        return classifier;
+    }
+
+    private static double microsPerQuery(List<EvalQuery> queries, Function<String, ?> interpreter) {
+        Object sink = null;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (EvalQuery eval : queries) {
+                sink = interpreter.apply(eval.query);
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (EvalQuery eval : queries) {
+                sink = interpreter.apply(eval.query);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNotNull(sink);
+        return elapsed / 1000.0 / ((long) MEASURED_ROUNDS * queries.size());
+    }
+
+    /** Share of the expected keyword words that appear among the produced keywords. */
+    private static double keywordRecall(String expected, String actual) {
+        Set<String> produced = new HashSet<>(words(actual));
+        List<String> wanted = words(expected);
+        long found = wanted.stream().filter(produced::contains).count();
+        return (double) found / wanted.size();
+    }
+
+    private static List<String> words(String keywords) {
+        List<String> words = new ArrayList<>();
+        for (String word : keywords.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<EvalQuery> loadEvalQueries() throws Exception {
+        List<EvalQuery> queries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                QueryIntentClassifierBenchmarkTest.class.getClassLoader().getResourceAsStream(EVAL_RESOURCE),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                queries.add(new EvalQuery(columns[0], columns[1], columns[2]));
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,105 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.entity.Category;
+import com.campus.marketplace.entity.Listing;
+import com.campus.marketplace.repository.CategoryRepository;
+import com.campus.marketplace.repository.ListingIndexRow;
+import com.campus.marketplace.repository.ListingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class QueryIntentClassifierTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @InjectMocks
+    private QueryIntentClassifier queryIntentClassifier;
+
+    private void train() {
+        when(categoryRepository.findAll()).thenReturn(Arrays.asList(
+            category("cat-books", "Books"), category("cat-electronics", "Electronics"),
+            category("cat-furniture", "Furniture")));
+        when(listingRepository.findIndexRowsAfter(anyString(), any(Pageable.class))).thenReturn(Arrays.asList(
+            row("listing-1", "CMPE 202 textbook", "Design patterns, like new", "cat-books"),
+            row("listing-2", "Dell monitor", "24 inch, HDMI", "cat-electronics"),
+            row("listing-3", "Ergonomic desk chair", null, "cat-furniture")));
+        queryIntentClassifier.train();
+    }
+
+    @Test
+    void testNotReadyBeforeTraining() {
+        assertFalse(queryIntentClassifier.isReady());
+        assertNull(queryIntentClassifier.classify("textbook for CMPE 202"));
+    }
+
+    @Test
+    void testConfidentIntentFromSeedQueriesAndListings() {
+        train();
+
+        QueryIntentClassifier.Intent intent = queryIntentClassifier.classify("Do you have a textbook for CMPE 202?");
+
+        assertTrue(queryIntentClassifier.isReady());
+        assertTrue(intent.isConfident());
+        assertEquals("cat-books", intent.getCategoryId());
+        assertEquals("Books", intent.getCategoryName());
+        assertEquals("CMPE 202, textbook", intent.getKeywords());
+    }
+
+    @Test
+    void testUnknownWordsAreNotConfident() {
+        train();
+
+        QueryIntentClassifier.Intent intent = queryIntentClassifier.classify("zorbing ball");
+
+        assertFalse(intent.isConfident());
+        assertNull(intent.getCategoryId());
+        assertEquals("zorbing, ball", intent.getKeywords());
+    }
+
+    @Test
+    void testKeywords() {
+        assertEquals("CMPE 202, textbook", QueryIntentClassifier.keywords("Textbook for cmpe202?"));
+        assertEquals("graphing, calculator", QueryIntentClassifier.keywords("Anyone selling a graphing calculator?"));
+        assertEquals("running, shoes", QueryIntentClassifier.keywords("running shoes size 10"));
+        assertEquals("", QueryIntentClassifier.keywords("do you have any?"));
+    }
+
+    private static Category category(String id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static ListingIndexRow row(String id, String title, String description, String categoryId) {
+        return new ListingIndexRow() {
+            public String getId() { return id; }
+            public String getTitle() { return title; }
+            public String getDescription() { return description; }
+            public String getCategoryId() { return categoryId; }
+            public BigDecimal getPrice() { return BigDecimal.TEN; }
+            public Listing.ItemCondition getItemCondition() { return Listing.ItemCondition.GOOD; }
+            public Listing.ListingStatus getStatus() { return Listing.ListingStatus.ACTIVE; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.now(); }
+            public LocalDateTime getUpdatedAt() { return LocalDateTime.now(); }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.campus.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchCacheWarmerTest {
+
+    @Mock
+    private SearchQueryLog searchQueryLog;
+
+    @Mock
+    private ListingService listingService;
+
+    @Mock
+    private ChatbotSearchService chatbotSearchService;
+
+    @InjectMocks
+    private SearchCacheWarmer searchCacheWarmer;
+
+    @Test
+    void testWarm_LoadsTopAdvancedSearches() {
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, 20)).thenReturn(Arrays.asList("textbook", "desk"));
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_CHATBOT, 0)).thenReturn(Collections.emptyList());
+
+        assertEquals(2, searchCacheWarmer.warm());
+
+        verify(listingService).warmSearchCache("textbook");
+        verify(listingService).warmSearchCache("desk");
+        verifyNoInteractions(chatbotSearchService);
+    }
+
+    @Test
+    void testWarm_FailedSearchDoesNotStopTheRest() {
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, 20)).thenReturn(Arrays.asList("textbook", "desk"));
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_CHATBOT, 0)).thenReturn(Collections.emptyList());
+        doThrow(new RuntimeException("database unavailable")).when(listingService).warmSearchCache("textbook");
+
+        assertEquals(1, searchCacheWarmer.warm());
+
+        verify(listingService).warmSearchCache("desk");
+    }
+
+    @Test
+    void testWarm_ChatbotInterpretationsWhenEnabled() {
+        ReflectionTestUtils.setField(searchCacheWarmer, "chatbotTopN", 2);
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, 20)).thenReturn(Collections.emptyList());
+        when(searchQueryLog.topQueries(SearchQueryLog.SOURCE_CHATBOT, 2))
+            .thenReturn(Arrays.asList("cheap desk for my dorm", "textbook for cmpe 202"));
+        when(chatbotSearchService.warmInterpretation("cheap desk for my dorm")).thenReturn(true);
+        when(chatbotSearchService.warmInterpretation("textbook for cmpe 202")).thenReturn(false);
+
+        assertEquals(1, searchCacheWarmer.warm());
+
+        verifyNoInteractions(listingService);
+    }
+}
@@ -0,0 +1,158 @@
+package com.campus.marketplace.service;
+
+import com.campus.marketplace.dto.SearchQueryStatsDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchQueryLogTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testTopQueries_CountsNormalizedQueriesWithLatencyAndZeroResults() {
+        SearchQueryLog queryLog = new SearchQueryLog();
+        queryLog.init();
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "Calculator", 2 * MILLIS, 5);
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "  calculator ", 4 * MILLIS, 5);
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "CALCULATOR", 6 * MILLIS, 0);
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "desk   lamp", MILLIS, 0);
+        queryLog.record(SearchQueryLog.SOURCE_CHATBOT, "calculator", 900 * MILLIS, 3);
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "   ", MILLIS, 0);
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, null, MILLIS, 0);
+
+        List<SearchQueryStatsDTO> top = queryLog.topQueries(10);
+
+        assertEquals(3, top.size());
+        SearchQueryStatsDTO calculator = top.get(0);
+        assertEquals("calculator", calculator.getQuery());
+        assertEquals(SearchQueryLog.SOURCE_SEARCH, calculator.getSource());
+        assertEquals(3, calculator.getCount());
+        assertEquals(3, calculator.getSamples());
+        assertEquals(4.0, calculator.getMeanLatencyMs(), 1e-9);
+        assertEquals(6.0, calculator.getMaxLatencyMs(), 1e-9);
+        assertEquals(1.0 / 3, calculator.getZeroResultRate(), 1e-9);
+        SearchQueryStatsDTO lamp = top.stream().filter(stats -> stats.getQuery().equals("desk lamp")).findFirst().orElseThrow();
+        assertEquals(1.0, lamp.getZeroResultRate(), 1e-9);
+        assertEquals(1, queryLog.topQueries(1).size());
+    }
+
+    @Test
+    void testTopQueriesBySource() {
+        SearchQueryLog queryLog = new SearchQueryLog();
+        queryLog.init();
+        record(queryLog, SearchQueryLog.SOURCE_ADVANCED, "textbook", 4);
+        record(queryLog, SearchQueryLog.SOURCE_ADVANCED, "cmpe 202", 2);
+        record(queryLog, SearchQueryLog.SOURCE_CHATBOT, "cheap desk for my dorm", 3);
+        queryLog.drain();
+
+        assertEquals(List.of("textbook", "cmpe 202"), queryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, 5));
+        assertEquals(List.of("textbook"), queryLog.topQueries(SearchQueryLog.SOURCE_ADVANCED, 1));
+        assertEquals(List.of("cheap desk for my dorm"), queryLog.topQueries(SearchQueryLog.SOURCE_CHATBOT, 5));
+        assertTrue(queryLog.topQueries(SearchQueryLog.SOURCE_SEARCH, 5).isEmpty());
+    }
+
+    @Test
+    void testDecay_HalvesCountsAndForgetsOneOffs() {
+        SearchQueryLog queryLog = new SearchQueryLog();
+        queryLog.init();
+        record(queryLog, SearchQueryLog.SOURCE_SEARCH, "laptop", 8);
+        record(queryLog, SearchQueryLog.SOURCE_SEARCH, "typo", 1);
+        queryLog.drain();
+
+        queryLog.decay();
+
+        List<SearchQueryStatsDTO> top = queryLog.topQueries(10);
+        assertEquals(List.of("laptop"), top.stream().map(SearchQueryStatsDTO::getQuery).collect(Collectors.toList()));
+        assertEquals(4, top.get(0).getCount());
+        assertEquals(4, top.get(0).getSamples());
+    }
+
+    @Test
+    void testSnapshot_SurvivesRestart() {
+        String snapshotPath = tempDir.resolve("query-log/search-query-log.bin").toString();
+        SearchQueryLog queryLog = new SearchQueryLog();
+        ReflectionTestUtils.setField(queryLog, "snapshotPath", snapshotPath);
+        queryLog.init();
+        record(queryLog, SearchQueryLog.SOURCE_ADVANCED, "mini fridge", 5);
+        queryLog.shutdown();
+        assertTrue(Files.isRegularFile(Path.of(snapshotPath)));
+
+        SearchQueryLog restarted = new SearchQueryLog();
+        ReflectionTestUtils.setField(restarted, "snapshotPath", snapshotPath);
+        restarted.init();
+
+        SearchQueryStatsDTO fridge = restarted.topQueries(10).get(0);
+        assertEquals("mini fridge", fridge.getQuery());
+        assertEquals(5, fridge.getCount());
+        assertEquals(5, fridge.getSamples());
+        assertEquals(List.of("mini fridge"), restarted.topQueries(SearchQueryLog.SOURCE_ADVANCED, 5));
+    }
+
+    @Test
+    void testPopularQueries_CountsDifferentPeopleWhoFoundListings() {
+        String snapshotPath = tempDir.resolve("search-query-log.bin").toString();
+        SearchQueryLog queryLog = new SearchQueryLog();
+        ReflectionTestUtils.setField(queryLog, "snapshotPath", snapshotPath);
+        queryLog.init();
+        for (int i = 0; i < 6; i++) {
+            queryLog.record(SearchQueryLog.SOURCE_SEARCH, "mini fridge", MILLIS, 2, "user:alice");
+        }
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "Desk lamp", MILLIS, 1, "user:alice");
+        queryLog.record(SearchQueryLog.SOURCE_ADVANCED, "desk lamp", MILLIS, 1, "client:10.0.0.7");
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "desk lamp", MILLIS, 0, "user:bob");
+        queryLog.record(SearchQueryLog.SOURCE_CHATBOT, "desk lamp", MILLIS, 1, "user:carol");
+        queryLog.shutdown();
+
+        SearchQueryLog restarted = new SearchQueryLog();
+        ReflectionTestUtils.setField(restarted, "snapshotPath", snapshotPath);
+        restarted.init();
+        List<String> sources = List.of(SearchQueryLog.SOURCE_SEARCH, SearchQueryLog.SOURCE_ADVANCED);
+
+        // bob found nothing and carol asked the chatbot, so two people count
+        assertEquals(List.of(Map.entry("desk lamp", 3L)), restarted.popularQueries(sources, 2, 10));
+        assertEquals(List.of("mini fridge", "desk lamp"),
+            restarted.popularQueries(sources, 1, 10).stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+        assertTrue(restarted.popularQueries(sources, 3, 10).isEmpty());
+    }
+
+    @Test
+    void testRecord_FullBufferDropsSamples() {
+        SearchQueryLog queryLog = new SearchQueryLog();
+        ReflectionTestUtils.setField(queryLog, "bufferCapacity", 2);
+        queryLog.init();
+
+        record(queryLog, SearchQueryLog.SOURCE_SEARCH, "chair", 5);
+
+        assertEquals(2, queryLog.topQueries(10).get(0).getCount());
+    }
+
+    @Test
+    void testDisabled_RecordsNothing() {
+        SearchQueryLog queryLog = new SearchQueryLog();
+        ReflectionTestUtils.setField(queryLog, "enabled", false);
+        queryLog.init();
+
+        queryLog.record(SearchQueryLog.SOURCE_SEARCH, "chair", MILLIS, 1);
+
+        assertTrue(queryLog.topQueries(10).isEmpty());
+        assertTrue(queryLog.topQueries(SearchQueryLog.SOURCE_SEARCH, 10).isEmpty());
+    }
+
+    private static void record(SearchQueryLog queryLog, String source, String query, int times) {
+        for (int i = 0; i < times; i++) {
+            queryLog.record(source, query, MILLIS, 1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.campus.marketplace.service;
 
+import com.campus.marketplace.dto.TransactionDTO;
 import com.campus.marketplace.entity.Listing;
 import com.campus.marketplace.entity.Transaction;
 import com.campus.marketplace.entity.User;
@@ -12,8 +13,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +39,9 @@ public class TransactionServiceTest {
     @Mock
     private MessageService messageService;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private TransactionService transactionService;
     
@@ -379,4 +385,20 @@ public class TransactionServiceTest {
         // Assert
         verify(transactionRepository).deleteById("transaction-123");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetTransactionDTOsBySeller_UsesProjection() {
+        // Arrange
+        TransactionDTO dto = new TransactionDTO(transaction);
+        when(transactionRepository.findDTOsBySellerIdOrderByCreatedAtDesc("seller-123")).thenReturn(List.of(dto));
+        
+        // Act
+        List<TransactionDTO> result = transactionService.getTransactionDTOsBySeller("seller-123");
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("Seller Name", result.get(0).getSellerName());
+        assertEquals("Buyer Name", result.get(0).getBuyerName());
+        verify(transactionRepository, never()).findBySellerIdOrderByCreatedAtDesc(anyString());
+    }
+}
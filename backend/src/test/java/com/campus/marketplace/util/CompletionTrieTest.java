@@ -0,0 +1,89 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompletionTrieTest {
+
+    @Test
+    void testComplete_ReturnsHeaviestKeysWithPrefix() {
+        CompletionTrie trie = CompletionTrie.build(Map.of(
+            "calculator", 5L,
+            "calculus", 3L,
+            "calc", 1L,
+            "camera", 4L,
+            "desk", 2L), 10);
+
+        assertEquals(List.of("calculator", "calculus", "calc"), trie.complete("calc", 10));
+        assertEquals(List.of("calculator", "camera"), trie.complete("ca", 2));
+        assertEquals(List.of("calculator", "calculus"), trie.complete("calcu", 10));
+        assertEquals(List.of("desk"), trie.complete("desk", 10));
+        assertTrue(trie.complete("desks", 10).isEmpty());
+        assertTrue(trie.complete("cab", 10).isEmpty());
+        assertTrue(trie.complete("x", 10).isEmpty());
+        assertEquals(5, trie.complete("", 10).size());
+    }
+
+    @Test
+    void testComplete_TiesGoToKeyOrderAndLimitIsCappedAtTopK() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("lamp", 2L, "laptop", 2L, "ladder", 2L, "lab coat", 1L), 2);
+
+        assertEquals(List.of("ladder", "lamp"), trie.complete("la", 10));
+        assertEquals(List.of("lab coat"), trie.complete("lab ", 10));
+    }
+
+    @Test
+    void testWeightAndSize() {
+        CompletionTrie trie = CompletionTrie.build(Map.of("cmpe 202", 7L, "cmpe 272", 2L), 5);
+
+        assertEquals(7, trie.weight("cmpe 202"));
+        assertEquals(0, trie.weight("cmpe"));
+        assertEquals(2, trie.size());
+        assertTrue(trie.nodeCount() >= 3);
+    }
+
+    @Test
+    void testEmpty() {
+        CompletionTrie trie = CompletionTrie.empty();
+
+        assertEquals(0, trie.size());
+        assertTrue(trie.complete("a", 5).isEmpty());
+        assertTrue(trie.complete("", 5).isEmpty());
+    }
+
+    @Test
+    void testComplete_MatchesBruteForce() {
+        Random random = new Random(42);
+        Map<String, Long> keys = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                key.append("abc d".charAt(random.nextInt(5)));
+            }
+            keys.put(key.toString(), (long) random.nextInt(20));
+        }
+        CompletionTrie trie = CompletionTrie.build(keys, 5);
+
+        List<String> sample = keys.keySet().stream().sorted().collect(Collectors.toList());
+        for (int i = 0; i < 500; i++) {
+            String key = sample.get(random.nextInt(sample.size()));
+            // a prefix of a key, sometimes extended past anything stored
+            String prefix = key.substring(0, random.nextInt(key.length() + 1)) + (i % 5 == 0 ? "dd" : "");
+            List<String> expected = keys.keySet().stream()
+                .filter(candidate -> candidate.startsWith(prefix))
+                .sorted(Comparator.comparing((String candidate) -> -keys.get(candidate)).thenComparing(Comparator.naturalOrder()))
+                .limit(5)
+                .collect(Collectors.toList());
+            assertEquals(expected, trie.complete(prefix, 5), "prefix '" + prefix + "'");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountMinSketchTest {
+
+    @Test
+    void testEstimate_NeverUndercountsAndStaysClose() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            // skewed like search queries: a few hot keys, a long tail
+            String key = "query-" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 5000);
+            exact.merge(key, 1L, Long::sum);
+            sketch.add(key, 1);
+        }
+
+        long tolerance = 2 * sketch.total() / sketch.getWidth();
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            assertTrue(estimate - entry.getValue() <= tolerance, entry.getKey());
+        }
+        assertEquals(50_000, sketch.total());
+        assertTrue(sketch.estimate("never added") <= tolerance);
+    }
+
+    @Test
+    void testAdd_ReturnsEstimateAndHalveAges() {
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+
+        assertEquals(3, sketch.add("textbook", 3));
+        assertEquals(8, sketch.add("textbook", 5));
+
+        sketch.halve();
+
+        assertEquals(4, sketch.estimate("textbook"));
+        assertEquals(4, sketch.total());
+    }
+
+    @Test
+    void testWriteToReadFrom_RoundTrips() throws Exception {
+        CountMinSketch sketch = new CountMinSketch(100, 2);   // rounded up to 128
+        sketch.add("calculator", 7);
+        sketch.add("desk", 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        CountMinSketch loaded = CountMinSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(128, loaded.getWidth());
+        assertEquals(2, loaded.getDepth());
+        assertEquals(7, loaded.estimate("calculator"));
+        assertEquals(2, loaded.estimate("desk"));
+        assertEquals(9, loaded.total());
+    }
+}
@@ -0,0 +1,64 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseCodesTest {
+
+    @Test
+    void testExtractNormalizesSpellings() {
+        List<String> codes = CourseCodes.extract("CMPE 202 textbook", "also for cmpe202, CMPE-202 and ENGL 1a")
+            .stream().map(CourseCodes.CourseCode::toString).collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("CMPE 202", "ENGL 1A"), codes);
+    }
+
+    @Test
+    void testExtractSkipsNumbersThatAreNotCourseCodes() {
+        assertTrue(CourseCodes.extract("Jacket size 10, pack of 3, for 202 dollars").isEmpty());
+        assertTrue(CourseCodes.extract((String) null).isEmpty());
+    }
+
+    @Test
+    void testExtractIgnoresNonAsciiWords() {
+        // "GRÖSSE" would not fit in dept VARCHAR(5); the ASCII tail of a word is not a department either
+        assertTrue(CourseCodes.extract("Laufschuhe Größe 40", "Straße 12, Jacke Gr 38").stream()
+            .noneMatch(code -> code.getDept().length() > CourseCodes.MAX_DEPT_LENGTH));
+        assertTrue(CourseCodes.extract("Größe 40, Maße 120").isEmpty());
+        assertEquals(Optional.empty(), CourseCodes.parse("Größe 40"));
+        assertEquals(Arrays.asList("MATH 42"), CourseCodes.extract("Ñandú 3 und MATH 42 Bücher").stream()
+            .map(CourseCodes.CourseCode::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testExtractIsCapped() {
+        StringBuilder syllabus = new StringBuilder();
+        for (int i = 100; i < 130; i++) {
+            syllabus.append("CS ").append(i).append(", ");
+        }
+
+        assertEquals(CourseCodes.MAX_CODES_PER_LISTING, CourseCodes.extract(syllabus.toString()).size());
+    }
+
+    @Test
+    void testFindReturnsFirstCode() {
+        assertEquals(Optional.of(new CourseCodes.CourseCode("CMPE", "202")),
+            CourseCodes.find("Do you have a textbook for cmpe202 or CS 146?"));
+        assertEquals(Optional.empty(), CourseCodes.find("desk lamp"));
+    }
+
+    @Test
+    void testParseMatchesWholeTermOnly() {
+        assertEquals(Optional.of(new CourseCodes.CourseCode("CMPE", "202")), CourseCodes.parse(" cmpe-202 "));
+        assertEquals(Optional.of(new CourseCodes.CourseCode("MATH", "42")), CourseCodes.parse("MATH42"));
+        assertEquals(Optional.empty(), CourseCodes.parse("CMPE 202 textbook"));
+        assertEquals(Optional.empty(), CourseCodes.parse("size 10"));
+        assertEquals(Optional.empty(), CourseCodes.parse(null));
+    }
+}
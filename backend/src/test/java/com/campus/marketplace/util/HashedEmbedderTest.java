@@ -0,0 +1,66 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedEmbedderTest {
+
+    private final HashedEmbedder embedder = new HashedEmbedder(256, Map.of(
+        "graphing calculator", "graphing calculator",
+        "TI-84", "graphing calculator",
+        "laptop", "laptop",
+        "MacBook", "laptop"));
+
+    @Test
+    void testLexiconConceptsBridgeDifferentWords() {
+        float[] query = embedder.embed("graphing calculator");
+
+        double calculator = dot(query, embedder.embed("TI-84 Plus", "Works great, batteries included"));
+        double laptop = dot(query, embedder.embed("MacBook Air", "8GB RAM"));
+
+        assertTrue(calculator > 0.3, "calculator similarity " + calculator);
+        assertTrue(calculator > laptop + 0.2, calculator + " vs " + laptop);
+    }
+
+    @Test
+    void testPluralsAndSpellingsStayClose() {
+        float[] listing = embedder.embed("Two laptops", "barely used");
+
+        assertTrue(dot(embedder.embed("laptop"), listing) > 0.3);
+        assertTrue(dot(embedder.embed("ti84"), embedder.embed("TI-84", null)) > 0.5);
+    }
+
+    @Test
+    void testVectorsAreUnitLength() {
+        assertEquals(1.0, dot(embedder.embed("desk lamp"), embedder.embed("desk lamp")), 1e-5);
+        assertTrue(HashedEmbedder.isZero(embedder.embed("   ")));
+        assertTrue(HashedEmbedder.isZero(embedder.embed(null, null)));
+    }
+
+    @Test
+    void testFingerprintTracksLexicon() {
+        HashedEmbedder other = new HashedEmbedder(256, Map.of("laptop", "laptop"));
+
+        assertEquals(embedder.fingerprint(), new HashedEmbedder(256, Map.of(
+            "graphing calculator", "graphing calculator", "TI-84", "graphing calculator",
+            "laptop", "laptop", "MacBook", "laptop")).fingerprint());
+        assertNotEquals(embedder.fingerprint(), other.fingerprint());
+    }
+
+    @Test
+    void testBundledLexiconLoads() {
+        assertFalse(HashedEmbedder.loadLexicon("search/semantic-lexicon.tsv").isEmpty());
+        assertTrue(HashedEmbedder.loadLexicon("search/missing.tsv").isEmpty());
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,81 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHittersTest {
+
+    @Test
+    void testTop_KeepsMostFrequentKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(3, 1024, 4);
+        add(heavyHitters, "textbook", 50);
+        add(heavyHitters, "calculator", 30);
+        for (int i = 0; i < 200; i++) {
+            heavyHitters.add("rare-" + i, 1);
+        }
+        add(heavyHitters, "desk", 10);
+
+        assertEquals(List.of("textbook", "calculator", "desk"), keys(heavyHitters.top(10)));
+        assertEquals(50, heavyHitters.top(1).get(0).getCount());
+        assertFalse(heavyHitters.contains("rare-5"));
+        assertEquals(3, heavyHitters.size());
+    }
+
+    @Test
+    void testAdd_NewPopularKeyReplacesWeakest() {
+        HeavyHitters heavyHitters = new HeavyHitters(2, 1024, 4);
+        add(heavyHitters, "lamp", 5);
+        add(heavyHitters, "chair", 3);
+
+        add(heavyHitters, "bike", 4);
+
+        assertEquals(List.of("lamp", "bike"), keys(heavyHitters.top(10)));
+        assertTrue(heavyHitters.estimate("chair") >= 3);
+    }
+
+    @Test
+    void testHalve_ForgetsKeysThatDropToZero() {
+        HeavyHitters heavyHitters = new HeavyHitters(5, 1024, 4);
+        add(heavyHitters, "laptop", 6);
+        heavyHitters.add("mouse", 1);
+
+        heavyHitters.halve();
+
+        assertEquals(List.of("laptop"), keys(heavyHitters.top(10)));
+        assertEquals(3, heavyHitters.top(1).get(0).getCount());
+    }
+
+    @Test
+    void testWriteToReadFrom_KeepsStrongestWithinNewCapacity() throws Exception {
+        HeavyHitters heavyHitters = new HeavyHitters(3, 256, 3);
+        add(heavyHitters, "a", 3);
+        add(heavyHitters, "b", 2);
+        add(heavyHitters, "c", 1);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        heavyHitters.writeTo(new DataOutputStream(bytes));
+        HeavyHitters loaded = HeavyHitters.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 2);
+
+        assertEquals(List.of("a", "b"), keys(loaded.top(10)));
+        assertEquals(1, loaded.estimate("c"));
+        assertEquals(6, loaded.total());
+    }
+
+    private static void add(HeavyHitters heavyHitters, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            heavyHitters.add(key, 1);
+        }
+    }
+
+    private static List<String> keys(List<HeavyHitters.Entry> entries) {
+        return entries.stream().map(HeavyHitters.Entry::getKey).collect(Collectors.toList());
+    }
+}
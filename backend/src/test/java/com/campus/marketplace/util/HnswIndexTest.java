@@ -0,0 +1,170 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HnswIndexTest {
+
+    private static final int DIMENSIONS = 16;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void testFindsExactMatchFirst() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50, 1);
+        List<float[]> vectors = randomVectors(500);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("v" + i, vectors.get(i));
+        }
+
+        List<HnswIndex.Neighbor> neighbors = index.search(vectors.get(123), 5, 32, null);
+
+        assertEquals(5, neighbors.size());
+        assertEquals("v123", neighbors.get(0).getId());
+        assertEquals(1.0, neighbors.get(0).getSimilarity(), 1e-5);
+        for (int i = 1; i < neighbors.size(); i++) {
+            assertTrue(neighbors.get(i - 1).getSimilarity() >= neighbors.get(i).getSimilarity());
+        }
+    }
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100, 1);
+        List<float[]> vectors = randomVectors(3000);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("v" + i, vectors.get(i));
+        }
+
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVectors(1).get(0);
+            Set<String> exact = bruteForce(vectors, query, 10);
+            found += (int) index.search(query, 10, 64, null).stream().filter(n -> exact.contains(n.getId())).count();
+        }
+
+        double recall = found / (queries * 10.0);
+        assertTrue(recall >= 0.9, "recall@10 " + recall);
+    }
+
+    @Test
+    void testRemovedAndReplacedVectorsAreNotReturned() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50, 1);
+        List<float[]> vectors = randomVectors(200);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("v" + i, vectors.get(i));
+        }
+
+        assertTrue(index.remove("v7"));
+        assertFalse(index.remove("v7"));
+        index.add("v8", vectors.get(9));
+
+        assertTrue(index.search(vectors.get(7), 10, 32, null).stream().noneMatch(n -> n.getId().equals("v7")));
+        assertEquals(Set.of("v8", "v9"), index.search(vectors.get(9), 5, 32, null).stream()
+            .filter(n -> n.getSimilarity() > 0.9999).map(HnswIndex.Neighbor::getId).collect(Collectors.toSet()));
+        assertNotEquals("v8", index.search(vectors.get(8), 1, 32, null).get(0).getId());
+        assertEquals(199, index.size());
+        assertEquals(2, index.getDeletedCount());
+    }
+
+    @Test
+    void testFilterRestrictsResults() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50, 1);
+        List<float[]> vectors = randomVectors(300);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add((i % 3 == 0 ? "even-" : "odd-") + i, vectors.get(i));
+        }
+
+        List<HnswIndex.Neighbor> neighbors = index.search(vectors.get(1), 10, 32, id -> id.startsWith("even-"));
+
+        assertEquals(10, neighbors.size());
+        assertTrue(neighbors.stream().allMatch(n -> n.getId().startsWith("even-")));
+    }
+
+    @Test
+    void testSnapshotRoundTripAndCompaction() throws IOException {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50, 1);
+        List<float[]> vectors = randomVectors(300);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add("v" + i, vectors.get(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            index.remove("v" + i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        HnswIndex loaded = HnswIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 2);
+        HnswIndex compacted = loaded.compact();
+
+        float[] query = vectors.get(250);
+        List<String> expected = ids(index.search(query, 10, 64, null));
+        assertEquals(expected, ids(loaded.search(query, 10, 64, null)));
+        assertEquals(200, loaded.size());
+        assertEquals(100, loaded.getDeletedCount());
+        assertEquals(200, compacted.size());
+        assertEquals(0, compacted.getDeletedCount());
+        assertEquals("v250", compacted.search(query, 1, 32, null).get(0).getId());
+    }
+
+    @Test
+    void testRejectsWrongDimensions() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 50, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> index.add("v", new float[DIMENSIONS + 1]));
+        assertThrows(IOException.class, () -> HnswIndex.readFrom(
+            new DataInputStream(new ByteArrayInputStream(new byte[16])), 1));
+    }
+
+    private List<float[]> randomVectors(int count) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            float[] vector = new float[DIMENSIONS];
+            double norm = 0;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] /= (float) Math.sqrt(norm);
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private static Set<String> bruteForce(List<float[]> vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+            .sorted(Comparator.comparingDouble((Integer i) -> -dot(vectors.get(i), query)))
+            .limit(k)
+            .map(i -> "v" + i)
+            .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static List<String> ids(List<HnswIndex.Neighbor> neighbors) {
+        return neighbors.stream().map(HnswIndex.Neighbor::getId).collect(Collectors.toList());
+    }
+}
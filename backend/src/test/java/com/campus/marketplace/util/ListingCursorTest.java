@@ -0,0 +1,46 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListingCursorTest {
+
+    @Test
+    void testCreatedAtCursor_RoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589000000);
+        String token = ListingCursor.ofCreatedAt(createdAt, "listing-123").encode();
+
+        ListingCursor decoded = ListingCursor.decode(token, ListingCursor.Kind.CREATED_AT);
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals("listing-123", decoded.getId());
+        assertFalse(token.contains("listing-123"));
+    }
+
+    @Test
+    void testPriceCursor_RoundTrip() {
+        String token = ListingCursor.ofPrice(new BigDecimal("99.90"), "listing-456").encode();
+
+        ListingCursor decoded = ListingCursor.decode(token, ListingCursor.Kind.PRICE);
+
+        assertEquals(new BigDecimal("99.90"), decoded.getPrice());
+        assertEquals("listing-456", decoded.getId());
+    }
+
+    @Test
+    void testDecode_RejectsCursorFromOtherSort() {
+        String token = ListingCursor.ofPrice(new BigDecimal("10.00"), "listing-123").encode();
+
+        assertThrows(RuntimeException.class, () -> ListingCursor.decode(token, ListingCursor.Kind.CREATED_AT));
+    }
+
+    @Test
+    void testDecode_RejectsGarbage() {
+        assertThrows(RuntimeException.class, () -> ListingCursor.decode("not a cursor!", ListingCursor.Kind.CREATED_AT));
+        assertThrows(RuntimeException.class, () -> ListingCursor.decode("Yw", ListingCursor.Kind.CREATED_AT));
+    }
+}
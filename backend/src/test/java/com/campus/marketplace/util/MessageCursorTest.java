@@ -0,0 +1,35 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageCursorTest {
+
+    @Test
+    void testCursor_RoundTripKeepsMicroseconds() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589123000);
+        String token = MessageCursor.of(createdAt, "message-123").encode();
+
+        MessageCursor decoded = MessageCursor.decode(token);
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals("message-123", decoded.getId());
+        assertFalse(token.contains("message-123"));
+    }
+
+    @Test
+    void testDecode_RejectsListingCursor() {
+        String token = ListingCursor.ofCreatedAt(LocalDateTime.of(2025, 3, 14, 9, 0), "listing-123").encode();
+
+        assertThrows(RuntimeException.class, () -> MessageCursor.decode(token));
+    }
+
+    @Test
+    void testDecode_RejectsGarbage() {
+        assertThrows(RuntimeException.class, () -> MessageCursor.decode("not a cursor!"));
+        assertThrows(RuntimeException.class, () -> MessageCursor.decode("bQ"));
+    }
+}
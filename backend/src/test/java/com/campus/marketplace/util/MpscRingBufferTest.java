@@ -0,0 +1,102 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    void testOfferAndDrain_InOrder() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(4);
+        buffer.offer("a");
+        buffer.offer("b");
+        buffer.offer("c");
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.drain(drained::add, 10));
+        assertEquals(List.of("a", "b", "c"), drained);
+        assertEquals(0, buffer.drain(drained::add, 10));
+    }
+
+    @Test
+    void testOffer_FullBufferDropsUntilDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);   // rounded up to 4
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        buffer.drain(value -> { }, 1);
+
+        assertTrue(buffer.offer(5));
+        List<Integer> drained = new ArrayList<>();
+        buffer.drain(drained::add, 10);
+        assertEquals(List.of(1, 2, 3, 5), drained);
+    }
+
+    @Test
+    void testConcurrentProducers_EveryAcceptedElementIsDrainedOnce() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        int producers = 8;
+        int perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(base + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> duplicates = new ArrayList<>();
+        start.countDown();
+        executor.shutdown();
+        while (!executor.isTerminated()) {
+            buffer.drain(value -> {
+                if (!seen.add(value)) {
+                    duplicates.add(value);
+                }
+            }, 256);
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        buffer.drain(value -> {
+            if (!seen.add(value)) {
+                duplicates.add(value);
+            }
+        }, Integer.MAX_VALUE);
+
+        assertTrue(duplicates.isEmpty());
+        assertEquals(accepted.get(), seen.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void testConstructor_RejectsBadCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(0));
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(4).offer(null));
+    }
+}
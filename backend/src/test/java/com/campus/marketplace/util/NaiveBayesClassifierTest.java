@@ -0,0 +1,51 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NaiveBayesClassifierTest {
+
+    private final NaiveBayesClassifier classifier = NaiveBayesClassifier.train(Arrays.asList(
+        new NaiveBayesClassifier.Example("textbook for CMPE 202", "books"),
+        new NaiveBayesClassifier.Example("calculus textbook", "books"),
+        new NaiveBayesClassifier.Example("novel for ENGL 1A", "books"),
+        new NaiveBayesClassifier.Example("graphing calculator", "electronics"),
+        new NaiveBayesClassifier.Example("laptop charger", "electronics"),
+        new NaiveBayesClassifier.Example("wireless headphones", "electronics")));
+
+    @Test
+    void testClassifiesByLearnedWords() {
+        NaiveBayesClassifier.Prediction books = classifier.classify("do you have a textbook?");
+        NaiveBayesClassifier.Prediction electronics = classifier.classify("cheap calculator");
+
+        assertEquals("books", books.getLabel());
+        assertEquals("electronics", electronics.getLabel());
+        assertTrue(books.getConfidence() > 0.5 && books.getConfidence() <= 1.0);
+    }
+
+    @Test
+    void testMoreEvidenceRaisesConfidence() {
+        double one = classifier.classify("textbook").getConfidence();
+        double two = classifier.classify("textbook for CMPE 202").getConfidence();
+
+        assertTrue(two > one, one + " vs " + two);
+    }
+
+    @Test
+    void testUnknownWordsGiveNoPrediction() {
+        assertNull(classifier.classify("zebra unicorn"));
+        assertNull(classifier.classify(""));
+    }
+
+    @Test
+    void testEmptyModel() {
+        NaiveBayesClassifier empty = NaiveBayesClassifier.train(Collections.emptyList());
+
+        assertEquals(0, empty.getLabelCount());
+        assertNull(empty.classify("textbook"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.campus.marketplace.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymSpellDictionaryTest {
+
+    @Test
+    void testLookup_CorrectsEditsWithinDistance() {
+        SymSpellDictionary dictionary = dictionary("calculator", "textbook", "laptop", "monitor");
+
+        assertEquals("calculator", term(dictionary.lookup("calculater", 2)));
+        assertEquals("textbook", term(dictionary.lookup("textbok", 2)));
+        assertEquals("laptop", term(dictionary.lookup("lpatop", 2)));   // swapped letters count once
+        assertEquals("monitor", term(dictionary.lookup("monitro", 1)));
+        assertEquals(1, dictionary.lookup("textbok", 2).get().getDistance());
+        assertEquals(2, dictionary.lookup("calclatr", 2).get().getDistance());
+        assertFalse(dictionary.lookup("clcltr", 2).isPresent());
+        assertFalse(dictionary.lookup("lptop", 0).isPresent());
+    }
+
+    @Test
+    void testLookup_ExactWordHasDistanceZero() {
+        SymSpellDictionary dictionary = dictionary("desk", "desk", "lamp");
+
+        SymSpellDictionary.Suggestion suggestion = dictionary.lookup("desk", 2).orElseThrow();
+        assertEquals("desk", suggestion.getTerm());
+        assertEquals(0, suggestion.getDistance());
+        assertEquals(2, suggestion.getCount());
+    }
+
+    @Test
+    void testLookup_PrefersCloserThenMoreFrequentWords() {
+        SymSpellDictionary dictionary = dictionary("chair", "chain", "chain", "charm");
+
+        assertEquals("chain", term(dictionary.lookup("chaid", 2)));
+        assertEquals("chair", term(dictionary.lookup("chairs", 2)));
+    }
+
+    @Test
+    void testLookup_LongWordsMisspelledAfterThePrefix() {
+        SymSpellDictionary dictionary = dictionary("refrigerator");
+
+        assertEquals("refrigerator", term(dictionary.lookup("refrigirator", 2)));
+    }
+
+    @Test
+    void testRemove_IsReferenceCounted() {
+        SymSpellDictionary dictionary = dictionary("bicycle", "bicycle");
+        long bytes = dictionary.estimatedBytes();
+        assertTrue(bytes > 0);
+
+        dictionary.remove("bicycle");
+        assertEquals("bicycle", term(dictionary.lookup("bicycel", 2)));
+        assertEquals(bytes, dictionary.estimatedBytes());
+
+        dictionary.remove("bicycle");
+        assertFalse(dictionary.lookup("bicycel", 2).isPresent());
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.deleteCount());
+        assertEquals(0, dictionary.estimatedBytes());
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, SymSpellDictionary.distance("lamp", "lamp", 2));
+        assertEquals(1, SymSpellDictionary.distance("lamp", "lmap", 2));
+        assertEquals(3, SymSpellDictionary.distance("kitten", "sitting", 3));
+        assertEquals(-1, SymSpellDictionary.distance("kitten", "sitting", 2));
+    }
+
+    private static SymSpellDictionary dictionary(String... words) {
+        SymSpellDictionary dictionary = new SymSpellDictionary(2, 7);
+        for (String word : words) {
+            dictionary.add(word);
+        }
+        return dictionary;
+    }
+
+    private static String term(Optional<SymSpellDictionary.Suggestion> suggestion) {
+        return suggestion.map(SymSpellDictionary.Suggestion::getTerm).orElse(null);
+    }
+}
@@ -2,9 +2,11 @@ SET FOREIGN_KEY_CHECKS = 0;
 TRUNCATE TABLE reviews;
 TRUNCATE TABLE transactions;
 TRUNCATE TABLE messages;
+TRUNCATE TABLE conversations;
 TRUNCATE TABLE wishlist;
 TRUNCATE TABLE follows;
 TRUNCATE TABLE reports;
+TRUNCATE TABLE listing_course_codes;
 TRUNCATE TABLE listings;
 TRUNCATE TABLE categories;
 TRUNCATE TABLE users;
@@ -1,8 +1,9 @@
 import { useState, useEffect, useRef } from 'react';
 import { 
   sendMessage, 
-  getListingConversation, 
-  markMessageAsRead
+  getListingConversationHistory, 
+  markMessageAsRead,
+  subscribeToMessages
 } from '../services/messagesService';
 import { getListingById, updateListingStatus } from '../services/listingsService';
 import { requestToBuy, confirmTransaction, rejectTransaction, getTransactionByListingId } from '../services/transactionService';
@@ -17,8 +18,13 @@ const Chat = ({ listingId, recipientId, recipientName, listingTitle, listingPric
   const [listing, setListing] = useState(null);
   const [transactionId, setTransactionId] = useState(null);
   const [transactionStatus, setTransactionStatus] = useState(null);
+  const [olderCursor, setOlderCursor] = useState(null);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const messagesEndRef = useRef(null);
   const messagesContainerRef = useRef(null);
+  // Position of the newest message loaded, to fetch only what was sent since
+  const syncCursorRef = useRef(null);
+  const keepScrollRef = useRef(false);
   
   // Check if there's a purchase request (from messages or transaction)
   const hasPurchaseRequest = transactionId && transactionStatus !== 'COMPLETED' && transactionStatus !== 'CANCELLED' || messages.some(msg => 
@@ -117,11 +123,12 @@ const Chat = ({ listingId, recipientId, recipientName, listingTitle, listingPric
       setError('');
       try {
         // userId1 = sellerId (recipientId), userId2 = currentUserId (buyer)
-        // API expects: /api/messages/conversation/listing/{listingId}/{userId1}/{userId2}
-        const data = await getListingConversation(listingId, recipientId, currentUserId);
-        // Handle both array and paginated response
-        const messageList = Array.isArray(data) ? data : (data.content || data);
-        setMessages(messageList || []);
+        // Newest messages first; older ones load on demand
+        const data = await getListingConversationHistory(listingId, recipientId, currentUserId);
+        const messageList = [...(data.content || [])].reverse();
+        setMessages(messageList);
+        setOlderCursor(data.hasNext ? data.nextCursor : null);
+        syncCursorRef.current = data.prevCursor || null;
         
         // After loading messages, check if we need to load transaction
         // (transaction might have been created when buyer sent purchase request)
@@ -151,12 +158,84 @@ const Chat = ({ listingId, recipientId, recipientName, listingTitle, listingPric
     };
 
     loadConversation();
-    
-    // No automatic polling - messages will refresh when user sends a message or component remounts
   }, [listingId, currentUserId, recipientId]);
 
-  // Scroll to bottom when messages change
+  // Append messages of this conversation as they arrive (including ones sent from other tabs)
+  useEffect(() => {
+    if (!listingId || !currentUserId || !recipientId) return;
+
+    return subscribeToMessages({
+      onMessage: (message) => {
+        const participants = [currentUserId, recipientId];
+        if (message.listingId !== listingId
+          || !participants.includes(message.fromUserId)
+          || !participants.includes(message.toUserId)) {
+          return;
+        }
+        setMessages(prev => prev.some(msg => msg.id === message.id) ? prev : [...prev, message]);
+      },
+    });
+  }, [listingId, currentUserId, recipientId]);
+
+  // Catch up on messages sent while the window was in the background
+  useEffect(() => {
+    if (!listingId || !currentUserId || !recipientId) return;
+
+    const syncNewer = async () => {
+      try {
+        let more;
+        do {
+          const after = syncCursorRef.current;
+          const data = await getListingConversationHistory(listingId, recipientId, currentUserId, {
+            after: after || undefined,
+            size: 50,
+          });
+          const newer = [...(data.content || [])].reverse();
+          setMessages(prev => {
+            const seen = new Set(prev.map(msg => msg.id));
+            const fresh = newer.filter(msg => !seen.has(msg.id));
+            return fresh.length ? [...prev, ...fresh] : prev;
+          });
+          syncCursorRef.current = data.prevCursor || after;
+          // Without a cursor the newest page came back; it is the whole update
+          more = !!after && data.hasNext;
+        } while (more);
+      } catch (err) {
+        console.error('Error syncing conversation:', err);
+      }
+    };
+
+    window.addEventListener('focus', syncNewer);
+    return () => window.removeEventListener('focus', syncNewer);
+  }, [listingId, currentUserId, recipientId]);
+
+  const handleLoadOlder = async () => {
+    if (!olderCursor || loadingOlder) return;
+
+    setLoadingOlder(true);
+    try {
+      const data = await getListingConversationHistory(listingId, recipientId, currentUserId, { before: olderCursor });
+      const older = [...(data.content || [])].reverse();
+      keepScrollRef.current = true;
+      setMessages(prev => {
+        const seen = new Set(prev.map(msg => msg.id));
+        return [...older.filter(msg => !seen.has(msg.id)), ...prev];
+      });
+      setOlderCursor(data.hasNext ? data.nextCursor : null);
+    } catch (err) {
+      console.error('Error loading older messages:', err);
+      setError(err.message || 'Failed to load older messages');
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
+  // Scroll to bottom when messages change (not when older ones are added above)
   useEffect(() => {
+    if (keepScrollRef.current) {
+      keepScrollRef.current = false;
+      return;
+    }
     scrollToBottom();
   }, [messages]);
 
@@ -388,6 +467,17 @@ const Chat = ({ listingId, recipientId, recipientName, listingTitle, listingPric
             </div>
           ) : (
             <div className="space-y-3">
+              {olderCursor && (
+                <div className="flex justify-center">
+                  <button
+                    onClick={handleLoadOlder}
+                    disabled={loadingOlder}
+                    className="text-sm text-indigo-600 hover:text-indigo-800 disabled:opacity-50"
+                  >
+                    {loadingOlder ? 'Loading...' : 'Load older messages'}
+                  </button>
+                </div>
+              )}
               {messages.map((msg) => {
                 const isOwn = msg.senderId === currentUserId;
                 return (
@@ -1,7 +1,7 @@
 import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router';
 import { getListings } from '../services/listingsService';
-import { getUserMessages } from '../services/messagesService';
+import { getUserMessages, subscribeToMessages } from '../services/messagesService';
 import Post from './post';
 import Chat from './Chat';
 import apiClient from '../services/apiClient';
@@ -140,7 +140,17 @@ const Profile = ({ user, onLogout, onLoginClick, onMessageVendor, setUser }) =>
     };
 
     loadMessages();
-    // Removed polling - messages will load when component mounts or user changes
+  }, [user, showMyMessages]);
+
+  // Show new messages as they arrive, newest first like the loaded list
+  useEffect(() => {
+    if (!user || !showMyMessages) return;
+
+    return subscribeToMessages({
+      onMessage: (message) => {
+        setMessages(prev => prev.some(msg => msg.id === message.id) ? prev : [message, ...prev]);
+      },
+    });
   }, [user, showMyMessages]);
 
   const handleSaveProfile = async (e) => {
@@ -1,6 +1,6 @@
 import { useState, useEffect, useMemo, useCallback } from 'react';
 import { getListings } from '../services/listingsService';
-import { getUserMessages } from '../services/messagesService';
+import { getUserMessages, subscribeToMessages } from '../services/messagesService';
 import { getReportsByStatus } from '../services/reportsService';
 import Post from './post';
 import Chat from './Chat';
@@ -291,7 +291,17 @@ export const MyMessagesModal = ({ user, onClose, onMessageVendor }) => {
     };
 
     loadMessages();
-    // Removed polling - messages will load when modal opens or user changes
+  }, [user]);
+
+  // Show new messages as they arrive, newest first like the loaded list
+  useEffect(() => {
+    if (!user) return;
+
+    return subscribeToMessages({
+      onMessage: (message) => {
+        setMessages(prev => prev.some(msg => msg.id === message.id) ? prev : [message, ...prev]);
+      },
+    });
   }, [user]);
 
   const formatTime = (timestamp) => {
@@ -1,12 +1,15 @@
 import { useState, useRef, useEffect } from 'react';
 import { useNavigate, useLocation } from 'react-router';
 import { ToastContainer, toast } from 'react-toastify';
-import { askChatbot } from '../services/searchService';
+import { askChatbot, getSuggestions } from '../services/searchService';
+import { subscribeToMessages } from '../services/messagesService';
 
 const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfileClick, onMyListingsClick, onMyMessagesClick, onReportsClick }) => {
   const [searchQuery, setSearchQuery] = useState('')
   const [chatbotQuery, setChatbotQuery] = useState('')
+  const [suggestions, setSuggestions] = useState([])
   const [showProfileDropdown, setShowProfileDropdown] = useState(false)
+  const [unreadCount, setUnreadCount] = useState(0)
   const navigate = useNavigate();
   const location = useLocation();
   const dropdownRef = useRef(null);
@@ -25,6 +28,15 @@ const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfi
     };
   }, []);
 
+  // Keep the unread badge current while logged in; the stream sends the count on connect and on every change
+  useEffect(() => {
+    if (!user) {
+      setUnreadCount(0);
+      return;
+    }
+    return subscribeToMessages({ onUnread: setUnreadCount });
+  }, [user?.id]);
+
   // Get search query from URL if on marketplace
   useEffect(() => {
     if (location.pathname === '/marketplace') {
@@ -34,6 +46,32 @@ const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfi
     }
   }, [location]);
 
+  // Fetch search-box suggestions once typing pauses; suggestions are optional, so failures are ignored
+  useEffect(() => {
+    const prefix = searchQuery.trim();
+    if (prefix.length < 2) {
+      setSuggestions([]);
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const results = await getSuggestions(prefix);
+        if (!cancelled) {
+          setSuggestions(results || []);
+        }
+      } catch (error) {
+        if (!cancelled) {
+          setSuggestions([]);
+        }
+      }
+    }, 150);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchQuery]);
+
   const handleSearch = (e) => {
     e.preventDefault();
     if (location.pathname === '/marketplace') {
@@ -101,6 +139,11 @@ const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfi
                 className="border border-gray-300 text-gray-300 hover:text-white hover:border-white px-4 py-2 rounded-md text-sm font-medium transition-colors flex items-center space-x-2"
               >
                 <span>Profile</span>
+                {unreadCount > 0 && (
+                  <span className="bg-red-600 text-white text-xs font-semibold rounded-full px-2 py-0.5">
+                    {unreadCount > 99 ? '99+' : unreadCount}
+                  </span>
+                )}
                 <svg className="w-4 h-4" fill="none" stroke="currentColor" viewBox="0 0 24 24">
                   <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M19 9l-7 7-7-7" />
                 </svg>
@@ -135,7 +178,14 @@ const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfi
                         }}
                         className="block w-full text-left px-4 py-2.5 text-sm text-gray-300 hover:bg-gray-700 hover:text-white transition-colors"
                       >
-                        View My Messages
+                        <span className="flex items-center justify-between">
+                          <span>View My Messages</span>
+                          {unreadCount > 0 && (
+                            <span className="bg-red-600 text-white text-xs font-semibold rounded-full px-2 py-0.5">
+                              {unreadCount}
+                            </span>
+                          )}
+                        </span>
                       </button>
                       <div className="border-t border-gray-700 my-1"></div>
                       {user.role =='ADMIN' ? (
@@ -201,8 +251,15 @@ const Header = ({ user, isHome, onLoginClick, onSignupClick, onLogout, onMyProfi
                 placeholder="Search for a textbook..."
                 value={searchQuery}
                 onChange={(e) => setSearchQuery(e.target.value)}
+                list="search-suggestions"
+                autoComplete="off"
                 className="flex-1 px-4 py-3 bg-gray-800 border border-gray-700 rounded-lg text-white placeholder-gray-400 focus:outline-none focus:ring-2 focus:ring-indigo-500 focus:border-transparent"
               />
+              <datalist id="search-suggestions">
+                {suggestions.map((suggestion) => (
+                  <option key={`${suggestion.type}-${suggestion.text}`} value={suggestion.text} />
+                ))}
+              </datalist>
               <button 
                 type="submit"
                 className="bg-indigo-600 hover:bg-indigo-700 text-white px-8 py-3 rounded-lg font-medium transition-colors"
@@ -1,4 +1,4 @@
-import apiClient from './apiClient.js';
+import apiClient, { getAuthToken } from './apiClient.js';
 
 /**
  * Send a message
@@ -93,6 +93,32 @@ export const getListingConversation = async (listingId, userId1, userId2, page =
   }
 };
 
+/**
+ * Get a slice of the conversation for a listing, newest first
+ * @param {string} listingId - Listing ID
+ * @param {string} userId1 - First user ID
+ * @param {string} userId2 - Second user ID
+ * @param {Object} options - { before, after, size }: pass nextCursor as before to load older
+ *   messages, or prevCursor as after to fetch the ones sent since (optional)
+ * @returns {Promise<Object>} { content, nextCursor, prevCursor, hasNext }
+ */
+export const getListingConversationHistory = async (listingId, userId1, userId2, { before, after, size = 20 } = {}) => {
+  try {
+    const params = new URLSearchParams({ size });
+    if (before) params.set('before', before);
+    if (after) params.set('after', after);
+    const response = await apiClient.get(
+      `/api/messages/conversation/listing/${listingId}/${userId1}/${userId2}/history?${params}`
+    );
+    return response.data;
+  } catch (error) {
+    throw {
+      message: error.message || 'Failed to fetch conversation',
+      status: error.status || 500,
+    };
+  }
+};
+
 /**
  * Get messages sent by a user
  * @param {string} userId - User ID
@@ -249,3 +275,103 @@ export const deleteMessage = async (messageId) => {
   }
 };
 
+
+// Live message stream (GET /api/messages/stream), shared by every subscriber in the tab.
+// fetch is used instead of EventSource because the stream needs the Authorization header.
+const streamListeners = new Set();
+let streamController = null;
+let reconnectTimer = null;
+let reconnectDelay = 1000;
+
+const dispatchStreamEvent = (name, data) => {
+  let payload;
+  try {
+    payload = JSON.parse(data);
+  } catch {
+    return;
+  }
+  streamListeners.forEach((listener) => {
+    if (name === 'message' && listener.onMessage) listener.onMessage(payload);
+    if (name === 'unread' && listener.onUnread) listener.onUnread(payload.count);
+  });
+};
+
+// Split the stream into events ("event:" and "data:" lines ended by a blank line); ":" lines are heartbeats
+const readStream = async (body) => {
+  const reader = body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buffer += decoder.decode(value, { stream: true });
+    let end;
+    while ((end = buffer.indexOf('\n\n')) >= 0) {
+      const block = buffer.slice(0, end);
+      buffer = buffer.slice(end + 2);
+      let name = 'message';
+      const data = [];
+      block.split('\n').forEach((line) => {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5));
+      });
+      if (data.length > 0) dispatchStreamEvent(name, data.join('\n'));
+    }
+  }
+};
+
+const openStream = async () => {
+  const token = getAuthToken() || localStorage.getItem('auth.token');
+  if (!token || streamListeners.size === 0) return;
+  const controller = new AbortController();
+  streamController = controller;
+  try {
+    const response = await fetch(`${apiClient.defaults.baseURL}/api/messages/stream`, {
+      headers: { Authorization: `Bearer ${token}`, Accept: 'text/event-stream' },
+      signal: controller.signal,
+    });
+    if (response.status === 401 || response.status === 503) {
+      // logged out or push disabled on the server: pages keep working without live updates
+      if (streamController === controller) streamController = null;
+      return;
+    }
+    if (!response.ok || !response.body) throw new Error(`Stream failed with status ${response.status}`);
+    reconnectDelay = 1000;
+    await readStream(response.body);
+  } catch (error) {
+    if (controller.signal.aborted) return;
+    console.error('Message stream error:', error);
+  }
+  if (streamController === controller && streamListeners.size > 0) {
+    // closed by the server (timeout, slow connection) or the network: reconnect with backoff
+    reconnectTimer = setTimeout(openStream, reconnectDelay);
+    reconnectDelay = Math.min(reconnectDelay * 2, 30000);
+  }
+};
+
+const closeStream = () => {
+  clearTimeout(reconnectTimer);
+  reconnectTimer = null;
+  if (streamController) {
+    streamController.abort();
+    streamController = null;
+  }
+};
+
+/**
+ * Receive new messages and unread counts as they happen
+ * @param {Object} listener - { onMessage(message), onUnread(count) }, both optional
+ * @returns {Function} Unsubscribe function
+ */
+export const subscribeToMessages = (listener) => {
+  streamListeners.add(listener);
+  if (!streamController) {
+    openStream();
+  }
+  return () => {
+    streamListeners.delete(listener);
+    if (streamListeners.size === 0) {
+      closeStream();
+    }
+  };
+};
@@ -13,4 +13,17 @@ export const askChatbot = async (query) => {
       status: error.status || 500,
     };
   }
-};
\ No newline at end of file
+};
+
+export const getSuggestions = async (prefix, limit = 8) => {
+  try {
+    const params = new URLSearchParams({ prefix, limit });
+    const response = await apiClient.get(`/api/listings/autocomplete?${params.toString()}`);
+    return response.data;
+  } catch (error) {
+    throw {
+      message: error.message || 'Failed to fetch suggestions',
+      status: error.status || 500,
+    };
+  }
+};